@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.benchmark;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.jpmml.evaluator.*;
+
+import org.dmg.pmml.*;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * <p>
+ * Measures the single-record latency and the batch throughput of an {@link Evaluator}.
+ * </p>
+ *
+ * Allocation rates are reported by the GC profiler:
+ * <pre>
+ * java -jar pmml-benchmark/target/benchmarks.jar EvaluatorBenchmark -prof gc
+ * </pre>
+ *
+ * A subset of fixtures is selected with the <code>fixture</code> parameter:
+ * <pre>
+ * java -jar pmml-benchmark/target/benchmarks.jar EvaluatorBenchmark -p fixture=rattle/RandomForestAudit
+ * </pre>
+ */
+@Warmup (
+	iterations = 5,
+	time = 1
+)
+@Measurement (
+	iterations = 5,
+	time = 1
+)
+@Fork (
+	value = 1
+)
+public class EvaluatorBenchmark {
+
+	/**
+	 * Evaluates one record at a time. Every invocation takes the next record of the fixture, so that the outcome does not stay constant.
+	 */
+	@Benchmark
+	@BenchmarkMode (
+		value = Mode.AverageTime
+	)
+	@OutputTimeUnit (
+		value = TimeUnit.MICROSECONDS
+	)
+	public Map<FieldName, ?> evaluate(FixtureState fixtureState, Cursor cursor){
+		Evaluator evaluator = fixtureState.getEvaluator();
+
+		List<Map<FieldName, Object>> rows = fixtureState.getRows();
+
+		return evaluator.evaluate(rows.get(cursor.next(rows.size())));
+	}
+
+	/**
+	 * Evaluates all records of the fixture in one call.
+	 */
+	@Benchmark
+	@BenchmarkMode (
+		value = Mode.Throughput
+	)
+	@OutputTimeUnit (
+		value = TimeUnit.SECONDS
+	)
+	public Map<FieldName, List<?>> evaluateBatch(FixtureState fixtureState){
+		BatchEvaluator evaluator = fixtureState.getEvaluator();
+
+		return evaluator.evaluateBatch(fixtureState.getColumns());
+	}
+
+	@State (
+		value = Scope.Thread
+	)
+	static
+	public class Cursor {
+
+		private int position = 0;
+
+
+		public int next(int size){
+			int result = this.position;
+
+			this.position = (result + 1) % size;
+
+			return result;
+		}
+	}
+}
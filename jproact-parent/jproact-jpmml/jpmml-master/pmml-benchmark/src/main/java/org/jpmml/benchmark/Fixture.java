@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.benchmark;
+
+import java.io.*;
+import java.util.*;
+
+import org.jpmml.evaluator.*;
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.io.*;
+
+/**
+ * A PMML document together with a CSV document of model inputs.
+ *
+ * The fixtures of the evaluation engine and integration modules are packaged as resources under <code>/evaluator</code>, <code>/knime</code>, <code>/rapidminer</code> and <code>/rattle</code>.
+ */
+public class Fixture {
+
+	private String model = null;
+
+	private String input = null;
+
+
+	public Fixture(String model, String input){
+		setModel(model);
+		setInput(input);
+	}
+
+	public byte[] loadModel() throws IOException {
+		return load(getModel());
+	}
+
+	public byte[] loadInput() throws IOException {
+		return load(getInput());
+	}
+
+	public String getModel(){
+		return this.model;
+	}
+
+	private void setModel(String model){
+		this.model = model;
+	}
+
+	public String getInput(){
+		return this.input;
+	}
+
+	private void setInput(String input){
+		this.input = input;
+	}
+
+	static
+	public Fixture get(String id){
+		Fixture fixture = Fixture.fixtures.get(id);
+		if(fixture == null){
+			throw new IllegalArgumentException(id);
+		}
+
+		return fixture;
+	}
+
+	static
+	public PMML unmarshal(byte[] bytes) throws Exception {
+		InputStream is = new ByteArrayInputStream(bytes);
+
+		try {
+			return IOUtil.unmarshal(is);
+		} finally {
+			is.close();
+		}
+	}
+
+	static
+	public Evaluator createEvaluator(PMML pmml){
+		PMMLManager pmmlManager = new PMMLManager(pmml);
+
+		ModelManager<?> modelManager = pmmlManager.getModelManager(null, ModelEvaluatorFactory.getInstance());
+
+		return (Evaluator)modelManager;
+	}
+
+	/**
+	 * Prepares the values of {@link Evaluator#getActiveFields() active fields} and {@link Evaluator#getGroupFields() group fields} the same way as {@link BatchUtil} does.
+	 */
+	static
+	public List<Map<FieldName, Object>> prepareArguments(Evaluator evaluator, byte[] bytes) throws IOException {
+		List<Map<FieldName, String>> input = CsvUtil.load(new ByteArrayInputStream(bytes));
+
+		List<FieldName> activeFields = evaluator.getActiveFields();
+		List<FieldName> groupFields = evaluator.getGroupFields();
+
+		List<FieldName> inputFields = Lists.newArrayList();
+		inputFields.addAll(activeFields);
+		inputFields.addAll(groupFields);
+
+		List<Map<FieldName, Object>> result = Lists.newArrayList();
+
+		for(Map<FieldName, String> inputRow : input){
+			Map<FieldName, Object> arguments = Maps.newLinkedHashMap();
+
+			for(FieldName inputField : inputFields){
+				String inputCell = inputRow.get(inputField);
+
+				arguments.put(inputField, evaluator.prepare(inputField, inputCell));
+			}
+
+			result.add(arguments);
+		}
+
+		if(groupFields.size() == 1){
+			FieldName groupField = groupFields.get(0);
+
+			result = EvaluatorUtil.groupRows(groupField, result);
+		} else
+
+		if(groupFields.size() > 1){
+			throw new EvaluationException();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Transposes a list of rows to a map of columns, as expected by {@link BatchEvaluator#evaluateBatch(Map)}.
+	 */
+	static
+	public Map<FieldName, List<?>> toColumns(List<? extends Map<FieldName, ?>> rows){
+		Map<FieldName, List<Object>> columns = Maps.newLinkedHashMap();
+
+		for(int i = 0; i < rows.size(); i++){
+			Map<FieldName, ?> row = rows.get(i);
+
+			Collection<? extends Map.Entry<FieldName, ?>> entries = row.entrySet();
+			for(Map.Entry<FieldName, ?> entry : entries){
+				List<Object> column = columns.get(entry.getKey());
+
+				if(column == null){
+					column = Lists.newArrayList(Collections.nCopies(rows.size(), null));
+
+					columns.put(entry.getKey(), column);
+				}
+
+				column.set(i, entry.getValue());
+			}
+		}
+
+		return new LinkedHashMap<FieldName, List<?>>(columns);
+	}
+
+	static
+	private byte[] load(String path) throws IOException {
+		InputStream is = Fixture.class.getResourceAsStream(path);
+		if(is == null){
+			throw new FileNotFoundException(path);
+		}
+
+		try {
+			return ByteStreams.toByteArray(is);
+		} finally {
+			is.close();
+		}
+	}
+
+	private static final Map<String, Fixture> fixtures = ImmutableMap.<String, Fixture>builder()
+		// AssociationModelEvaluator
+		.put("rattle/AssociationRulesShopping", new Fixture("/rattle/pmml/AssociationRulesShopping.pmml", "/rattle/csv/Shopping.csv"))
+		// ClusteringModelEvaluator
+		.put("rattle/HierarchicalClusteringIris", new Fixture("/rattle/pmml/HierarchicalClusteringIris.pmml", "/rattle/csv/Iris.csv"))
+		.put("rattle/KMeansIris", new Fixture("/rattle/pmml/KMeansIris.pmml", "/rattle/csv/Iris.csv"))
+		// GeneralRegressionModelEvaluator
+		.put("rattle/GeneralRegressionAudit", new Fixture("/rattle/pmml/GeneralRegressionAudit.pmml", "/rattle/csv/Audit.csv"))
+		// MiningModelEvaluator
+		.put("rattle/RandomForestAudit", new Fixture("/rattle/pmml/RandomForestAudit.pmml", "/rattle/csv/Audit.csv"))
+		.put("rattle/RandomForestOzone", new Fixture("/rattle/pmml/RandomForestOzone.pmml", "/rattle/csv/Ozone.csv"))
+		// NaiveBayesModelEvaluator
+		.put("rattle/NaiveBayesAudit", new Fixture("/rattle/pmml/NaiveBayesAudit.pmml", "/rattle/csv/Audit.csv"))
+		// NearestNeighborModelEvaluator
+		.put("evaluator/MixedNeighborhood", new Fixture("/evaluator/pmml/MixedNeighborhoodTest.pmml", "/csv/MixedNeighborhood.csv"))
+		// NeuralNetworkEvaluator
+		.put("rattle/NeuralNetworkAudit", new Fixture("/rattle/pmml/NeuralNetworkAudit.pmml", "/rattle/csv/Audit.csv"))
+		.put("knime/NeuralNetworkOzone", new Fixture("/knime/pmml/NeuralNetworkOzone.pmml", "/knime/csv/Ozone.csv"))
+		// RegressionModelEvaluator
+		.put("rattle/RegressionOzone", new Fixture("/rattle/pmml/RegressionOzone.pmml", "/rattle/csv/Ozone.csv"))
+		// RuleSetModelEvaluator
+		.put("rapidminer/RuleSetAudit", new Fixture("/rapidminer/pmml/RuleSetAudit.pmml", "/rapidminer/csv/Audit.csv"))
+		// ScorecardEvaluator
+		.put("evaluator/AttributeReasonCode", new Fixture("/evaluator/pmml/AttributeReasonCodeTest.pmml", "/csv/Scorecard.csv"))
+		// SupportVectorMachineModelEvaluator
+		.put("rattle/SupportVectorMachineAudit", new Fixture("/rattle/pmml/SupportVectorMachineAudit.pmml", "/rattle/csv/Audit.csv"))
+		.put("knime/SupportVectorMachineIris", new Fixture("/knime/pmml/SupportVectorMachineIris.pmml", "/knime/csv/Iris.csv"))
+		// TreeModelEvaluator
+		.put("rattle/DecisionTreeAudit", new Fixture("/rattle/pmml/DecisionTreeAudit.pmml", "/rattle/csv/Audit.csv"))
+		.put("rapidminer/DecisionTreeIris", new Fixture("/rapidminer/pmml/DecisionTreeIris.pmml", "/rapidminer/csv/Iris.csv"))
+		.build();
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.benchmark;
+
+import java.util.*;
+
+import org.jpmml.evaluator.*;
+
+import org.dmg.pmml.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+
+/**
+ * A fixture that has been loaded and prepared for evaluation.
+ * The state is shared between all benchmark threads, which is safe because evaluators do not modify the PMML class model.
+ */
+@State (
+	value = Scope.Benchmark
+)
+public class FixtureState {
+
+	/**
+	 * @see Fixture#get(String)
+	 */
+	@Param (
+		value = {
+			"rattle/AssociationRulesShopping",
+			"rattle/HierarchicalClusteringIris",
+			"rattle/KMeansIris",
+			"rattle/GeneralRegressionAudit",
+			"rattle/RandomForestAudit",
+			"rattle/RandomForestOzone",
+			"rattle/NaiveBayesAudit",
+			"evaluator/MixedNeighborhood",
+			"rattle/NeuralNetworkAudit",
+			"knime/NeuralNetworkOzone",
+			"rattle/RegressionOzone",
+			"rapidminer/RuleSetAudit",
+			"evaluator/AttributeReasonCode",
+			"rattle/SupportVectorMachineAudit",
+			"knime/SupportVectorMachineIris",
+			"rattle/DecisionTreeAudit",
+			"rapidminer/DecisionTreeIris"
+		}
+	)
+	public String fixture = null;
+
+	private byte[] model = null;
+
+	private BatchEvaluator evaluator = null;
+
+	private List<Map<FieldName, Object>> rows = null;
+
+	private Map<FieldName, List<?>> columns = null;
+
+
+	@Setup (
+		value = Level.Trial
+	)
+	public void setup() throws Exception {
+		Fixture fixture = Fixture.get(this.fixture);
+
+		this.model = fixture.loadModel();
+
+		this.evaluator = (BatchEvaluator)Fixture.createEvaluator(Fixture.unmarshal(this.model));
+
+		this.rows = Fixture.prepareArguments(this.evaluator, fixture.loadInput());
+		if(this.rows.isEmpty()){
+			throw new IllegalStateException(this.fixture);
+		}
+
+		this.columns = Fixture.toColumns(this.rows);
+
+		// Trigger the computation of all lazily initialized model data
+		this.evaluator.evaluateBatch(this.columns);
+	}
+
+	/**
+	 * @return The PMML document as a byte array, so that model loading can be measured without I/O.
+	 */
+	public byte[] getModel(){
+		return this.model;
+	}
+
+	public BatchEvaluator getEvaluator(){
+		return this.evaluator;
+	}
+
+	public List<Map<FieldName, Object>> getRows(){
+		return this.rows;
+	}
+
+	public Map<FieldName, List<?>> getColumns(){
+		return this.columns;
+	}
+}
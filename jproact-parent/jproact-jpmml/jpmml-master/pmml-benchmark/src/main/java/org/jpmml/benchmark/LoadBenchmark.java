@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.benchmark;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.jpmml.evaluator.*;
+
+import org.dmg.pmml.*;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the time that it takes to load a model.
+ *
+ * Precomputed model data is cached against the PMML class model, so every invocation starts from a cold evaluator.
+ */
+@BenchmarkMode (
+	value = Mode.AverageTime
+)
+@OutputTimeUnit (
+	value = TimeUnit.MILLISECONDS
+)
+@Warmup (
+	iterations = 5,
+	time = 1
+)
+@Measurement (
+	iterations = 5,
+	time = 1
+)
+@Fork (
+	value = 1
+)
+public class LoadBenchmark {
+
+	/**
+	 * Unmarshals the PMML document and creates an evaluator for it.
+	 */
+	@Benchmark
+	public Evaluator load(FixtureState fixtureState) throws Exception {
+		PMML pmml = Fixture.unmarshal(fixtureState.getModel());
+
+		return Fixture.createEvaluator(pmml);
+	}
+
+	/**
+	 * Unmarshals the PMML document, creates an evaluator for it and evaluates the first record.
+	 * The difference to {@link #load(FixtureState)} is the cost of computing lazily initialized model data.
+	 */
+	@Benchmark
+	public Map<FieldName, ?> loadAndEvaluate(FixtureState fixtureState) throws Exception {
+		PMML pmml = Fixture.unmarshal(fixtureState.getModel());
+
+		Evaluator evaluator = Fixture.createEvaluator(pmml);
+
+		List<Map<FieldName, Object>> rows = fixtureState.getRows();
+
+		return evaluator.evaluate(rows.get(0));
+	}
+}
@@ -98,35 +98,14 @@ public class AssociationModelEvaluator extends ModelEvaluator<AssociationModel>
 
 		Set<String> input = createInput(values, context);
 
-		Map<String, Boolean> flags = Maps.newLinkedHashMap();
-
-		List<Itemset> itemsets = associationModel.getItemsets();
-		for(Itemset itemset : itemsets){
-			flags.put(itemset.getId(), isSubset(input, itemset));
-		}
+		ItemsetIndex itemsetIndex = getItemsetIndex();
 
 		List<AssociationRule> associationRules = associationModel.getAssociationRules();
 
 		BitSet antecedentFlags = new BitSet(associationRules.size());
 		BitSet consequentFlags = new BitSet(associationRules.size());
 
-		for(int i = 0; i < associationRules.size(); i++){
-			AssociationRule associationRule = associationRules.get(i);
-
-			Boolean antecedentFlag = flags.get(associationRule.getAntecedent());
-			if(antecedentFlag == null){
-				throw new InvalidFeatureException(associationRule);
-			}
-
-			antecedentFlags.set(i, antecedentFlag);
-
-			Boolean consequentFlag = flags.get(associationRule.getConsequent());
-			if(consequentFlag == null){
-				throw new InvalidFeatureException(associationRule);
-			}
-
-			consequentFlags.set(i, consequentFlag);
-		}
+		itemsetIndex.match(input, antecedentFlags, consequentFlags);
 
 		Association association = new Association(associationRules, antecedentFlags, consequentFlags){
 
@@ -174,20 +153,8 @@ public class AssociationModelEvaluator extends ModelEvaluator<AssociationModel>
 		return result;
 	}
 
-	static
-	private boolean isSubset(Set<String> input, Itemset itemset){
-		boolean result = true;
-
-		List<ItemRef> itemRefs = itemset.getItemRefs();
-		for(ItemRef itemRef : itemRefs){
-			result &= input.contains(itemRef.getItemRef());
-
-			if(!result){
-				return false;
-			}
-		}
-
-		return result;
+	public ItemsetIndex getItemsetIndex(){
+		return getValue(AssociationModelEvaluator.itemsetIndexCache);
 	}
 
 	/**
@@ -265,6 +232,16 @@ public class AssociationModelEvaluator extends ModelEvaluator<AssociationModel>
 			}
 		});
 
+	private static final LoadingCache<AssociationModel, ItemsetIndex> itemsetIndexCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<AssociationModel, ItemsetIndex>(){
+
+			@Override
+			public ItemsetIndex load(AssociationModel associationModel){
+				return ItemsetIndex.create(associationModel);
+			}
+		});
+
 	private static final LoadingCache<AssociationModel, BiMap<String, String>> itemValueCache = CacheBuilder.newBuilder()
 		.weakKeys()
 		.build(new CacheLoader<AssociationModel, BiMap<String, String>>(){
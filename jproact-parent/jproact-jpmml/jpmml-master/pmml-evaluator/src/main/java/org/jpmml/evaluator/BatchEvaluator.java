@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+/**
+ * <p>
+ * An {@link Evaluator} that can evaluate a block of records in one go.
+ * </p>
+ *
+ * Performing the {@link #evaluateBatch(Map) evaluation} of a block of records:
+ * <pre>
+ * Map&lt;FieldName, List&lt;?&gt;&gt; arguments = new LinkedHashMap&lt;FieldName, List&lt;?&gt;&gt;();
+ * for(FieldName activeField : activeFields){
+ *   List&lt;FieldValue&gt; activeValues = ...;
+ *   arguments.put(activeField, activeValues);
+ * }
+ *
+ * Map&lt;FieldName, List&lt;?&gt;&gt; result = evaluator.evaluateBatch(arguments);
+ * List&lt;?&gt; targetValues = result.get(targetField);
+ * </pre>
+ *
+ * @see ModelEvaluator
+ */
+public interface BatchEvaluator extends Evaluator {
+
+	/**
+	 * Evaluates a block of records that is laid out by columns.
+	 *
+	 * @param arguments Map of {@link #getActiveFields() active field} value columns.
+	 * All columns must have the same length.
+	 * The elements of a column are either {@link #prepare(FieldName, Object) prepared values} or user-supplied values.
+	 *
+	 * @return Map of {@link #getPredictedFields() predicted field} and {@link #getOutputFields() output field} value columns.
+	 * The i-th element of every column is the result for the i-th record, as returned by {@link #evaluate(Map)}.
+	 *
+	 * @throws PMMLException If the evaluation of any record fails.
+	 *
+	 * @see #evaluate(Map)
+	 */
+	Map<FieldName, List<?>> evaluateBatch(Map<FieldName, ? extends List<?>> arguments);
+}
\ No newline at end of file
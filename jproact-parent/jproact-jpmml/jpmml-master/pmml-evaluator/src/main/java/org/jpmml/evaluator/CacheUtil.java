@@ -3,6 +3,8 @@
  */
 package org.jpmml.evaluator;
 
+import java.util.concurrent.*;
+
 import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
@@ -30,4 +32,22 @@ public class CacheUtil {
 			throw new InvalidFeatureException(key);
 		}
 	}
+
+	static
+	public <K extends PMMLObject, V> V getValue(K key, Cache<K, V> cache, Callable<? extends V> loader){
+
+		try {
+			return cache.get(key, loader);
+		} catch(ExecutionException ee){
+			throw new InvalidFeatureException(key);
+		} catch(UncheckedExecutionException uee){
+			Throwable cause = uee.getCause();
+
+			if(cause instanceof PMMLException){
+				throw (PMMLException)cause;
+			}
+
+			throw new InvalidFeatureException(key);
+		}
+	}
 }
\ No newline at end of file
@@ -21,6 +21,11 @@ public class CategoricalValue extends FieldValue {
 		throw new EvaluationException();
 	}
 
+	@Override
+	public int compareToParsedValue(Object parsedValue){
+		throw new EvaluationException();
+	}
+
 	@Override
 	public int compareToValue(FieldValue that){
 		throw new EvaluationException();
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.math.*;
+
+/**
+ * <p>
+ * Codes of categories, as seen by field values of a specific data type.
+ * Categories that have equal parsed values share the same code, which is the index of the first such category.
+ * </p>
+ *
+ * Numeric categories are compared on doubles only when the result is identical to the comparison of parsed values.
+ * Field values of any other data type must be matched by {@link FieldValue#equalsString(String)}.
+ *
+ * @see TypeUtil#parse(DataType, String)
+ */
+class CategoryCodes {
+
+	private DataType dataType = null;
+
+	private Map<Object, Integer> codes = null;
+
+	/**
+	 * Per category.
+	 */
+	private int[] categoryCodes = null;
+
+
+	private CategoryCodes(DataType dataType, Map<Object, Integer> codes, int[] categoryCodes){
+		this.dataType = dataType;
+		this.codes = codes;
+		this.categoryCodes = categoryCodes;
+	}
+
+	/**
+	 * @return The code, or <code>-1</code> if the value is not equal to any category.
+	 */
+	public int getCode(FieldValue value){
+		Object key;
+
+		switch(this.dataType){
+			case STRING:
+				key = value.getValue();
+				break;
+			default:
+				key = Double.valueOf(value.asDouble());
+				break;
+		}
+
+		Integer result = this.codes.get(key);
+
+		return (result != null ? result.intValue() : -1);
+	}
+
+	public int[] getCategoryCodes(){
+		return this.categoryCodes;
+	}
+
+	/**
+	 * @return Mapping between data types and codes. Data types that are not mapped must be matched by {@link FieldValue#equalsString(String)}.
+	 */
+	static
+	public Map<DataType, CategoryCodes> create(String[] categories){
+		Map<DataType, CategoryCodes> result = Maps.newEnumMap(DataType.class);
+
+		for(DataType dataType : CategoryCodes.DATA_TYPES){
+			CategoryCodes codes = create(categories, dataType);
+
+			if(codes != null){
+				result.put(dataType, codes);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The codes, or <code>null</code> if some category cannot be parsed.
+	 */
+	static
+	public CategoryCodes create(String[] categories, DataType dataType){
+		Map<Object, Integer> codes = Maps.newHashMap();
+
+		int[] categoryCodes = new int[categories.length];
+
+		for(int i = 0; i < categories.length; i++){
+			Object key = parseKey(categories[i], dataType);
+			if(key == null){
+				return null;
+			}
+
+			Integer code = codes.get(key);
+			if(code == null){
+				code = i;
+
+				codes.put(key, code);
+			}
+
+			categoryCodes[i] = code.intValue();
+		}
+
+		return new CategoryCodes(dataType, codes, categoryCodes);
+	}
+
+	static
+	private Object parseKey(String value, DataType dataType){
+
+		if(value == null){
+			return null;
+		}
+
+		switch(dataType){
+			case STRING:
+				return value;
+			default:
+				break;
+		}
+
+		double result;
+
+		try {
+			result = Double.parseDouble(value);
+		} catch(NumberFormatException nfe){
+			return null;
+		}
+
+		switch(dataType){
+			case DOUBLE:
+				return Double.valueOf(result);
+			case INTEGER:
+				if(!DoubleMath.isMathematicalInteger(result) || (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE)){
+					return null;
+				}
+
+				// Canonicalize negative zero
+				return Double.valueOf((int)result);
+			default:
+				return null;
+		}
+	}
+
+	private static final DataType[] DATA_TYPES = {DataType.STRING, DataType.DOUBLE, DataType.INTEGER};
+}
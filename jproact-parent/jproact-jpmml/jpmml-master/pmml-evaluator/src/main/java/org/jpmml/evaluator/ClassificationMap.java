@@ -14,11 +14,110 @@ public class ClassificationMap<K> extends LinkedHashMap<K, Double> implements Co
 
 	private Type type = null;
 
+	private transient Loader<K> loader = null;
+
 
 	protected ClassificationMap(Type type){
 		setType(type);
 	}
 
+	@Override
+	public int size(){
+		load();
+
+		return super.size();
+	}
+
+	@Override
+	public boolean isEmpty(){
+		load();
+
+		return super.isEmpty();
+	}
+
+	@Override
+	public Double get(Object key){
+		load();
+
+		return super.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key){
+		load();
+
+		return super.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value){
+		load();
+
+		return super.containsValue(value);
+	}
+
+	@Override
+	public Double put(K key, Double value){
+		load();
+
+		return super.put(key, value);
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends Double> map){
+		load();
+
+		super.putAll(map);
+	}
+
+	@Override
+	public Double remove(Object key){
+		load();
+
+		return super.remove(key);
+	}
+
+	@Override
+	public void clear(){
+		load();
+
+		super.clear();
+	}
+
+	@Override
+	public Set<K> keySet(){
+		load();
+
+		return super.keySet();
+	}
+
+	@Override
+	public Collection<Double> values(){
+		load();
+
+		return super.values();
+	}
+
+	@Override
+	public Set<Map.Entry<K, Double>> entrySet(){
+		load();
+
+		return super.entrySet();
+	}
+
+	@Override
+	public Object clone(){
+		load();
+
+		return super.clone();
+	}
+
+	protected Object writeReplace(){
+		load();
+
+		return this;
+	}
+
 	@Override
 	public Object getResult(){
 		Map.Entry<K, Double> entry = getWinner();
@@ -116,6 +215,26 @@ public class ClassificationMap<K> extends LinkedHashMap<K, Double> implements Co
 		}
 	}
 
+	/**
+	 * Defers the computation of entries until the map is accessed for the first time.
+	 *
+	 * @see Loader
+	 */
+	void setLoader(Loader<K> loader){
+		this.loader = loader;
+	}
+
+	private void load(){
+		Loader<K> loader = this.loader;
+
+		if(loader != null){
+			// Clear the loader first, because the loader populates this map using regular put operations
+			this.loader = null;
+
+			loader.load(this);
+		}
+	}
+
 	public Type getType(){
 		return this.type;
 	}
@@ -124,6 +243,12 @@ public class ClassificationMap<K> extends LinkedHashMap<K, Double> implements Co
 		this.type = type;
 	}
 
+	static
+	interface Loader<K> {
+
+		void load(ClassificationMap<K> map);
+	}
+
 	static
 	public enum Type implements Comparator<Double> {
 		PROBABILITY(Ordering.INCREASING),
@@ -9,6 +9,7 @@ import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.base.Optional;
 import com.google.common.cache.*;
 import com.google.common.collect.*;
 
@@ -40,6 +41,15 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 		return getValue(ClusteringModelEvaluator.entityCache);
 	}
 
+	/**
+	 * @return The compiled model, or <code>null</code> if the comparison measure is not supported.
+	 */
+	public CompiledClusteringModel getCompiledClusteringModel(){
+		Optional<CompiledClusteringModel> compiledModel = getValue(ClusteringModelEvaluator.compiledModelCache);
+
+		return compiledModel.orNull();
+	}
+
 	@Override
 	public Map<FieldName, ?> evaluate(Map<FieldName, ?> arguments){
 		ClusteringModel clusteringModel = getModel();
@@ -64,26 +74,91 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 		return OutputUtil.evaluate(predictions, context);
 	}
 
-	private Map<FieldName, ClusterClassificationMap> evaluateClustering(EvaluationContext context){
+	/**
+	 * Assigns a batch of records to their nearest clusters.
+	 *
+	 * Distance-based models are scored against the {@link #getCompiledClusteringModel() cluster center matrix}, where the distance calculation of a cluster is abandoned as soon as it cannot be nearer than the current nearest cluster.
+	 * The assignment is identical to the cluster that {@link #evaluate(Map)} would select.
+	 * Output fields are not evaluated.
+	 *
+	 * @param records The arguments, one map per record.
+	 *
+	 * @return The identifiers of nearest clusters, one per record.
+	 */
+	public List<String> assignClusters(List<? extends Map<FieldName, ?>> records){
 		ClusteringModel clusteringModel = getModel();
+		if(!clusteringModel.isScorable()){
+			throw new InvalidResultException(clusteringModel);
+		}
 
-		ClusteringModel.ModelClass modelClass = clusteringModel.getModelClass();
-		switch(modelClass){
-			case CENTER_BASED:
+		MiningFunctionType miningFunction = clusteringModel.getFunctionName();
+		switch(miningFunction){
+			case CLUSTERING:
 				break;
 			default:
-				throw new UnsupportedFeatureException(clusteringModel, modelClass);
+				throw new UnsupportedFeatureException(clusteringModel, miningFunction);
 		}
 
-		List<FieldValue> values = Lists.newArrayList();
+		checkModelClass();
+
+		List<String> result = Lists.newArrayListWithCapacity(records.size());
+
+		CompiledClusteringModel compiledModel = getCompiledClusteringModel();
+		if(compiledModel == null){
+
+			for(Map<FieldName, ?> record : records){
+				ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(this);
+				context.pushFrame(record);
+
+				Map<FieldName, ClusterClassificationMap> predictions = evaluateClustering(context);
+
+				ClusterClassificationMap clusterMap = predictions.get(getTargetField());
+
+				result.add(clusterMap.getClusterId());
+			}
+
+			return result;
+		}
 
 		List<ClusteringField> clusteringFields = getCenterClusteringFields();
-		for(ClusteringField clusteringField : clusteringFields){
-			FieldValue value = ExpressionUtil.evaluate(clusteringField.getField(), context);
 
-			values.add(value);
+		double[][] inputs = new double[records.size()][];
+		boolean[][] missing = new boolean[records.size()][];
+
+		for(int i = 0; i < records.size(); i++){
+			ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(this);
+			context.pushFrame(records.get(i));
+
+			List<FieldValue> values = evaluateValues(clusteringFields, context);
+
+			inputs[i] = new double[values.size()];
+			missing[i] = new boolean[values.size()];
+
+			toArrays(values, inputs[i], missing[i]);
 		}
 
+		int[] rows = compiledModel.assign(inputs, missing, null);
+
+		BiMap<Cluster, String> inverseEntities = (getEntityRegistry()).inverse();
+
+		List<Cluster> clusters = clusteringModel.getClusters();
+
+		for(int row : rows){
+			result.add(row > -1 ? inverseEntities.get(clusters.get(row)) : null);
+		}
+
+		return result;
+	}
+
+	private Map<FieldName, ClusterClassificationMap> evaluateClustering(EvaluationContext context){
+		ClusteringModel clusteringModel = getModel();
+
+		checkModelClass();
+
+		List<ClusteringField> clusteringFields = getCenterClusteringFields();
+
+		List<FieldValue> values = evaluateValues(clusteringFields, context);
+
 		ClusterClassificationMap result;
 
 		ComparisonMeasure comparisonMeasure = clusteringModel.getComparisonMeasure();
@@ -137,6 +212,28 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 
 		ClusterClassificationMap result = new ClusterClassificationMap(ClassificationMap.Type.DISTANCE);
 
+		CompiledClusteringModel compiledModel = getCompiledClusteringModel();
+		if(compiledModel != null){
+			double[] input = new double[values.size()];
+			boolean[] missing = new boolean[values.size()];
+
+			toArrays(values, input, missing);
+
+			// The result must hold the distance to every cluster, because the affinity of any cluster may be requested as an output field
+			double[] distances = compiledModel.evaluateDistances(input, missing);
+
+			BiMap<Cluster, String> inverseEntities = (getEntityRegistry()).inverse();
+
+			List<Cluster> clusters = clusteringModel.getClusters();
+			for(int i = 0; i < clusters.size(); i++){
+				Cluster cluster = clusters.get(i);
+
+				result.put(cluster, inverseEntities.get(cluster), distances[i]);
+			}
+
+			return result;
+		}
+
 		Double adjustment;
 
 		MissingValueWeights missingValueWeights = clusteringModel.getMissingValueWeights();
@@ -175,9 +272,36 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 		return result;
 	}
 
-	private List<ClusteringField> getCenterClusteringFields(){
+	private void checkModelClass(){
 		ClusteringModel clusteringModel = getModel();
 
+		ClusteringModel.ModelClass modelClass = clusteringModel.getModelClass();
+		switch(modelClass){
+			case CENTER_BASED:
+				break;
+			default:
+				throw new UnsupportedFeatureException(clusteringModel, modelClass);
+		}
+	}
+
+	private List<FieldValue> evaluateValues(List<ClusteringField> clusteringFields, EvaluationContext context){
+		List<FieldValue> result = Lists.newArrayList();
+
+		for(ClusteringField clusteringField : clusteringFields){
+			FieldValue value = ExpressionUtil.evaluate(clusteringField.getField(), context);
+
+			result.add(value);
+		}
+
+		return result;
+	}
+
+	private List<ClusteringField> getCenterClusteringFields(){
+		return getCenterClusteringFields(getModel());
+	}
+
+	static
+	private List<ClusteringField> getCenterClusteringFields(ClusteringModel clusteringModel){
 		List<ClusteringField> result = Lists.newArrayList();
 
 		List<ClusteringField> clusteringFields = clusteringModel.getClusteringFields();
@@ -198,6 +322,22 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 		return result;
 	}
 
+	static
+	private void toArrays(List<FieldValue> values, double[] input, boolean[] missing){
+
+		for(int i = 0; i < values.size(); i++){
+			FieldValue value = values.get(i);
+
+			if(value == null){
+				missing[i] = true;
+			} else
+
+			{
+				input[i] = value.asDouble();
+			}
+		}
+	}
+
 	private static final LoadingCache<Cluster, List<FieldValue>> clusterValueCache = CacheBuilder.newBuilder()
 		.weakKeys()
 		.build(new CacheLoader<Cluster, List<FieldValue>>(){
@@ -229,6 +369,24 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 			}
 		});
 
+	private static final LoadingCache<ClusteringModel, Optional<CompiledClusteringModel>> compiledModelCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<ClusteringModel, Optional<CompiledClusteringModel>>(){
+
+			@Override
+			public Optional<CompiledClusteringModel> load(ClusteringModel clusteringModel){
+				ComparisonMeasure comparisonMeasure = clusteringModel.getComparisonMeasure();
+
+				if(!MeasureUtil.isDistance(comparisonMeasure.getMeasure())){
+					return Optional.absent();
+				}
+
+				CompiledClusteringModel compiledModel = CompiledClusteringModel.create(clusteringModel, getCenterClusteringFields(clusteringModel));
+
+				return Optional.fromNullable(compiledModel);
+			}
+		});
+
 	private static final LoadingCache<ClusteringModel, BiMap<String, Cluster>> entityCache = CacheBuilder.newBuilder()
 		.weakKeys()
 		.build(new CacheLoader<ClusteringModel, BiMap<String, Cluster>>(){
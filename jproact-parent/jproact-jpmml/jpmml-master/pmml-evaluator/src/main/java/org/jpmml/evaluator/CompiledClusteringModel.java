@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+/**
+ * <p>
+ * A center-based {@link ClusteringModel} that has been compiled into a cluster center matrix.
+ * </p>
+ *
+ * Cluster centers are laid out as a contiguous row-major matrix, one row per cluster.
+ * Distances are accumulated in the same order and with the same operations as {@link MeasureUtil#evaluateDistance}, so that the results are identical.
+ *
+ * The assignment of a record to its nearest cluster abandons the distance calculation of a cluster as soon as the partial distance is strictly greater than the distance to the current nearest cluster.
+ * The nearest cluster is the first cluster with the smallest distance, same as in {@link ClusterClassificationMap}.
+ *
+ * @see ClusteringModelEvaluator
+ */
+public class CompiledClusteringModel {
+
+	private int numberOfClusters = 0;
+
+	private int numberOfFields = 0;
+
+	/**
+	 * Row-major matrix of cluster centers.
+	 */
+	private double[] centers = null;
+
+	private double[] weights = null;
+
+	private int[] compareFunctions = null;
+
+	private double[] similarityScales = null;
+
+	private double[] adjustmentValues = null;
+
+	private double innerPower = 0d;
+
+	private double outerPower = 0d;
+
+	private boolean chebychev = false;
+
+	/**
+	 * <code>true</code> if partial distances never decrease as more fields are visited.
+	 */
+	private boolean abandonable = false;
+
+
+	private CompiledClusteringModel(){
+	}
+
+	public int getNumberOfClusters(){
+		return this.numberOfClusters;
+	}
+
+	public int getNumberOfFields(){
+		return this.numberOfFields;
+	}
+
+	/**
+	 * @param input The values of center clustering fields.
+	 * @param missing Flags for missing values. Missing values do not contribute to the distance.
+	 *
+	 * @return Distances, one per cluster.
+	 */
+	public double[] evaluateDistances(double[] input, boolean[] missing){
+		double adjustment = evaluateAdjustment(input, missing);
+
+		double[] result = new double[this.numberOfClusters];
+
+		for(int row = 0; row < result.length; row++){
+			result[row] = evaluateDistance(input, missing, adjustment, row, Double.NaN);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The index of the nearest cluster.
+	 */
+	public int assign(double[] input, boolean[] missing){
+		return assign(input, missing, null, 0);
+	}
+
+	/**
+	 * Assigns a block of records to their nearest clusters.
+	 *
+	 * @param distances The distances to nearest clusters (output). May be <code>null</code>.
+	 *
+	 * @return The indices of nearest clusters, one per record.
+	 */
+	public int[] assign(double[][] inputs, boolean[][] missing, double[] distances){
+		int[] result = new int[inputs.length];
+
+		for(int i = 0; i < inputs.length; i++){
+			result[i] = assign(inputs[i], missing[i], distances, i);
+		}
+
+		return result;
+	}
+
+	private int assign(double[] input, boolean[] missing, double[] distances, int index){
+		double adjustment = evaluateAdjustment(input, missing);
+
+		// Scaling by a positive adjustment preserves the order of partial distances
+		boolean abandon = (this.abandonable && adjustment > 0d);
+
+		int result = -1;
+
+		double bestDistance = Double.NaN;
+		double bestPartial = Double.NaN;
+
+		for(int row = 0; row < this.numberOfClusters; row++){
+			double partial = evaluatePartialDistance(input, missing, row, (abandon ? bestPartial : Double.NaN));
+
+			// An abandoned cluster is at positive infinity, which is never strictly nearer than the current nearest cluster
+			double distance = finishDistance(partial, adjustment);
+
+			if(result < 0 || Double.compare(distance, bestDistance) < 0){
+				result = row;
+
+				bestDistance = distance;
+				bestPartial = partial;
+			}
+		}
+
+		if(distances != null){
+			distances[index] = bestDistance;
+		}
+
+		return result;
+	}
+
+	private double evaluateDistance(double[] input, boolean[] missing, double adjustment, int row, double limit){
+		return finishDistance(evaluatePartialDistance(input, missing, row, limit), adjustment);
+	}
+
+	/**
+	 * @param limit The partial distance above which the calculation is abandoned, or {@link Double#NaN}.
+	 *
+	 * @return The partial distance (before the adjustment and the outer function has been applied), or {@link Double#POSITIVE_INFINITY} if the calculation was abandoned.
+	 */
+	private double evaluatePartialDistance(double[] input, boolean[] missing, int row, double limit){
+		double[] centers = this.centers;
+
+		int offset = row * this.numberOfFields;
+
+		boolean chebychev = this.chebychev;
+
+		double result = (chebychev ? Double.NEGATIVE_INFINITY : 0d);
+
+		for(int i = 0; i < this.numberOfFields; i++){
+
+			if(missing[i]){
+				continue;
+			}
+
+			double z = (input[i] - centers[offset + i]);
+
+			double distance;
+
+			switch(this.compareFunctions[i]){
+				case CompiledClusteringModel.COMPARE_ABS_DIFF:
+					distance = Math.abs(z);
+					break;
+				case CompiledClusteringModel.COMPARE_GAUSS_SIM:
+					distance = Math.exp(-Math.log(2d) * Math.pow(z, 2d) / Math.pow(this.similarityScales[i], 2d));
+					break;
+				default:
+					throw new IllegalStateException();
+			}
+
+			distance = this.weights[i] * Math.pow(distance, this.innerPower);
+
+			if(chebychev){
+				result = Math.max(result, distance);
+			} else
+
+			{
+				result += distance;
+			} // End if
+
+			if(result > limit){
+				return Double.POSITIVE_INFINITY;
+			}
+		}
+
+		return result;
+	}
+
+	private double finishDistance(double partial, double adjustment){
+
+		if(this.chebychev){
+			return partial * adjustment;
+		}
+
+		return Math.pow(partial * adjustment, 1d / this.outerPower);
+	}
+
+	/**
+	 * @see MeasureUtil#calculateAdjustment(List, List)
+	 */
+	private double evaluateAdjustment(double[] input, boolean[] missing){
+
+		if(input.length != this.numberOfFields || missing.length != this.numberOfFields){
+			throw new EvaluationException();
+		}
+
+		double sum = 0d;
+		double nonmissingSum = 0d;
+
+		int count = 0;
+
+		for(int i = 0; i < this.numberOfFields; i++){
+			double adjustmentValue = (this.adjustmentValues != null ? this.adjustmentValues[i] : 1d);
+
+			sum += adjustmentValue;
+			nonmissingSum += (!missing[i] ? adjustmentValue : 0d);
+
+			count += (!missing[i] ? 1 : 0);
+		}
+
+		if(this.chebychev && count == 0){
+			throw new EvaluationException();
+		}
+
+		return (sum / nonmissingSum);
+	}
+
+	/**
+	 * @param clusteringFields Center clustering fields.
+	 *
+	 * @return The compiled model, or <code>null</code> if the comparison measure or comparison functions are not supported.
+	 */
+	static
+	public CompiledClusteringModel create(ClusteringModel clusteringModel, List<ClusteringField> clusteringFields){
+		CompiledClusteringModel result = new CompiledClusteringModel();
+
+		ComparisonMeasure comparisonMeasure = clusteringModel.getComparisonMeasure();
+
+		Measure measure = comparisonMeasure.getMeasure();
+
+		if(measure instanceof Euclidean){
+			result.innerPower = result.outerPower = 2d;
+		} else
+
+		if(measure instanceof SquaredEuclidean){
+			result.innerPower = 2d;
+			result.outerPower = 1d;
+		} else
+
+		if(measure instanceof Chebychev || measure instanceof CityBlock){
+			result.innerPower = result.outerPower = 1d;
+		} else
+
+		if(measure instanceof Minkowski){
+			Minkowski minkowski = (Minkowski)measure;
+
+			double p = minkowski.getPParameter();
+			if(p < 0){
+				throw new InvalidFeatureException(minkowski);
+			}
+
+			result.innerPower = result.outerPower = p;
+		} else
+
+		{
+			return null;
+		}
+
+		result.chebychev = (measure instanceof Chebychev);
+
+		int numberOfFields = clusteringFields.size();
+
+		result.numberOfFields = numberOfFields;
+		result.weights = new double[numberOfFields];
+		result.compareFunctions = new int[numberOfFields];
+		result.similarityScales = new double[numberOfFields];
+
+		boolean abandonable = (result.chebychev || result.outerPower > 0d);
+
+		for(int i = 0; i < numberOfFields; i++){
+			ClusteringField clusteringField = clusteringFields.get(i);
+
+			CompareFunctionType compareFunction = clusteringField.getCompareFunction();
+
+			if(compareFunction == null){
+				compareFunction = comparisonMeasure.getCompareFunction();
+
+				// The ComparisonMeasure element is limited to "attribute-less" comparison functions
+				switch(compareFunction){
+					case ABS_DIFF:
+					case DELTA:
+					case EQUAL:
+						break;
+					case GAUSS_SIM:
+					case TABLE:
+						throw new InvalidFeatureException(comparisonMeasure);
+					default:
+						throw new UnsupportedFeatureException(comparisonMeasure, compareFunction);
+				}
+			}
+
+			switch(compareFunction){
+				case ABS_DIFF:
+					result.compareFunctions[i] = CompiledClusteringModel.COMPARE_ABS_DIFF;
+					break;
+				case GAUSS_SIM:
+					{
+						Double similarityScale = clusteringField.getSimilarityScale();
+						if(similarityScale == null){
+							throw new InvalidFeatureException(clusteringField);
+						}
+
+						result.compareFunctions[i] = CompiledClusteringModel.COMPARE_GAUSS_SIM;
+						result.similarityScales[i] = similarityScale.doubleValue();
+					}
+					break;
+				default:
+					// Comparison functions that test field values for equality
+					return null;
+			}
+
+			result.weights[i] = clusteringField.getFieldWeight();
+
+			abandonable &= (result.weights[i] >= 0d);
+		}
+
+		result.abandonable = abandonable;
+
+		MissingValueWeights missingValueWeights = clusteringModel.getMissingValueWeights();
+		if(missingValueWeights != null){
+			Array array = missingValueWeights.getArray();
+
+			double[] adjustmentValues = ArrayUtil.toArray(array);
+			if(adjustmentValues.length != numberOfFields){
+				throw new InvalidFeatureException(missingValueWeights);
+			}
+
+			result.adjustmentValues = adjustmentValues;
+		}
+
+		List<Cluster> clusters = clusteringModel.getClusters();
+
+		result.numberOfClusters = clusters.size();
+		result.centers = new double[clusters.size() * numberOfFields];
+
+		for(int row = 0; row < clusters.size(); row++){
+			Cluster cluster = clusters.get(row);
+
+			Array array = cluster.getArray();
+			if(array == null){
+				throw new InvalidFeatureException(cluster);
+			}
+
+			double[] center = ArrayUtil.toArray(array);
+			if(center.length != numberOfFields){
+				throw new InvalidFeatureException(cluster);
+			}
+
+			System.arraycopy(center, 0, result.centers, row * numberOfFields, numberOfFields);
+		}
+
+		return result;
+	}
+
+	private static final int COMPARE_ABS_DIFF = 1;
+	private static final int COMPARE_GAUSS_SIM = 2;
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import org.dmg.pmml.*;
+
+/**
+ * <p>
+ * An {@link Expression} that has been translated to a tree of specialized evaluator nodes.
+ * </p>
+ *
+ * @see ExpressionCompiler
+ */
+abstract
+public class CompiledExpression {
+
+	/**
+	 * @return The value of the expression, or <code>null</code> if the value is missing.
+	 */
+	abstract
+	public FieldValue evaluate(EvaluationContext context);
+}
@@ -0,0 +1,647 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * A {@link GeneralRegressionModel} that has been compiled into a design vector and a coefficient matrix.
+ * </p>
+ *
+ * Every row of the {@link PPMatrix} becomes a feature of the design vector, which is identified by an ordinal.
+ * Every target category of the {@link ParamMatrix} becomes a row of the coefficient matrix, which holds feature ordinals and beta values.
+ * Coefficient rows are resolved against every target category of the PPMatrix in advance.
+ *
+ * Coefficient rows keep the order of PCell elements and skip features whose value is unknown, so that dot products are identical to summing PCell elements one by one.
+ * Predictor fields and features are evaluated at most once per record, and only when they are needed.
+ * Factor levels are matched against parsed values by hash lookup.
+ *
+ * @see GeneralRegressionModelEvaluator
+ */
+public class CompiledGeneralRegressionModel {
+
+	private FieldName[] names = null;
+
+	/**
+	 * Per predictor. The levels of a factor, or <code>null</code> for a covariate.
+	 */
+	private Factor[] factors = null;
+
+	private Feature[] features = null;
+
+	private Set<String> ppCategories = null;
+
+	/**
+	 * Mapping between pairs of ParamMatrix and PPMatrix target categories and coefficient rows.
+	 */
+	private Map<List<String>, Integer> rows = null;
+
+	/**
+	 * Mapping between pairs of ParamMatrix and PPMatrix target categories and coefficient rows, whose PCell elements are followed by the PCell elements of the <code>null</code> target category.
+	 */
+	private Map<List<String>, Integer> ordinalRows = null;
+
+	/**
+	 * Per coefficient row. Feature ordinals, or <code>-1</code> for parameters that do not have a PPMatrix row.
+	 */
+	private int[][] rowFeatures = null;
+
+	private double[][] rowBetas = null;
+
+
+	private CompiledGeneralRegressionModel(){
+	}
+
+	public int getNumberOfFeatures(){
+		return this.features.length;
+	}
+
+	public int getNumberOfRows(){
+		return this.rowFeatures.length;
+	}
+
+	/**
+	 * @return The target categories of PPCell elements.
+	 */
+	public Set<String> getPPCategories(){
+		return this.ppCategories;
+	}
+
+	/**
+	 * @return The coefficient row, or <code>-1</code>.
+	 */
+	public int getRow(String paramCategory, String ppCategory){
+		return getRow(this.rows, paramCategory, ppCategory);
+	}
+
+	/**
+	 * @return The coefficient row, or <code>-1</code>.
+	 */
+	public int getOrdinalRow(String paramCategory, String ppCategory){
+		return getRow(this.ordinalRows, paramCategory, ppCategory);
+	}
+
+	public DesignVector createDesignVector(EvaluationContext context){
+		return new DesignVector(context);
+	}
+
+	public class DesignVector {
+
+		private EvaluationContext context = null;
+
+		private FieldValue[] values = null;
+
+		private int[] codes = null;
+
+		private int[][] levelCodes = null;
+
+		/**
+		 * Per predictor. <code>true</code> if the value has been evaluated, <code>false</code> otherwise.
+		 */
+		private boolean[] evaluated = null;
+
+		private double[] features = null;
+
+		private byte[] states = null;
+
+
+		private DesignVector(EvaluationContext context){
+			this.context = context;
+
+			int size = CompiledGeneralRegressionModel.this.names.length;
+
+			this.values = new FieldValue[size];
+			this.codes = new int[size];
+			this.levelCodes = new int[size][];
+			this.evaluated = new boolean[size];
+
+			this.features = new double[CompiledGeneralRegressionModel.this.features.length];
+			this.states = new byte[CompiledGeneralRegressionModel.this.features.length];
+		}
+
+		public double dotProduct(int row){
+			int[] rowFeatures = CompiledGeneralRegressionModel.this.rowFeatures[row];
+			double[] rowBetas = CompiledGeneralRegressionModel.this.rowBetas[row];
+
+			double sum = 0d;
+
+			for(int i = 0; i < rowFeatures.length; i++){
+				double x;
+
+				int feature = rowFeatures[i];
+				if(feature > -1){
+
+					if(!evaluateFeature(feature)){
+						continue;
+					}
+
+					x = this.features[feature];
+				} else
+
+				// The row is empty
+				{
+					x = 1d;
+				}
+
+				sum += (x * rowBetas[i]);
+			}
+
+			return sum;
+		}
+
+		/**
+		 * @return <code>true</code> if the value of the feature is known, <code>false</code> otherwise.
+		 */
+		private boolean evaluateFeature(int feature){
+
+			switch(this.states[feature]){
+				case CompiledGeneralRegressionModel.STATE_KNOWN:
+					return true;
+				case CompiledGeneralRegressionModel.STATE_UNKNOWN:
+					return false;
+				default:
+					break;
+			}
+
+			Double value = (CompiledGeneralRegressionModel.this.features[feature]).evaluate(this);
+			if(value != null){
+				this.features[feature] = value.doubleValue();
+			}
+
+			this.states[feature] = (value != null ? CompiledGeneralRegressionModel.STATE_KNOWN : CompiledGeneralRegressionModel.STATE_UNKNOWN);
+
+			return (value != null);
+		}
+
+		private FieldValue getValue(int slot){
+
+			if(!this.evaluated[slot]){
+				FieldValue value = ExpressionUtil.evaluate(CompiledGeneralRegressionModel.this.names[slot], this.context);
+
+				this.values[slot] = value;
+
+				Factor factor = CompiledGeneralRegressionModel.this.factors[slot];
+				if(value != null && factor != null){
+					CategoryCodes codes = factor.getCodes(value.getDataType());
+
+					if(codes != null){
+						this.codes[slot] = codes.getCode(value);
+						this.levelCodes[slot] = codes.getCategoryCodes();
+					} else
+
+					{
+						this.codes[slot] = CompiledGeneralRegressionModel.CODE_GENERIC;
+					}
+				}
+
+				this.evaluated[slot] = true;
+			}
+
+			return this.values[slot];
+		}
+
+		/**
+		 * @param slot A predictor whose value has been evaluated and is not missing.
+		 */
+		private boolean matches(int slot, int level){
+			int code = this.codes[slot];
+
+			if(code == CompiledGeneralRegressionModel.CODE_GENERIC){
+				Factor factor = CompiledGeneralRegressionModel.this.factors[slot];
+
+				return (this.values[slot]).equalsString(factor.levels[level]);
+			}
+
+			return (code > -1 && code == this.levelCodes[slot][level]);
+		}
+	}
+
+	static
+	public CompiledGeneralRegressionModel create(GeneralRegressionModel generalRegressionModel, BiMap<FieldName, Predictor> factors, BiMap<FieldName, Predictor> covariates){
+		CompiledGeneralRegressionModel result = new CompiledGeneralRegressionModel();
+
+		Map<FieldName, Integer> slots = Maps.newLinkedHashMap();
+
+		Iterable<Predictor> predictors = Iterables.concat(factors.values(), covariates.values());
+		for(Predictor predictor : predictors){
+			FieldName name = predictor.getName();
+
+			if(!slots.containsKey(name)){
+				slots.put(name, slots.size());
+			}
+		}
+
+		result.names = (slots.keySet()).toArray(new FieldName[slots.size()]);
+
+		List<Set<String>> levels = Lists.newArrayList();
+
+		for(int i = 0; i < slots.size(); i++){
+			levels.add(Sets.<String>newLinkedHashSet());
+		}
+
+		List<Feature> features = Lists.newArrayList();
+
+		// Mapping between PPMatrix target categories and mappings between parameter names and features
+		Map<String, Map<String, Integer>> ppFeatures = Maps.newLinkedHashMap();
+
+		PPMatrix ppMatrix = generalRegressionModel.getPPMatrix();
+
+		ListMultimap<List<String>, PPCell> ppRows = LinkedListMultimap.create();
+
+		for(PPCell ppCell : ppMatrix.getPPCells()){
+			ppRows.put(Arrays.asList(ppCell.getTargetCategory(), ppCell.getParameterName()), ppCell);
+		}
+
+		for(List<String> key : ppRows.keySet()){
+			Feature feature = new Feature();
+
+			List<PPCell> ppCells = ppRows.get(key);
+
+			for(PPCell ppCell : ppCells){
+				FieldName name = ppCell.getPredictorName();
+
+				Predictor factor = factors.get(name);
+				if(factor != null){
+					int slot = slots.get(name);
+
+					Set<String> factorLevels = levels.get(slot);
+
+					Matrix matrix = factor.getMatrix();
+					if(matrix != null){
+						Categories categories = factor.getCategories();
+						if(categories == null){
+							throw new UnsupportedFeatureException(factor);
+						}
+
+						List<String> values = Lists.newArrayList();
+
+						for(Category category : categories){
+							values.add(category.getValue());
+						}
+
+						factorLevels.addAll(values);
+						factorLevels.add(ppCell.getValue());
+
+						feature.addContrast(slot, matrix, values, ppCell.getValue());
+					} else
+
+					{
+						factorLevels.add(ppCell.getValue());
+
+						feature.addFactor(slot, ppCell.getValue());
+					}
+
+					continue;
+				}
+
+				Predictor covariate = covariates.get(name);
+				if(covariate != null){
+					feature.addCovariate(slots.get(name), ppCell);
+
+					continue;
+				}
+
+				throw new InvalidFeatureException(ppCell);
+			}
+
+			Map<String, Integer> parameterFeatures = ppFeatures.get(key.get(0));
+			if(parameterFeatures == null){
+				parameterFeatures = Maps.newLinkedHashMap();
+
+				ppFeatures.put(key.get(0), parameterFeatures);
+			}
+
+			parameterFeatures.put(key.get(1), features.size());
+
+			features.add(feature);
+		}
+
+		result.factors = new Factor[slots.size()];
+
+		for(FieldName name : factors.keySet()){
+			int slot = slots.get(name);
+
+			Set<String> factorLevels = levels.get(slot);
+
+			result.factors[slot] = new Factor(factorLevels.toArray(new String[factorLevels.size()]));
+		}
+
+		for(Feature feature : features){
+			feature.resolveLevels(result.factors);
+		}
+
+		result.features = features.toArray(new Feature[features.size()]);
+		result.ppCategories = ppFeatures.keySet();
+
+		ParamMatrix paramMatrix = generalRegressionModel.getParamMatrix();
+
+		ListMultimap<String, PCell> paramRows = LinkedListMultimap.create();
+
+		for(PCell pCell : paramMatrix.getPCells()){
+			paramRows.put(pCell.getTargetCategory(), pCell);
+		}
+
+		List<int[]> rowFeatures = Lists.newArrayList();
+		List<double[]> rowBetas = Lists.newArrayList();
+
+		result.rows = Maps.newHashMap();
+		result.ordinalRows = Maps.newHashMap();
+
+		for(String paramCategory : paramRows.keySet()){
+
+			for(Map.Entry<String, Map<String, Integer>> entry : ppFeatures.entrySet()){
+				List<String> key = Arrays.asList(paramCategory, entry.getKey());
+
+				Map<String, Integer> parameterFeatures = entry.getValue();
+
+				List<PCell> pCells = paramRows.get(paramCategory);
+
+				result.rows.put(key, rowFeatures.size());
+
+				addRow(pCells, parameterFeatures, rowFeatures, rowBetas);
+
+				// "Values for all other parameters are constant across all target variable values"
+				if(paramCategory != null && paramRows.containsKey(null)){
+					result.ordinalRows.put(key, rowFeatures.size());
+
+					addRow(Lists.newArrayList(Iterables.concat(pCells, paramRows.get(null))), parameterFeatures, rowFeatures, rowBetas);
+				}
+			}
+		}
+
+		result.rowFeatures = rowFeatures.toArray(new int[rowFeatures.size()][]);
+		result.rowBetas = rowBetas.toArray(new double[rowBetas.size()][]);
+
+		return result;
+	}
+
+	static
+	private void addRow(List<PCell> pCells, Map<String, Integer> parameterFeatures, List<int[]> rowFeatures, List<double[]> rowBetas){
+		int[] features = new int[pCells.size()];
+		double[] betas = new double[pCells.size()];
+
+		for(int i = 0; i < pCells.size(); i++){
+			PCell pCell = pCells.get(i);
+
+			Integer feature = parameterFeatures.get(pCell.getParameterName());
+
+			features[i] = (feature != null ? feature.intValue() : -1);
+			betas[i] = pCell.getBeta();
+		}
+
+		rowFeatures.add(features);
+		rowBetas.add(betas);
+	}
+
+	static
+	private int getRow(Map<List<String>, Integer> rows, String paramCategory, String ppCategory){
+		Integer result = rows.get(Arrays.asList(paramCategory, ppCategory));
+
+		return (result != null ? result.intValue() : -1);
+	}
+
+	/**
+	 * A row of the PPMatrix.
+	 */
+	static
+	private class Feature {
+
+		private List<Integer> factorSlots = Lists.newArrayList();
+
+		private List<String> factorValues = Lists.newArrayList();
+
+		/**
+		 * Per factor term. The contrast matrix, or <code>null</code>.
+		 */
+		private List<Matrix> contrastMatrices = Lists.newArrayList();
+
+		private List<List<String>> contrastCategories = Lists.newArrayList();
+
+		private int[] factorLevels = null;
+
+		/**
+		 * Per factor term. The levels of contrast matrix categories, or <code>null</code>.
+		 */
+		private int[][] contrastLevels = null;
+
+		private List<Integer> covariateSlots = Lists.newArrayList();
+
+		private List<PPCell> covariateCells = Lists.newArrayList();
+
+		/**
+		 * Per covariate term. The multiplicity, or <code>null</code> if the value of the PPCell element is not a number.
+		 */
+		private List<Double> multiplicities = Lists.newArrayList();
+
+
+		public void addFactor(int slot, String value){
+			this.factorSlots.add(slot);
+			this.factorValues.add(value);
+			this.contrastMatrices.add(null);
+			this.contrastCategories.add(null);
+		}
+
+		public void addContrast(int slot, Matrix matrix, List<String> categories, String value){
+			this.factorSlots.add(slot);
+			this.factorValues.add(value);
+			this.contrastMatrices.add(matrix);
+			this.contrastCategories.add(categories);
+		}
+
+		public void addCovariate(int slot, PPCell ppCell){
+			Double multiplicity;
+
+			try {
+				multiplicity = Double.valueOf(ppCell.getValue());
+			} catch(NumberFormatException nfe){
+				multiplicity = null;
+			}
+
+			this.covariateSlots.add(slot);
+			this.covariateCells.add(ppCell);
+			this.multiplicities.add(multiplicity);
+		}
+
+		public void resolveLevels(Factor[] factors){
+			int size = this.factorSlots.size();
+
+			this.factorLevels = new int[size];
+			this.contrastLevels = new int[size][];
+
+			for(int i = 0; i < size; i++){
+				Factor factor = factors[this.factorSlots.get(i)];
+
+				this.factorLevels[i] = factor.getLevel(this.factorValues.get(i));
+
+				List<String> categories = this.contrastCategories.get(i);
+				if(categories != null){
+					int[] levels = new int[categories.size()];
+
+					for(int j = 0; j < categories.size(); j++){
+						levels[j] = factor.getLevel(categories.get(j));
+					}
+
+					this.contrastLevels[i] = levels;
+				}
+			}
+		}
+
+		/**
+		 * @return The value, or <code>null</code> if it is unknown.
+		 */
+		public Double evaluate(DesignVector designVector){
+			boolean hasFactors = !this.factorSlots.isEmpty();
+			boolean hasCovariates = !this.covariateSlots.isEmpty();
+
+			// The row is empty
+			if(!hasFactors && !hasCovariates){
+				return 1d;
+			}
+
+			Double factorProduct = (hasFactors ? computeFactorProduct(designVector) : null);
+			Double covariateProduct = (hasCovariates ? computeCovariateProduct(designVector) : null);
+
+			if(!hasCovariates){
+				return factorProduct;
+			} else
+
+			if(!hasFactors){
+				return covariateProduct;
+			} else
+
+			{
+				if(factorProduct != null && covariateProduct != null){
+					return (factorProduct * covariateProduct);
+				}
+
+				return null;
+			}
+		}
+
+		private Double computeFactorProduct(DesignVector designVector){
+			Double result = null;
+
+			for(int i = 0; i < this.factorLevels.length; i++){
+				int slot = this.factorSlots.get(i);
+
+				FieldValue value = designVector.getValue(slot);
+				if(value == null){
+					return null;
+				}
+
+				double factor;
+
+				Matrix matrix = this.contrastMatrices.get(i);
+				if(matrix != null){
+					List<String> categories = this.contrastCategories.get(i);
+
+					int[] levels = this.contrastLevels[i];
+
+					int row = -1;
+
+					for(int j = 0; j < levels.length; j++){
+
+						if(designVector.matches(slot, levels[j])){
+							row = j;
+
+							break;
+						}
+					}
+
+					int column = categories.indexOf(this.factorValues.get(i));
+
+					if(row < 0 || column < 0){
+						throw new EvaluationException();
+					}
+
+					Number element = MatrixUtil.getElementAt(matrix, row + 1, column + 1);
+					if(element == null){
+						throw new EvaluationException();
+					}
+
+					factor = element.doubleValue();
+				} else
+
+				{
+					factor = (designVector.matches(slot, this.factorLevels[i]) ? 1d : 0d);
+				}
+
+				result = (result != null ? (result * factor) : factor);
+			}
+
+			return result;
+		}
+
+		private Double computeCovariateProduct(DesignVector designVector){
+			Double result = null;
+
+			for(int i = 0; i < this.covariateSlots.size(); i++){
+				FieldValue value = designVector.getValue(this.covariateSlots.get(i));
+				if(value == null){
+					return null;
+				}
+
+				Double multiplicity = this.multiplicities.get(i);
+				if(multiplicity == null){
+					throw new InvalidFeatureException(this.covariateCells.get(i));
+				}
+
+				double covariate = Math.pow(value.asDouble(), multiplicity.doubleValue());
+
+				result = (result != null ? (result * covariate) : covariate);
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * The levels of a factor, together with their parsed values.
+	 */
+	static
+	private class Factor {
+
+		private String[] levels = null;
+
+		private Map<String, Integer> levelIndices = null;
+
+		private Map<DataType, CategoryCodes> codes = null;
+
+
+		private Factor(String[] levels){
+			this.levels = levels;
+
+			this.levelIndices = Maps.newHashMap();
+
+			for(int i = 0; i < levels.length; i++){
+				this.levelIndices.put(levels[i], i);
+			}
+
+			this.codes = CategoryCodes.create(levels);
+		}
+
+		public int getLevel(String value){
+			return (this.levelIndices.get(value)).intValue();
+		}
+
+		/**
+		 * @return The codes, or <code>null</code> if values of the specified data type must be matched by {@link FieldValue#equalsString(String)}.
+		 */
+		public CategoryCodes getCodes(DataType dataType){
+			return this.codes.get(dataType);
+		}
+	}
+
+	private static final int CODE_GENERIC = -2;
+
+	private static final byte STATE_KNOWN = 1;
+	private static final byte STATE_UNKNOWN = 2;
+}
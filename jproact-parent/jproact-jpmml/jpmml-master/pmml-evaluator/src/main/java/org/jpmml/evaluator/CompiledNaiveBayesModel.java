@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.apache.commons.math3.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * A {@link NaiveBayesModel} that has been compiled into log-probability tables.
+ * </p>
+ *
+ * Target values are identified by ordinals.
+ * Every category of a discrete input holds the logarithms of its conditional probabilities, one per target ordinal.
+ * Categories are looked up by their {@link CategoryCodes codes}, or by string comparison if they cannot be parsed into the data type of the field value.
+ * Every continuous input holds the constants of its Gaussian distributions, so that the logarithm of the density is evaluated without leaving the logarithmic scale.
+ *
+ * Log-probabilities are summed in the same order as target values are encountered in the model, so that the order of target values in the result is preserved.
+ *
+ * @see NaiveBayesModelEvaluator
+ */
+public class CompiledNaiveBayesModel {
+
+	private String[] targetValues = null;
+
+	private FieldName[] names = null;
+
+	private DerivedField[] derivedFields = null;
+
+	/**
+	 * Per discrete input. The values of PairCounts elements.
+	 */
+	private String[][] categories = null;
+
+	/**
+	 * Per discrete input. Mapping between data types and category codes.
+	 */
+	private List<Map<DataType, CategoryCodes>> codes = null;
+
+	/**
+	 * Per discrete input and category.
+	 */
+	private int[][][] categoryTargets = null;
+
+	/**
+	 * Per discrete input and category.
+	 */
+	private double[][][] categoryLogProbabilities = null;
+
+	/**
+	 * Per continuous input.
+	 */
+	private int[][] statTargets = null;
+
+	private double[][] statMeans = null;
+
+	/**
+	 * Twice the variance.
+	 */
+	private double[][] statDenominators = null;
+
+	/**
+	 * The logarithm of the normalization constant of the Gaussian density.
+	 */
+	private double[][] statLogNormalizers = null;
+
+	private int[] priorTargets = null;
+
+	private double[] priorLogCounts = null;
+
+
+	private CompiledNaiveBayesModel(){
+	}
+
+	/**
+	 * @return Target values, in the order of ordinals.
+	 */
+	public List<String> getTargetValues(){
+		return Arrays.asList(this.targetValues);
+	}
+
+	public int getNumberOfInputs(){
+		return this.names.length;
+	}
+
+	/**
+	 * @return Normalized probabilities.
+	 */
+	public DefaultClassificationMap<String> evaluate(EvaluationContext context){
+		Sums sums = new Sums(this.targetValues.length);
+
+		for(int i = 0; i < this.names.length; i++){
+			FieldValue value = ExpressionUtil.evaluate(this.names[i], context);
+
+			// "Missing values are ignored"
+			if(value == null){
+				continue;
+			}
+
+			int[] statTargets = this.statTargets[i];
+			if(statTargets != null){
+				double x = value.asDouble();
+
+				double[] means = this.statMeans[i];
+				double[] denominators = this.statDenominators[i];
+				double[] logNormalizers = this.statLogNormalizers[i];
+
+				for(int j = 0; j < statTargets.length; j++){
+					double z = (x - means[j]);
+
+					sums.add(statTargets[j], -(z * z) / denominators[j] - logNormalizers[j]);
+				}
+
+				continue;
+			}
+
+			DerivedField derivedField = this.derivedFields[i];
+			if(derivedField != null){
+				Discretize discretize = (Discretize)derivedField.getExpression();
+
+				value = DiscretizationUtil.discretize(discretize, value);
+				if(value == null){
+					throw new EvaluationException();
+				}
+
+				value = FieldValueUtil.refine(derivedField, value);
+			}
+
+			int category = getCategory(i, value);
+			if(category < 0){
+				continue;
+			}
+
+			int[] targets = this.categoryTargets[i][category];
+			double[] logProbabilities = this.categoryLogProbabilities[i][category];
+
+			for(int j = 0; j < targets.length; j++){
+				sums.add(targets[j], logProbabilities[j]);
+			}
+		}
+
+		for(int j = 0; j < this.priorTargets.length; j++){
+			sums.add(this.priorTargets[j], this.priorLogCounts[j]);
+		}
+
+		if(sums.size == 0){
+			throw new EvaluationException();
+		}
+
+		double max = 0d;
+
+		for(int j = 0; j < sums.size; j++){
+			double sum = sums.values[sums.order[j]];
+
+			if(j == 0 || Double.compare(sum, max) > 0){
+				max = sum;
+			}
+		}
+
+		DefaultClassificationMap<String> result = new DefaultClassificationMap<String>();
+
+		// Convert from logarithmic scale to normal scale
+		for(int j = 0; j < sums.size; j++){
+			int target = sums.order[j];
+
+			result.put(this.targetValues[target], Math.exp(sums.values[target] - max));
+		}
+
+		result.normalizeValues();
+
+		return result;
+	}
+
+	/**
+	 * @return The category, or <code>-1</code>.
+	 */
+	private int getCategory(int input, FieldValue value){
+		CategoryCodes codes = (this.codes.get(input)).get(value.getDataType());
+		if(codes != null){
+			return codes.getCode(value);
+		}
+
+		String[] categories = this.categories[input];
+
+		// The first matching PairCounts element wins
+		for(int i = 0; i < categories.length; i++){
+
+			if((value).equalsString(categories[i])){
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @param bayesInputs Bayes inputs, including those that are wrapped into Extension elements.
+	 * @param countsMap Mapping between fields and the total counts of target values.
+	 */
+	static
+	public CompiledNaiveBayesModel create(NaiveBayesModel naiveBayesModel, List<BayesInput> bayesInputs, Map<FieldName, Map<String, Double>> countsMap){
+		CompiledNaiveBayesModel result = new CompiledNaiveBayesModel();
+
+		Map<String, Integer> targets = Maps.newLinkedHashMap();
+
+		double threshold = naiveBayesModel.getThreshold();
+
+		int size = bayesInputs.size();
+
+		result.names = new FieldName[size];
+		result.derivedFields = new DerivedField[size];
+		result.categories = new String[size][];
+		result.codes = Lists.newArrayList(Collections.<Map<DataType, CategoryCodes>>nCopies(size, null));
+		result.categoryTargets = new int[size][][];
+		result.categoryLogProbabilities = new double[size][][];
+		result.statTargets = new int[size][];
+		result.statMeans = new double[size][];
+		result.statDenominators = new double[size][];
+		result.statLogNormalizers = new double[size][];
+
+		for(int i = 0; i < size; i++){
+			BayesInput bayesInput = bayesInputs.get(i);
+
+			FieldName name = FieldName.create(bayesInput.getFieldName());
+
+			result.names[i] = name;
+
+			TargetValueStats targetValueStats = bayesInput.getTargetValueStats();
+			if(targetValueStats != null){
+				List<Integer> statTargets = Lists.newArrayList();
+				List<Double> means = Lists.newArrayList();
+				List<Double> denominators = Lists.newArrayList();
+				List<Double> logNormalizers = Lists.newArrayList();
+
+				for(TargetValueStat targetValueStat : targetValueStats){
+					ContinuousDistribution distribution = targetValueStat.getContinuousDistribution();
+					if(!(distribution instanceof GaussianDistribution)){
+						throw new InvalidFeatureException(targetValueStat);
+					}
+
+					GaussianDistribution gaussianDistribution = (GaussianDistribution)distribution;
+
+					double variance = gaussianDistribution.getVariance();
+
+					statTargets.add(getTarget(targetValueStat.getValue(), targets));
+					means.add(gaussianDistribution.getMean());
+					denominators.add(2d * variance);
+					logNormalizers.add(Math.log(Math.sqrt(2d * Math.PI * variance)));
+				}
+
+				result.statTargets[i] = Ints.toArray(statTargets);
+				result.statMeans[i] = Doubles.toArray(means);
+				result.statDenominators[i] = Doubles.toArray(denominators);
+				result.statLogNormalizers[i] = Doubles.toArray(logNormalizers);
+
+				continue;
+			}
+
+			DerivedField derivedField = bayesInput.getDerivedField();
+			if(derivedField != null){
+				Expression expression = derivedField.getExpression();
+				if(!(expression instanceof Discretize)){
+					throw new InvalidFeatureException(derivedField);
+				}
+
+				result.derivedFields[i] = derivedField;
+			}
+
+			Map<String, Double> counts = countsMap.get(name);
+
+			List<PairCounts> pairCounts = bayesInput.getPairCounts();
+
+			result.categories[i] = new String[pairCounts.size()];
+			result.categoryTargets[i] = new int[pairCounts.size()][];
+			result.categoryLogProbabilities[i] = new double[pairCounts.size()][];
+
+			for(int j = 0; j < pairCounts.size(); j++){
+				PairCounts pairCount = pairCounts.get(j);
+
+				List<TargetValueCount> targetValueCounts = Lists.newArrayList(pairCount.getTargetValueCounts());
+
+				int[] categoryTargets = new int[targetValueCounts.size()];
+				double[] categoryLogProbabilities = new double[targetValueCounts.size()];
+
+				for(int k = 0; k < targetValueCounts.size(); k++){
+					TargetValueCount targetValueCount = targetValueCounts.get(k);
+
+					String targetValue = targetValueCount.getValue();
+
+					Double count = counts.get(targetValue);
+
+					double probability = (targetValueCount.getCount() / count);
+
+					// Replace zero probability with the default (usually very small) probability
+					if(VerificationUtil.isZero(probability, Precision.EPSILON)){
+						probability = threshold;
+					}
+
+					categoryTargets[k] = getTarget(targetValue, targets);
+					categoryLogProbabilities[k] = Math.log(probability);
+				}
+
+				result.categories[i][j] = pairCount.getValue();
+				result.categoryTargets[i][j] = categoryTargets;
+				result.categoryLogProbabilities[i][j] = categoryLogProbabilities;
+			}
+
+			result.codes.set(i, CategoryCodes.create(result.categories[i]));
+		}
+
+		BayesOutput bayesOutput = naiveBayesModel.getBayesOutput();
+
+		List<TargetValueCount> priorCounts = Lists.newArrayList(bayesOutput.getTargetValueCounts());
+
+		result.priorTargets = new int[priorCounts.size()];
+		result.priorLogCounts = new double[priorCounts.size()];
+
+		for(int j = 0; j < priorCounts.size(); j++){
+			TargetValueCount targetValueCount = priorCounts.get(j);
+
+			result.priorTargets[j] = getTarget(targetValueCount.getValue(), targets);
+			result.priorLogCounts[j] = Math.log(targetValueCount.getCount());
+		}
+
+		result.targetValues = (targets.keySet()).toArray(new String[targets.size()]);
+
+		return result;
+	}
+
+	static
+	private int getTarget(String targetValue, Map<String, Integer> targets){
+		Integer result = targets.get(targetValue);
+
+		if(result == null){
+			result = targets.size();
+
+			targets.put(targetValue, result);
+		}
+
+		return result.intValue();
+	}
+
+	/**
+	 * Sums of log-probabilities, together with the order in which target ordinals were first encountered.
+	 */
+	static
+	private class Sums {
+
+		private double[] values = null;
+
+		private int[] order = null;
+
+		private boolean[] seen = null;
+
+		private int size = 0;
+
+
+		private Sums(int capacity){
+			this.values = new double[capacity];
+			this.order = new int[capacity];
+			this.seen = new boolean[capacity];
+		}
+
+		public void add(int target, double value){
+
+			if(!this.seen[target]){
+				this.seen[target] = true;
+
+				this.order[this.size] = target;
+
+				this.size++;
+			}
+
+			this.values[target] += value;
+		}
+	}
+}
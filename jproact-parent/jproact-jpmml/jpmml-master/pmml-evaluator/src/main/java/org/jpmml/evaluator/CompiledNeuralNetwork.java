@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.base.Function;
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * A {@link NeuralNetwork} that has been compiled into weight matrices.
+ * </p>
+ *
+ * Neural inputs and neurons are numbered in document order, and their outputs are kept in a <code>double</code> array.
+ * Every neural layer is encoded as a bias vector and a weight matrix in compressed sparse row (CSR) format,
+ * where the row of a neuron lists the slots of the entities that it is connected to.
+ * Activation functions, thresholds and normalization methods are resolved once, at compile time.
+ *
+ * A block of records can be propagated through the network layer by layer, so that the weights of a layer are traversed once per block.
+ *
+ * @see NeuralNetworkEvaluator
+ */
+public class CompiledNeuralNetwork {
+
+	private String[] ids = null;
+
+	private Map<String, Integer> slots = null;
+
+	private DerivedField[] inputFields = null;
+
+	private Layer[] layers = null;
+
+
+	private CompiledNeuralNetwork(){
+	}
+
+	/**
+	 * @return The number of neural inputs and neurons.
+	 */
+	public int size(){
+		return this.ids.length;
+	}
+
+	/**
+	 * @return The slot of the entity, or <code>-1</code>.
+	 */
+	public int getSlot(String id){
+		Integer slot = this.slots.get(id);
+
+		return (slot != null ? slot.intValue() : -1);
+	}
+
+	/**
+	 * Evaluates neural inputs.
+	 *
+	 * @return An array of entity outputs, where only the slots of neural inputs have been populated.
+	 *
+	 * @throws MissingFieldException If a neural input evaluates to a missing value.
+	 */
+	public double[] evaluateInputs(EvaluationContext context){
+		double[] result = new double[this.ids.length];
+
+		for(int i = 0; i < this.inputFields.length; i++){
+			DerivedField derivedField = this.inputFields[i];
+
+			FieldValue value = ExpressionUtil.evaluate(derivedField, context);
+			if(value == null){
+				throw new MissingFieldException(derivedField.getName(), derivedField);
+			}
+
+			result[i] = value.asDouble();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Propagates a single record through the network.
+	 *
+	 * @param values An array of entity outputs, as returned by {@link #evaluateInputs(EvaluationContext)}.
+	 */
+	public void forward(double[] values){
+
+		for(Layer layer : this.layers){
+			int[] offsets = layer.offsets;
+			int[] columns = layer.columns;
+			double[] weights = layer.weights;
+
+			for(int i = 0; i < layer.biases.length; i++){
+				double z = layer.biases[i];
+
+				for(int j = offsets[i]; j < offsets[i + 1]; j++){
+					z += values[columns[j]] * weights[j];
+				}
+
+				values[layer.begin + i] = layer.activation(z);
+			}
+
+			layer.normalize(values);
+		}
+	}
+
+	/**
+	 * Propagates a block of records through the network.
+	 * Every layer is completed for all records before the next layer is started.
+	 *
+	 * @param block Arrays of entity outputs, as returned by {@link #evaluateInputs(EvaluationContext)}.
+	 */
+	public void forward(double[][] block){
+
+		for(Layer layer : this.layers){
+			int[] offsets = layer.offsets;
+			int[] columns = layer.columns;
+			double[] weights = layer.weights;
+
+			for(int i = 0; i < layer.biases.length; i++){
+				int slot = layer.begin + i;
+
+				for(double[] values : block){
+					double z = layer.biases[i];
+
+					for(int j = offsets[i]; j < offsets[i + 1]; j++){
+						z += values[columns[j]] * weights[j];
+					}
+
+					values[slot] = z;
+				}
+			}
+
+			for(double[] values : block){
+
+				for(int slot = layer.begin; slot < layer.end; slot++){
+					values[slot] = layer.activation(values[slot]);
+				}
+
+				layer.normalize(values);
+			}
+		}
+	}
+
+	/**
+	 * @return Mapping between Entity identifiers and their outputs
+	 */
+	public Map<String, Double> toMap(double[] values){
+		Map<String, Double> result = Maps.newLinkedHashMap();
+
+		for(int i = 0; i < this.ids.length; i++){
+			result.put(this.ids[i], values[i]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return A read-only view of entity outputs, keyed by Entity identifiers.
+	 */
+	public Map<String, Double> asMap(final double[] values){
+		Function<Integer, Double> function = new Function<Integer, Double>(){
+
+			@Override
+			public Double apply(Integer slot){
+				return values[slot.intValue()];
+			}
+		};
+
+		return Maps.transformValues(this.slots, function);
+	}
+
+	static
+	public CompiledNeuralNetwork create(NeuralNetwork neuralNetwork){
+		CompiledNeuralNetwork result = new CompiledNeuralNetwork();
+
+		List<String> ids = Lists.newArrayList();
+
+		Map<String, Integer> slots = Maps.newLinkedHashMap();
+
+		List<DerivedField> inputFields = Lists.newArrayList();
+
+		NeuralInputs neuralInputs = neuralNetwork.getNeuralInputs();
+		for(NeuralInput neuralInput : neuralInputs){
+			register(neuralInput, ids, slots);
+
+			inputFields.add(neuralInput.getDerivedField());
+		}
+
+		List<Layer> layers = Lists.newArrayList();
+
+		List<NeuralLayer> neuralLayers = neuralNetwork.getNeuralLayers();
+		for(NeuralLayer neuralLayer : neuralLayers){
+			List<Neuron> neurons = neuralLayer.getNeurons();
+
+			Layer layer = new Layer();
+			layer.begin = ids.size();
+			layer.end = layer.begin + neurons.size();
+
+			int count = 0;
+
+			for(Neuron neuron : neurons){
+				count += (neuron.getConnections()).size();
+			}
+
+			layer.biases = new double[neurons.size()];
+			layer.offsets = new int[neurons.size() + 1];
+			layer.columns = new int[count];
+			layer.weights = new double[count];
+
+			int index = 0;
+
+			for(int i = 0; i < neurons.size(); i++){
+				Neuron neuron = neurons.get(i);
+
+				Double bias = neuron.getBias();
+
+				layer.biases[i] = (bias != null ? bias.doubleValue() : 0d);
+				layer.offsets[i] = index;
+
+				List<Connection> connections = neuron.getConnections();
+				for(Connection connection : connections){
+					Integer slot = slots.get(connection.getFrom());
+
+					// A neuron may only be connected to neural inputs and to neurons of preceding layers
+					if(slot == null || slot.intValue() >= layer.begin){
+						throw new InvalidFeatureException(connection);
+					}
+
+					layer.columns[index] = slot.intValue();
+					layer.weights[index] = connection.getWeight();
+
+					index++;
+				}
+			}
+
+			layer.offsets[neurons.size()] = index;
+
+			for(Neuron neuron : neurons){
+				register(neuron, ids, slots);
+			}
+
+			PMMLObject locatable = neuralLayer;
+
+			ActivationFunctionType activationFunction = neuralLayer.getActivationFunction();
+			if(activationFunction == null){
+				locatable = neuralNetwork;
+
+				activationFunction = neuralNetwork.getActivationFunction();
+			}
+
+			switch(activationFunction){
+				case THRESHOLD:
+					{
+						Double threshold = neuralLayer.getThreshold();
+						if(threshold == null){
+							threshold = Double.valueOf(neuralNetwork.getThreshold());
+						}
+
+						layer.threshold = threshold.doubleValue();
+					}
+					break;
+				case LOGISTIC:
+				case TANH:
+				case IDENTITY:
+				case EXPONENTIAL:
+				case RECIPROCAL:
+				case SQUARE:
+				case GAUSS:
+				case SINE:
+				case COSINE:
+				case ELLIOTT:
+				case ARCTAN:
+					break;
+				default:
+					throw new UnsupportedFeatureException(locatable, activationFunction);
+			}
+
+			layer.activationFunction = activationFunction;
+
+			locatable = neuralLayer;
+
+			NnNormalizationMethodType normalizationMethod = neuralLayer.getNormalizationMethod();
+			if(normalizationMethod == null){
+				locatable = neuralNetwork;
+
+				normalizationMethod = neuralNetwork.getNormalizationMethod();
+			}
+
+			switch(normalizationMethod){
+				case NONE:
+				case SIMPLEMAX:
+				case SOFTMAX:
+					break;
+				default:
+					throw new UnsupportedFeatureException(locatable, normalizationMethod);
+			}
+
+			layer.normalizationMethod = normalizationMethod;
+
+			layers.add(layer);
+		}
+
+		result.ids = ids.toArray(new String[ids.size()]);
+		result.slots = ImmutableMap.copyOf(slots);
+		result.inputFields = inputFields.toArray(new DerivedField[inputFields.size()]);
+		result.layers = layers.toArray(new Layer[layers.size()]);
+
+		return result;
+	}
+
+	static
+	private void register(Entity entity, List<String> ids, Map<String, Integer> slots){
+		String id = entity.getId();
+
+		if(id == null || slots.containsKey(id)){
+			throw new InvalidFeatureException(entity);
+		}
+
+		slots.put(id, ids.size());
+
+		ids.add(id);
+	}
+
+	static
+	private class Layer {
+
+		/**
+		 * The slot of the first neuron (inclusive).
+		 */
+		private int begin = 0;
+
+		/**
+		 * The slot of the last neuron (exclusive).
+		 */
+		private int end = 0;
+
+		private double[] biases = null;
+
+		private int[] offsets = null;
+
+		private int[] columns = null;
+
+		private double[] weights = null;
+
+		private ActivationFunctionType activationFunction = null;
+
+		private double threshold = 0d;
+
+		private NnNormalizationMethodType normalizationMethod = null;
+
+
+		private double activation(double z){
+
+			switch(this.activationFunction){
+				case THRESHOLD:
+					return z > this.threshold ? 1.0 : 0.0;
+				case LOGISTIC:
+					return 1.0 / (1.0 + Math.exp(-z));
+				case TANH:
+					return (1.0 - Math.exp(-2.0*z)) / (1.0 + Math.exp(-2.0*z));
+				case IDENTITY:
+					return z;
+				case EXPONENTIAL:
+					return Math.exp(z);
+				case RECIPROCAL:
+					return 1.0/z;
+				case SQUARE:
+					return z*z;
+				case GAUSS:
+					return Math.exp(-(z*z));
+				case SINE:
+					return Math.sin(z);
+				case COSINE:
+					return Math.cos(z);
+				case ELLIOTT:
+					return z/(1.0 + Math.abs(z));
+				case ARCTAN:
+					return Math.atan(z);
+				default:
+					throw new IllegalStateException();
+			}
+		}
+
+		private void normalize(double[] values){
+			double sum = 0;
+
+			switch(this.normalizationMethod){
+				case NONE:
+					break;
+				case SIMPLEMAX:
+					for(int slot = this.begin; slot < this.end; slot++){
+						sum += values[slot];
+					}
+
+					for(int slot = this.begin; slot < this.end; slot++){
+						values[slot] = values[slot] / sum;
+					}
+					break;
+				case SOFTMAX:
+					for(int slot = this.begin; slot < this.end; slot++){
+						values[slot] = Math.exp(values[slot]);
+
+						sum += values[slot];
+					}
+
+					for(int slot = this.begin; slot < this.end; slot++){
+						values[slot] = values[slot] / sum;
+					}
+					break;
+				default:
+					throw new IllegalStateException();
+			}
+		}
+	}
+}
@@ -0,0 +1,576 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * A {@link RegressionModel} whose {@link RegressionTable} elements have been compiled into coefficient arrays.
+ * </p>
+ *
+ * Field values are evaluated at most once per record, and are shared between all regression tables.
+ * CategoricalPredictor elements are grouped by field, so that a single lookup of the field value selects all matching coefficients.
+ * Matching coefficients are summed in the order of CategoricalPredictor elements, and the products of non-matching coefficients and <code>0</code> are accounted for, so that the result is identical to summing all products one by one.
+ *
+ * @see RegressionModelEvaluator
+ */
+public class CompiledRegressionModel {
+
+	private FieldName[] names = null;
+
+	/**
+	 * Per field. The categories of CategoricalPredictor elements.
+	 */
+	private String[][] categories = null;
+
+	/**
+	 * Per field.
+	 */
+	private List<Map<DataType, CategoryCodes>> codes = null;
+
+	private Table[] tables = null;
+
+	/**
+	 * The largest number of CategoricalPredictor elements in a regression table.
+	 */
+	private int maxCategoricalPredictors = 0;
+
+
+	private CompiledRegressionModel(){
+	}
+
+	public int getNumberOfFields(){
+		return this.names.length;
+	}
+
+	public int getNumberOfTables(){
+		return this.tables.length;
+	}
+
+	public Arguments createArguments(EvaluationContext context){
+		return new Arguments(context);
+	}
+
+	public class Arguments {
+
+		private EvaluationContext context = null;
+
+		private FieldValue[] values = null;
+
+		private int[] codes = null;
+
+		private byte[] states = null;
+
+		/**
+		 * Scratch space for the positions of matching CategoricalPredictor elements of one regression table.
+		 */
+		private int[] matches = null;
+
+
+		private Arguments(EvaluationContext context){
+			this.context = context;
+
+			int size = CompiledRegressionModel.this.names.length;
+
+			this.values = new FieldValue[size];
+			this.codes = new int[size];
+			this.states = new byte[size];
+			this.matches = new int[CompiledRegressionModel.this.maxCategoricalPredictors];
+		}
+
+		/**
+		 * @return The value of the regression table, or <code>null</code> if it is missing.
+		 */
+		public Double evaluate(int table){
+			return (CompiledRegressionModel.this.tables[table]).evaluate(this);
+		}
+
+		public EvaluationContext getContext(){
+			return this.context;
+		}
+
+		private FieldName getName(int field){
+			return CompiledRegressionModel.this.names[field];
+		}
+
+		private FieldValue getValue(int field){
+
+			if(this.states[field] == 0){
+				this.values[field] = ExpressionUtil.evaluate(CompiledRegressionModel.this.names[field], this.context);
+
+				this.states[field] = CompiledRegressionModel.STATE_EVALUATED;
+			}
+
+			return this.values[field];
+		}
+
+		/**
+		 * @return The code of a non-missing value.
+		 *
+		 * @see CategoryCodes#getCode(FieldValue)
+		 */
+		private int getCode(int field){
+
+			if(this.states[field] != CompiledRegressionModel.STATE_ENCODED){
+				FieldValue value = getValue(field);
+
+				CategoryCodes codes = (CompiledRegressionModel.this.codes.get(field)).get(value.getDataType());
+				if(codes != null){
+					this.codes[field] = codes.getCode(value);
+				} else
+
+				{
+					this.codes[field] = CompiledRegressionModel.CODE_GENERIC;
+				}
+
+				this.states[field] = CompiledRegressionModel.STATE_ENCODED;
+			}
+
+			return this.codes[field];
+		}
+	}
+
+	static
+	public CompiledRegressionModel create(RegressionModel regressionModel){
+		CompiledRegressionModel result = new CompiledRegressionModel();
+
+		Map<FieldName, Integer> fields = Maps.newLinkedHashMap();
+
+		List<Map<String, Integer>> categories = Lists.newArrayList();
+
+		List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
+		for(RegressionTable regressionTable : regressionTables){
+
+			for(NumericPredictor numericPredictor : regressionTable.getNumericPredictors()){
+				ensureField(numericPredictor.getName(), fields, categories);
+			}
+
+			for(CategoricalPredictor categoricalPredictor : regressionTable.getCategoricalPredictors()){
+				int field = ensureField(categoricalPredictor.getName(), fields, categories);
+
+				ensureCategory(categoricalPredictor.getValue(), categories.get(field));
+			}
+
+			result.maxCategoricalPredictors = Math.max(result.maxCategoricalPredictors, (regressionTable.getCategoricalPredictors()).size());
+
+			for(PredictorTerm predictorTerm : regressionTable.getPredictorTerms()){
+
+				for(FieldRef fieldRef : predictorTerm.getFieldRefs()){
+					ensureField(fieldRef.getField(), fields, categories);
+				}
+			}
+		}
+
+		result.names = (fields.keySet()).toArray(new FieldName[fields.size()]);
+
+		result.categories = new String[fields.size()][];
+		result.codes = Lists.newArrayList();
+
+		for(int i = 0; i < fields.size(); i++){
+			Set<String> fieldCategories = (categories.get(i)).keySet();
+
+			result.categories[i] = fieldCategories.toArray(new String[fieldCategories.size()]);
+			result.codes.add(CategoryCodes.create(result.categories[i]));
+		}
+
+		result.tables = new Table[regressionTables.size()];
+
+		for(int i = 0; i < regressionTables.size(); i++){
+			result.tables[i] = new Table(regressionTables.get(i), fields, categories, result.codes);
+		}
+
+		return result;
+	}
+
+	static
+	private int ensureField(FieldName name, Map<FieldName, Integer> fields, List<Map<String, Integer>> categories){
+		Integer result = fields.get(name);
+
+		if(result == null){
+			result = fields.size();
+
+			fields.put(name, result);
+			categories.add(Maps.<String, Integer>newLinkedHashMap());
+		}
+
+		return result.intValue();
+	}
+
+	static
+	private int ensureCategory(String category, Map<String, Integer> categories){
+		Integer result = categories.get(category);
+
+		if(result == null){
+			result = categories.size();
+
+			categories.put(category, result);
+		}
+
+		return result.intValue();
+	}
+
+	static
+	private class Table {
+
+		private double intercept = 0d;
+
+		private int[] numericFields = null;
+
+		private int[] exponents = null;
+
+		private double[] numericCoefficients = null;
+
+		private int[] categoricalFields = null;
+
+		private String[] categoricalValues = null;
+
+		/**
+		 * Per CategoricalPredictor. The index of the category among the categories of the field.
+		 */
+		private int[] categoricalCategories = null;
+
+		private double[] categoricalCoefficients = null;
+
+		/**
+		 * Per CategoricalPredictor. <code>true</code> if the product of the coefficient and <code>0</code> is positive zero, <code>false</code> otherwise.
+		 */
+		private boolean[] positiveZeros = null;
+
+		/**
+		 * Per CategoricalPredictor. <code>true</code> if the product of the coefficient and <code>0</code> is not a number, <code>false</code> otherwise.
+		 */
+		private boolean[] nonFinites = null;
+
+		private Group[] groups = null;
+
+		private double[] termCoefficients = null;
+
+		private int[][] termFields = null;
+
+		/**
+		 * Per PredictorTerm per FieldRef. The value of the <code>mapMissingTo</code> attribute.
+		 */
+		private FieldValue[][] termDefaults = null;
+
+
+		private Table(RegressionTable regressionTable, Map<FieldName, Integer> fields, List<Map<String, Integer>> categories, List<Map<DataType, CategoryCodes>> codes){
+			this.intercept = regressionTable.getIntercept();
+
+			List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+
+			this.numericFields = new int[numericPredictors.size()];
+			this.exponents = new int[numericPredictors.size()];
+			this.numericCoefficients = new double[numericPredictors.size()];
+
+			for(int i = 0; i < numericPredictors.size(); i++){
+				NumericPredictor numericPredictor = numericPredictors.get(i);
+
+				this.numericFields[i] = fields.get(numericPredictor.getName());
+				this.exponents[i] = numericPredictor.getExponent();
+				this.numericCoefficients[i] = numericPredictor.getCoefficient();
+			}
+
+			List<CategoricalPredictor> categoricalPredictors = regressionTable.getCategoricalPredictors();
+
+			this.categoricalFields = new int[categoricalPredictors.size()];
+			this.categoricalValues = new String[categoricalPredictors.size()];
+			this.categoricalCategories = new int[categoricalPredictors.size()];
+			this.categoricalCoefficients = new double[categoricalPredictors.size()];
+			this.positiveZeros = new boolean[categoricalPredictors.size()];
+			this.nonFinites = new boolean[categoricalPredictors.size()];
+
+			ListMultimap<Integer, Integer> fieldPositions = LinkedListMultimap.create();
+
+			for(int i = 0; i < categoricalPredictors.size(); i++){
+				CategoricalPredictor categoricalPredictor = categoricalPredictors.get(i);
+
+				double coefficient = categoricalPredictor.getCoefficient();
+
+				this.categoricalFields[i] = fields.get(categoricalPredictor.getName());
+				this.categoricalValues[i] = categoricalPredictor.getValue();
+				this.categoricalCategories[i] = (categories.get(this.categoricalFields[i])).get(this.categoricalValues[i]);
+				this.categoricalCoefficients[i] = coefficient;
+				this.positiveZeros[i] = Doubles.isFinite(coefficient) && Double.compare(coefficient, 0d) >= 0;
+				this.nonFinites[i] = !Doubles.isFinite(coefficient);
+
+				fieldPositions.put(this.categoricalFields[i], i);
+			}
+
+			this.groups = new Group[fieldPositions.keySet().size()];
+
+			int index = 0;
+
+			for(Integer field : fieldPositions.keySet()){
+				this.groups[index] = new Group(field, Ints.toArray(fieldPositions.get(field)), this, (categories.get(field)).size(), codes.get(field));
+
+				index++;
+			}
+
+			List<PredictorTerm> predictorTerms = regressionTable.getPredictorTerms();
+
+			this.termCoefficients = new double[predictorTerms.size()];
+			this.termFields = new int[predictorTerms.size()][];
+			this.termDefaults = new FieldValue[predictorTerms.size()][];
+
+			for(int i = 0; i < predictorTerms.size(); i++){
+				PredictorTerm predictorTerm = predictorTerms.get(i);
+
+				List<FieldRef> fieldRefs = predictorTerm.getFieldRefs();
+				if(fieldRefs.size() < 1){
+					throw new InvalidFeatureException(predictorTerm);
+				}
+
+				this.termCoefficients[i] = predictorTerm.getCoefficient();
+				this.termFields[i] = new int[fieldRefs.size()];
+				this.termDefaults[i] = new FieldValue[fieldRefs.size()];
+
+				for(int j = 0; j < fieldRefs.size(); j++){
+					FieldRef fieldRef = fieldRefs.get(j);
+
+					this.termFields[i][j] = fields.get(fieldRef.getField());
+					this.termDefaults[i][j] = FieldValueUtil.create(fieldRef.getMapMissingTo());
+				}
+			}
+		}
+
+		public Double evaluate(Arguments arguments){
+			double result = 0d;
+
+			result += this.intercept;
+
+			for(int i = 0; i < this.numericFields.length; i++){
+				FieldValue value = arguments.getValue(this.numericFields[i]);
+
+				// "if the input value is missing, then the result evaluates to a missing value"
+				if(value == null){
+					addMissingWarning(arguments, this.numericFields[i]);
+
+					return null;
+				}
+
+				double x = value.asDouble();
+
+				double term;
+
+				switch(this.exponents[i]){
+					case 1:
+						term = x;
+						break;
+					case 2:
+						term = (x * x);
+						break;
+					default:
+						term = Math.pow(x, this.exponents[i]);
+						break;
+				}
+
+				result += this.numericCoefficients[i] * term;
+			}
+
+			boolean missing = false;
+
+			boolean positiveZero = false;
+			boolean nonFinite = false;
+
+			int[] matches = arguments.matches;
+			int count = 0;
+
+			for(Group group : this.groups){
+				FieldValue value = arguments.getValue(group.field);
+
+				// "if the input value is missing, then the product is ignored"
+				if(value == null){
+					missing = true;
+
+					continue;
+				}
+
+				int start = count;
+
+				int code = arguments.getCode(group.field);
+				if(code == CompiledRegressionModel.CODE_GENERIC){
+
+					for(int position : group.positions){
+						boolean equals = value.equalsString(this.categoricalValues[position]);
+
+						if(equals){
+							matches[count++] = position;
+						}
+					}
+				} else
+
+				if(code > -1){
+					int[] positions = group.getPositions(value.getDataType(), code);
+
+					for(int position : positions){
+						matches[count++] = position;
+					}
+				}
+
+				int positiveZeros = group.positiveZeros;
+				int nonFinites = group.nonFinites;
+
+				for(int i = start; i < count; i++){
+					positiveZeros -= (this.positiveZeros[matches[i]] ? 1 : 0);
+					nonFinites -= (this.nonFinites[matches[i]] ? 1 : 0);
+				}
+
+				positiveZero |= (positiveZeros > 0);
+				nonFinite |= (nonFinites > 0);
+			}
+
+			if(missing){
+
+				for(int i = 0; i < this.categoricalFields.length; i++){
+					FieldValue value = arguments.getValue(this.categoricalFields[i]);
+
+					if(value == null){
+						addMissingWarning(arguments, this.categoricalFields[i]);
+					}
+				}
+			}
+
+			// Restore the order of CategoricalPredictor elements
+			for(int i = 1; i < count; i++){
+				int position = matches[i];
+
+				int j = i - 1;
+
+				for(; j > -1 && matches[j] > position; j--){
+					matches[j + 1] = matches[j];
+				}
+
+				matches[j + 1] = position;
+			}
+
+			for(int i = 0; i < count; i++){
+				result += this.categoricalCoefficients[matches[i]];
+			}
+
+			for(int i = 0; i < this.termCoefficients.length; i++){
+				double product = this.termCoefficients[i];
+
+				int[] termFields = this.termFields[i];
+
+				for(int j = 0; j < termFields.length; j++){
+					FieldValue value = arguments.getValue(termFields[j]);
+					if(value == null){
+						value = this.termDefaults[i][j];
+					}
+
+					// "if the input value is missing, then the result evaluates to a missing value"
+					if(value == null){
+						return null;
+					}
+
+					product *= value.asDouble();
+				}
+
+				result += product;
+			}
+
+			// The product of an infinite or NaN coefficient and 0 is NaN
+			if(nonFinite){
+				result = Double.NaN;
+			} else
+
+			// The sum is negative zero only if all terms are negative zeros
+			if(positiveZero && result == 0d){
+				result = 0d;
+			}
+
+			return Double.valueOf(result);
+		}
+
+		static
+		private void addMissingWarning(Arguments arguments, int field){
+			FieldName name = arguments.getName(field);
+
+			(arguments.getContext()).addWarning("Missing argument \"" + name.getValue() + "\"");
+		}
+	}
+
+	/**
+	 * CategoricalPredictor elements of a regression table that refer to the same field.
+	 */
+	static
+	private class Group {
+
+		private int field = -1;
+
+		/**
+		 * Positions of CategoricalPredictor elements, in ascending order.
+		 */
+		private int[] positions = null;
+
+		/**
+		 * Mapping between data types and positions of CategoricalPredictor elements per code.
+		 */
+		private Map<DataType, int[][]> codePositions = null;
+
+		private int positiveZeros = 0;
+
+		private int nonFinites = 0;
+
+
+		private Group(int field, int[] positions, Table table, int numberOfCategories, Map<DataType, CategoryCodes> codes){
+			this.field = field;
+			this.positions = positions;
+
+			this.codePositions = Maps.newEnumMap(DataType.class);
+
+			Collection<Map.Entry<DataType, CategoryCodes>> entries = codes.entrySet();
+			for(Map.Entry<DataType, CategoryCodes> entry : entries){
+				int[] categoryCodes = (entry.getValue()).getCategoryCodes();
+
+				List<List<Integer>> values = Lists.newArrayList();
+
+				for(int i = 0; i < numberOfCategories; i++){
+					values.add(Lists.<Integer>newArrayList());
+				}
+
+				for(int position : positions){
+					int code = categoryCodes[table.categoricalCategories[position]];
+
+					(values.get(code)).add(position);
+				}
+
+				int[][] result = new int[numberOfCategories][];
+
+				for(int i = 0; i < numberOfCategories; i++){
+					result[i] = Ints.toArray(values.get(i));
+				}
+
+				this.codePositions.put(entry.getKey(), result);
+			}
+
+			for(int position : positions){
+				this.positiveZeros += (table.positiveZeros[position] ? 1 : 0);
+				this.nonFinites += (table.nonFinites[position] ? 1 : 0);
+			}
+		}
+
+		/**
+		 * @return Positions of CategoricalPredictor elements whose category has the specified code, in ascending order.
+		 */
+		public int[] getPositions(DataType dataType, int code){
+			int[][] codePositions = this.codePositions.get(dataType);
+
+			return codePositions[code];
+		}
+	}
+
+	private static final int CODE_GENERIC = -2;
+
+	private static final byte STATE_EVALUATED = 1;
+	private static final byte STATE_ENCODED = 2;
+}
@@ -0,0 +1,529 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * A {@link RuleSet} that has been compiled into a flat rule array and a shared predicate table.
+ * </p>
+ *
+ * Rules are numbered in depth-first order, so that the nested rules of a {@link CompoundRule} occupy a contiguous range, which is skipped when the predicate of the compound rule is not satisfied.
+ *
+ * Identical {@link SimplePredicate} and {@link SimpleSetPredicate} elements are merged into one predicate, which is evaluated at most once per record.
+ * Compound predicates refer to their child predicates by index, so that merged predicates are shared between rules as well as between compound predicates.
+ *
+ * The "firstHit" criterion reports the first fired rule of every score, and stops as soon as every score has been reported.
+ * The "weightedSum" and "weightedMax" criteria accumulate fired rules per score in primitive arrays.
+ *
+ * @see RuleSetModelEvaluator
+ */
+public class CompiledRuleSet {
+
+	private RuleSelectionMethod.Criterion criterion = null;
+
+	/**
+	 * Per predicate.
+	 */
+	private int[] predicateTypes = null;
+
+	/**
+	 * Per predicate. The predicate element, for predicates that are evaluated by {@link PredicateUtil}.
+	 */
+	private Predicate[] predicates = null;
+
+	/**
+	 * Per predicate. The operator of a compound predicate.
+	 */
+	private CompoundPredicate.BooleanOperator[] booleanOperators = null;
+
+	/**
+	 * Per predicate. The child predicates of a compound predicate.
+	 */
+	private int[][] children = null;
+
+	/**
+	 * Per rule.
+	 */
+	private int[] rulePredicates = null;
+
+	/**
+	 * Per rule. The index of the first rule that follows the rule and all its nested rules.
+	 */
+	private int[] ruleEnds = null;
+
+	/**
+	 * Per rule. The simple rule, or <code>null</code> for a compound rule.
+	 */
+	private SimpleRule[] simpleRules = null;
+
+	/**
+	 * Per rule. The ordinal of the score of a simple rule.
+	 */
+	private int[] ruleScores = null;
+
+	private String[] scores = null;
+
+
+	private CompiledRuleSet(){
+	}
+
+	public RuleSelectionMethod.Criterion getCriterion(){
+		return this.criterion;
+	}
+
+	/**
+	 * @return The number of distinct predicates.
+	 */
+	public int getNumberOfPredicates(){
+		return this.predicateTypes.length;
+	}
+
+	/**
+	 * @return The number of simple and compound rules.
+	 */
+	public int getNumberOfRules(){
+		return this.rulePredicates.length;
+	}
+
+	public RuleClassificationMap evaluate(EvaluationContext context){
+		byte[] states = new byte[this.predicateTypes.length];
+
+		RuleClassificationMap result = new RuleClassificationMap();
+
+		switch(this.criterion){
+			case FIRST_HIT:
+				evaluateFirstHit(states, context, result);
+				break;
+			case WEIGHTED_SUM:
+			case WEIGHTED_MAX:
+				evaluateWeighted(states, context, result);
+				break;
+			default:
+				throw new IllegalStateException();
+		}
+
+		return result;
+	}
+
+	private void evaluateFirstHit(byte[] states, EvaluationContext context, RuleClassificationMap result){
+		int size = this.scores.length;
+
+		// Per score
+		boolean[] fired = new boolean[size];
+
+		int firedSize = 0;
+
+		for(int rule = nextFiredRule(0, states, context); rule > -1; rule = nextFiredRule(rule + 1, states, context)){
+			SimpleRule simpleRule = this.simpleRules[rule];
+
+			int score = this.ruleScores[rule];
+
+			if(fired[score]){
+				continue;
+			} // End if
+
+			// The first value of the first key
+			if(firedSize == 0){
+				result.setEntity(simpleRule);
+			}
+
+			result.put(this.scores[score], simpleRule.getConfidence());
+
+			fired[score] = true;
+
+			firedSize++;
+
+			// Later rules cannot contribute new scores
+			if(firedSize == size){
+				break;
+			}
+		}
+	}
+
+	private void evaluateWeighted(byte[] states, EvaluationContext context, RuleClassificationMap result){
+		int size = this.scores.length;
+
+		// Per score
+		int[] winners = new int[size];
+		double[] totalWeights = new double[size];
+
+		Arrays.fill(winners, -1);
+
+		// Scores, in the order of their first fired rule
+		int[] order = new int[size];
+		int orderSize = 0;
+
+		int count = 0;
+
+		for(int rule = nextFiredRule(0, states, context); rule > -1; rule = nextFiredRule(rule + 1, states, context)){
+			SimpleRule simpleRule = this.simpleRules[rule];
+
+			int score = this.ruleScores[rule];
+
+			int winner = winners[score];
+			if(winner < 0){
+				order[orderSize] = score;
+
+				orderSize++;
+			} // End if
+
+			if(winner < 0 || (this.simpleRules[winner].getWeight() < simpleRule.getWeight())){
+				winners[score] = rule;
+			}
+
+			totalWeights[score] += simpleRule.getWeight();
+
+			count++;
+		}
+
+		for(int i = 0; i < orderSize; i++){
+			int score = order[i];
+
+			SimpleRule winner = this.simpleRules[winners[score]];
+
+			switch(this.criterion){
+				case WEIGHTED_SUM:
+					result.put(winner, this.scores[score], totalWeights[score] / count);
+					break;
+				case WEIGHTED_MAX:
+					result.put(winner, this.scores[score], winner.getConfidence());
+					break;
+				default:
+					throw new IllegalStateException();
+			}
+		}
+	}
+
+	/**
+	 * @param rule The rule to start from.
+	 *
+	 * @return The next fired simple rule, or <code>-1</code>.
+	 */
+	private int nextFiredRule(int rule, byte[] states, EvaluationContext context){
+
+		while(rule < this.rulePredicates.length){
+			Boolean status = evaluatePredicate(this.rulePredicates[rule], states, context);
+
+			// Skip nested rules
+			if(status == null || !status.booleanValue()){
+				rule = this.ruleEnds[rule];
+
+				continue;
+			} // End if
+
+			if(this.simpleRules[rule] != null){
+				return rule;
+			}
+
+			rule++;
+		}
+
+		return -1;
+	}
+
+	private Boolean evaluatePredicate(int predicate, byte[] states, EvaluationContext context){
+
+		switch(this.predicateTypes[predicate]){
+			case CompiledRuleSet.PREDICATE_TRUE:
+				return Boolean.TRUE;
+			case CompiledRuleSet.PREDICATE_FALSE:
+				return Boolean.FALSE;
+			case CompiledRuleSet.PREDICATE_COMPOUND:
+				return evaluateCompoundPredicate(predicate, states, context);
+			case CompiledRuleSet.PREDICATE_OTHER:
+				break;
+			default:
+				throw new IllegalStateException();
+		}
+
+		switch(states[predicate]){
+			case CompiledRuleSet.STATE_TRUE:
+				return Boolean.TRUE;
+			case CompiledRuleSet.STATE_FALSE:
+				return Boolean.FALSE;
+			case CompiledRuleSet.STATE_UNKNOWN:
+				return null;
+			default:
+				break;
+		}
+
+		Boolean result = PredicateUtil.evaluate(this.predicates[predicate], context);
+
+		states[predicate] = (result != null ? (result.booleanValue() ? CompiledRuleSet.STATE_TRUE : CompiledRuleSet.STATE_FALSE) : CompiledRuleSet.STATE_UNKNOWN);
+
+		return result;
+	}
+
+	/**
+	 * @see PredicateUtil#evaluateCompoundPredicate(CompoundPredicate, EvaluationContext)
+	 */
+	private Boolean evaluateCompoundPredicate(int predicate, byte[] states, EvaluationContext context){
+		int[] children = this.children[predicate];
+
+		CompoundPredicate.BooleanOperator booleanOperator = this.booleanOperators[predicate];
+
+		Boolean result = evaluatePredicate(children[0], states, context);
+
+		if((CompoundPredicate.BooleanOperator.SURROGATE).equals(booleanOperator) && result != null){
+			return result;
+		}
+
+		for(int i = 1; i < children.length; i++){
+
+			if(PredicateUtil.isDecided(booleanOperator, result)){
+				break;
+			}
+
+			Boolean value = evaluatePredicate(children[i], states, context);
+
+			switch(booleanOperator){
+				case AND:
+					result = PredicateUtil.binaryAnd(result, value);
+					break;
+				case OR:
+					result = PredicateUtil.binaryOr(result, value);
+					break;
+				case XOR:
+					result = PredicateUtil.binaryXor(result, value);
+					break;
+				case SURROGATE:
+					if(value != null){
+						return value;
+					}
+					break;
+				default:
+					throw new IllegalStateException();
+			}
+		}
+
+		return result;
+	}
+
+	static
+	public CompiledRuleSet create(RuleSet ruleSet){
+		List<RuleSelectionMethod> ruleSelectionMethods = ruleSet.getRuleSelectionMethods();
+
+		// "If more than one method is included, the first method is used as the default method for scoring"
+		if(ruleSelectionMethods.size() < 1){
+			throw new InvalidFeatureException(ruleSet);
+		}
+
+		RuleSelectionMethod ruleSelectionMethod = ruleSelectionMethods.get(0);
+
+		RuleSelectionMethod.Criterion criterion = ruleSelectionMethod.getCriterion();
+		switch(criterion){
+			case FIRST_HIT:
+			case WEIGHTED_SUM:
+			case WEIGHTED_MAX:
+				break;
+			default:
+				throw new UnsupportedFeatureException(ruleSelectionMethod, criterion);
+		}
+
+		Builder builder = new Builder();
+
+		List<Rule> rules = ruleSet.getRules();
+		for(Rule rule : rules){
+			builder.addRule(rule);
+		}
+
+		CompiledRuleSet result = new CompiledRuleSet();
+		result.criterion = criterion;
+
+		int numberOfPredicates = builder.predicateTypes.size();
+
+		result.predicateTypes = Ints.toArray(builder.predicateTypes);
+		result.predicates = builder.predicates.toArray(new Predicate[numberOfPredicates]);
+		result.booleanOperators = builder.booleanOperators.toArray(new CompoundPredicate.BooleanOperator[numberOfPredicates]);
+		result.children = builder.children.toArray(new int[numberOfPredicates][]);
+
+		int numberOfRules = builder.rulePredicates.size();
+
+		result.rulePredicates = Ints.toArray(builder.rulePredicates);
+		result.ruleEnds = Ints.toArray(builder.ruleEnds);
+		result.simpleRules = builder.simpleRules.toArray(new SimpleRule[numberOfRules]);
+		result.ruleScores = Ints.toArray(builder.ruleScores);
+
+		result.scores = (builder.scores.keySet()).toArray(new String[builder.scores.size()]);
+
+		return result;
+	}
+
+	static
+	private class Builder {
+
+		private List<Integer> predicateTypes = Lists.newArrayList();
+
+		private List<Predicate> predicates = Lists.newArrayList();
+
+		private List<CompoundPredicate.BooleanOperator> booleanOperators = Lists.newArrayList();
+
+		private List<int[]> children = Lists.newArrayList();
+
+		private Map<List<?>, Integer> predicateKeys = Maps.newHashMap();
+
+		private List<Integer> rulePredicates = Lists.newArrayList();
+
+		private List<Integer> ruleEnds = Lists.newArrayList();
+
+		private List<SimpleRule> simpleRules = Lists.newArrayList();
+
+		private List<Integer> ruleScores = Lists.newArrayList();
+
+		private Map<String, Integer> scores = Maps.newLinkedHashMap();
+
+
+		private void addRule(Rule rule){
+			Predicate predicate = rule.getPredicate();
+			if(predicate == null){
+				throw new InvalidFeatureException(rule);
+			}
+
+			int index = this.rulePredicates.size();
+
+			this.rulePredicates.add(addPredicate(predicate));
+			this.ruleEnds.add(-1);
+
+			if(rule instanceof SimpleRule){
+				SimpleRule simpleRule = (SimpleRule)rule;
+
+				String score = simpleRule.getScore();
+
+				Integer ordinal = this.scores.get(score);
+				if(ordinal == null){
+					ordinal = this.scores.size();
+
+					this.scores.put(score, ordinal);
+				}
+
+				this.simpleRules.add(simpleRule);
+				this.ruleScores.add(ordinal);
+			} else
+
+			if(rule instanceof CompoundRule){
+				CompoundRule compoundRule = (CompoundRule)rule;
+
+				this.simpleRules.add(null);
+				this.ruleScores.add(-1);
+
+				List<Rule> childRules = compoundRule.getRules();
+				for(Rule childRule : childRules){
+					addRule(childRule);
+				}
+			} else
+
+			{
+				throw new UnsupportedFeatureException(rule);
+			}
+
+			this.ruleEnds.set(index, this.rulePredicates.size());
+		}
+
+		private int addPredicate(Predicate predicate){
+
+			if(predicate instanceof True){
+				return addPredicate(Collections.singletonList(True.class), CompiledRuleSet.PREDICATE_TRUE, null);
+			} else
+
+			if(predicate instanceof False){
+				return addPredicate(Collections.singletonList(False.class), CompiledRuleSet.PREDICATE_FALSE, null);
+			} else
+
+			if(predicate instanceof SimplePredicate){
+				SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+				List<?> key = Arrays.asList(SimplePredicate.class, simplePredicate.getField(), simplePredicate.getOperator(), simplePredicate.getValue());
+
+				return addPredicate(key, CompiledRuleSet.PREDICATE_OTHER, predicate);
+			} else
+
+			if(predicate instanceof SimpleSetPredicate){
+				SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+				Array array = simpleSetPredicate.getArray();
+
+				List<?> key = Arrays.asList(SimpleSetPredicate.class, simpleSetPredicate.getField(), simpleSetPredicate.getBooleanOperator(), array.getType(), ArrayUtil.getContent(array));
+
+				return addPredicate(key, CompiledRuleSet.PREDICATE_OTHER, predicate);
+			} else
+
+			if(predicate instanceof CompoundPredicate){
+				CompoundPredicate compoundPredicate = (CompoundPredicate)predicate;
+
+				List<Predicate> predicates = compoundPredicate.getPredicates();
+				if(predicates.size() < 2){
+					throw new InvalidFeatureException(compoundPredicate);
+				}
+
+				CompoundPredicate.BooleanOperator booleanOperator = compoundPredicate.getBooleanOperator();
+				switch(booleanOperator){
+					case AND:
+					case OR:
+					case XOR:
+					case SURROGATE:
+						break;
+					default:
+						throw new UnsupportedFeatureException(compoundPredicate, booleanOperator);
+				}
+
+				int[] children = new int[predicates.size()];
+
+				for(int i = 0; i < predicates.size(); i++){
+					children[i] = addPredicate(predicates.get(i));
+				}
+
+				int result = newPredicate(CompiledRuleSet.PREDICATE_COMPOUND, null);
+
+				this.booleanOperators.set(result, booleanOperator);
+				this.children.set(result, children);
+
+				return result;
+			}
+
+			// Evaluated as is
+			return newPredicate(CompiledRuleSet.PREDICATE_OTHER, predicate);
+		}
+
+		private int addPredicate(List<?> key, int type, Predicate predicate){
+			Integer result = this.predicateKeys.get(key);
+
+			if(result == null){
+				result = newPredicate(type, predicate);
+
+				this.predicateKeys.put(key, result);
+			}
+
+			return result.intValue();
+		}
+
+		private int newPredicate(int type, Predicate predicate){
+			int result = this.predicateTypes.size();
+
+			this.predicateTypes.add(type);
+			this.predicates.add(predicate);
+			this.booleanOperators.add(null);
+			this.children.add(null);
+
+			return result;
+		}
+	}
+
+	private static final int PREDICATE_TRUE = 1;
+	private static final int PREDICATE_FALSE = 2;
+	private static final int PREDICATE_COMPOUND = 3;
+	private static final int PREDICATE_OTHER = 4;
+
+	private static final byte STATE_TRUE = 1;
+	private static final byte STATE_FALSE = 2;
+	private static final byte STATE_UNKNOWN = 3;
+}
@@ -0,0 +1,899 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.math.*;
+
+/**
+ * <p>
+ * A {@link Scorecard} whose characteristics have been compiled into lookup tables.
+ * </p>
+ *
+ * A characteristic is compiled when the predicates of all its attributes test the same field.
+ * The values that occur in the predicates split the domain of the field into segments, so that every predicate is either satisfied or not satisfied by all values of a segment.
+ * The first matching attribute is computed for every segment in advance.
+ * A numeric value is mapped to its segment by a binary search over the sorted values, and a string value by a hash lookup.
+ *
+ * Missing values, values of other data types and characteristics that cannot be compiled are evaluated attribute by attribute as before.
+ *
+ * Reason codes are identified by ordinals, and their points are accumulated in primitive arrays.
+ * The reason code ranking is limited to the highest rank that is requested by the {@link Output} element.
+ *
+ * @see ScorecardEvaluator
+ */
+public class CompiledScorecard {
+
+	private Scorecard scorecard = null;
+
+	private FieldName[] fields = null;
+
+	private Attribute[][] attributes = null;
+
+	private IntervalTable[] doubleTables = null;
+
+	private IntervalTable[] integerTables = null;
+
+	private CategoryTable[] categoryTables = null;
+
+	private String[] reasonCodes = null;
+
+	/**
+	 * Per characteristic and attribute. The ordinal of the reason code, or <code>-1</code>.
+	 */
+	private int[][] attributeReasonCodes = null;
+
+	/**
+	 * Per characteristic and attribute. The points of the reason code, or <code>null</code> if reason codes are not used.
+	 */
+	private double[][] attributePoints = null;
+
+	private int maxRank = 0;
+
+
+	private CompiledScorecard(){
+	}
+
+	public int getNumberOfCharacteristics(){
+		return this.attributes.length;
+	}
+
+	/**
+	 * @return The number of characteristics that are evaluated by table lookup.
+	 */
+	public int getNumberOfCompiledCharacteristics(){
+		int result = 0;
+
+		for(int i = 0; i < this.fields.length; i++){
+
+			if(this.fields[i] != null){
+				result++;
+			}
+		}
+
+		return result;
+	}
+
+	public Score evaluate(EvaluationContext context){
+		Score result = new Score(this.reasonCodes.length);
+
+		for(int i = 0; i < this.attributes.length; i++){
+			int attribute = findAttribute(i, context);
+			if(attribute < 0){
+				continue;
+			}
+
+			Attribute match = this.attributes[i][attribute];
+
+			Double partialScore = match.getPartialScore();
+			if(partialScore == null){
+				throw new InvalidFeatureException(match);
+			}
+
+			result.value += partialScore.doubleValue();
+
+			if(this.scorecard.isUseReasonCodes()){
+				int reasonCode = this.attributeReasonCodes[i][attribute];
+				if(reasonCode < 0){
+					throw new InvalidFeatureException(match);
+				} // End if
+
+				if(this.attributePoints[i] == null){
+					Scorecard.ReasonCodeAlgorithm reasonCodeAlgorithm = this.scorecard.getReasonCodeAlgorithm();
+
+					throw new UnsupportedFeatureException(this.scorecard, reasonCodeAlgorithm);
+				}
+
+				result.add(reasonCode, this.attributePoints[i][attribute]);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The first matching attribute, or <code>-1</code>.
+	 */
+	private int findAttribute(int characteristic, EvaluationContext context){
+		FieldName field = this.fields[characteristic];
+
+		if(field != null){
+			FieldValue value = ExpressionUtil.evaluate(field, context);
+
+			if(value instanceof NumberValue){
+				IntervalTable table = null;
+
+				DataType dataType = value.getDataType();
+				switch(dataType){
+					case DOUBLE:
+						table = this.doubleTables[characteristic];
+						break;
+					case INTEGER:
+						table = this.integerTables[characteristic];
+						break;
+					default:
+						break;
+				}
+
+				if(table != null){
+					return table.findAttribute(value.asDouble());
+				}
+			} else
+
+			if(value != null && (DataType.STRING).equals(value.getDataType())){
+				CategoryTable table = this.categoryTables[characteristic];
+
+				if(table != null){
+					return table.findAttribute((String)value.getValue());
+				}
+			}
+		}
+
+		Attribute[] attributes = this.attributes[characteristic];
+
+		for(int i = 0; i < attributes.length; i++){
+			Attribute attribute = attributes[i];
+
+			Predicate predicate = attribute.getPredicate();
+			if(predicate == null){
+				throw new InvalidFeatureException(attribute);
+			}
+
+			Boolean status = PredicateUtil.evaluate(predicate, context);
+			if(status == null || !status.booleanValue()){
+				continue;
+			}
+
+			return i;
+		}
+
+		return -1;
+	}
+
+	static
+	public CompiledScorecard create(Scorecard scorecard){
+		CompiledScorecard result = new CompiledScorecard();
+		result.scorecard = scorecard;
+
+		boolean useReasonCodes = scorecard.isUseReasonCodes();
+
+		Scorecard.ReasonCodeAlgorithm reasonCodeAlgorithm = scorecard.getReasonCodeAlgorithm();
+
+		List<Characteristic> characteristics = Lists.newArrayList(scorecard.getCharacteristics());
+
+		int size = characteristics.size();
+
+		result.fields = new FieldName[size];
+		result.attributes = new Attribute[size][];
+		result.doubleTables = new IntervalTable[size];
+		result.integerTables = new IntervalTable[size];
+		result.categoryTables = new CategoryTable[size];
+		result.attributeReasonCodes = new int[size][];
+		result.attributePoints = new double[size][];
+
+		Map<String, Integer> reasonCodes = Maps.newLinkedHashMap();
+
+		for(int i = 0; i < size; i++){
+			Characteristic characteristic = characteristics.get(i);
+
+			Double baselineScore = characteristic.getBaselineScore();
+			if(baselineScore == null){
+				baselineScore = scorecard.getBaselineScore();
+			} // End if
+
+			if(useReasonCodes){
+
+				if(baselineScore == null){
+					throw new InvalidFeatureException(characteristic);
+				}
+			}
+
+			List<Attribute> attributes = characteristic.getAttributes();
+
+			result.attributes[i] = attributes.toArray(new Attribute[attributes.size()]);
+			result.attributeReasonCodes[i] = new int[attributes.size()];
+
+			if(useReasonCodes && isSupported(reasonCodeAlgorithm)){
+				result.attributePoints[i] = new double[attributes.size()];
+			}
+
+			for(int j = 0; j < attributes.size(); j++){
+				Attribute attribute = attributes.get(j);
+
+				String reasonCode = attribute.getReasonCode();
+				if(reasonCode == null){
+					reasonCode = characteristic.getReasonCode();
+				}
+
+				result.attributeReasonCodes[i][j] = (reasonCode != null ? getReasonCode(reasonCode, reasonCodes) : -1);
+
+				Double partialScore = attribute.getPartialScore();
+
+				if(result.attributePoints[i] != null && partialScore != null){
+					result.attributePoints[i][j] = getPoints(reasonCodeAlgorithm, partialScore, baselineScore);
+				}
+			}
+
+			compileCharacteristic(result, i, attributes);
+		}
+
+		result.reasonCodes = (reasonCodes.keySet()).toArray(new String[reasonCodes.size()]);
+		result.maxRank = getMaxRank(scorecard.getOutput());
+
+		return result;
+	}
+
+	static
+	private void compileCharacteristic(CompiledScorecard result, int characteristic, List<Attribute> attributes){
+		List<Predicate> predicates = Lists.newArrayList();
+
+		Set<FieldName> fields = Sets.newHashSet();
+
+		for(Attribute attribute : attributes){
+			Predicate predicate = attribute.getPredicate();
+
+			if(predicate == null || !collectFields(predicate, fields)){
+				return;
+			}
+
+			predicates.add(predicate);
+		}
+
+		if(fields.size() != 1){
+			return;
+		}
+
+		result.fields[characteristic] = Iterables.getOnlyElement(fields);
+
+		result.doubleTables[characteristic] = IntervalTable.create(predicates, false);
+		result.integerTables[characteristic] = IntervalTable.create(predicates, true);
+		result.categoryTables[characteristic] = CategoryTable.create(predicates);
+	}
+
+	/**
+	 * @return <code>true</code> if the predicate can be evaluated on segments, <code>false</code> otherwise.
+	 */
+	static
+	private boolean collectFields(Predicate predicate, Set<FieldName> fields){
+
+		if(predicate instanceof True || predicate instanceof False){
+			return true;
+		} else
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			fields.add(simplePredicate.getField());
+
+			return (simplePredicate.getOperator() != null);
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			fields.add(simpleSetPredicate.getField());
+
+			return (simpleSetPredicate.getBooleanOperator() != null);
+		} else
+
+		if(predicate instanceof CompoundPredicate){
+			CompoundPredicate compoundPredicate = (CompoundPredicate)predicate;
+
+			List<Predicate> predicates = compoundPredicate.getPredicates();
+			if(predicates.size() < 2){
+				return false;
+			}
+
+			CompoundPredicate.BooleanOperator booleanOperator = compoundPredicate.getBooleanOperator();
+			if(booleanOperator == null){
+				return false;
+			}
+
+			for(Predicate child : predicates){
+
+				if(!collectFields(child, fields)){
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Evaluates the predicate for a non-missing value.
+	 *
+	 * @see PredicateUtil#evaluate(Predicate, EvaluationContext)
+	 */
+	static
+	private boolean test(Predicate predicate, Segment segment){
+
+		if(predicate instanceof True){
+			return true;
+		} else
+
+		if(predicate instanceof False){
+			return false;
+		} else
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			SimplePredicate.Operator operator = simplePredicate.getOperator();
+			switch(operator){
+				case IS_MISSING:
+					return false;
+				case IS_NOT_MISSING:
+					return true;
+				default:
+					break;
+			}
+
+			int order = segment.compareTo(simplePredicate.getValue());
+
+			switch(operator){
+				case EQUAL:
+					return (order == 0);
+				case NOT_EQUAL:
+					return (order != 0);
+				case LESS_THAN:
+					return (order < 0);
+				case LESS_OR_EQUAL:
+					return (order <= 0);
+				case GREATER_THAN:
+					return (order > 0);
+				case GREATER_OR_EQUAL:
+					return (order >= 0);
+				default:
+					throw new UnsupportedFeatureException(simplePredicate, operator);
+			}
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			boolean contains = false;
+
+			List<String> content = ArrayUtil.getContent(simpleSetPredicate.getArray());
+			for(String value : content){
+				contains |= (segment.compareTo(value) == 0);
+			}
+
+			SimpleSetPredicate.BooleanOperator booleanOperator = simpleSetPredicate.getBooleanOperator();
+			switch(booleanOperator){
+				case IS_IN:
+					return contains;
+				case IS_NOT_IN:
+					return !contains;
+				default:
+					throw new UnsupportedFeatureException(simpleSetPredicate, booleanOperator);
+			}
+		} else
+
+		if(predicate instanceof CompoundPredicate){
+			CompoundPredicate compoundPredicate = (CompoundPredicate)predicate;
+
+			List<Predicate> predicates = compoundPredicate.getPredicates();
+
+			boolean result = test(predicates.get(0), segment);
+
+			CompoundPredicate.BooleanOperator booleanOperator = compoundPredicate.getBooleanOperator();
+
+			// All children are known, so the first one is the surrogate
+			if((CompoundPredicate.BooleanOperator.SURROGATE).equals(booleanOperator)){
+				return result;
+			}
+
+			for(Predicate child : predicates.subList(1, predicates.size())){
+				boolean value = test(child, segment);
+
+				switch(booleanOperator){
+					case AND:
+						result &= value;
+						break;
+					case OR:
+						result |= value;
+						break;
+					case XOR:
+						result ^= value;
+						break;
+					default:
+						throw new UnsupportedFeatureException(compoundPredicate, booleanOperator);
+				}
+			}
+
+			return result;
+		}
+
+		throw new UnsupportedFeatureException(predicate);
+	}
+
+	/**
+	 * @return The values that occur in the predicates, or <code>null</code> if the predicates contain ordering operators.
+	 */
+	static
+	private List<String> collectValues(Predicate predicate, List<String> values){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			SimplePredicate.Operator operator = simplePredicate.getOperator();
+			switch(operator){
+				case IS_MISSING:
+				case IS_NOT_MISSING:
+					break;
+				case EQUAL:
+				case NOT_EQUAL:
+					values.add(simplePredicate.getValue());
+					break;
+				default:
+					return null;
+			}
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			values.addAll(ArrayUtil.getContent(simpleSetPredicate.getArray()));
+		} else
+
+		if(predicate instanceof CompoundPredicate){
+			CompoundPredicate compoundPredicate = (CompoundPredicate)predicate;
+
+			List<Predicate> predicates = compoundPredicate.getPredicates();
+			for(Predicate child : predicates){
+
+				if(collectValues(child, values) == null){
+					return null;
+				}
+			}
+		}
+
+		return values;
+	}
+
+	static
+	private void collectBounds(Predicate predicate, List<String> values){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			SimplePredicate.Operator operator = simplePredicate.getOperator();
+			switch(operator){
+				case IS_MISSING:
+				case IS_NOT_MISSING:
+					break;
+				default:
+					values.add(simplePredicate.getValue());
+					break;
+			}
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			values.addAll(ArrayUtil.getContent(simpleSetPredicate.getArray()));
+		} else
+
+		if(predicate instanceof CompoundPredicate){
+			CompoundPredicate compoundPredicate = (CompoundPredicate)predicate;
+
+			List<Predicate> predicates = compoundPredicate.getPredicates();
+			for(Predicate child : predicates){
+				collectBounds(child, values);
+			}
+		}
+	}
+
+	/**
+	 * Bounds are compared on doubles only when the result is identical to the comparison of parsed values.
+	 *
+	 * @return The bound, or <code>null</code>.
+	 *
+	 * @see TypeUtil#parse(DataType, String)
+	 */
+	static
+	private Double parseBound(String value, boolean integer){
+
+		if(value == null){
+			return null;
+		}
+
+		double result;
+
+		try {
+			result = Double.parseDouble(value);
+		} catch(NumberFormatException nfe){
+			return null;
+		}
+
+		if(integer){
+
+			if(!DoubleMath.isMathematicalInteger(result) || (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE)){
+				return null;
+			}
+
+			// Canonicalize negative zero
+			return Double.valueOf((int)result);
+		}
+
+		return Double.valueOf(result);
+	}
+
+	static
+	private boolean isSupported(Scorecard.ReasonCodeAlgorithm reasonCodeAlgorithm){
+
+		switch(reasonCodeAlgorithm){
+			case POINTS_ABOVE:
+			case POINTS_BELOW:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	static
+	private double getPoints(Scorecard.ReasonCodeAlgorithm reasonCodeAlgorithm, Double partialScore, Double baselineScore){
+
+		switch(reasonCodeAlgorithm){
+			case POINTS_ABOVE:
+				return (partialScore - baselineScore);
+			case POINTS_BELOW:
+				return (baselineScore - partialScore);
+			default:
+				throw new IllegalArgumentException();
+		}
+	}
+
+	static
+	private int getReasonCode(String reasonCode, Map<String, Integer> reasonCodes){
+		Integer result = reasonCodes.get(reasonCode);
+
+		if(result == null){
+			result = reasonCodes.size();
+
+			reasonCodes.put(reasonCode, result);
+		}
+
+		return result.intValue();
+	}
+
+	/**
+	 * @return The highest rank of reason code output fields, or {@link Integer#MAX_VALUE} if there are none.
+	 */
+	static
+	private int getMaxRank(Output output){
+		int result = 0;
+
+		if(output != null){
+			List<OutputField> outputFields = output.getOutputFields();
+
+			for(OutputField outputField : outputFields){
+
+				if((ResultFeatureType.REASON_CODE).equals(outputField.getFeature())){
+					result = Math.max(result, outputField.getRank());
+				}
+			}
+		}
+
+		return (result > 0 ? result : Integer.MAX_VALUE);
+	}
+
+	/**
+	 * The partial score of a scorecard, together with the points of reason codes.
+	 */
+	public class Score {
+
+		private double value = 0d;
+
+		private double[] points = null;
+
+		private int[] order = null;
+
+		private boolean[] seen = null;
+
+		private int size = 0;
+
+
+		private Score(int capacity){
+			this.points = new double[capacity];
+			this.order = new int[capacity];
+			this.seen = new boolean[capacity];
+		}
+
+		/**
+		 * @return The sum of partial scores.
+		 */
+		public double getValue(){
+			return this.value;
+		}
+
+		private void add(int reasonCode, double points){
+
+			if(!this.seen[reasonCode]){
+				this.seen[reasonCode] = true;
+
+				this.order[this.size] = reasonCode;
+
+				this.size++;
+			}
+
+			this.points[reasonCode] += points;
+		}
+
+		/**
+		 * Meaningless (ie. negative) explanations are filtered out.
+		 * Reason codes are ranked by a bounded insertion sort, which keeps ties in the order of their first occurrence.
+		 */
+		ScoreClassificationMap createScoreMap(Number result){
+			ScoreClassificationMap scoreMap = new ScoreClassificationMap(result);
+
+			int capacity = Math.min(this.size, CompiledScorecard.this.maxRank);
+
+			int[] rankedReasonCodes = new int[capacity];
+			double[] rankedPoints = new double[capacity];
+
+			int rankedSize = 0;
+
+			for(int i = 0; i < this.size; i++){
+				int reasonCode = this.order[i];
+
+				double points = this.points[reasonCode];
+				if(Double.compare(points, 0) < 0){
+					continue;
+				}
+
+				scoreMap.put(CompiledScorecard.this.reasonCodes[reasonCode], points);
+
+				int position = rankedSize;
+
+				while(position > 0 && Double.compare(points, rankedPoints[position - 1]) > 0){
+					position--;
+				}
+
+				if(position >= capacity){
+					continue;
+				}
+
+				int length = Math.min(rankedSize, capacity - 1) - position;
+
+				System.arraycopy(rankedReasonCodes, position, rankedReasonCodes, position + 1, length);
+				System.arraycopy(rankedPoints, position, rankedPoints, position + 1, length);
+
+				rankedReasonCodes[position] = reasonCode;
+				rankedPoints[position] = points;
+
+				rankedSize = Math.min(rankedSize + 1, capacity);
+			}
+
+			List<String> reasonCodeRanking = Lists.newArrayListWithCapacity(rankedSize);
+
+			for(int i = 0; i < rankedSize; i++){
+				reasonCodeRanking.add(CompiledScorecard.this.reasonCodes[rankedReasonCodes[i]]);
+			}
+
+			scoreMap.setReasonCodeRanking(reasonCodeRanking);
+
+			return scoreMap;
+		}
+	}
+
+	static
+	abstract
+	private class Segment {
+
+		/**
+		 * @return The order between the values of this segment and the specified value.
+		 */
+		abstract
+		public int compareTo(String value);
+	}
+
+	/**
+	 * Sorted bounds <code>b<sub>0</sub> &lt; b<sub>1</sub> &lt; ... &lt; b<sub>n-1</sub></code> define <code>2n + 1</code> segments.
+	 * Even segment <code>2k</code> is the open interval between <code>b<sub>k-1</sub></code> and <code>b<sub>k</sub></code>.
+	 * Odd segment <code>2k + 1</code> is the point <code>b<sub>k</sub></code>.
+	 */
+	static
+	private class IntervalTable {
+
+		private double[] bounds = null;
+
+		/**
+		 * Per segment.
+		 */
+		private int[] attributes = null;
+
+
+		private IntervalTable(double[] bounds, int[] attributes){
+			this.bounds = bounds;
+			this.attributes = attributes;
+		}
+
+		public int findAttribute(double value){
+			int index = Arrays.binarySearch(this.bounds, value);
+
+			int segment = (index > -1 ? (2 * index + 1) : (2 * (-index - 1)));
+
+			return this.attributes[segment];
+		}
+
+		/**
+		 * @return The table, or <code>null</code> if some value cannot be parsed.
+		 */
+		static
+		public IntervalTable create(List<Predicate> predicates, final boolean integer){
+			List<String> values = Lists.newArrayList();
+
+			for(Predicate predicate : predicates){
+				collectBounds(predicate, values);
+			}
+
+			// Ordered by Double#compareTo(Double), just like Arrays#binarySearch(double[], double)
+			SortedSet<Double> bounds = Sets.newTreeSet();
+
+			for(String value : values){
+				Double bound = parseBound(value, integer);
+
+				if(bound == null){
+					return null;
+				}
+
+				bounds.add(bound);
+			}
+
+			final
+			double[] boundArray = new double[bounds.size()];
+
+			int index = 0;
+
+			for(Double bound : bounds){
+				boundArray[index] = bound.doubleValue();
+
+				index++;
+			}
+
+			int[] attributes = new int[2 * boundArray.length + 1];
+
+			for(int i = 0; i < attributes.length; i++){
+				final
+				int segment = i;
+
+				Segment interval = new Segment(){
+
+					@Override
+					public int compareTo(String value){
+						int point = 2 * Arrays.binarySearch(boundArray, parseBound(value, integer)) + 1;
+
+						return (segment - point);
+					}
+				};
+
+				attributes[i] = findFirstAttribute(predicates, interval);
+			}
+
+			return new IntervalTable(boundArray, attributes);
+		}
+	}
+
+	/**
+	 * Categories <code>c<sub>0</sub>, c<sub>1</sub>, ..., c<sub>n-1</sub></code> define <code>n + 1</code> segments.
+	 * Segment <code>k</code> is the category <code>c<sub>k</sub></code>, and segment <code>n</code> is all other values.
+	 */
+	static
+	private class CategoryTable {
+
+		private Map<String, Integer> categories = null;
+
+		/**
+		 * Per segment.
+		 */
+		private int[] attributes = null;
+
+
+		private CategoryTable(Map<String, Integer> categories, int[] attributes){
+			this.categories = categories;
+			this.attributes = attributes;
+		}
+
+		public int findAttribute(String value){
+			Integer category = this.categories.get(value);
+
+			int segment = (category != null ? category.intValue() : this.categories.size());
+
+			return this.attributes[segment];
+		}
+
+		/**
+		 * @return The table, or <code>null</code> if the predicates contain ordering operators.
+		 */
+		static
+		public CategoryTable create(List<Predicate> predicates){
+			List<String> values = Lists.newArrayList();
+
+			for(Predicate predicate : predicates){
+
+				if(collectValues(predicate, values) == null){
+					return null;
+				}
+			}
+
+			final
+			Map<String, Integer> categories = Maps.newLinkedHashMap();
+
+			for(String value : values){
+
+				if(value == null){
+					return null;
+				} // End if
+
+				if(!categories.containsKey(value)){
+					categories.put(value, categories.size());
+				}
+			}
+
+			int[] attributes = new int[categories.size() + 1];
+
+			for(int i = 0; i < attributes.length; i++){
+				final
+				int segment = i;
+
+				Segment category = new Segment(){
+
+					@Override
+					public int compareTo(String value){
+						Integer category = categories.get(value);
+
+						return (category.intValue() == segment ? 0 : 1);
+					}
+				};
+
+				attributes[i] = findFirstAttribute(predicates, category);
+			}
+
+			return new CategoryTable(categories, attributes);
+		}
+	}
+
+	static
+	private int findFirstAttribute(List<Predicate> predicates, Segment segment){
+
+		for(int i = 0; i < predicates.size(); i++){
+
+			if(test(predicates.get(i), segment)){
+				return i;
+			}
+		}
+
+		return -1;
+	}
+}
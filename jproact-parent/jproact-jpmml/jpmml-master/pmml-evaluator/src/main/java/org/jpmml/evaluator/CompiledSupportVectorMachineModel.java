@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * A {@link SupportVectorMachineModel} that has been compiled into a support vector matrix.
+ * </p>
+ *
+ * The vector dictionary is laid out as a contiguous row-major matrix, one row per vector instance.
+ * Vector instances that are encoded as sparse arrays additionally keep the column indices of their non-zero elements,
+ * so that dot products and squared distances only visit those columns.
+ *
+ * The kernel is evaluated once per record and vector instance, and the kernel values are shared between all support vector machines.
+ *
+ * @see SupportVectorMachineModelEvaluator
+ */
+public class CompiledSupportVectorMachineModel {
+
+	private int kernel = 0;
+
+	private double gamma = 0d;
+
+	private double coef0 = 0d;
+
+	private double degree = 0d;
+
+	private int numberOfFields = 0;
+
+	private double[] matrix = null;
+
+	private int[][] nonZeros = null;
+
+	private int[][] machineRows = null;
+
+	private double[][] machineCoefficients = null;
+
+	private double[] machineIntercepts = null;
+
+
+	private CompiledSupportVectorMachineModel(){
+	}
+
+	/**
+	 * @return The number of vector instances.
+	 */
+	public int getNumberOfVectors(){
+		return this.nonZeros.length;
+	}
+
+	/**
+	 * @return The number of support vector machines.
+	 */
+	public int getNumberOfMachines(){
+		return this.machineRows.length;
+	}
+
+	/**
+	 * @return Kernel values, one per vector instance.
+	 */
+	public double[] evaluateKernels(double[] input){
+		checkInput(input);
+
+		double[] result = new double[this.nonZeros.length];
+
+		double inputNorm = squaredNorm(input);
+
+		for(int row = 0; row < result.length; row++){
+			result[row] = evaluateKernel(input, inputNorm, row);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Evaluates a block of records.
+	 * Every row of the support vector matrix is visited once per block.
+	 *
+	 * @return Kernel values, one array per record.
+	 */
+	public double[][] evaluateKernels(double[][] inputs){
+		double[][] result = new double[inputs.length][];
+
+		double[] inputNorms = new double[inputs.length];
+
+		for(int i = 0; i < inputs.length; i++){
+			checkInput(inputs[i]);
+
+			result[i] = new double[this.nonZeros.length];
+
+			inputNorms[i] = squaredNorm(inputs[i]);
+		}
+
+		for(int row = 0; row < this.nonZeros.length; row++){
+
+			for(int i = 0; i < inputs.length; i++){
+				result[i][row] = evaluateKernel(inputs[i], inputNorms[i], row);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @param kernelValues Kernel values, as returned by {@link #evaluateKernels(double[])}.
+	 *
+	 * @return The decision function value of every support vector machine.
+	 */
+	public double[] evaluateMachines(double[] kernelValues){
+		double[] result = new double[this.machineRows.length];
+
+		for(int i = 0; i < result.length; i++){
+			int[] rows = this.machineRows[i];
+			double[] coefficients = this.machineCoefficients[i];
+
+			double sum = 0d;
+
+			for(int j = 0; j < rows.length; j++){
+				sum += (coefficients[j] * kernelValues[rows[j]]);
+			}
+
+			result[i] = sum + this.machineIntercepts[i];
+		}
+
+		return result;
+	}
+
+	private void checkInput(double[] input){
+
+		if(input.length != this.numberOfFields){
+			throw new EvaluationException();
+		}
+	}
+
+	private double evaluateKernel(double[] input, double inputNorm, int row){
+
+		switch(this.kernel){
+			case CompiledSupportVectorMachineModel.KERNEL_LINEAR:
+				return dotProduct(input, row);
+			case CompiledSupportVectorMachineModel.KERNEL_POLYNOMIAL:
+				return Math.pow(this.gamma * dotProduct(input, row) + this.coef0, this.degree);
+			case CompiledSupportVectorMachineModel.KERNEL_RADIAL_BASIS:
+				return Math.exp(-this.gamma * squaredDistance(input, inputNorm, row));
+			case CompiledSupportVectorMachineModel.KERNEL_SIGMOID:
+				return Math.tanh(this.gamma * dotProduct(input, row) + this.coef0);
+			default:
+				throw new IllegalStateException();
+		}
+	}
+
+	private double dotProduct(double[] input, int row){
+		double[] matrix = this.matrix;
+
+		int offset = row * this.numberOfFields;
+
+		double sum = 0d;
+
+		int[] columns = this.nonZeros[row];
+		if(columns != null){
+
+			for(int column : columns){
+				sum += (input[column] * matrix[offset + column]);
+			}
+
+			return sum;
+		}
+
+		for(int column = 0; column < input.length; column++){
+			sum += (input[column] * matrix[offset + column]);
+		}
+
+		return sum;
+	}
+
+	private double squaredDistance(double[] input, double inputNorm, int row){
+		double[] matrix = this.matrix;
+
+		int offset = row * this.numberOfFields;
+
+		double sum = 0d;
+
+		int[] columns = this.nonZeros[row];
+		if(columns != null){
+			sum = inputNorm;
+
+			// Replace the contribution of non-zero columns
+			for(int column : columns){
+				double diff = (input[column] - matrix[offset + column]);
+
+				sum += (diff * diff) - (input[column] * input[column]);
+			}
+
+			return sum;
+		}
+
+		for(int column = 0; column < input.length; column++){
+			double diff = (input[column] - matrix[offset + column]);
+
+			sum += (diff * diff);
+		}
+
+		return sum;
+	}
+
+	static
+	private double squaredNorm(double[] input){
+		double sum = 0d;
+
+		for(int i = 0; i < input.length; i++){
+			sum += (input[i] * input[i]);
+		}
+
+		return sum;
+	}
+
+	static
+	public CompiledSupportVectorMachineModel create(SupportVectorMachineModel supportVectorMachineModel){
+		CompiledSupportVectorMachineModel result = new CompiledSupportVectorMachineModel();
+
+		KernelType kernelType = supportVectorMachineModel.getKernelType();
+
+		if(kernelType instanceof LinearKernelType){
+			result.kernel = CompiledSupportVectorMachineModel.KERNEL_LINEAR;
+		} else
+
+		if(kernelType instanceof PolynomialKernelType){
+			PolynomialKernelType polynomialKernelType = (PolynomialKernelType)kernelType;
+
+			result.kernel = CompiledSupportVectorMachineModel.KERNEL_POLYNOMIAL;
+			result.gamma = polynomialKernelType.getGamma();
+			result.coef0 = polynomialKernelType.getCoef0();
+			result.degree = polynomialKernelType.getDegree();
+		} else
+
+		if(kernelType instanceof RadialBasisKernelType){
+			RadialBasisKernelType radialBasisKernelType = (RadialBasisKernelType)kernelType;
+
+			result.kernel = CompiledSupportVectorMachineModel.KERNEL_RADIAL_BASIS;
+			result.gamma = radialBasisKernelType.getGamma();
+		} else
+
+		if(kernelType instanceof SigmoidKernelType){
+			SigmoidKernelType sigmoidKernelType = (SigmoidKernelType)kernelType;
+
+			result.kernel = CompiledSupportVectorMachineModel.KERNEL_SIGMOID;
+			result.gamma = sigmoidKernelType.getGamma();
+			result.coef0 = sigmoidKernelType.getCoef0();
+		} else
+
+		{
+			throw new UnsupportedFeatureException(kernelType);
+		}
+
+		VectorDictionary vectorDictionary = supportVectorMachineModel.getVectorDictionary();
+
+		VectorFields vectorFields = vectorDictionary.getVectorFields();
+
+		int numberOfFields = (vectorFields.getFieldRefs()).size();
+
+		Integer declaredNumberOfFields = vectorFields.getNumberOfFields();
+		if(declaredNumberOfFields != null && declaredNumberOfFields.intValue() != numberOfFields){
+			throw new InvalidFeatureException(vectorFields);
+		}
+
+		List<VectorInstance> vectorInstances = vectorDictionary.getVectorInstances();
+
+		Integer numberOfVectors = vectorDictionary.getNumberOfVectors();
+		if(numberOfVectors != null && numberOfVectors.intValue() != vectorInstances.size()){
+			throw new InvalidFeatureException(vectorDictionary);
+		}
+
+		Map<String, Integer> rows = Maps.newLinkedHashMap();
+
+		double[] matrix = new double[vectorInstances.size() * numberOfFields];
+
+		int[][] nonZeros = new int[vectorInstances.size()][];
+
+		for(int row = 0; row < vectorInstances.size(); row++){
+			VectorInstance vectorInstance = vectorInstances.get(row);
+
+			Array array = vectorInstance.getArray();
+			RealSparseArray sparseArray = vectorInstance.getREALSparseArray();
+
+			double[] vector;
+
+			if(array != null && sparseArray == null){
+				vector = ArrayUtil.toArray(array);
+			} else
+
+			if(array == null && sparseArray != null){
+				vector = SparseArrayUtil.toArray(sparseArray);
+
+				nonZeros[row] = getNonZeros(vector);
+			} else
+
+			{
+				throw new InvalidFeatureException(vectorInstance);
+			} // End if
+
+			if(vector.length != numberOfFields){
+				throw new InvalidFeatureException(vectorInstance);
+			}
+
+			System.arraycopy(vector, 0, matrix, row * numberOfFields, numberOfFields);
+
+			rows.put(vectorInstance.getId(), row);
+		}
+
+		result.numberOfFields = numberOfFields;
+		result.matrix = matrix;
+		result.nonZeros = nonZeros;
+
+		List<SupportVectorMachine> supportVectorMachines = supportVectorMachineModel.getSupportVectorMachines();
+
+		result.machineRows = new int[supportVectorMachines.size()][];
+		result.machineCoefficients = new double[supportVectorMachines.size()][];
+		result.machineIntercepts = new double[supportVectorMachines.size()];
+
+		for(int i = 0; i < supportVectorMachines.size(); i++){
+			SupportVectorMachine supportVectorMachine = supportVectorMachines.get(i);
+
+			Coefficients coefficients = supportVectorMachine.getCoefficients();
+			SupportVectors supportVectors = supportVectorMachine.getSupportVectors();
+
+			List<Coefficient> coefficientList = coefficients.getCoefficients();
+			List<SupportVector> supportVectorList = supportVectors.getSupportVectors();
+
+			if(coefficientList.size() != supportVectorList.size()){
+				throw new InvalidFeatureException(supportVectorMachine);
+			}
+
+			int[] machineRows = new int[supportVectorList.size()];
+			double[] machineCoefficients = new double[coefficientList.size()];
+
+			for(int j = 0; j < supportVectorList.size(); j++){
+				SupportVector supportVector = supportVectorList.get(j);
+
+				Integer row = rows.get(supportVector.getVectorId());
+				if(row == null){
+					throw new InvalidFeatureException(supportVector);
+				}
+
+				machineRows[j] = row.intValue();
+				machineCoefficients[j] = (coefficientList.get(j)).getValue();
+			}
+
+			result.machineRows[i] = machineRows;
+			result.machineCoefficients[i] = machineCoefficients;
+			result.machineIntercepts[i] = coefficients.getAbsoluteValue();
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The indices of non-zero elements, or <code>null</code> if the vector is not sparse enough.
+	 */
+	static
+	private int[] getNonZeros(double[] vector){
+		List<Integer> result = Lists.newArrayList();
+
+		for(int i = 0; i < vector.length; i++){
+
+			if(vector[i] != 0d){
+				result.add(i);
+			}
+		}
+
+		// The dense loop is cheaper when most elements are non-zero
+		if(result.size() > (vector.length / 2)){
+			return null;
+		}
+
+		return Ints.toArray(result);
+	}
+
+	private static final int KERNEL_LINEAR = 1;
+	private static final int KERNEL_POLYNOMIAL = 2;
+	private static final int KERNEL_RADIAL_BASIS = 3;
+	private static final int KERNEL_SIGMOID = 4;
+}
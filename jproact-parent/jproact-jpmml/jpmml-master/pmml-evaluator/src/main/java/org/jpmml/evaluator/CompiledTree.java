@@ -0,0 +1,540 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.math.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * A {@link TreeModel} that has been flattened into parallel arrays.
+ * </p>
+ *
+ * Nodes are numbered in breadth-first order, so that the children of a node occupy a contiguous range of indices.
+ * Simple predicates are encoded as an operator code, a field slot, a numeric threshold and a categorical bitset.
+ * Other predicates are delegated to {@link PredicateUtil}.
+ *
+ * The descent keeps the "missing value strategy" and the "no true child strategy" semantics of the recursive walk.
+ *
+ * @see TreeModelEvaluator
+ */
+public class CompiledTree {
+
+	private Node[] nodes = null;
+
+	private int[] childOffsets = null;
+
+	private int[] childCounts = null;
+
+	private int[] operators = null;
+
+	private int[] slots = null;
+
+	private double[] thresholds = null;
+
+	private int[] thresholdTypes = null;
+
+	private int[] categories = null;
+
+	private BitSet[] categorySets = null;
+
+	private Predicate[] predicates = null;
+
+	private FieldName[] fields = null;
+
+	private List<Map<String, Integer>> dictionaries = null;
+
+
+	private CompiledTree(){
+	}
+
+	/**
+	 * @return The winning node, or <code>null</code> if there is no prediction.
+	 */
+	public Node evaluate(TreeModel treeModel, EvaluationContext context){
+		Values values = new Values(this.fields.length);
+
+		int node = 0;
+
+		Boolean status = evaluateNode(node, values, context);
+		if(status == null){
+			return handleMissingValue(treeModel, node, -1);
+		} else
+
+		if(!status.booleanValue()){
+			return handleNoTrueChild(treeModel, node, -1);
+		}
+
+		int last = -1;
+
+		descent:
+		while(true){
+			int count = this.childCounts[node];
+
+			// A "true" leaf node
+			if(count == 0){
+				return this.nodes[node];
+			}
+
+			last = node;
+
+			int offset = this.childOffsets[node];
+
+			for(int child = offset; child < offset + count; child++){
+				status = evaluateNode(child, values, context);
+
+				if(status == null){
+					MissingValueStrategyType missingValueStrategy = treeModel.getMissingValueStrategy();
+
+					switch(missingValueStrategy){
+						case NONE:
+							break;
+						default:
+							return handleMissingValue(treeModel, child, last);
+					}
+				} else
+
+				if(status.booleanValue()){
+					node = child;
+
+					continue descent;
+				}
+			}
+
+			// A branch node with no "true" leaf nodes
+			return handleNoTrueChild(treeModel, node, last);
+		}
+	}
+
+	private Node handleMissingValue(TreeModel treeModel, int node, int last){
+		MissingValueStrategyType missingValueStrategy = treeModel.getMissingValueStrategy();
+
+		switch(missingValueStrategy){
+			case NULL_PREDICTION:
+				return null;
+			case LAST_PREDICTION:
+				return lastPrediction(node, last);
+			case NONE:
+				throw new MissingResultException(this.nodes[0]);
+			default:
+				throw new UnsupportedFeatureException(treeModel, missingValueStrategy);
+		}
+	}
+
+	private Node handleNoTrueChild(TreeModel treeModel, int node, int last){
+		NoTrueChildStrategyType noTrueChildStrategy = treeModel.getNoTrueChildStrategy();
+
+		switch(noTrueChildStrategy){
+			case RETURN_NULL_PREDICTION:
+				return null;
+			case RETURN_LAST_PREDICTION:
+				return lastPrediction(0, last);
+			default:
+				throw new UnsupportedFeatureException(treeModel, noTrueChildStrategy);
+		}
+	}
+
+	private Node lastPrediction(int node, int last){
+
+		if(last < 0){
+			throw new MissingResultException(this.nodes[node]);
+		}
+
+		return this.nodes[last];
+	}
+
+	private Boolean evaluateNode(int node, Values values, EvaluationContext context){
+		int operator = this.operators[node];
+
+		switch(operator){
+			case CompiledTree.OP_TRUE:
+				return Boolean.TRUE;
+			case CompiledTree.OP_FALSE:
+				return Boolean.FALSE;
+			case CompiledTree.OP_GENERIC:
+				return PredicateUtil.evaluate(this.predicates[node], context);
+			case CompiledTree.OP_NO_PREDICATE:
+				throw new InvalidFeatureException(this.nodes[node]);
+			case CompiledTree.OP_EMBEDDED_MODEL:
+				throw new UnsupportedFeatureException((this.nodes[node]).getEmbeddedModel());
+			default:
+				break;
+		}
+
+		int slot = this.slots[node];
+
+		FieldValue value = values.getValue(slot, this.fields, context);
+
+		switch(operator){
+			case CompiledTree.OP_IS_MISSING:
+				return Boolean.valueOf(value == null);
+			case CompiledTree.OP_IS_NOT_MISSING:
+				return Boolean.valueOf(value != null);
+			default:
+				break;
+		}
+
+		if(value == null){
+
+			switch(operator){
+				case CompiledTree.OP_IS_IN:
+				case CompiledTree.OP_IS_NOT_IN:
+					// Let the generic path deal with the missing value
+					return PredicateUtil.evaluate(this.predicates[node], context);
+				default:
+					// "A SimplePredicate evaluates to unknwon if the input value is missing"
+					return null;
+			}
+		} // End if
+
+		if(value instanceof NumberValue && isNumeric(node, value.getDataType())){
+			int order = Double.compare(value.asDouble(), this.thresholds[node]);
+
+			switch(operator){
+				case CompiledTree.OP_EQUAL:
+					return Boolean.valueOf(order == 0);
+				case CompiledTree.OP_NOT_EQUAL:
+					return Boolean.valueOf(order != 0);
+				case CompiledTree.OP_LESS_THAN:
+					return Boolean.valueOf(order < 0);
+				case CompiledTree.OP_LESS_OR_EQUAL:
+					return Boolean.valueOf(order <= 0);
+				case CompiledTree.OP_GREATER_THAN:
+					return Boolean.valueOf(order > 0);
+				case CompiledTree.OP_GREATER_OR_EQUAL:
+					return Boolean.valueOf(order >= 0);
+				default:
+					break;
+			}
+		} else
+
+		if((DataType.STRING).equals(value.getDataType())){
+			int category = values.getCategory(slot, this.dictionaries);
+
+			switch(operator){
+				case CompiledTree.OP_EQUAL:
+					return Boolean.valueOf(category == this.categories[node]);
+				case CompiledTree.OP_NOT_EQUAL:
+					return Boolean.valueOf(category != this.categories[node]);
+				case CompiledTree.OP_IS_IN:
+					return Boolean.valueOf(category > -1 && this.categorySets[node].get(category));
+				case CompiledTree.OP_IS_NOT_IN:
+					return Boolean.valueOf(category < 0 || !this.categorySets[node].get(category));
+				default:
+					break;
+			}
+		}
+
+		return PredicateUtil.evaluate(this.predicates[node], context);
+	}
+
+	/**
+	 * Numeric comparisons are performed on doubles only when the result is identical to the comparison of parsed values.
+	 *
+	 * @see TypeUtil#parse(DataType, String)
+	 */
+	private boolean isNumeric(int node, DataType dataType){
+		int thresholdType = this.thresholdTypes[node];
+
+		switch(dataType){
+			case DOUBLE:
+				return (thresholdType != CompiledTree.THRESHOLD_NONE);
+			case INTEGER:
+				return (thresholdType == CompiledTree.THRESHOLD_INTEGER);
+			default:
+				break;
+		}
+
+		return false;
+	}
+
+	static
+	public CompiledTree create(TreeModel treeModel){
+		Node root = treeModel.getNode();
+		if(root == null){
+			throw new InvalidFeatureException(treeModel);
+		}
+
+		List<Node> nodes = Lists.newArrayList();
+		nodes.add(root);
+
+		CompiledTree result = new CompiledTree();
+
+		List<Integer> childOffsets = Lists.newArrayList();
+		List<Integer> childCounts = Lists.newArrayList();
+
+		// Breadth-first numbering
+		for(int i = 0; i < nodes.size(); i++){
+			Node node = nodes.get(i);
+
+			List<Node> children = node.getNodes();
+
+			childOffsets.add(nodes.size());
+			childCounts.add(children.size());
+
+			nodes.addAll(children);
+		}
+
+		int size = nodes.size();
+
+		result.nodes = nodes.toArray(new Node[size]);
+		result.childOffsets = Ints.toArray(childOffsets);
+		result.childCounts = Ints.toArray(childCounts);
+
+		result.operators = new int[size];
+		result.slots = new int[size];
+		result.thresholds = new double[size];
+		result.thresholdTypes = new int[size];
+		result.categories = new int[size];
+		result.categorySets = new BitSet[size];
+		result.predicates = new Predicate[size];
+
+		Map<FieldName, Integer> fieldSlots = Maps.newLinkedHashMap();
+
+		List<Map<String, Integer>> dictionaries = Lists.newArrayList();
+
+		for(int i = 0; i < size; i++){
+			Node node = result.nodes[i];
+
+			Predicate predicate = node.getPredicate();
+
+			result.predicates[i] = predicate;
+			result.slots[i] = -1;
+			result.categories[i] = -1;
+
+			if(predicate == null){
+				result.operators[i] = CompiledTree.OP_NO_PREDICATE;
+
+				continue;
+			} // End if
+
+			if(node.getEmbeddedModel() != null){
+				result.operators[i] = CompiledTree.OP_EMBEDDED_MODEL;
+
+				continue;
+			} // End if
+
+			if(predicate instanceof True){
+				result.operators[i] = CompiledTree.OP_TRUE;
+			} else
+
+			if(predicate instanceof False){
+				result.operators[i] = CompiledTree.OP_FALSE;
+			} else
+
+			if(predicate instanceof SimplePredicate){
+				SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+				int slot = getSlot(simplePredicate.getField(), fieldSlots, dictionaries);
+
+				result.operators[i] = getOperator(simplePredicate.getOperator());
+				result.slots[i] = slot;
+
+				String value = simplePredicate.getValue();
+				if(value != null){
+					result.categories[i] = getCategory(value, dictionaries.get(slot));
+
+					parseThreshold(result, i, value);
+				}
+			} else
+
+			if(predicate instanceof SimpleSetPredicate){
+				SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+				int slot = getSlot(simpleSetPredicate.getField(), fieldSlots, dictionaries);
+
+				result.operators[i] = getOperator(simpleSetPredicate.getBooleanOperator());
+				result.slots[i] = slot;
+
+				BitSet categorySet = new BitSet();
+
+				List<String> content = ArrayUtil.getContent(simpleSetPredicate.getArray());
+				for(String value : content){
+					categorySet.set(getCategory(value, dictionaries.get(slot)));
+				}
+
+				result.categorySets[i] = categorySet;
+			} else
+
+			{
+				result.operators[i] = CompiledTree.OP_GENERIC;
+			}
+		}
+
+		result.fields = (fieldSlots.keySet()).toArray(new FieldName[fieldSlots.size()]);
+
+		result.dictionaries = ImmutableList.copyOf(dictionaries);
+
+		return result;
+	}
+
+	static
+	private int getSlot(FieldName name, Map<FieldName, Integer> fieldSlots, List<Map<String, Integer>> dictionaries){
+		Integer slot = fieldSlots.get(name);
+
+		if(slot == null){
+			slot = fieldSlots.size();
+
+			fieldSlots.put(name, slot);
+
+			Map<String, Integer> dictionary = Maps.newHashMap();
+
+			dictionaries.add(dictionary);
+		}
+
+		return slot.intValue();
+	}
+
+	static
+	private int getCategory(String value, Map<String, Integer> dictionary){
+		Integer category = dictionary.get(value);
+
+		if(category == null){
+			category = dictionary.size();
+
+			dictionary.put(value, category);
+		}
+
+		return category.intValue();
+	}
+
+	static
+	private void parseThreshold(CompiledTree result, int node, String value){
+		double threshold;
+
+		try {
+			threshold = Double.parseDouble(value);
+		} catch(NumberFormatException nfe){
+			result.thresholdTypes[node] = CompiledTree.THRESHOLD_NONE;
+
+			return;
+		}
+
+		result.thresholds[node] = threshold;
+
+		boolean integer = DoubleMath.isMathematicalInteger(threshold) && (threshold >= Integer.MIN_VALUE && threshold <= Integer.MAX_VALUE);
+
+		result.thresholdTypes[node] = (integer ? CompiledTree.THRESHOLD_INTEGER : CompiledTree.THRESHOLD_DOUBLE);
+	}
+
+	static
+	private int getOperator(SimplePredicate.Operator operator){
+
+		switch(operator){
+			case EQUAL:
+				return CompiledTree.OP_EQUAL;
+			case NOT_EQUAL:
+				return CompiledTree.OP_NOT_EQUAL;
+			case LESS_THAN:
+				return CompiledTree.OP_LESS_THAN;
+			case LESS_OR_EQUAL:
+				return CompiledTree.OP_LESS_OR_EQUAL;
+			case GREATER_THAN:
+				return CompiledTree.OP_GREATER_THAN;
+			case GREATER_OR_EQUAL:
+				return CompiledTree.OP_GREATER_OR_EQUAL;
+			case IS_MISSING:
+				return CompiledTree.OP_IS_MISSING;
+			case IS_NOT_MISSING:
+				return CompiledTree.OP_IS_NOT_MISSING;
+			default:
+				break;
+		}
+
+		return CompiledTree.OP_GENERIC;
+	}
+
+	static
+	private int getOperator(SimpleSetPredicate.BooleanOperator booleanOperator){
+
+		switch(booleanOperator){
+			case IS_IN:
+				return CompiledTree.OP_IS_IN;
+			case IS_NOT_IN:
+				return CompiledTree.OP_IS_NOT_IN;
+			default:
+				break;
+		}
+
+		return CompiledTree.OP_GENERIC;
+	}
+
+	/**
+	 * Field values of the current record, resolved on first use.
+	 */
+	static
+	private class Values {
+
+		private FieldValue[] values = null;
+
+		private int[] categories = null;
+
+		private int[] states = null;
+
+
+		public Values(int size){
+			this.values = new FieldValue[size];
+			this.categories = new int[size];
+			this.states = new int[size];
+		}
+
+		public FieldValue getValue(int slot, FieldName[] fields, EvaluationContext context){
+
+			if(this.states[slot] == Values.STATE_UNRESOLVED){
+				this.values[slot] = ExpressionUtil.evaluate(fields[slot], context);
+
+				this.states[slot] = Values.STATE_RESOLVED;
+			}
+
+			return this.values[slot];
+		}
+
+		/**
+		 * @return The category of a resolved string value, or <code>-1</code> if the value is not referenced by any predicate.
+		 */
+		public int getCategory(int slot, List<Map<String, Integer>> dictionaries){
+
+			if(this.states[slot] != Values.STATE_CATEGORIZED){
+				Integer category = (dictionaries.get(slot)).get(this.values[slot].getValue());
+
+				this.categories[slot] = (category != null ? category.intValue() : -1);
+
+				this.states[slot] = Values.STATE_CATEGORIZED;
+			}
+
+			return this.categories[slot];
+		}
+
+		private static final int STATE_UNRESOLVED = 0;
+		private static final int STATE_RESOLVED = 1;
+		private static final int STATE_CATEGORIZED = 2;
+	}
+
+	private static final int OP_GENERIC = 0;
+	private static final int OP_TRUE = 1;
+	private static final int OP_FALSE = 2;
+	private static final int OP_EQUAL = 3;
+	private static final int OP_NOT_EQUAL = 4;
+	private static final int OP_LESS_THAN = 5;
+	private static final int OP_LESS_OR_EQUAL = 6;
+	private static final int OP_GREATER_THAN = 7;
+	private static final int OP_GREATER_OR_EQUAL = 8;
+	private static final int OP_IS_MISSING = 9;
+	private static final int OP_IS_NOT_MISSING = 10;
+	private static final int OP_IS_IN = 11;
+	private static final int OP_IS_NOT_IN = 12;
+	private static final int OP_NO_PREDICATE = 13;
+	private static final int OP_EMBEDDED_MODEL = 14;
+
+	private static final int THRESHOLD_NONE = 0;
+	private static final int THRESHOLD_DOUBLE = 1;
+	private static final int THRESHOLD_INTEGER = 2;
+}
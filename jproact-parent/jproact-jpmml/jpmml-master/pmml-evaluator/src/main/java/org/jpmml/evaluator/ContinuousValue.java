@@ -11,6 +11,10 @@ public class ContinuousValue extends FieldValue {
 		super(dataType, value);
 	}
 
+	protected ContinuousValue(DataType dataType){
+		super(dataType);
+	}
+
 	@Override
 	public OpType getOpType(){
 		return OpType.CONTINUOUS;
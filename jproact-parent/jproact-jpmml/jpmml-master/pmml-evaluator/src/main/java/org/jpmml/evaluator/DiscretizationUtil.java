@@ -18,7 +18,7 @@ public class DiscretizationUtil {
 
 	static
 	public FieldValue discretize(Discretize discretize, FieldValue value){
-		String result = discretize(discretize, (value.asNumber()).doubleValue());
+		String result = discretize(discretize, value.asDouble());
 
 		return FieldValueUtil.create(discretize.getDataType(), null, result);
 	}
@@ -80,6 +80,15 @@ public class DiscretizationUtil {
 
 	static
 	public FieldValue mapValue(MapValues mapValues, Map<String, FieldValue> values){
+		return mapValue(mapValues, Lists.newArrayList(values.keySet()), Lists.newArrayList(values.values()));
+	}
+
+	/**
+	 * @param columns The names of input columns.
+	 * @param values The values of input columns, in the same order as their names.
+	 */
+	static
+	public FieldValue mapValue(MapValues mapValues, List<String> columns, List<FieldValue> values){
 		DataType dataType = mapValues.getDataType();
 
 		TableLocator tableLocator = mapValues.getTableLocator();
@@ -91,7 +100,7 @@ public class DiscretizationUtil {
 		if(inlineTable != null){
 			Table<Integer, String, String> table = InlineTableUtil.getContent(inlineTable);
 
-			Map<String, String> row = InlineTableUtil.match(table, values);
+			Map<String, String> row = InlineTableUtil.match(table, columns, values);
 			if(row != null){
 				String result = row.get(mapValues.getOutputColumn());
 				if(result == null){
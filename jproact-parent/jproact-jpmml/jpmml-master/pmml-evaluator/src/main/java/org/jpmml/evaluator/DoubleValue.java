@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import org.dmg.pmml.*;
+
+public class DoubleValue extends NumberValue {
+
+	private double value;
+
+
+	public DoubleValue(double value){
+		super(DataType.DOUBLE);
+
+		this.value = value;
+	}
+
+	public DoubleValue(Double value){
+		this(value.doubleValue());
+
+		setBoxedValue(value);
+	}
+
+	@Override
+	public Double box(){
+		return Double.valueOf(this.value);
+	}
+
+	@Override
+	public double asDouble(){
+		return this.value;
+	}
+
+	private static final long serialVersionUID = 1L;
+}
@@ -14,6 +14,8 @@ public class EvaluationContext {
 
 	private Deque<Map<FieldName, FieldValue>> stack = Queues.newArrayDeque();
 
+	private Map<FieldName, FieldValue> derivedValues = null;
+
 	private List<String> warnings = Lists.newArrayList();
 
 
@@ -26,7 +28,13 @@ public class EvaluationContext {
 	public Map<FieldName, FieldValue> getArguments(){
 		Deque<Map<FieldName, FieldValue>> stack = getStack();
 
-		Map<FieldName, FieldValue> result = Maps.newLinkedHashMap();
+		int size = 0;
+
+		for(Map<FieldName, FieldValue> frame : stack){
+			size += frame.size();
+		}
+
+		Map<FieldName, FieldValue> result = createFrame(size);
 
 		// Iterate from last (ie. oldest) to first (ie. newest)
 		Iterator<Map<FieldName, FieldValue>> it = stack.descendingIterator();
@@ -51,7 +59,24 @@ public class EvaluationContext {
 		return null;
 	}
 
+	/**
+	 * @see #getFrame(FieldName)
+	 */
 	public Map.Entry<FieldName, FieldValue> getArgumentEntry(FieldName name){
+		Map<FieldName, FieldValue> frame = getFrame(name);
+		if(frame != null){
+			Map.Entry<FieldName, FieldValue> entry = new AbstractMap.SimpleEntry<FieldName, FieldValue>(name, frame.get(name));
+
+			return entry;
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return The newest frame that declares the field, or <code>null</code>.
+	 */
+	public Map<FieldName, FieldValue> getFrame(FieldName name){
 		Deque<Map<FieldName, FieldValue>> stack = getStack();
 
 		// Iterate from first to last
@@ -60,9 +85,7 @@ public class EvaluationContext {
 			Map<FieldName, FieldValue> frame = it.next();
 
 			if(frame.containsKey(name)){
-				Map.Entry<FieldName, FieldValue> entry = new AbstractMap.SimpleEntry<FieldName, FieldValue>(name, frame.get(name));
-
-				return entry;
+				return frame;
 			}
 		}
 
@@ -74,32 +97,52 @@ public class EvaluationContext {
 	}
 
 	public Map<FieldName, FieldValue> pushFrame(Map<FieldName, ?> arguments){
-		Maps.EntryTransformer<FieldName, Object, FieldValue> transformer = new Maps.EntryTransformer<FieldName, Object, FieldValue>(){
+		Map<FieldName, FieldValue> frame = createFrame(arguments.size());
 
-			@Override
-			public FieldValue transformEntry(FieldName name, Object value){
+		// The values of an indexed frame have been converted already
+		if(arguments instanceof IndexedFrame){
+			frame.putAll((IndexedFrame)arguments);
+		} else
+
+		{
+			Collection<? extends Map.Entry<FieldName, ?>> entries = arguments.entrySet();
+			for(Map.Entry<FieldName, ?> entry : entries){
+				FieldName name = entry.getKey();
+				Object value = entry.getValue();
 
 				if(value instanceof FieldValue){
-					return (FieldValue)value;
-				}
+					frame.put(name, (FieldValue)value);
+				} else
 
-				return createFieldValue(name, value);
+				{
+					frame.put(name, createFieldValue(name, value));
+				}
 			}
-		};
-
-		Map<FieldName, FieldValue> frame = Maps.newLinkedHashMap();
-
-		frame.putAll(Maps.transformEntries(arguments, transformer));
+		}
 
 		getStack().push(frame);
 
+		resetDerivedValues();
+
 		return frame;
 	}
 
 	public Map<FieldName, FieldValue> popFrame(){
+		resetDerivedValues();
+
 		return getStack().pop();
 	}
 
+	/**
+	 * Creates an empty frame.
+	 * The iteration order of the frame must follow the insertion order of its entries.
+	 *
+	 * @param expectedSize The expected number of entries.
+	 */
+	protected Map<FieldName, FieldValue> createFrame(int expectedSize){
+		return Maps.newLinkedHashMap();
+	}
+
 	public void addWarning(String warning){
 		List<String> warnings = getWarnings();
 
@@ -110,6 +153,36 @@ public class EvaluationContext {
 		return this.stack;
 	}
 
+	/**
+	 * <p>
+	 * Memoized values of derived fields.
+	 * The value of a derived field depends on the contents of the stack, so the memoized values are discarded whenever a frame is pushed or popped.
+	 * </p>
+	 *
+	 * Missing values are memoized as <code>null</code> values.
+	 *
+	 * @see #resetDerivedValues()
+	 */
+	Map<FieldName, FieldValue> getDerivedValues(){
+
+		if(this.derivedValues == null){
+			this.derivedValues = createFrame(0);
+		}
+
+		return this.derivedValues;
+	}
+
+	/**
+	 * Discards memoized values of derived fields.
+	 * Must be called after adding fields to a frame that is already on the stack.
+	 */
+	void resetDerivedValues(){
+
+		if(this.derivedValues != null && !this.derivedValues.isEmpty()){
+			this.derivedValues.clear();
+		}
+	}
+
 	public List<String> getWarnings(){
 		return this.warnings;
 	}
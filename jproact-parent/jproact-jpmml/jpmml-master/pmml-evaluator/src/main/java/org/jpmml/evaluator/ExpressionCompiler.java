@@ -0,0 +1,713 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.cache.*;
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Translates {@link Expression} trees to {@link CompiledExpression} trees.
+ * </p>
+ *
+ * The compilation binds built-in functions and pre-parses constant values, so that the evaluation does not need to re-dispatch on every node.
+ * Compiled expressions are cached per owning element.
+ * The owning element must not be modified after it has been evaluated for the first time.
+ *
+ * User-defined functions are bound when the owning element is compiled, using the evaluation context of its first evaluation.
+ * Small non-recursive user-defined functions are inlined into the calling expression, so that their invocation does not need a new evaluation context.
+ *
+ * @see ExpressionUtil
+ */
+public class ExpressionCompiler {
+
+	private ExpressionCompiler(){
+	}
+
+	static
+	public CompiledExpression getCompiledExpression(DerivedField derivedField, EvaluationContext context){
+		return getCompiledExpression(derivedField, derivedField.getExpression(), context);
+	}
+
+	static
+	public CompiledExpression getCompiledExpression(DefineFunction defineFunction, EvaluationContext context){
+		return getCompiledExpression(defineFunction, defineFunction.getExpression(), context);
+	}
+
+	static
+	public CompiledExpression getCompiledExpression(OutputField outputField, EvaluationContext context){
+		return getCompiledExpression(outputField, outputField.getExpression(), context);
+	}
+
+	static
+	private CompiledExpression getCompiledExpression(PMMLObject object, final Expression expression, final EvaluationContext context){
+		Callable<CompiledExpression> loader = new Callable<CompiledExpression>(){
+
+			@Override
+			public CompiledExpression call(){
+				return compile(expression, context);
+			}
+		};
+
+		return CacheUtil.getValue(object, ExpressionCompiler.expressionCache, loader);
+	}
+
+	/**
+	 * Compiles an expression without binding user-defined functions.
+	 */
+	static
+	public CompiledExpression compile(Expression expression){
+		return compile(expression, (EvaluationContext)null);
+	}
+
+	/**
+	 * @param context The evaluation context for binding user-defined functions, or <code>null</code>.
+	 */
+	static
+	public CompiledExpression compile(Expression expression, EvaluationContext context){
+		final
+		Node node = compile(expression, new Scope(context));
+
+		return new CompiledExpression(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context){
+				return node.evaluate(context, null);
+			}
+		};
+	}
+
+	static
+	private Node compile(Expression expression, Scope scope){
+
+		if(expression instanceof Constant){
+			return compileConstant((Constant)expression);
+		} else
+
+		if(expression instanceof FieldRef){
+			return compileFieldRef((FieldRef)expression, scope);
+		} else
+
+		if(expression instanceof NormContinuous){
+			return compileNormContinuous((NormContinuous)expression, scope);
+		} else
+
+		if(expression instanceof NormDiscrete){
+			return compileNormDiscrete((NormDiscrete)expression, scope);
+		} else
+
+		if(expression instanceof Discretize){
+			return compileDiscretize((Discretize)expression, scope);
+		} else
+
+		if(expression instanceof MapValues){
+			return compileMapValues((MapValues)expression, scope);
+		} else
+
+		if(expression instanceof Apply){
+			return compileApply((Apply)expression, scope);
+		} else
+
+		if(expression instanceof Aggregate){
+			return compileAggregate((Aggregate)expression, scope);
+		}
+
+		throw new UnsupportedFeatureException(expression);
+	}
+
+	static
+	private Node compileConstant(Constant constant){
+		final
+		FieldValue value = ExpressionUtil.evaluateConstant(constant, null);
+
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				return share(value);
+			}
+		};
+	}
+
+	static
+	private Node compileFieldRef(FieldRef fieldRef, Scope scope){
+		final
+		Node field = compileField(fieldRef.getField(), scope);
+
+		final
+		FieldValue missingValue = FieldValueUtil.create(fieldRef.getMapMissingTo());
+
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				FieldValue value = field.evaluate(context, functionArguments);
+				if(value == null){
+					return share(missingValue);
+				}
+
+				return value;
+			}
+		};
+	}
+
+	static
+	private Node compileNormContinuous(final NormContinuous normContinuous, Scope scope){
+		final
+		Node field = compileField(normContinuous.getField(), scope);
+
+		final
+		FieldValue missingValue = FieldValueUtil.create(normContinuous.getMapMissingTo());
+
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				FieldValue value = field.evaluate(context, functionArguments);
+				if(value == null){
+					return share(missingValue);
+				}
+
+				return NormalizationUtil.normalize(normContinuous, value);
+			}
+		};
+	}
+
+	static
+	private Node compileNormDiscrete(NormDiscrete normDiscrete, Scope scope){
+		final
+		Node field = compileField(normDiscrete.getField(), scope);
+
+		final
+		String string = normDiscrete.getValue();
+
+		final
+		FieldValue missingValue = FieldValueUtil.create(normDiscrete.getMapMissingTo());
+
+		final
+		FieldValue equalsValue = FieldValueUtil.create(1d);
+
+		final
+		FieldValue notEqualsValue = FieldValueUtil.create(0d);
+
+		// The value is parsed once for every data type that it is compared against
+		final
+		ConcurrentMap<DataType, Object> parsedValues = Maps.newConcurrentMap();
+
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				FieldValue value = field.evaluate(context, functionArguments);
+				if(value == null){
+					return share(missingValue);
+				}
+
+				DataType dataType = value.getDataType();
+
+				Object parsedValue = parsedValues.get(dataType);
+				if(parsedValue == null){
+					parsedValue = value.parseValue(string);
+
+					parsedValues.putIfAbsent(dataType, parsedValue);
+				}
+
+				boolean equals = value.equalsParsedValue(parsedValue);
+
+				return (equals ? equalsValue : notEqualsValue);
+			}
+		};
+	}
+
+	static
+	private Node compileDiscretize(final Discretize discretize, Scope scope){
+		final
+		Node field = compileField(discretize.getField(), scope);
+
+		final
+		FieldValue missingValue = FieldValueUtil.create(discretize.getDataType(), null, discretize.getMapMissingTo());
+
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				FieldValue value = field.evaluate(context, functionArguments);
+				if(value == null){
+					return share(missingValue);
+				}
+
+				return DiscretizationUtil.discretize(discretize, value);
+			}
+		};
+	}
+
+	static
+	private Node compileMapValues(final MapValues mapValues, Scope scope){
+		List<FieldColumnPair> fieldColumnPairs = mapValues.getFieldColumnPairs();
+
+		final
+		Node[] fields = new Node[fieldColumnPairs.size()];
+
+		// The column names are shared between evaluations
+		final
+		List<String> columns = Arrays.asList(new String[fieldColumnPairs.size()]);
+
+		for(int i = 0; i < fieldColumnPairs.size(); i++){
+			FieldColumnPair fieldColumnPair = fieldColumnPairs.get(i);
+
+			fields[i] = compileField(fieldColumnPair.getField(), scope);
+			columns.set(i, fieldColumnPair.getColumn());
+		}
+
+		final
+		FieldValue missingValue = FieldValueUtil.create(mapValues.getDataType(), null, mapValues.getMapMissingTo());
+
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				FieldValue[] values = new FieldValue[fields.length];
+
+				for(int i = 0; i < fields.length; i++){
+					FieldValue value = fields[i].evaluate(context, functionArguments);
+					if(value == null){
+						return share(missingValue);
+					}
+
+					values[i] = value;
+				}
+
+				return DiscretizationUtil.mapValue(mapValues, columns, Arrays.asList(values));
+			}
+		};
+	}
+
+	static
+	private Node compileApply(final Apply apply, Scope scope){
+		List<Expression> expressions = apply.getExpressions();
+
+		final
+		Node[] arguments = new Node[expressions.size()];
+
+		for(int i = 0; i < expressions.size(); i++){
+			arguments[i] = compile(expressions.get(i), scope);
+		}
+
+		final
+		FieldValue missingValue = FieldValueUtil.create(apply.getMapMissingTo());
+
+		FunctionUtil.Function function = FunctionUtil.getFunction(apply.getFunction());
+
+		if(function instanceof FunctionUtil.LazyFunction){
+			return compileLazyApply(apply, (FunctionUtil.LazyFunction)function, arguments, missingValue);
+		}
+
+		final
+		Invocation invocation = compileInvocation(apply, arguments.length, scope);
+
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				FieldValue[] values = new FieldValue[arguments.length];
+
+				for(int i = 0; i < arguments.length; i++){
+					values[i] = arguments[i].evaluate(context, functionArguments);
+				}
+
+				FieldValue result;
+
+				try {
+					result = invocation.invoke(values, context);
+				} catch(InvalidResultException ire){
+					result = ExpressionUtil.evaluateInvalidResult(apply, ire);
+				}
+
+				if(result == null){
+					return share(missingValue);
+				}
+
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * @see ExpressionUtil#evaluateLazyFunction(Apply, FunctionUtil.LazyFunction, ExpressionUtil.ApplyArguments)
+	 */
+	static
+	private Node compileLazyApply(final Apply apply, final FunctionUtil.LazyFunction function, final Node[] arguments, final FieldValue missingValue){
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				FieldValue result = ExpressionUtil.evaluateLazyFunction(apply, function, new CompiledArguments(arguments, context, functionArguments));
+
+				if(result == null){
+					return share(missingValue);
+				}
+
+				return result;
+			}
+		};
+	}
+
+	static
+	private Invocation compileInvocation(final Apply apply, int size, Scope scope){
+		final
+		FunctionUtil.Function function = FunctionUtil.getFunction(apply.getFunction());
+
+		if(function != null){
+			return new Invocation(){
+
+				@Override
+				public FieldValue invoke(FieldValue[] values, EvaluationContext context){
+					return function.evaluate(Arrays.asList(values));
+				}
+			};
+		}
+
+		final
+		DefineFunction defineFunction = scope.resolveFunction(apply.getFunction());
+
+		// The user-defined function is resolved during evaluation
+		if(defineFunction == null){
+			return new Invocation(){
+
+				@Override
+				public FieldValue invoke(FieldValue[] values, EvaluationContext context){
+					return FunctionUtil.evaluate(apply, Arrays.asList(values), context);
+				}
+			};
+		} // End if
+
+		if(scope.canInline(defineFunction, size)){
+			return compileInlineInvocation(defineFunction, scope);
+		}
+
+		return new Invocation(){
+
+			@Override
+			public FieldValue invoke(FieldValue[] values, EvaluationContext context){
+				return FunctionUtil.evaluate(defineFunction, Arrays.asList(values), context);
+			}
+		};
+	}
+
+	/**
+	 * @see FunctionUtil#evaluate(DefineFunction, List, EvaluationContext)
+	 */
+	static
+	private Invocation compileInlineInvocation(final DefineFunction defineFunction, Scope scope){
+		List<ParameterField> parameterFields = defineFunction.getParameterFields();
+
+		final
+		ParameterField[] parameters = parameterFields.toArray(new ParameterField[parameterFields.size()]);
+
+		final
+		Node body = compile(defineFunction.getExpression(), scope.enter(defineFunction));
+
+		return new Invocation(){
+
+			@Override
+			public FieldValue invoke(FieldValue[] values, EvaluationContext context){
+
+				for(int i = 0; i < parameters.length; i++){
+					values[i] = FieldValueUtil.refine(parameters[i], values[i]);
+				}
+
+				FieldValue result = body.evaluate(context, values);
+
+				return FieldValueUtil.refine(defineFunction.getDataType(), defineFunction.getOptype(), result);
+			}
+		};
+	}
+
+	static
+	private Node compileAggregate(final Aggregate aggregate, Scope scope){
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				return ExpressionUtil.evaluateAggregate(aggregate, context);
+			}
+		};
+	}
+
+	static
+	private Node compileField(final FieldName name, Scope scope){
+		DefineFunction defineFunction = scope.getDefineFunction();
+
+		if(defineFunction == null){
+			final
+			FieldIndex index = scope.getFieldIndex();
+
+			// The slot is resolved once, when the expression is compiled
+			final
+			int slot = (index != null ? index.getSlot(name) : -1);
+
+			return new Node(){
+
+				@Override
+				public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+					return ExpressionUtil.evaluate(name, index, slot, context);
+				}
+			};
+		}
+
+		final
+		int index = scope.getParameterIndex(name);
+
+		// "The function body must not refer to fields other than the parameter fields"
+		if(index < 0){
+			return new Node(){
+
+				@Override
+				public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+					return null;
+				}
+			};
+		}
+
+		return new Node(){
+
+			@Override
+			public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments){
+				return functionArguments[index];
+			}
+		};
+	}
+
+	/**
+	 * @return The number of nodes, or {@link Integer#MAX_VALUE} if the expression cannot be inlined.
+	 */
+	static
+	private int size(Expression expression){
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			int result = 1;
+
+			for(Expression argument : apply.getExpressions()){
+				int size = size(argument);
+
+				if(size == Integer.MAX_VALUE){
+					return size;
+				}
+
+				result += size;
+			}
+
+			return result;
+		} else
+
+		// The aggregation depends on the evaluation context
+		if(expression instanceof Aggregate){
+			return Integer.MAX_VALUE;
+		}
+
+		return 1;
+	}
+
+	/**
+	 * Ordinal values are mutable. A pre-computed ordinal value must be copied before it is handed out.
+	 *
+	 * @see FieldValueUtil#enhance(TypeDefinitionField, FieldValue)
+	 */
+	static
+	private FieldValue share(FieldValue value){
+
+		if(value instanceof OrdinalValue){
+			return FieldValueUtil.create(value.getDataType(), value.getOpType(), value.getValue());
+		}
+
+		return value;
+	}
+
+	abstract
+	static
+	private class Invocation {
+
+		/**
+		 * @param values The values of arguments. The array may be modified.
+		 */
+		abstract
+		public FieldValue invoke(FieldValue[] values, EvaluationContext context);
+	}
+
+	abstract
+	static
+	private class Node {
+
+		/**
+		 * @param functionArguments The values of parameter fields of the enclosing inlined user-defined function, or <code>null</code>.
+		 */
+		abstract
+		public FieldValue evaluate(EvaluationContext context, FieldValue[] functionArguments);
+	}
+
+	/**
+	 * The arguments of a lazy function. Created per evaluation.
+	 */
+	static
+	private class CompiledArguments extends ExpressionUtil.ApplyArguments {
+
+		private Node[] arguments = null;
+
+		private EvaluationContext context = null;
+
+		private FieldValue[] functionArguments = null;
+
+
+		private CompiledArguments(Node[] arguments, EvaluationContext context, FieldValue[] functionArguments){
+			this.arguments = arguments;
+			this.context = context;
+			this.functionArguments = functionArguments;
+		}
+
+		@Override
+		public int size(){
+			return this.arguments.length;
+		}
+
+		@Override
+		public FieldValue evaluateArgument(int index){
+			return this.arguments[index].evaluate(this.context, this.functionArguments);
+		}
+	}
+
+	/**
+	 * The state of the compilation.
+	 * The body of an inlined user-defined function is compiled in a child scope.
+	 */
+	static
+	private class Scope {
+
+		private EvaluationContext context = null;
+
+		private Scope parent = null;
+
+		private DefineFunction defineFunction = null;
+
+		private Map<FieldName, Integer> parameterIndices = null;
+
+		/**
+		 * The number of nodes that can be inlined. Shared between all scopes of the compilation.
+		 */
+		private int[] budget = null;
+
+
+		private Scope(EvaluationContext context){
+			this.context = context;
+			this.budget = new int[]{ExpressionCompiler.MAX_INLINED_SIZE};
+		}
+
+		private Scope(Scope parent, DefineFunction defineFunction){
+			this.context = parent.context;
+			this.parent = parent;
+			this.defineFunction = defineFunction;
+			this.budget = parent.budget;
+
+			this.parameterIndices = Maps.newHashMap();
+
+			List<ParameterField> parameterFields = defineFunction.getParameterFields();
+			for(int i = 0; i < parameterFields.size(); i++){
+				ParameterField parameterField = parameterFields.get(i);
+
+				this.parameterIndices.put(parameterField.getName(), i);
+			}
+		}
+
+		public Scope enter(DefineFunction defineFunction){
+			return new Scope(this, defineFunction);
+		}
+
+		public DefineFunction resolveFunction(String name){
+
+			if(this.context == null){
+				return null;
+			}
+
+			return this.context.resolveFunction(name);
+		}
+
+		/**
+		 * @see FunctionUtil#evaluate(DefineFunction, List, EvaluationContext)
+		 */
+		public boolean canInline(DefineFunction defineFunction, int size){
+			List<ParameterField> parameterFields = defineFunction.getParameterFields();
+
+			// Invalid invocations fail during evaluation
+			if(parameterFields.size() < 1 || parameterFields.size() != size || defineFunction.getExpression() == null){
+				return false;
+			}
+
+			for(Scope scope = this; scope != null; scope = scope.parent){
+
+				// The function is recursive
+				if((defineFunction).equals(scope.defineFunction)){
+					return false;
+				}
+			}
+
+			int bodySize = size(defineFunction.getExpression());
+			if(bodySize > ExpressionCompiler.MAX_FUNCTION_SIZE || bodySize > this.budget[0]){
+				return false;
+			}
+
+			this.budget[0] -= bodySize;
+
+			return true;
+		}
+
+		public DefineFunction getDefineFunction(){
+			return this.defineFunction;
+		}
+
+		/**
+		 * @return The field index of the model, or <code>null</code>.
+		 */
+		public FieldIndex getFieldIndex(){
+
+			if(this.context instanceof ModelManagerEvaluationContext){
+				ModelManagerEvaluationContext context = (ModelManagerEvaluationContext)this.context;
+
+				return context.getFieldIndex();
+			}
+
+			return null;
+		}
+
+		/**
+		 * @return The index of the parameter field, or <code>-1</code>.
+		 */
+		public int getParameterIndex(FieldName name){
+			Integer result = this.parameterIndices.get(name);
+
+			return (result != null ? result.intValue() : -1);
+		}
+	}
+
+	private static final Cache<PMMLObject, CompiledExpression> expressionCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build();
+
+	/**
+	 * The maximum number of nodes in the body of an inlined user-defined function.
+	 */
+	private static final int MAX_FUNCTION_SIZE = 32;
+
+	/**
+	 * The maximum number of inlined nodes per compiled expression.
+	 */
+	private static final int MAX_INLINED_SIZE = 256;
+}
@@ -19,22 +19,88 @@ public class ExpressionUtil {
 
 	static
 	public FieldValue evaluate(FieldName name, EvaluationContext context){
-		Map.Entry<FieldName, FieldValue> entry = context.getArgumentEntry(name);
-		if(entry == null){
-			DerivedField derivedField = context.resolveField(name);
-			if(derivedField == null){
-				return null;
+		Map<FieldName, FieldValue> frame = context.getFrame(name);
+		if(frame == null){
+			return evaluateDerivedField(name, context);
+		}
+
+		return frame.get(name);
+	}
+
+	/**
+	 * Looks up the field by its slot in those frames that are indexed by the given field index, and by its name in all other frames.
+	 * In a {@link ModelManagerEvaluationContext} that uses the given field index, the field is looked up in its slot table instead, without searching the stack.
+	 *
+	 * @param slot The slot of the field in the field index, or <code>-1</code>.
+	 *
+	 * @see #evaluate(FieldName, EvaluationContext)
+	 */
+	static
+	public FieldValue evaluate(FieldName name, FieldIndex index, int slot, EvaluationContext context){
+
+		if(slot < 0){
+			return evaluate(name, context);
+		} // End if
+
+		if(context instanceof ModelManagerEvaluationContext){
+			ModelManagerEvaluationContext modelManagerContext = (ModelManagerEvaluationContext)context;
+
+			if(modelManagerContext.getFieldIndex() == index){
+
+				if(modelManagerContext.isDefined(slot)){
+					return modelManagerContext.getValue(slot);
+				}
+
+				return evaluateDerivedField(name, context);
+			}
+		}
+
+		Deque<Map<FieldName, FieldValue>> stack = context.getStack();
+
+		// Iterate from first to last
+		for(Map<FieldName, FieldValue> frame : stack){
+
+			if(frame instanceof IndexedFrame && ((IndexedFrame)frame).getIndex() == index){
+				IndexedFrame indexedFrame = (IndexedFrame)frame;
+
+				if(indexedFrame.isDefined(slot)){
+					return indexedFrame.getValue(slot);
+				}
+			} else
+
+			if(frame.containsKey(name)){
+				return frame.get(name);
 			}
+		}
+
+		return evaluateDerivedField(name, context);
+	}
+
+	static
+	private FieldValue evaluateDerivedField(FieldName name, EvaluationContext context){
+		Map<FieldName, FieldValue> derivedValues = context.getDerivedValues();
+
+		if(derivedValues.containsKey(name)){
+			return derivedValues.get(name);
+		}
 
-			return evaluate(derivedField, context);
+		DerivedField derivedField = context.resolveField(name);
+		if(derivedField == null){
+			return null;
 		}
 
-		return entry.getValue();
+		FieldValue value = evaluate(derivedField, context);
+
+		derivedValues.put(name, value);
+
+		return value;
 	}
 
 	static
 	public FieldValue evaluate(DerivedField derivedField, EvaluationContext context){
-		FieldValue value = evaluate(derivedField.getExpression(), context);
+		CompiledExpression expression = ExpressionCompiler.getCompiledExpression(derivedField, context);
+
+		FieldValue value = expression.evaluate(context);
 
 		return FieldValueUtil.refine(derivedField, value);
 	}
@@ -150,34 +216,30 @@ public class ExpressionUtil {
 
 	static
 	public FieldValue evaluateApply(Apply apply, EvaluationContext context){
-		List<FieldValue> values = Lists.newArrayList();
+		FunctionUtil.Function function = FunctionUtil.getFunction(apply.getFunction());
+
+		FieldValue result;
 
-		List<Expression> arguments = apply.getExpressions();
-		for(Expression argument : arguments){
-			FieldValue value = evaluate(argument, context);
+		if(function instanceof FunctionUtil.LazyFunction){
+			result = evaluateLazyFunction(apply, (FunctionUtil.LazyFunction)function, new ExpressionArguments(apply.getExpressions(), context));
+		} else
 
-			values.add(value);
-		}
+		{
+			List<FieldValue> values = Lists.newArrayList();
 
-		FieldValue result;
+			List<Expression> arguments = apply.getExpressions();
+			for(Expression argument : arguments){
+				FieldValue value = evaluate(argument, context);
 
-		try {
-			result = FunctionUtil.evaluate(apply, values, context);
-		} catch(InvalidResultException ire){
-			InvalidValueTreatmentMethodType invalidValueTreatmentMethod = apply.getInvalidValueTreatment();
-
-			switch(invalidValueTreatmentMethod){
-				case RETURN_INVALID:
-					throw new InvalidResultException(apply);
-				case AS_IS:
-					// Re-throw the given InvalidResultException instance
-					throw ire;
-				case AS_MISSING:
-					return FieldValueUtil.create(apply.getMapMissingTo());
-				default:
-					throw new UnsupportedFeatureException(apply, invalidValueTreatmentMethod);
+				values.add(value);
 			}
-		}
+
+			try {
+				result = FunctionUtil.evaluate(apply, values, context);
+			} catch(InvalidResultException ire){
+				result = evaluateInvalidResult(apply, ire);
+			}
+		} // End if
 
 		if(result == null){
 			return FieldValueUtil.create(apply.getMapMissingTo());
@@ -186,6 +248,51 @@ public class ExpressionUtil {
 		return result;
 	}
 
+	/**
+	 * Evaluates only those arguments that are needed for the result.
+	 * Shared between the interpreted and the {@link ExpressionCompiler compiled} evaluation.
+	 *
+	 * @return The result, or <code>null</code> if the result is missing.
+	 */
+	static
+	FieldValue evaluateLazyFunction(Apply apply, FunctionUtil.LazyFunction function, ApplyArguments arguments){
+
+		try {
+			return function.evaluate(arguments);
+		} catch(InvalidResultException ire){
+
+			// The InvalidResultException was raised by an argument, not by the function
+			if(ire == arguments.getException()){
+				throw ire;
+			}
+
+			return evaluateInvalidResult(apply, ire);
+		}
+	}
+
+	/**
+	 * Applies the invalid value treatment of the function invocation.
+	 * Shared between the interpreted and the {@link ExpressionCompiler compiled} evaluation.
+	 *
+	 * @return <code>null</code> if the invalid result is treated as a missing result.
+	 */
+	static
+	FieldValue evaluateInvalidResult(Apply apply, InvalidResultException ire){
+		InvalidValueTreatmentMethodType invalidValueTreatmentMethod = apply.getInvalidValueTreatment();
+
+		switch(invalidValueTreatmentMethod){
+			case RETURN_INVALID:
+				throw new InvalidResultException(apply);
+			case AS_IS:
+				// Re-throw the given InvalidResultException instance
+				throw ire;
+			case AS_MISSING:
+				return null;
+			default:
+				throw new UnsupportedFeatureException(apply, invalidValueTreatmentMethod);
+		}
+	}
+
 	@SuppressWarnings (
 		value = {"rawtypes", "unchecked"}
 	)
@@ -243,4 +350,59 @@ public class ExpressionUtil {
 
 		return Lists.newArrayList(Iterables.transform(values, function));
 	}
+
+	/**
+	 * The arguments of a lazy function.
+	 * Keeps track of the InvalidResultException that was raised by an argument, so that it is not mistaken for an invalid result of the function itself.
+	 */
+	abstract
+	static
+	class ApplyArguments implements FunctionUtil.LazyArguments {
+
+		private InvalidResultException exception = null;
+
+
+		abstract
+		public FieldValue evaluateArgument(int index);
+
+		@Override
+		public FieldValue evaluate(int index){
+
+			try {
+				return evaluateArgument(index);
+			} catch(InvalidResultException ire){
+				this.exception = ire;
+
+				throw ire;
+			}
+		}
+
+		public InvalidResultException getException(){
+			return this.exception;
+		}
+	}
+
+	static
+	private class ExpressionArguments extends ApplyArguments {
+
+		private List<Expression> expressions = null;
+
+		private EvaluationContext context = null;
+
+
+		private ExpressionArguments(List<Expression> expressions, EvaluationContext context){
+			this.expressions = expressions;
+			this.context = context;
+		}
+
+		@Override
+		public int size(){
+			return this.expressions.size();
+		}
+
+		@Override
+		public FieldValue evaluateArgument(int index){
+			return ExpressionUtil.evaluate(this.expressions.get(index), this.context);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Maps every field that is declared in a {@link PMML} class model to an integer slot.
+ * </p>
+ *
+ * The declared fields are {@link DataField data fields}, {@link DerivedField derived fields}, {@link MiningField mining fields} and {@link OutputField output fields} of the top-level model and all its nested models.
+ * Parameter fields of {@link DefineFunction user-defined functions} are not declared fields.
+ *
+ * @see IndexedFrame
+ */
+public class FieldIndex {
+
+	private Map<FieldName, Integer> slots = null;
+
+	private FieldName[] names = null;
+
+
+	public FieldIndex(Collection<FieldName> names){
+		ImmutableMap.Builder<FieldName, Integer> builder = ImmutableMap.builder();
+
+		int slot = 0;
+
+		for(FieldName name : names){
+			builder.put(name, slot);
+
+			slot++;
+		}
+
+		setSlots(builder.build());
+		setNames(names.toArray(new FieldName[names.size()]));
+	}
+
+	/**
+	 * @return The slot of the field, or <code>-1</code> if the field is not declared.
+	 */
+	public int getSlot(FieldName name){
+		Integer slot = this.slots.get(name);
+		if(slot == null){
+			return -1;
+		}
+
+		return slot.intValue();
+	}
+
+	public FieldName getName(int slot){
+		return this.names[slot];
+	}
+
+	public int size(){
+		return this.names.length;
+	}
+
+	private void setSlots(Map<FieldName, Integer> slots){
+		this.slots = slots;
+	}
+
+	private void setNames(FieldName[] names){
+		this.names = names;
+	}
+
+	static
+	public FieldIndex create(PMML pmml){
+		final
+		Set<FieldName> names = Sets.newLinkedHashSet();
+
+		Visitor visitor = new AbstractSimpleVisitor(){
+
+			@Override
+			public VisitorAction visit(DataField dataField){
+				add(dataField.getName());
+
+				return super.visit(dataField);
+			}
+
+			@Override
+			public VisitorAction visit(DerivedField derivedField){
+				add(derivedField.getName());
+
+				return super.visit(derivedField);
+			}
+
+			@Override
+			public VisitorAction visit(MiningField miningField){
+				add(miningField.getName());
+
+				return super.visit(miningField);
+			}
+
+			@Override
+			public VisitorAction visit(OutputField outputField){
+				add(outputField.getName());
+
+				return super.visit(outputField);
+			}
+
+			private void add(FieldName name){
+
+				// The name of a derived field is optional in some contexts (eg. Bayes inputs)
+				if(name != null){
+					names.add(name);
+				}
+			}
+		};
+		pmml.accept(visitor);
+
+		return new FieldIndex(names);
+	}
+}
@@ -25,6 +25,13 @@ public class FieldValue implements Serializable {
 		setValue(value);
 	}
 
+	/**
+	 * Constructs a value whose {@link #getValue() Java value} is held by a subclass.
+	 */
+	protected FieldValue(DataType dataType){
+		setDataType(dataType);
+	}
+
 	abstract
 	public OpType getOpType();
 
@@ -34,7 +41,16 @@ public class FieldValue implements Serializable {
 	 * @param string The reference value.
 	 */
 	public boolean equalsString(String string){
-		return TypeUtil.equals(getDataType(), getValue(), parseValue(string));
+		return equalsParsedValue(parseValue(string));
+	}
+
+	/**
+	 * Checks if this value is equal to the reference value.
+	 *
+	 * @param parsedValue The reference value, as returned by {@link #parseValue(String)}.
+	 */
+	public boolean equalsParsedValue(Object parsedValue){
+		return TypeUtil.equals(getDataType(), getValue(), parsedValue);
 	}
 
 	public boolean equalsAnyString(Iterable<String> strings){
@@ -75,7 +91,16 @@ public class FieldValue implements Serializable {
 	 * @param string The reference value.
 	 */
 	public int compareToString(String string){
-		return TypeUtil.compare(getDataType(), getValue(), parseValue(string));
+		return compareToParsedValue(parseValue(string));
+	}
+
+	/**
+	 * Calculates the order between this value and the reference value.
+	 *
+	 * @param parsedValue The reference value, as returned by {@link #parseValue(String)}.
+	 */
+	public int compareToParsedValue(Object parsedValue){
+		return TypeUtil.compare(getDataType(), getValue(), parsedValue);
 	}
 
 	public int compareToValue(FieldValue value){
@@ -110,6 +135,15 @@ public class FieldValue implements Serializable {
 		throw new TypeCheckException(DataType.INTEGER, value);
 	}
 
+	/**
+	 * Unboxed variant of {@link #asInteger()}.
+	 */
+	public int asInt(){
+		Integer value = asInteger();
+
+		return value.intValue();
+	}
+
 	public Number asNumber(){
 		Object value = getValue();
 
@@ -120,6 +154,12 @@ public class FieldValue implements Serializable {
 		throw new TypeCheckException(DataType.DOUBLE, value);
 	}
 
+	public double asDouble(){
+		Number number = asNumber();
+
+		return number.doubleValue();
+	}
+
 	public Boolean asBoolean(){
 		Object value = getValue();
 
@@ -20,6 +20,42 @@ public class FieldValueUtil {
 		return create(null, null, value);
 	}
 
+	static
+	public FieldValue create(int value){
+		return new IntegerValue(value);
+	}
+
+	static
+	public FieldValue create(float value){
+		return new FloatValue(value);
+	}
+
+	static
+	public FieldValue create(double value){
+		return new DoubleValue(value);
+	}
+
+	/**
+	 * Casts a number to the specified numeric data type.
+	 * Fractional numbers are truncated towards zero when cast to {@link DataType#INTEGER}.
+	 */
+	static
+	public FieldValue create(DataType dataType, double value){
+
+		switch(dataType){
+			case INTEGER:
+				return new IntegerValue((int)value);
+			case FLOAT:
+				return new FloatValue((float)value);
+			case DOUBLE:
+				return new DoubleValue(value);
+			default:
+				break;
+		}
+
+		throw new EvaluationException();
+	}
+
 	static
 	public FieldValue create(Field field, Object value){
 		FieldValue result = create(field.getDataType(), field.getOptype(), value);
@@ -65,7 +101,7 @@ public class FieldValueUtil {
 
 		switch(opType){
 			case CONTINUOUS:
-				return new ContinuousValue(dataType, value);
+				return createContinuous(dataType, value);
 			case CATEGORICAL:
 				return new CategoricalValue(dataType, value);
 			case ORDINAL:
@@ -77,6 +113,27 @@ public class FieldValueUtil {
 		throw new EvaluationException();
 	}
 
+	static
+	private FieldValue createContinuous(DataType dataType, Object value){
+
+		if(value instanceof Collection){
+			return new ContinuousValue(dataType, value);
+		}
+
+		switch(dataType){
+			case INTEGER:
+				return new IntegerValue((Integer)value);
+			case FLOAT:
+				return new FloatValue((Float)value);
+			case DOUBLE:
+				return new DoubleValue((Double)value);
+			default:
+				break;
+		}
+
+		return new ContinuousValue(dataType, value);
+	}
+
 	static
 	public FieldValue refine(Field field, FieldValue value){
 		FieldValue result = refine(field.getDataType(), field.getOptype(), value);
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import org.dmg.pmml.*;
+
+public class FloatValue extends NumberValue {
+
+	private float value;
+
+
+	public FloatValue(float value){
+		super(DataType.FLOAT);
+
+		this.value = value;
+	}
+
+	public FloatValue(Float value){
+		this(value.floatValue());
+
+		setBoxedValue(value);
+	}
+
+	@Override
+	public Float box(){
+		return Float.valueOf(this.value);
+	}
+
+	@Override
+	public double asDouble(){
+		return this.value;
+	}
+
+	public float floatValue(){
+		return this.value;
+	}
+
+	private static final long serialVersionUID = 1L;
+}
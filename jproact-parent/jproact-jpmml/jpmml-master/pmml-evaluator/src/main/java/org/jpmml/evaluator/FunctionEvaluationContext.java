@@ -5,6 +5,10 @@ package org.jpmml.evaluator;
 
 import org.dmg.pmml.*;
 
+/**
+ * An evaluation context for the body of a {@link DefineFunction user-defined function}.
+ * The function body sees only the parameter fields, so memoized values of derived fields are never shared with the parent context.
+ */
 public class FunctionEvaluationContext extends EvaluationContext {
 
 	private EvaluationContext parent = null;
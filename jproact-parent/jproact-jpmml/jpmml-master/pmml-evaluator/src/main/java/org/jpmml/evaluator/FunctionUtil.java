@@ -15,6 +15,7 @@ import org.apache.commons.math3.stat.descriptive.summary.*;
 import org.dmg.pmml.*;
 
 import com.google.common.collect.*;
+import com.google.common.primitives.*;
 
 import org.joda.time.*;
 
@@ -70,7 +71,9 @@ public class FunctionUtil {
 		FunctionEvaluationContext functionContext = new FunctionEvaluationContext(context);
 		functionContext.pushFrame(arguments);
 
-		FieldValue result = ExpressionUtil.evaluate(expression, functionContext);
+		CompiledExpression compiledExpression = ExpressionCompiler.getCompiledExpression(defineFunction, functionContext);
+
+		FieldValue result = compiledExpression.evaluate(functionContext);
 
 		return FieldValueUtil.refine(defineFunction.getDataType(), defineFunction.getOptype(), result);
 	}
@@ -98,6 +101,14 @@ public class FunctionUtil {
 		}
 	}
 
+	static
+	private void checkArguments(LazyArguments arguments, int minSize, int maxSize){
+		boolean success = (arguments.size() >= minSize) && (arguments.size() <= maxSize);
+		if(!success){
+			throw new EvaluationException();
+		}
+	}
+
 	static
 	private void checkVariableArguments(List<FieldValue> values, int size){
 		checkVariableArguments(values, size, false);
@@ -111,32 +122,6 @@ public class FunctionUtil {
 		}
 	}
 
-	static
-	private Number cast(DataType dataType, Number number){
-
-		switch(dataType){
-			case INTEGER:
-				if(number instanceof Integer){
-					return number;
-				}
-				return Integer.valueOf(number.intValue());
-			case FLOAT:
-				if(number instanceof Float){
-					return number;
-				}
-				return Float.valueOf(number.floatValue());
-			case DOUBLE:
-				if(number instanceof Double){
-					return number;
-				}
-				return Double.valueOf(number.doubleValue());
-			default:
-				break;
-		}
-
-		throw new EvaluationException();
-	}
-
 	static
 	private DataType integerToDouble(DataType dataType){
 
@@ -157,12 +142,57 @@ public class FunctionUtil {
 		FieldValue evaluate(List<FieldValue> values);
 	}
 
+	/**
+	 * A function that evaluates only those arguments that are needed for the result.
+	 */
+	public interface LazyFunction extends Function {
+
+		FieldValue evaluate(LazyArguments arguments);
+	}
+
+	public interface LazyArguments {
+
+		int size();
+
+		/**
+		 * @return The value of the argument, or <code>null</code> if the value is missing.
+		 */
+		FieldValue evaluate(int index);
+	}
+
+	static
+	public LazyArguments createArguments(final List<FieldValue> values){
+		LazyArguments result = new LazyArguments(){
+
+			@Override
+			public int size(){
+				return values.size();
+			}
+
+			@Override
+			public FieldValue evaluate(int index){
+				return values.get(index);
+			}
+		};
+
+		return result;
+	}
+
 	static
 	abstract
 	public class ArithmeticFunction implements Function {
 
 		abstract
-		public Number evaluate(Number left, Number right);
+		public double evaluate(double left, double right);
+
+		/**
+		 * Performs the computation when the result data type is {@link DataType#INTEGER}.
+		 * By default, the computation is performed on double values, and the result is truncated towards zero.
+		 * Out-of-range results saturate at {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE}.
+		 */
+		public int evaluate(int left, int right){
+			return (int)evaluate((double)left, (double)right);
+		}
 
 		@Override
 		public FieldValue evaluate(List<FieldValue> values){
@@ -181,15 +211,16 @@ public class FunctionUtil {
 
 			DataType dataType = TypeUtil.getResultDataType(left.getDataType(), right.getDataType());
 
-			Number result;
-
 			try {
-				result = evaluate(left.asNumber(), right.asNumber());
+				switch(dataType){
+					case INTEGER:
+						return FieldValueUtil.create(evaluate(left.asInt(), right.asInt()));
+					default:
+						return FieldValueUtil.create(dataType, evaluate(left.asDouble(), right.asDouble()));
+				}
 			} catch(ArithmeticException ae){
 				throw new InvalidResultException(null);
 			}
-
-			return FieldValueUtil.create(cast(dataType, result));
 		}
 	}
 
@@ -197,37 +228,52 @@ public class FunctionUtil {
 		putFunction("+", new ArithmeticFunction(){
 
 			@Override
-			public Double evaluate(Number left, Number right){
-				return Double.valueOf(left.doubleValue() + right.doubleValue());
+			public double evaluate(double left, double right){
+				return left + right;
+			}
+
+			@Override
+			public int evaluate(int left, int right){
+				return Ints.saturatedCast((long)left + (long)right);
 			}
 		});
 
 		putFunction("-", new ArithmeticFunction(){
 
 			@Override
-			public Double evaluate(Number left, Number right){
-				return Double.valueOf(left.doubleValue() - right.doubleValue());
+			public double evaluate(double left, double right){
+				return left - right;
+			}
+
+			@Override
+			public int evaluate(int left, int right){
+				return Ints.saturatedCast((long)left - (long)right);
 			}
 		});
 
 		putFunction("*", new ArithmeticFunction(){
 
 			@Override
-			public Double evaluate(Number left, Number right){
-				return Double.valueOf(left.doubleValue() * right.doubleValue());
+			public double evaluate(double left, double right){
+				return left * right;
+			}
+
+			@Override
+			public int evaluate(int left, int right){
+				return Ints.saturatedCast((long)left * (long)right);
 			}
 		});
 
 		putFunction("/", new ArithmeticFunction(){
 
 			@Override
-			public Number evaluate(Number left, Number right){
-
-				if(left instanceof Integer && right instanceof Integer){
-					return Integer.valueOf(left.intValue() / right.intValue());
-				}
+			public double evaluate(double left, double right){
+				return left / right;
+			}
 
-				return Double.valueOf(left.doubleValue() / right.doubleValue());
+			@Override
+			public int evaluate(int left, int right){
+				return left / right;
 			}
 		});
 	}
@@ -256,7 +302,7 @@ public class FunctionUtil {
 					continue;
 				}
 
-				statistic.increment((value.asNumber()).doubleValue());
+				statistic.increment(value.asDouble());
 
 				if(dataType != null){
 					dataType = TypeUtil.getResultDataType(dataType, value.getDataType());
@@ -271,9 +317,7 @@ public class FunctionUtil {
 				throw new MissingResultException(null);
 			}
 
-			Object result = cast(getResultType(dataType), statistic.getResult());
-
-			return FieldValueUtil.create(result);
+			return FieldValueUtil.create(getResultType(dataType), statistic.getResult());
 		}
 	}
 
@@ -329,7 +373,7 @@ public class FunctionUtil {
 	public class MathFunction implements Function {
 
 		abstract
-		public Double evaluate(Number value);
+		public double evaluate(double value);
 
 		public DataType getResultType(DataType dataType){
 			return dataType;
@@ -341,9 +385,7 @@ public class FunctionUtil {
 
 			FieldValue value = values.get(0);
 
-			Number result = cast(getResultType(value.getDataType()), evaluate(value.asNumber()));
-
-			return FieldValueUtil.create(result);
+			return FieldValueUtil.create(getResultType(value.getDataType()), evaluate(value.asDouble()));
 		}
 	}
 
@@ -361,40 +403,40 @@ public class FunctionUtil {
 		putFunction("log10", new FpMathFunction(){
 
 			@Override
-			public Double evaluate(Number value){
-				return Math.log10(value.doubleValue());
+			public double evaluate(double value){
+				return Math.log10(value);
 			}
 		});
 
 		putFunction("ln", new FpMathFunction(){
 
 			@Override
-			public Double evaluate(Number value){
-				return Math.log(value.doubleValue());
+			public double evaluate(double value){
+				return Math.log(value);
 			}
 		});
 
 		putFunction("exp", new FpMathFunction(){
 
 			@Override
-			public Double evaluate(Number value){
-				return Math.exp(value.doubleValue());
+			public double evaluate(double value){
+				return Math.exp(value);
 			}
 		});
 
 		putFunction("sqrt", new FpMathFunction(){
 
 			@Override
-			public Double evaluate(Number value){
-				return Math.sqrt(value.doubleValue());
+			public double evaluate(double value){
+				return Math.sqrt(value);
 			}
 		});
 
 		putFunction("abs", new MathFunction(){
 
 			@Override
-			public Double evaluate(Number value){
-				return Math.abs(value.doubleValue());
+			public double evaluate(double value){
+				return Math.abs(value);
 			}
 		});
 
@@ -409,9 +451,9 @@ public class FunctionUtil {
 
 				DataType dataType = TypeUtil.getResultDataType(left.getDataType(), right.getDataType());
 
-				Double result = Math.pow((left.asNumber()).doubleValue(), (right.asNumber()).doubleValue());
+				double result = Math.pow(left.asDouble(), right.asDouble());
 
-				return FieldValueUtil.create(cast(dataType, result));
+				return FieldValueUtil.create(dataType, result);
 			}
 		});
 
@@ -426,49 +468,54 @@ public class FunctionUtil {
 
 				DataType dataType = TypeUtil.getResultDataType(left.getDataType(), right.getDataType());
 
-				Integer result = ((left.asNumber()).doubleValue() > (right.asNumber()).doubleValue()) ? 1 : 0;
+				double result = (left.asDouble() > right.asDouble()) ? 1d : 0d;
 
-				return FieldValueUtil.create(cast(dataType, result));
+				return FieldValueUtil.create(dataType, result);
 			}
 		});
 
 		putFunction("floor", new MathFunction(){
 
 			@Override
-			public Double evaluate(Number number){
-				return Math.floor(number.doubleValue());
+			public double evaluate(double number){
+				return Math.floor(number);
 			}
 		});
 
 		putFunction("ceil", new MathFunction(){
 
 			@Override
-			public Double evaluate(Number number){
-				return Math.ceil(number.doubleValue());
+			public double evaluate(double number){
+				return Math.ceil(number);
 			}
 		});
 
 		putFunction("round", new MathFunction(){
 
 			@Override
-			public Double evaluate(Number number){
-				return (double)Math.round(number.doubleValue());
+			public double evaluate(double number){
+				return (double)Math.round(number);
 			}
 		});
 	}
 
 	static
 	abstract
-	public class ValueFunction implements Function {
+	public class ValueFunction implements LazyFunction {
 
 		abstract
 		public Boolean evaluate(FieldValue value);
 
 		@Override
 		public FieldValue evaluate(List<FieldValue> values){
-			checkArguments(values, 1, true);
+			return evaluate(createArguments(values));
+		}
 
-			FieldValue value = values.get(0);
+		@Override
+		public FieldValue evaluate(LazyArguments arguments){
+			checkArguments(arguments, 1, 1);
+
+			FieldValue value = arguments.evaluate(0);
 
 			Boolean result = evaluate(value);
 
@@ -589,23 +636,52 @@ public class FunctionUtil {
 
 	static
 	abstract
-	public class BinaryBooleanFunction implements Function {
+	public class BinaryBooleanFunction implements LazyFunction {
 
 		abstract
 		public Boolean evaluate(Boolean left, Boolean right);
 
+		/**
+		 * @return The value that cannot be changed by the remaining arguments, or <code>null</code>.
+		 */
+		public Boolean getShortCircuitValue(){
+			return null;
+		}
+
 		@Override
 		public FieldValue evaluate(List<FieldValue> values){
-			checkVariableArguments(values, 2);
+			return evaluate(createArguments(values));
+		}
 
-			Boolean result = (values.get(0)).asBoolean();
+		@Override
+		public FieldValue evaluate(LazyArguments arguments){
+			checkArguments(arguments, 2, Integer.MAX_VALUE);
+
+			Boolean shortCircuitValue = getShortCircuitValue();
+
+			Boolean result = asBoolean(arguments, 0);
+
+			for(int i = 1; i < arguments.size(); i++){
+
+				if(result.equals(shortCircuitValue)){
+					break;
+				}
 
-			for(int i = 1; i < values.size(); i++){
-				result = evaluate(result, (values.get(i)).asBoolean());
+				result = evaluate(result, asBoolean(arguments, i));
 			}
 
 			return FieldValueUtil.create(result);
 		}
+
+		static
+		private Boolean asBoolean(LazyArguments arguments, int index){
+			FieldValue value = arguments.evaluate(index);
+			if(value == null){
+				throw new EvaluationException();
+			}
+
+			return value.asBoolean();
+		}
 	}
 
 	static {
@@ -615,6 +691,11 @@ public class FunctionUtil {
 			public Boolean evaluate(Boolean left, Boolean right){
 				return Boolean.valueOf(left.booleanValue() & right.booleanValue());
 			}
+
+			@Override
+			public Boolean getShortCircuitValue(){
+				return Boolean.FALSE;
+			}
 		});
 
 		putFunction("or", new BinaryBooleanFunction(){
@@ -623,6 +704,11 @@ public class FunctionUtil {
 			public Boolean evaluate(Boolean left, Boolean right){
 				return Boolean.valueOf(left.booleanValue() | right.booleanValue());
 			}
+
+			@Override
+			public Boolean getShortCircuitValue(){
+				return Boolean.TRUE;
+			}
 		});
 	}
 
@@ -691,22 +777,24 @@ public class FunctionUtil {
 	}
 
 	static {
-		putFunction("if", new Function(){
+		putFunction("if", new LazyFunction(){
 
 			@Override
 			public FieldValue evaluate(List<FieldValue> values){
+				return evaluate(createArguments(values));
+			}
 
-				if((values.size() < 2 || values.size() > 3)){
-					throw new EvaluationException();
-				}
+			@Override
+			public FieldValue evaluate(LazyArguments arguments){
+				checkArguments(arguments, 2, 3);
 
-				FieldValue flag = values.get(0);
+				FieldValue flag = arguments.evaluate(0);
 				if(flag == null){
 					throw new EvaluationException();
 				} // End if
 
 				if(flag.asBoolean()){
-					FieldValue trueValue = values.get(1);
+					FieldValue trueValue = arguments.evaluate(1);
 
 					// "The THEN part is required"
 					if(trueValue == null){
@@ -717,7 +805,7 @@ public class FunctionUtil {
 				} else
 
 				{
-					FieldValue falseValue = (values.size() > 2 ? values.get(2) : null);
+					FieldValue falseValue = (arguments.size() > 2 ? arguments.evaluate(2) : null);
 
 					// "The ELSE part is optional. If the ELSE part is absent then a missing value is returned"
 					if(falseValue == null){
@@ -774,8 +862,8 @@ public class FunctionUtil {
 
 				String string = (values.get(0)).asString();
 
-				int position = (values.get(1)).asInteger();
-				int length = (values.get(2)).asInteger();
+				int position = (values.get(1)).asInt();
+				int length = (values.get(2)).asInt();
 
 				// "The first character of a string is located at position 1 (not position 0)"
 				if(position <= 0 || length < 0){
@@ -873,7 +961,7 @@ public class FunctionUtil {
 
 				LocalDate instant = (values.get(0)).asLocalDate();
 
-				int year = (values.get(1)).asInteger();
+				int year = (values.get(1)).asInt();
 
 				DaysSinceDate period = new DaysSinceDate(year, instant);
 
@@ -905,7 +993,7 @@ public class FunctionUtil {
 
 				LocalDateTime instant = (values.get(0)).asLocalDateTime();
 
-				int year = (values.get(1)).asInteger();
+				int year = (values.get(1)).asInt();
 
 				SecondsSinceDate period = new SecondsSinceDate(year, instant);
 
@@ -59,23 +59,19 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 	private Map<FieldName, ?> evaluateRegression(ModelManagerEvaluationContext context){
 		GeneralRegressionModel generalRegressionModel = getModel();
 
-		Map<FieldName, FieldValue> arguments = getArguments(context);
-
-		Map<String, Map<String, Row>> ppMatrixMap = getPPMatrixMap();
-		if(ppMatrixMap.size() != 1 || !ppMatrixMap.containsKey(null)){
+		Set<String> ppCategories = getPPCategories();
+		if(ppCategories.size() != 1 || !ppCategories.contains(null)){
 			throw new InvalidFeatureException(generalRegressionModel.getPPMatrix());
 		}
 
-		Map<String, Row> parameterPredictorRows = ppMatrixMap.get(null);
-
 		Map<String, List<PCell>> paramMatrixMap = getParamMatrixMap();
 		if(paramMatrixMap.size() != 1 || !paramMatrixMap.containsKey(null)){
 			throw new InvalidFeatureException(generalRegressionModel.getParamMatrix());
 		}
 
-		Iterable<PCell> parameterCells = paramMatrixMap.get(null);
+		DotProduct dotProduct = createDotProduct(context);
 
-		Double result = computeDotProduct(parameterCells, parameterPredictorRows, arguments);
+		Double result = dotProduct.evaluate(null, null);
 
 		GeneralRegressionModel.ModelType modelType = generalRegressionModel.getModelType();
 		switch(modelType){
@@ -113,9 +109,9 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 			throw new InvalidFeatureException(dataField);
 		}
 
-		Map<FieldName, FieldValue> arguments = getArguments(context);
+		DotProduct dotProduct = createDotProduct(context);
 
-		Map<String, Map<String, Row>> ppMatrixMap = getPPMatrixMap();
+		Set<String> ppCategories = getPPCategories();
 
 		final
 		Map<String, List<PCell>> paramMatrixMap = getParamMatrixMap();
@@ -171,30 +167,30 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 
 			// Categories from the first category to the second-to-last category
 			if(i < (targetCategories.size() - 1)){
-				Map<String, Row> parameterPredictorRow = ppMatrixMap.get(targetCategory);
-				if(parameterPredictorRow == null){
-					parameterPredictorRow = ppMatrixMap.get(null);
+				String ppCategory = targetCategory;
+				if(!ppCategories.contains(ppCategory)){
+					ppCategory = null;
 				} // End if
 
-				if(parameterPredictorRow == null){
+				if(!ppCategories.contains(ppCategory)){
 					throw new InvalidFeatureException(generalRegressionModel.getPPMatrix());
 				}
 
-				Iterable<PCell> parameterCells;
-
 				switch(modelType){
 					case GENERAL_LINEAR:
 					case GENERALIZED_LINEAR:
 					case MULTINOMIAL_LOGISTIC:
 						// PCell elements must have non-null targetCategory attribute in case of multinomial categories, but can do without in case of binomial categories
-						parameterCells = paramMatrixMap.get(targetCategory);
-						if(parameterCells == null && targetCategories.size() == 2){
-							parameterCells = paramMatrixMap.get(null);
+						String paramCategory = targetCategory;
+						if(!paramMatrixMap.containsKey(paramCategory) && targetCategories.size() == 2){
+							paramCategory = null;
 						} // End if
 
-						if(parameterCells == null){
+						if(!paramMatrixMap.containsKey(paramCategory)){
 							throw new InvalidFeatureException(generalRegressionModel.getParamMatrix());
 						}
+
+						value = dotProduct.evaluate(paramCategory, ppCategory);
 						break;
 					case ORDINAL_MULTINOMIAL:
 						// "ParamMatrix specifies different values for the intercept parameter: one for each target category except one"
@@ -204,19 +200,16 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 						}
 
 						// "Values for all other parameters are constant across all target variable values"
-						parameterCells = paramMatrixMap.get(null);
-						if(parameterCells == null){
+						if(!paramMatrixMap.containsKey(null)){
 							throw new InvalidFeatureException(generalRegressionModel.getParamMatrix());
 						}
 
-						parameterCells = Iterables.concat(interceptCells, parameterCells);
+						value = dotProduct.evaluateOrdinal(targetCategory, ppCategory);
 						break;
 					default:
 						throw new UnsupportedFeatureException(generalRegressionModel, modelType);
 				}
 
-				value = computeDotProduct(parameterCells, parameterPredictorRow, arguments);
-
 				switch(modelType){
 					case GENERAL_LINEAR:
 					case GENERALIZED_LINEAR:
@@ -292,32 +285,6 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 		return TargetUtil.evaluateClassification(Collections.singletonMap(targetField, result), context);
 	}
 
-	private Double computeDotProduct(Iterable<PCell> parameterCells, Map<String, Row> parameterPredictorRows, Map<FieldName, FieldValue> arguments){
-		double sum = 0d;
-
-		for(PCell parameterCell : parameterCells){
-			Double x;
-
-			Row parameterPredictorRow = parameterPredictorRows.get(parameterCell.getParameterName());
-			if(parameterPredictorRow != null){
-				x = parameterPredictorRow.evaluate(arguments);
-			} else
-
-			// The row is empty
-			{
-				x = 1d;
-			} // End if
-
-			if(x == null){
-				continue;
-			}
-
-			sum += (x.doubleValue() * parameterCell.getBeta());
-		}
-
-		return sum;
-	}
-
 	private Double computeLink(Double value, EvaluationContext context){
 		GeneralRegressionModel generalRegressionModel = getModel();
 
@@ -404,6 +371,108 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 		}
 	}
 
+	/**
+	 * @see #isCompiled()
+	 */
+	private DotProduct createDotProduct(EvaluationContext context){
+
+		if(isCompiled()){
+			final
+			CompiledGeneralRegressionModel compiledModel = getCompiledModel();
+
+			final
+			CompiledGeneralRegressionModel.DesignVector designVector = compiledModel.createDesignVector(context);
+
+			DotProduct result = new DotProduct(){
+
+				@Override
+				public Double evaluate(String paramCategory, String ppCategory){
+					return designVector.dotProduct(compiledModel.getRow(paramCategory, ppCategory));
+				}
+
+				@Override
+				public Double evaluateOrdinal(String targetCategory, String ppCategory){
+					return designVector.dotProduct(compiledModel.getOrdinalRow(targetCategory, ppCategory));
+				}
+			};
+
+			return result;
+		}
+
+		final
+		Map<FieldName, FieldValue> arguments = getArguments(context);
+
+		final
+		Map<String, Map<String, Row>> ppMatrixMap = getPPMatrixMap();
+
+		final
+		Map<String, List<PCell>> paramMatrixMap = getParamMatrixMap();
+
+		DotProduct result = new DotProduct(){
+
+			@Override
+			public Double evaluate(String paramCategory, String ppCategory){
+				return computeDotProduct(paramMatrixMap.get(paramCategory), ppMatrixMap.get(ppCategory), arguments);
+			}
+
+			@Override
+			public Double evaluateOrdinal(String targetCategory, String ppCategory){
+				Iterable<PCell> parameterCells = Iterables.concat(paramMatrixMap.get(targetCategory), paramMatrixMap.get(null));
+
+				return computeDotProduct(parameterCells, ppMatrixMap.get(ppCategory), arguments);
+			}
+		};
+
+		return result;
+	}
+
+	private Double computeDotProduct(Iterable<PCell> parameterCells, Map<String, Row> parameterPredictorRows, Map<FieldName, FieldValue> arguments){
+		double sum = 0d;
+
+		for(PCell parameterCell : parameterCells){
+			Double x;
+
+			Row parameterPredictorRow = parameterPredictorRows.get(parameterCell.getParameterName());
+			if(parameterPredictorRow != null){
+				x = parameterPredictorRow.evaluate(arguments);
+			} else
+
+			// The row is empty
+			{
+				x = 1d;
+			} // End if
+
+			if(x == null){
+				continue;
+			}
+
+			sum += (x.doubleValue() * parameterCell.getBeta());
+		}
+
+		return sum;
+	}
+
+	private Set<String> getPPCategories(){
+
+		if(isCompiled()){
+			CompiledGeneralRegressionModel compiledModel = getCompiledModel();
+
+			return compiledModel.getPPCategories();
+		}
+
+		Map<String, Map<String, Row>> ppMatrixMap = getPPMatrixMap();
+
+		return ppMatrixMap.keySet();
+	}
+
+	public BiMap<FieldName, Predictor> getFactorRegistry(){
+		return getValue(GeneralRegressionModelEvaluator.factorCache);
+	}
+
+	public BiMap<FieldName, Predictor> getCovariateRegistry(){
+		return getValue(GeneralRegressionModelEvaluator.covariateCache);
+	}
+
 	private Map<FieldName, FieldValue> getArguments(EvaluationContext context){
 		BiMap<FieldName, Predictor> factors = getFactorRegistry();
 		BiMap<FieldName, Predictor> covariates = getCovariateRegistry();
@@ -420,12 +489,8 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 		return result;
 	}
 
-	public BiMap<FieldName, Predictor> getFactorRegistry(){
-		return getValue(GeneralRegressionModelEvaluator.factorCache);
-	}
-
-	public BiMap<FieldName, Predictor> getCovariateRegistry(){
-		return getValue(GeneralRegressionModelEvaluator.covariateCache);
+	public CompiledGeneralRegressionModel getCompiledModel(){
+		return getValue(GeneralRegressionModelEvaluator.compiledModelCache);
 	}
 
 	private Map<String, Map<String, Row>> getPPMatrixMap(){
@@ -540,12 +605,12 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 	}
 
 	static
-	private <C extends ParameterCell> ListMultimap<String, C> groupByParameterName(List<C> cells){
+	private <C extends ParameterCell> ListMultimap<String, C> groupByTargetCategory(List<C> cells){
 		Function<C, String> function = new Function<C, String>(){
 
 			@Override
 			public String apply(C cell){
-				return cell.getParameterName();
+				return cell.getTargetCategory();
 			}
 		};
 
@@ -553,12 +618,12 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 	}
 
 	static
-	private <C extends ParameterCell> ListMultimap<String, C> groupByTargetCategory(List<C> cells){
+	private <C extends ParameterCell> ListMultimap<String, C> groupByParameterName(List<C> cells){
 		Function<C, String> function = new Function<C, String>(){
 
 			@Override
 			public String apply(C cell){
-				return cell.getTargetCategory();
+				return cell.getParameterName();
 			}
 		};
 
@@ -576,6 +641,19 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 		return result;
 	}
 
+	/**
+	 * The linear combination of parameter estimates and the design vector of a record.
+	 */
+	private interface DotProduct {
+
+		Double evaluate(String paramCategory, String ppCategory);
+
+		/**
+		 * Combines the intercept of the target category with the parameters that are shared by all target categories.
+		 */
+		Double evaluateOrdinal(String targetCategory, String ppCategory);
+	}
+
 	static
 	private class Row {
 
@@ -835,6 +913,19 @@ public class GeneralRegressionModelEvaluator extends ModelEvaluator<GeneralRegre
 			}
 		});
 
+	private static final LoadingCache<GeneralRegressionModel, CompiledGeneralRegressionModel> compiledModelCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<GeneralRegressionModel, CompiledGeneralRegressionModel>(){
+
+			@Override
+			public CompiledGeneralRegressionModel load(GeneralRegressionModel generalRegressionModel){
+				BiMap<FieldName, Predictor> factors = CacheUtil.getValue(generalRegressionModel, GeneralRegressionModelEvaluator.factorCache);
+				BiMap<FieldName, Predictor> covariates = CacheUtil.getValue(generalRegressionModel, GeneralRegressionModelEvaluator.covariateCache);
+
+				return CompiledGeneralRegressionModel.create(generalRegressionModel, factors, covariates);
+			}
+		});
+
 	private static final LoadingCache<GeneralRegressionModel, Map<String, Map<String, Row>>> ppMatrixCache = CacheBuilder.newBuilder()
 		.weakKeys()
 		.build(new CacheLoader<GeneralRegressionModel, Map<String, Map<String, Row>>>(){
@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * An evaluation frame that keeps field values in flat arrays.
+ * </p>
+ *
+ * Declared fields are addressed by their {@link FieldIndex#getSlot(FieldName) slot}, so that a lookup is a single array access.
+ * Undeclared fields are kept in an overflow map, which is allocated on demand.
+ * Iteration follows the insertion order of all fields, declared and undeclared alike.
+ */
+public class IndexedFrame extends AbstractMap<FieldName, FieldValue> {
+
+	private FieldIndex index = null;
+
+	/**
+	 * The values of declared fields, by slot.
+	 */
+	private FieldValue[] values = null;
+
+	/**
+	 * The positions of declared fields plus one, by slot.
+	 * An element is <code>0</code> if the field is not defined.
+	 */
+	private int[] positions = null;
+
+	/**
+	 * The slots of all fields, in insertion order.
+	 * An element is <code>-1</code> if the field is not declared.
+	 */
+	private int[] order = null;
+
+	/**
+	 * The names of undeclared fields, in insertion order.
+	 * An element is <code>null</code> if the field is declared.
+	 */
+	private FieldName[] overflowNames = null;
+
+	private Map<FieldName, FieldValue> overflow = null;
+
+	private int size = 0;
+
+	/**
+	 * The context that this frame has been pushed to, or <code>null</code>.
+	 */
+	private ModelManagerEvaluationContext context = null;
+
+	private int depth = 0;
+
+
+	public IndexedFrame(FieldIndex index){
+		this(index, IndexedFrame.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize The expected number of fields.
+	 */
+	public IndexedFrame(FieldIndex index, int expectedSize){
+		setIndex(index);
+
+		this.values = new FieldValue[index.size()];
+		this.positions = new int[index.size()];
+
+		int capacity = Math.max(expectedSize, 1);
+
+		this.order = new int[capacity];
+		this.overflowNames = new FieldName[capacity];
+	}
+
+	public boolean isDefined(int slot){
+		return this.positions[slot] != 0;
+	}
+
+	/**
+	 * @return The value of the field, or <code>null</code> if the field is not defined.
+	 */
+	public FieldValue getValue(int slot){
+		return this.values[slot];
+	}
+
+	public void putValue(int slot, FieldValue value){
+
+		if(this.positions[slot] == 0){
+			append(slot, null);
+
+			this.positions[slot] = this.size;
+		}
+
+		this.values[slot] = value;
+
+		if(this.context != null){
+			this.context.updateSlot(this, slot);
+		}
+	}
+
+	@Override
+	public int size(){
+		return this.size;
+	}
+
+	@Override
+	public boolean containsKey(Object key){
+		int slot = getSlot(key);
+		if(slot > -1){
+			return isDefined(slot);
+		}
+
+		return (this.overflow != null && this.overflow.containsKey(key));
+	}
+
+	@Override
+	public FieldValue get(Object key){
+		int slot = getSlot(key);
+		if(slot > -1){
+			return getValue(slot);
+		}
+
+		return (this.overflow != null ? this.overflow.get(key) : null);
+	}
+
+	@Override
+	public FieldValue put(FieldName key, FieldValue value){
+		int slot = getSlot(key);
+		if(slot > -1){
+			FieldValue result = getValue(slot);
+
+			putValue(slot, value);
+
+			return result;
+		} // End if
+
+		if(this.overflow == null){
+			this.overflow = Maps.newHashMap();
+		} // End if
+
+		if(!this.overflow.containsKey(key)){
+			append(-1, key);
+		}
+
+		return this.overflow.put(key, value);
+	}
+
+	@Override
+	public void putAll(Map<? extends FieldName, ? extends FieldValue> map){
+
+		if(map instanceof IndexedFrame){
+			IndexedFrame that = (IndexedFrame)map;
+
+			if((this.index).equals(that.index)){
+
+				for(int i = 0; i < that.size; i++){
+					int slot = that.order[i];
+
+					if(slot > -1){
+						putValue(slot, that.values[slot]);
+					} else
+
+					{
+						FieldName name = that.overflowNames[i];
+
+						put(name, that.overflow.get(name));
+					}
+				}
+
+				return;
+			}
+		}
+
+		super.putAll(map);
+	}
+
+	@Override
+	public FieldValue remove(Object key){
+		int slot = getSlot(key);
+		if(slot > -1){
+			int position = this.positions[slot];
+			if(position == 0){
+				return null;
+			}
+
+			FieldValue result = this.values[slot];
+
+			this.values[slot] = null;
+			this.positions[slot] = 0;
+
+			removePosition(position - 1);
+
+			if(this.context != null){
+				this.context.updateSlot(this, slot);
+			}
+
+			return result;
+		} // End if
+
+		if(this.overflow == null || !this.overflow.containsKey(key)){
+			return null;
+		}
+
+		for(int i = 0; i < this.size; i++){
+
+			if((key).equals(this.overflowNames[i])){
+				removePosition(i);
+
+				break;
+			}
+		}
+
+		return this.overflow.remove(key);
+	}
+
+	@Override
+	public void clear(){
+		int[] slots = Arrays.copyOf(this.order, this.size);
+
+		for(int slot : slots){
+
+			if(slot > -1){
+				this.values[slot] = null;
+				this.positions[slot] = 0;
+			}
+		}
+
+		Arrays.fill(this.overflowNames, 0, this.size, null);
+
+		this.size = 0;
+
+		this.overflow = null;
+
+		if(this.context != null){
+
+			for(int slot : slots){
+
+				if(slot > -1){
+					this.context.updateSlot(this, slot);
+				}
+			}
+		}
+	}
+
+	@Override
+	public Set<Map.Entry<FieldName, FieldValue>> entrySet(){
+		return new AbstractSet<Map.Entry<FieldName, FieldValue>>(){
+
+			@Override
+			public int size(){
+				return IndexedFrame.this.size;
+			}
+
+			@Override
+			public Iterator<Map.Entry<FieldName, FieldValue>> iterator(){
+				return new AbstractIterator<Map.Entry<FieldName, FieldValue>>(){
+
+					private int position = 0;
+
+
+					@Override
+					protected Map.Entry<FieldName, FieldValue> computeNext(){
+
+						if(this.position < IndexedFrame.this.size){
+							Map.Entry<FieldName, FieldValue> entry = new PositionEntry(this.position);
+
+							this.position++;
+
+							return entry;
+						}
+
+						return endOfData();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Binds this frame to the context that it has been pushed to.
+	 *
+	 * @param depth The number of frames on the stack of the context, including this frame.
+	 */
+	void attach(ModelManagerEvaluationContext context, int depth){
+		this.context = context;
+		this.depth = depth;
+	}
+
+	void detach(){
+		this.context = null;
+		this.depth = 0;
+	}
+
+	int getDepth(){
+		return this.depth;
+	}
+
+	/**
+	 * @return The slots of declared fields, in insertion order.
+	 */
+	int[] getSlots(){
+		int[] result = new int[this.size];
+
+		int count = 0;
+
+		for(int i = 0; i < this.size; i++){
+			int slot = this.order[i];
+
+			if(slot > -1){
+				result[count] = slot;
+
+				count++;
+			}
+		}
+
+		return Arrays.copyOf(result, count);
+	}
+
+	private int getSlot(Object key){
+
+		if(key instanceof FieldName){
+			return this.index.getSlot((FieldName)key);
+		}
+
+		return -1;
+	}
+
+	private void append(int slot, FieldName name){
+
+		if(this.size == this.order.length){
+			int capacity = (this.order.length * 2);
+
+			this.order = Arrays.copyOf(this.order, capacity);
+			this.overflowNames = Arrays.copyOf(this.overflowNames, capacity);
+		}
+
+		this.order[this.size] = slot;
+		this.overflowNames[this.size] = name;
+
+		this.size++;
+	}
+
+	private void removePosition(int position){
+		System.arraycopy(this.order, position + 1, this.order, position, this.size - (position + 1));
+		System.arraycopy(this.overflowNames, position + 1, this.overflowNames, position, this.size - (position + 1));
+
+		this.size--;
+
+		this.overflowNames[this.size] = null;
+
+		// The positions of all subsequent declared fields have changed
+		for(int i = position; i < this.size; i++){
+			int slot = this.order[i];
+
+			if(slot > -1){
+				this.positions[slot] = (i + 1);
+			}
+		}
+	}
+
+	public FieldIndex getIndex(){
+		return this.index;
+	}
+
+	private void setIndex(FieldIndex index){
+		this.index = index;
+	}
+
+	private class PositionEntry implements Map.Entry<FieldName, FieldValue> {
+
+		private int position = 0;
+
+
+		public PositionEntry(int position){
+			this.position = position;
+		}
+
+		@Override
+		public FieldName getKey(){
+			int slot = IndexedFrame.this.order[this.position];
+
+			if(slot > -1){
+				return IndexedFrame.this.index.getName(slot);
+			}
+
+			return IndexedFrame.this.overflowNames[this.position];
+		}
+
+		@Override
+		public FieldValue getValue(){
+			int slot = IndexedFrame.this.order[this.position];
+
+			if(slot > -1){
+				return IndexedFrame.this.values[slot];
+			}
+
+			return IndexedFrame.this.overflow.get(IndexedFrame.this.overflowNames[this.position]);
+		}
+
+		@Override
+		public FieldValue setValue(FieldValue value){
+			int slot = IndexedFrame.this.order[this.position];
+
+			if(slot > -1){
+				FieldValue result = IndexedFrame.this.values[slot];
+
+				putValue(slot, value);
+
+				return result;
+			}
+
+			return IndexedFrame.this.overflow.put(IndexedFrame.this.overflowNames[this.position], value);
+		}
+
+		@Override
+		public int hashCode(){
+			FieldValue value = getValue();
+
+			return (getKey()).hashCode() ^ (value != null ? value.hashCode() : 0);
+		}
+
+		@Override
+		public boolean equals(Object object){
+
+			if(object instanceof Map.Entry){
+				Map.Entry<?, ?> that = (Map.Entry<?, ?>)object;
+
+				return Objects.equal(getKey(), that.getKey()) && Objects.equal(getValue(), that.getValue());
+			}
+
+			return false;
+		}
+	}
+
+	private static final int DEFAULT_CAPACITY = 8;
+}
\ No newline at end of file
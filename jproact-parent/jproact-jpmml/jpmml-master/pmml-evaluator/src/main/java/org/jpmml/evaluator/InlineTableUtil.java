@@ -49,6 +49,15 @@ public class InlineTableUtil {
 
 	static
 	public Map<String, String> match(Table<Integer, String, String> table, Map<String, FieldValue> values){
+		return match(table, Lists.newArrayList(values.keySet()), Lists.newArrayList(values.values()));
+	}
+
+	/**
+	 * @param columns The names of input columns.
+	 * @param values The values of input columns, in the same order as their names.
+	 */
+	static
+	public Map<String, String> match(Table<Integer, String, String> table, List<String> columns, List<FieldValue> values){
 		Set<Integer> rowKeys = table.rowKeySet();
 
 		rows:
@@ -60,12 +69,11 @@ public class InlineTableUtil {
 				continue rows;
 			}
 
-			Collection<Map.Entry<String, FieldValue>> entries = values.entrySet();
-			for(Map.Entry<String, FieldValue> entry : entries){
-				String key = entry.getKey();
-				FieldValue value = entry.getValue();
+			for(int i = 0; i < columns.size(); i++){
+				String column = columns.get(i);
+				FieldValue value = values.get(i);
 
-				String rowValue = row.get(key);
+				String rowValue = row.get(column);
 				if(rowValue == null){
 					continue rows;
 				}
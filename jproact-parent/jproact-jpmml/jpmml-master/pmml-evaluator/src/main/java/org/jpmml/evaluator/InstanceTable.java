@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Column-oriented storage of training instances.
+ * </p>
+ *
+ * Columns whose values are all {@link NumberValue numbers} of the same data type are stored as <code>double</code> arrays.
+ * All other columns are dictionary-encoded, so that every distinct value is held once, and rows refer to it by an <code>int</code> code.
+ * Field values of continuous columns are created on demand.
+ *
+ * @see NearestNeighborModelEvaluator
+ */
+public class InstanceTable {
+
+	private int[] ids = null;
+
+	private Map<FieldName, Column> columns = null;
+
+
+	private InstanceTable(int[] ids, Map<FieldName, Column> columns){
+		this.ids = ids;
+		this.columns = columns;
+	}
+
+	public int getNumberOfRows(){
+		return this.ids.length;
+	}
+
+	/**
+	 * @return The identifier of the row.
+	 */
+	public int getId(int row){
+		return this.ids[row];
+	}
+
+	/**
+	 * @return The row, or <code>-1</code>.
+	 */
+	public int getRow(int id){
+		int row = Arrays.binarySearch(this.ids, id);
+
+		return (row > -1 ? row : -1);
+	}
+
+	public Set<FieldName> getFields(){
+		return this.columns.keySet();
+	}
+
+	/**
+	 * @return The column, or <code>null</code>.
+	 */
+	public Column getColumn(FieldName name){
+		return this.columns.get(name);
+	}
+
+	/**
+	 * @return The value, or <code>null</code> if the value is missing or the column does not exist.
+	 */
+	public FieldValue getValue(int row, FieldName name){
+		Column column = getColumn(name);
+		if(column == null){
+			return null;
+		}
+
+		return column.getValue(row);
+	}
+
+	/**
+	 * @param ids Row identifiers, in strictly ascending order.
+	 * @param values Mapping between fields and their values, one value per row.
+	 */
+	static
+	public InstanceTable create(int[] ids, Map<FieldName, ? extends List<FieldValue>> values){
+
+		for(int i = 1; i < ids.length; i++){
+
+			if(ids[i - 1] >= ids[i]){
+				throw new IllegalArgumentException();
+			}
+		}
+
+		Map<FieldName, Column> columns = Maps.newLinkedHashMap();
+
+		Collection<? extends Map.Entry<FieldName, ? extends List<FieldValue>>> entries = values.entrySet();
+		for(Map.Entry<FieldName, ? extends List<FieldValue>> entry : entries){
+			List<FieldValue> columnValues = entry.getValue();
+
+			if(columnValues.size() != ids.length){
+				throw new IllegalArgumentException();
+			}
+
+			columns.put(entry.getKey(), createColumn(columnValues));
+		}
+
+		return new InstanceTable(ids.clone(), ImmutableMap.copyOf(columns));
+	}
+
+	static
+	private Column createColumn(List<FieldValue> values){
+		DataType dataType = null;
+
+		for(FieldValue value : values){
+
+			if(value == null){
+				continue;
+			} // End if
+
+			if(!(value instanceof NumberValue) || (dataType != null && !(dataType).equals(value.getDataType()))){
+				return createCategoricalColumn(values);
+			}
+
+			dataType = value.getDataType();
+		}
+
+		if(dataType == null){
+			return createCategoricalColumn(values);
+		}
+
+		return createContinuousColumn(dataType, values);
+	}
+
+	static
+	private ContinuousColumn createContinuousColumn(DataType dataType, List<FieldValue> values){
+		double[] doubles = new double[values.size()];
+
+		BitSet missing = new BitSet(values.size());
+
+		for(int row = 0; row < values.size(); row++){
+			FieldValue value = values.get(row);
+
+			if(value == null){
+				missing.set(row);
+
+				continue;
+			}
+
+			doubles[row] = value.asDouble();
+		}
+
+		return new ContinuousColumn(dataType, doubles, missing);
+	}
+
+	static
+	private CategoricalColumn createCategoricalColumn(List<FieldValue> values){
+		int[] codes = new int[values.size()];
+
+		List<FieldValue> dictionary = Lists.newArrayList();
+
+		Map<List<?>, Integer> dictionaryCodes = Maps.newHashMap();
+
+		for(int row = 0; row < values.size(); row++){
+			FieldValue value = values.get(row);
+
+			if(value == null){
+				codes[row] = -1;
+
+				continue;
+			}
+
+			List<?> key = Arrays.asList(value.getClass(), value.getDataType(), value.getValue());
+
+			Integer code = dictionaryCodes.get(key);
+			if(code == null){
+				code = dictionary.size();
+
+				dictionary.add(value);
+				dictionaryCodes.put(key, code);
+			}
+
+			codes[row] = code.intValue();
+		}
+
+		return new CategoricalColumn(codes, ImmutableList.copyOf(dictionary));
+	}
+
+	static
+	abstract
+	public class Column {
+
+		private Column(){
+		}
+
+		/**
+		 * @return The value, or <code>null</code> if the value is missing.
+		 */
+		abstract
+		public FieldValue getValue(int row);
+
+		abstract
+		public boolean isMissing(int row);
+	}
+
+	static
+	public class ContinuousColumn extends Column {
+
+		private DataType dataType = null;
+
+		private double[] values = null;
+
+		private BitSet missing = null;
+
+
+		private ContinuousColumn(DataType dataType, double[] values, BitSet missing){
+			this.dataType = dataType;
+			this.values = values;
+			this.missing = missing;
+		}
+
+		@Override
+		public FieldValue getValue(int row){
+
+			if(isMissing(row)){
+				return null;
+			}
+
+			return FieldValueUtil.create(this.dataType, this.values[row]);
+		}
+
+		@Override
+		public boolean isMissing(int row){
+			return this.missing.get(row);
+		}
+
+		public boolean hasMissing(){
+			return !this.missing.isEmpty();
+		}
+
+		public double getDouble(int row){
+			return this.values[row];
+		}
+	}
+
+	static
+	public class CategoricalColumn extends Column {
+
+		private int[] codes = null;
+
+		private List<FieldValue> dictionary = null;
+
+
+		private CategoricalColumn(int[] codes, List<FieldValue> dictionary){
+			this.codes = codes;
+			this.dictionary = dictionary;
+		}
+
+		@Override
+		public FieldValue getValue(int row){
+			int code = this.codes[row];
+
+			if(code < 0){
+				return null;
+			}
+
+			return this.dictionary.get(code);
+		}
+
+		@Override
+		public boolean isMissing(int row){
+			return (this.codes[row] < 0);
+		}
+
+		/**
+		 * @return The dictionary code, or <code>-1</code> if the value is missing.
+		 */
+		public int getCode(int row){
+			return this.codes[row];
+		}
+
+		/**
+		 * @return Distinct values, in the order of appearance.
+		 */
+		public List<FieldValue> getDictionary(){
+			return this.dictionary;
+		}
+	}
+}
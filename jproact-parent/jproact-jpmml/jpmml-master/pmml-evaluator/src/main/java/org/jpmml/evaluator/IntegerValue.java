@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import org.dmg.pmml.*;
+
+public class IntegerValue extends NumberValue {
+
+	private int value;
+
+
+	public IntegerValue(int value){
+		super(DataType.INTEGER);
+
+		this.value = value;
+	}
+
+	public IntegerValue(Integer value){
+		this(value.intValue());
+
+		setBoxedValue(value);
+	}
+
+	@Override
+	public Integer box(){
+		return Integer.valueOf(this.value);
+	}
+
+	@Override
+	public double asDouble(){
+		return this.value;
+	}
+
+	@Override
+	public int asInt(){
+		return this.value;
+	}
+
+	public int intValue(){
+		return this.value;
+	}
+
+	private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * An inverted index from items to the itemsets and association rules of an {@link AssociationModel}.
+ * </p>
+ *
+ * Itemsets are matched by counting, for every itemset that contains an input item, the number of its distinct items that are present in the input.
+ * An itemset is a subset of the input when the count reaches the size of the itemset.
+ * Association rules are visited only if their antecedent or consequent itemset is a subset of the input.
+ * The cost of matching is proportional to the size of the input and the number of matching itemsets, rather than to the size of the model.
+ *
+ * @see AssociationModelEvaluator
+ */
+public class ItemsetIndex {
+
+	private Map<String, Integer> items = null;
+
+	private int[] itemsetSizes = null;
+
+	/**
+	 * Itemsets that contain no items. They are a subset of any input.
+	 */
+	private int[] emptyItemsets = null;
+
+	/**
+	 * Per item. Itemsets that contain the item.
+	 */
+	private int[][] itemItemsets = null;
+
+	/**
+	 * Per itemset. Association rules whose antecedent is the itemset, in ascending order.
+	 */
+	private int[][] antecedentRules = null;
+
+	/**
+	 * Per itemset. Association rules whose consequent is the itemset, in ascending order.
+	 */
+	private int[][] consequentRules = null;
+
+	private int numberOfRules = 0;
+
+	/**
+	 * Per thread and itemset. The number of distinct items of the itemset that have been seen in the input.
+	 * All counts are zero between invocations of {@link #match(Set, BitSet, BitSet)}.
+	 */
+	private ThreadLocal<int[]> counts = new ThreadLocal<int[]>(){
+
+		@Override
+		protected int[] initialValue(){
+			return new int[ItemsetIndex.this.itemsetSizes.length];
+		}
+	};
+
+
+	private ItemsetIndex(){
+	}
+
+	public int getNumberOfItemsets(){
+		return this.itemsetSizes.length;
+	}
+
+	public int getNumberOfRules(){
+		return this.numberOfRules;
+	}
+
+	/**
+	 * @param input A set of {@link Item#getId() Item identifiers}.
+	 * @param antecedentFlags Flags for association rules whose antecedent itemset is a subset of the input (output).
+	 * @param consequentFlags Flags for association rules whose consequent itemset is a subset of the input (output).
+	 */
+	public void match(Set<String> input, BitSet antecedentFlags, BitSet consequentFlags){
+		int[] counts = this.counts.get();
+
+		for(int itemset : this.emptyItemsets){
+			select(itemset, antecedentFlags, consequentFlags);
+		}
+
+		try {
+			for(String id : input){
+				Integer item = this.items.get(id);
+				if(item == null){
+					continue;
+				}
+
+				int[] itemsets = this.itemItemsets[item.intValue()];
+
+				for(int itemset : itemsets){
+					counts[itemset]++;
+
+					if(counts[itemset] == this.itemsetSizes[itemset]){
+						select(itemset, antecedentFlags, consequentFlags);
+					}
+				}
+			}
+		} finally {
+			// Reset only the counts that were touched
+			for(String id : input){
+				Integer item = this.items.get(id);
+				if(item == null){
+					continue;
+				}
+
+				int[] itemsets = this.itemItemsets[item.intValue()];
+
+				for(int itemset : itemsets){
+					counts[itemset] = 0;
+				}
+			}
+		}
+	}
+
+	private void select(int itemset, BitSet antecedentFlags, BitSet consequentFlags){
+
+		for(int rule : this.antecedentRules[itemset]){
+			antecedentFlags.set(rule);
+		}
+
+		for(int rule : this.consequentRules[itemset]){
+			consequentFlags.set(rule);
+		}
+	}
+
+	static
+	public ItemsetIndex create(AssociationModel associationModel){
+		ItemsetIndex result = new ItemsetIndex();
+
+		Map<String, Integer> items = Maps.newLinkedHashMap();
+
+		List<List<Integer>> itemItemsets = Lists.newArrayList();
+
+		List<Itemset> itemsets = associationModel.getItemsets();
+
+		// The last Itemset element with the same identifier wins
+		Map<String, Integer> itemsetIds = Maps.newHashMap();
+
+		int[] itemsetSizes = new int[itemsets.size()];
+
+		List<Integer> emptyItemsets = Lists.newArrayList();
+
+		for(int i = 0; i < itemsets.size(); i++){
+			Itemset itemset = itemsets.get(i);
+
+			Set<String> itemRefs = Sets.newLinkedHashSet();
+
+			for(ItemRef itemRef : itemset.getItemRefs()){
+				itemRefs.add(itemRef.getItemRef());
+			}
+
+			for(String itemRef : itemRefs){
+				Integer item = items.get(itemRef);
+
+				if(item == null){
+					item = items.size();
+
+					items.put(itemRef, item);
+
+					itemItemsets.add(Lists.<Integer>newArrayList());
+				}
+
+				(itemItemsets.get(item.intValue())).add(i);
+			}
+
+			itemsetSizes[i] = itemRefs.size();
+
+			if(itemRefs.isEmpty()){
+				emptyItemsets.add(i);
+			}
+
+			itemsetIds.put(itemset.getId(), i);
+		}
+
+		result.items = items;
+		result.itemsetSizes = itemsetSizes;
+		result.emptyItemsets = Ints.toArray(emptyItemsets);
+
+		result.itemItemsets = new int[itemItemsets.size()][];
+
+		for(int i = 0; i < itemItemsets.size(); i++){
+			result.itemItemsets[i] = Ints.toArray(itemItemsets.get(i));
+		}
+
+		List<List<Integer>> antecedentRules = Lists.newArrayList();
+		List<List<Integer>> consequentRules = Lists.newArrayList();
+
+		for(int i = 0; i < itemsets.size(); i++){
+			antecedentRules.add(Lists.<Integer>newArrayList());
+			consequentRules.add(Lists.<Integer>newArrayList());
+		}
+
+		List<AssociationRule> associationRules = associationModel.getAssociationRules();
+
+		for(int i = 0; i < associationRules.size(); i++){
+			AssociationRule associationRule = associationRules.get(i);
+
+			Integer antecedent = itemsetIds.get(associationRule.getAntecedent());
+			if(antecedent == null){
+				throw new InvalidFeatureException(associationRule);
+			}
+
+			Integer consequent = itemsetIds.get(associationRule.getConsequent());
+			if(consequent == null){
+				throw new InvalidFeatureException(associationRule);
+			}
+
+			(antecedentRules.get(antecedent.intValue())).add(i);
+			(consequentRules.get(consequent.intValue())).add(i);
+		}
+
+		result.antecedentRules = new int[itemsets.size()][];
+		result.consequentRules = new int[itemsets.size()][];
+
+		for(int i = 0; i < itemsets.size(); i++){
+			result.antecedentRules[i] = Ints.toArray(antecedentRules.get(i));
+			result.consequentRules[i] = Ints.toArray(consequentRules.get(i));
+		}
+
+		result.numberOfRules = associationRules.size();
+
+		return result;
+	}
+}
@@ -9,8 +9,6 @@ import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
-import com.google.common.collect.*;
-
 public class MeasureUtil {
 
 	private MeasureUtil(){
@@ -153,7 +151,12 @@ public class MeasureUtil {
 			throw new UnsupportedFeatureException(measure);
 		}
 
-		List<Double> distances = Lists.newArrayList();
+		boolean chebychev = (measure instanceof Chebychev);
+
+		double sum = 0d;
+		double max = Double.NEGATIVE_INFINITY;
+
+		int count = 0;
 
 		comparisonFields:
 		for(int i = 0; i < comparisonFields.size(); i++){
@@ -166,34 +169,28 @@ public class MeasureUtil {
 
 			FieldValue referenceValue = referenceValues.get(i);
 
-			Double distance = evaluateInnerFunction(comparisonMeasure, comparisonField, value, referenceValue, innerPower);
+			double distance = evaluateInnerFunction(comparisonMeasure, comparisonField, value, referenceValue, innerPower);
 
-			distances.add(distance);
+			sum += distance;
+			max = Math.max(max, distance);
+
+			count++;
 		}
 
-		if(measure instanceof Euclidean || measure instanceof SquaredEuclidean || measure instanceof CityBlock || measure instanceof Minkowski){
-			double sum = 0;
+		if(chebychev){
 
-			for(Double distance : distances){
-				sum += distance.doubleValue();
+			if(count == 0){
+				throw new EvaluationException();
 			}
 
-			return Math.pow(sum * adjustment.doubleValue(), 1d / outerPower);
-		} else
-
-		if(measure instanceof Chebychev){
-			Double max = Collections.max(distances);
-
-			return max.doubleValue() * adjustment.doubleValue();
-		} else
-
-		{
-			throw new UnsupportedFeatureException(measure);
+			return max * adjustment.doubleValue();
 		}
+
+		return Math.pow(sum * adjustment.doubleValue(), 1d / outerPower);
 	}
 
 	static
-	private double evaluateInnerFunction(ComparisonMeasure comparisonMeasure, ComparisonField comparisonField, FieldValue value, FieldValue referenceValue, Double power){
+	private double evaluateInnerFunction(ComparisonMeasure comparisonMeasure, ComparisonField comparisonField, FieldValue value, FieldValue referenceValue, double power){
 		CompareFunctionType compareFunction = comparisonField.getCompareFunction();
 
 		if(compareFunction == null){
@@ -256,12 +253,12 @@ public class MeasureUtil {
 				throw new UnsupportedFeatureException(comparisonField, compareFunction);
 		}
 
-		return comparisonField.getFieldWeight() * Math.pow(distance, power.doubleValue());
+		return comparisonField.getFieldWeight() * Math.pow(distance, power);
 	}
 
 	static
 	private double difference(FieldValue x, FieldValue y){
-		return ((x.asNumber()).doubleValue() - (y.asNumber()).doubleValue());
+		return (x.asDouble() - y.asDouble());
 	}
 
 	static
@@ -4,15 +4,24 @@
 package org.jpmml.evaluator;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.cache.*;
 import com.google.common.collect.*;
 
 public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 
+	private ExecutorService executorService = null;
+
+	private int granularity = 16;
+
+	private ConcurrentMap<Segment, Evaluator> segmentEvaluators = Maps.newConcurrentMap();
+
+
 	public MiningModelEvaluator(PMML pmml){
 		this(pmml, find(pmml.getModels(), MiningModel.class));
 	}
@@ -71,7 +80,7 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 	private Map<FieldName, ?> evaluateRegression(ModelManagerEvaluationContext context){
 		MiningModel miningModel = getModel();
 
-		List<SegmentResult> segmentResults = evaluate(context);
+		List<SegmentResult> segmentResults = evaluate(context, null);
 
 		Segmentation segmentation = miningModel.getSegmentation();
 
@@ -91,15 +100,25 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 		for(SegmentResult segmentResult : segmentResults){
 			Object targetValue = EvaluatorUtil.decode(segmentResult.getTargetValue());
 
-			Number number = (Number)TypeUtil.parseOrCast(DataType.DOUBLE, targetValue);
+			double value;
+
+			if(targetValue instanceof Double){
+				value = ((Double)targetValue).doubleValue();
+			} else
+
+			{
+				Number number = (Number)TypeUtil.parseOrCast(DataType.DOUBLE, targetValue);
+
+				value = number.doubleValue();
+			}
 
 			switch(multipleModelMethod){
 				case SUM:
 				case AVERAGE:
-					sum += number.doubleValue();
+					sum += value;
 					break;
 				case WEIGHTED_AVERAGE:
-					sum += segmentResult.getWeight() * number.doubleValue();
+					sum += segmentResult.getWeight() * value;
 					break;
 				default:
 					throw new UnsupportedFeatureException(segmentation, multipleModelMethod);
@@ -126,26 +145,25 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 	private Map<FieldName, ?> evaluateClassification(ModelManagerEvaluationContext context){
 		MiningModel miningModel = getModel();
 
-		List<SegmentResult> segmentResults = evaluate(context);
-
 		Segmentation segmentation = miningModel.getSegmentation();
 
 		MultipleModelMethodType multipleModelMethod = segmentation.getMultipleModelMethod();
 		switch(multipleModelMethod){
 			case SELECT_FIRST:
 			case MODEL_CHAIN:
-				return dispatchSingleResult(segmentation, segmentResults);
+				return dispatchSingleResult(segmentation, evaluate(context, null));
 			case SELECT_ALL:
 				throw new UnsupportedFeatureException(segmentation, multipleModelMethod);
 			default:
 				break;
 		}
 
+		VoteAggregator aggregator = countVotes(context);
+
 		DefaultClassificationMap<Object> result = new DefaultClassificationMap<Object>();
-		result.putAll(countVotes(segmentation, segmentResults));
 
 		// Convert from votes to probabilities
-		result.normalizeValues();
+		aggregator.copyToOnRead(result, true);
 
 		return TargetUtil.evaluateClassification(result, context);
 	}
@@ -153,23 +171,24 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 	private Map<FieldName, ?> evaluateClustering(ModelManagerEvaluationContext context){
 		MiningModel miningModel = getModel();
 
-		List<SegmentResult> segmentResults = evaluate(context);
-
 		Segmentation segmentation = miningModel.getSegmentation();
 
 		MultipleModelMethodType multipleModelMethod = segmentation.getMultipleModelMethod();
 		switch(multipleModelMethod){
 			case SELECT_FIRST:
 			case MODEL_CHAIN:
-				return dispatchSingleResult(segmentation, segmentResults);
+				return dispatchSingleResult(segmentation, evaluate(context, null));
 			case SELECT_ALL:
 				throw new UnsupportedFeatureException(segmentation, multipleModelMethod);
 			default:
 				break;
 		}
 
+		VoteAggregator aggregator = countVotes(context);
+
 		ClassificationMap<Object> result = new ClassificationMap<Object>(ClassificationMap.Type.VOTE);
-		result.putAll(countVotes(segmentation, segmentResults));
+
+		aggregator.copyToOnRead(result, false);
 
 		return Collections.singletonMap(getTargetField(), result);
 	}
@@ -177,7 +196,7 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 	private Map<FieldName, ?> evaluateAny(ModelManagerEvaluationContext context){
 		MiningModel miningModel = getModel();
 
-		List<SegmentResult> segmentResults = evaluate(context);
+		List<SegmentResult> segmentResults = evaluate(context, null);
 
 		Segmentation segmentation = miningModel.getSegmentation();
 
@@ -206,34 +225,53 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 		return result.getResult();
 	}
 
-	static
-	private Map<Object, Double> countVotes(Segmentation segmentation, List<SegmentResult> segmentResults){
-		VoteCounter<Object> counter = new VoteCounter<Object>();
+	/**
+	 * Segment results are counted as soon as they become available, without collecting them first.
+	 */
+	private VoteAggregator countVotes(EvaluationContext context){
+		VoteAggregator aggregator = new VoteAggregator(getCategoryIndex());
 
-		MultipleModelMethodType multipleModelMethod = segmentation.getMultipleModelMethod();
+		evaluate(context, aggregator);
 
-		for(SegmentResult segmentResult : segmentResults){
-			Object targetValue = EvaluatorUtil.decode(segmentResult.getTargetValue());
+		return aggregator;
+	}
 
-			switch(multipleModelMethod){
-				case MAJORITY_VOTE:
-					counter.increment(targetValue);
-					break;
-				case WEIGHTED_MAJORITY_VOTE:
-					counter.increment(targetValue, segmentResult.getWeight());
-					break;
-				default:
-					throw new UnsupportedFeatureException(segmentation, multipleModelMethod);
-			}
+	private void addResult(Segment segment, FieldName targetField, Map<FieldName, ?> result, List<SegmentResult> results, VoteAggregator aggregator){
+
+		if(aggregator != null){
+			aggregator.add(result.get(targetField), getVoteWeight(segment));
+
+			return;
 		}
 
-		return counter;
+		results.add(new SegmentResult(segment, targetField, result));
+	}
+
+	private double getVoteWeight(Segment segment){
+		MiningModel miningModel = getModel();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		MultipleModelMethodType multipleModelMethod = segmentation.getMultipleModelMethod();
+		switch(multipleModelMethod){
+			case MAJORITY_VOTE:
+				return 1d;
+			case WEIGHTED_MAJORITY_VOTE:
+				return segment.getWeight();
+			default:
+				throw new UnsupportedFeatureException(segmentation, multipleModelMethod);
+		}
 	}
 
+	/**
+	 * @param aggregator The vote aggregator, or <code>null</code> to collect segment results.
+	 *
+	 * @return Segment results. The list is empty if the vote aggregator is not <code>null</code>.
+	 */
 	@SuppressWarnings (
 		value = "fallthrough"
 	)
-	private List<SegmentResult> evaluate(EvaluationContext context){
+	private List<SegmentResult> evaluate(EvaluationContext context, VoteAggregator aggregator){
 		MiningModel miningModel = getModel();
 
 		List<SegmentResult> results = Lists.newArrayList();
@@ -247,20 +285,29 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 		MiningFunctionType miningFunction = miningModel.getFunctionName();
 
 		List<Segment> segments = segmentation.getSegments();
-		for(Segment segment : segments){
-			Predicate predicate = segment.getPredicate();
-			if(predicate == null){
-				throw new InvalidFeatureException(segment);
-			}
 
-			Boolean status = PredicateUtil.evaluate(predicate, context);
-			if(status == null || !status.booleanValue()){
-				continue;
+		ExecutorService executorService = getExecutorService();
+		if(executorService != null && segments.size() > getGranularity()){
+
+			switch(multipleModelMethod){
+				case SUM:
+				case AVERAGE:
+				case WEIGHTED_AVERAGE:
+				case MAJORITY_VOTE:
+				case WEIGHTED_MAJORITY_VOTE:
+					return evaluateInParallel(context, executorService, aggregator);
+				default:
+					break;
 			}
+		}
 
-			Model model = segment.getModel();
+		// The arguments do not change between segments, except in MODEL_CHAIN mode
+		Map<FieldName, ?> arguments = null;
+
+		for(Segment segment : segments){
+			Model model = selectModel(segment, context);
 			if(model == null){
-				throw new InvalidFeatureException(segment);
+				continue;
 			}
 
 			// "With the exception of modelChain models, all model elements used inside Segment elements in one MiningModel must have the same MINING-FUNCTION"
@@ -275,11 +322,15 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 					break;
 			}
 
-			Evaluator evaluator = createEvaluator(model);
+			if(arguments == null){
+				arguments = context.getArguments();
+			}
+
+			Evaluator evaluator = getSegmentEvaluator(segment);
 
 			FieldName targetField = evaluator.getTargetField();
 
-			Map<FieldName, ?> result = evaluator.evaluate(context.getArguments());
+			Map<FieldName, ?> result = evaluator.evaluate(arguments);
 
 			switch(multipleModelMethod){
 				case SELECT_FIRST:
@@ -304,11 +355,13 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 						// "The OutputFields from one model element can be passed as input to the MiningSchema of subsequent models"
 						context.pushFrame(frame);
 
+						arguments = null;
+
 						results.clear();
 					}
 					// Falls through
 				default:
-					results.add(new SegmentResult(segment, targetField, result));
+					addResult(segment, targetField, result, results, aggregator);
 					break;
 			}
 		}
@@ -327,12 +380,227 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 		return results;
 	}
 
+	/**
+	 * <p>
+	 * Evaluates the segments of an aggregating segmentation in parallel.
+	 * </p>
+	 *
+	 * Segment predicates are evaluated on the calling thread, because the evaluation context is not thread-safe.
+	 * Selected segments are split into tasks of {@link #getGranularity() granularity} segments each.
+	 * The first task runs on the calling thread, and the rest are submitted to the executor service.
+	 * Results are kept in segment order, so that the aggregation gives the same result as sequential evaluation.
+	 */
+	private List<SegmentResult> evaluateInParallel(EvaluationContext context, ExecutorService executorService, VoteAggregator aggregator){
+		MiningModel miningModel = getModel();
+
+		MiningFunctionType miningFunction = miningModel.getFunctionName();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		final
+		List<Segment> selectedSegments = Lists.newArrayList();
+
+		List<Segment> segments = segmentation.getSegments();
+		for(Segment segment : segments){
+			Model model = selectModel(segment, context);
+			if(model == null){
+				continue;
+			} // End if
+
+			if(!(miningFunction).equals(model.getFunctionName())){
+				throw new InvalidFeatureException(model);
+			}
+
+			selectedSegments.add(segment);
+		}
+
+		final
+		Map<FieldName, ?> arguments = context.getArguments();
+
+		final
+		List<Map<FieldName, ?>> segmentResults = Lists.newArrayList(Collections.<Map<FieldName, ?>>nCopies(selectedSegments.size(), null));
+
+		class SegmentTask implements Callable<Void> {
+
+			private int begin = 0;
+
+			private int end = 0;
+
+
+			private SegmentTask(int begin, int end){
+				this.begin = begin;
+				this.end = end;
+			}
+
+			@Override
+			public Void call(){
+
+				for(int i = this.begin; i < this.end; i++){
+					Segment segment = selectedSegments.get(i);
+
+					Evaluator evaluator = getSegmentEvaluator(segment);
+
+					segmentResults.set(i, evaluator.evaluate(arguments));
+				}
+
+				return null;
+			}
+		}
+
+		int granularity = getGranularity();
+
+		List<Future<Void>> futures = Lists.newArrayList();
+
+		try {
+			for(int begin = granularity; begin < segmentResults.size(); begin += granularity){
+				futures.add(executorService.submit(new SegmentTask(begin, Math.min(begin + granularity, segmentResults.size()))));
+			}
+
+			(new SegmentTask(0, Math.min(granularity, segmentResults.size()))).call();
+
+			for(Future<Void> future : futures){
+				future.get();
+			}
+		} catch(InterruptedException ie){
+			Thread.currentThread().interrupt();
+
+			throw new EvaluationException(miningModel);
+		} catch(ExecutionException ee){
+			Throwable cause = ee.getCause();
+
+			if(cause instanceof RuntimeException){
+				throw (RuntimeException)cause;
+			} else
+
+			if(cause instanceof Error){
+				throw (Error)cause;
+			}
+
+			throw new EvaluationException(miningModel);
+		} finally {
+
+			for(Future<Void> future : futures){
+				future.cancel(true);
+			}
+		}
+
+		List<SegmentResult> results = Lists.newArrayList();
+
+		for(int i = 0; i < selectedSegments.size(); i++){
+			Segment segment = selectedSegments.get(i);
+
+			Evaluator evaluator = getSegmentEvaluator(segment);
+
+			addResult(segment, evaluator.getTargetField(), segmentResults.get(i), results, aggregator);
+		}
+
+		return results;
+	}
+
+	/**
+	 * @return The model of the segment, or <code>null</code> if the segment is not selected.
+	 */
+	static
+	private Model selectModel(Segment segment, EvaluationContext context){
+		Predicate predicate = segment.getPredicate();
+		if(predicate == null){
+			throw new InvalidFeatureException(segment);
+		}
+
+		Boolean status = PredicateUtil.evaluate(predicate, context);
+		if(status == null || !status.booleanValue()){
+			return null;
+		}
+
+		Model model = segment.getModel();
+		if(model == null){
+			throw new InvalidFeatureException(segment);
+		}
+
+		return model;
+	}
+
+	/**
+	 * Evaluators do not modify the PMML class model, so the evaluator of a segment is created once and then reused.
+	 */
+	private Evaluator getSegmentEvaluator(Segment segment){
+		Evaluator result = this.segmentEvaluators.get(segment);
+
+		if(result == null){
+			result = createEvaluator(segment.getModel());
+
+			Evaluator previousResult = this.segmentEvaluators.putIfAbsent(segment, result);
+			if(previousResult != null){
+				return previousResult;
+			}
+		}
+
+		return result;
+	}
+
+	private VoteAggregator.CategoryIndex getCategoryIndex(){
+		final
+		MiningModel miningModel = getModel();
+
+		Callable<VoteAggregator.CategoryIndex> loader = new Callable<VoteAggregator.CategoryIndex>(){
+
+			@Override
+			public VoteAggregator.CategoryIndex call(){
+				FieldName targetField = getTargetField();
+
+				DataField dataField = (targetField != null ? getDataField(targetField) : null);
+
+				return VoteAggregator.CategoryIndex.create(dataField, miningModel.getSegmentation());
+			}
+		};
+
+		return CacheUtil.getValue(miningModel, MiningModelEvaluator.categoryIndexCache, loader);
+	}
+
 	private Evaluator createEvaluator(Model model){
 		ModelManager<?> modelManager = MiningModelEvaluator.evaluatorFactory.getModelManager(getPMML(), model);
 
 		return (Evaluator)modelManager;
 	}
 
+	public ExecutorService getExecutorService(){
+		return this.executorService;
+	}
+
+	/**
+	 * <p>
+	 * Enables the parallel evaluation of segments.
+	 * </p>
+	 *
+	 * Segments are evaluated in parallel only if the segmentation aggregates the results of all segments (ie. SUM, AVERAGE, WEIGHTED_AVERAGE, MAJORITY_VOTE and WEIGHTED_MAJORITY_VOTE),
+	 * and the number of segments exceeds the {@link #getGranularity() granularity}.
+	 * Nested segmentations are always evaluated sequentially.
+	 *
+	 * The executor service must be configured before the evaluator is shared between threads.
+	 * A <code>java.util.concurrent.ForkJoinPool</code> is a good fit on Java 7 and newer.
+	 *
+	 * @param executorService The executor service, or <code>null</code> for sequential evaluation.
+	 */
+	public void setExecutorService(ExecutorService executorService){
+		this.executorService = executorService;
+	}
+
+	/**
+	 * @return The number of segments per parallel task.
+	 */
+	public int getGranularity(){
+		return this.granularity;
+	}
+
+	public void setGranularity(int granularity){
+
+		if(granularity < 1){
+			throw new IllegalArgumentException();
+		}
+
+		this.granularity = granularity;
+	}
+
 	static
 	private boolean isRandomForest(MiningModel miningModel){
 		Segmentation segmentation = miningModel.getSegmentation();
@@ -357,6 +625,13 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> {
 
 	private static final ModelEvaluatorFactory evaluatorFactory = ModelEvaluatorFactory.getInstance();
 
+	/**
+	 * The target categories are indexed once per model, when the first vote is counted.
+	 */
+	private static final Cache<MiningModel, VoteAggregator.CategoryIndex> categoryIndexCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build();
+
 	static
 	private class SegmentResult {
 
@@ -3,14 +3,20 @@
  */
 package org.jpmml.evaluator;
 
+import java.util.*;
+
 import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
 import com.google.common.cache.*;
+import com.google.common.collect.*;
 
 abstract
-public class ModelEvaluator<M extends Model> extends ModelManager<M> implements Evaluator {
+public class ModelEvaluator<M extends Model> extends ModelManager<M> implements BatchEvaluator {
+
+	private boolean compiled = true;
+
 
 	public ModelEvaluator(PMML pmml, M model){
 		super(pmml, model);
@@ -21,9 +27,209 @@ public class ModelEvaluator<M extends Model> extends ModelManager<M> implements
 		return ArgumentUtil.prepare(getDataField(name), getMiningField(name), value);
 	}
 
+	/**
+	 * Evaluates the batch block by block.
+	 * The columns are converted to field values once per batch, and a fixed number of {@link IndexedFrame indexed frames} is reused for all blocks.
+	 *
+	 * Subclasses may override {@link #evaluateBlock(List)} in order to perform the evaluation in a more efficient manner.
+	 */
+	@Override
+	public Map<FieldName, List<?>> evaluateBatch(Map<FieldName, ? extends List<?>> arguments){
+		int size = getBatchSize(arguments);
+
+		FieldIndex fieldIndex = getFieldIndex();
+
+		FieldName[] names = new FieldName[arguments.size()];
+		int[] slots = new int[arguments.size()];
+
+		List<List<FieldValue>> columns = Lists.newArrayList();
+
+		Collection<? extends Map.Entry<FieldName, ? extends List<?>>> entries = arguments.entrySet();
+		for(Map.Entry<FieldName, ? extends List<?>> entry : entries){
+			FieldName name = entry.getKey();
+
+			names[columns.size()] = name;
+			slots[columns.size()] = fieldIndex.getSlot(name);
+
+			columns.add(prepareColumn(name, entry.getValue()));
+		}
+
+		Map<FieldName, List<Object>> result = Maps.newLinkedHashMap();
+
+		List<IndexedFrame> records = Lists.newArrayList();
+
+		for(int i = 0, max = Math.min(size, ModelEvaluator.BLOCK_SIZE); i < max; i++){
+			records.add(new IndexedFrame(fieldIndex, names.length));
+		}
+
+		for(int offset = 0; offset < size; offset += ModelEvaluator.BLOCK_SIZE){
+			List<IndexedFrame> block = records.subList(0, Math.min(size - offset, ModelEvaluator.BLOCK_SIZE));
+
+			for(int i = 0; i < block.size(); i++){
+				IndexedFrame record = block.get(i);
+
+				for(int j = 0; j < names.length; j++){
+					FieldValue value = (columns.get(j)).get(offset + i);
+
+					if(slots[j] > -1){
+						record.putValue(slots[j], value);
+					} else
+
+					{
+						record.put(names[j], value);
+					}
+				}
+			}
+
+			List<Map<FieldName, ?>> blockValues = evaluateBlock(block);
+			if(blockValues.size() != block.size()){
+				throw new EvaluationException();
+			}
+
+			for(int i = 0; i < blockValues.size(); i++){
+				Map<FieldName, ?> values = blockValues.get(i);
+
+				Collection<? extends Map.Entry<FieldName, ?>> valueEntries = values.entrySet();
+				for(Map.Entry<FieldName, ?> valueEntry : valueEntries){
+					List<Object> column = result.get(valueEntry.getKey());
+
+					if(column == null){
+						column = Lists.newArrayListWithCapacity(size);
+
+						// The field was not present in earlier results
+						column.addAll(Collections.nCopies(offset + i, null));
+
+						result.put(valueEntry.getKey(), column);
+					}
+
+					column.add(valueEntry.getValue());
+				}
+
+				Collection<List<Object>> resultColumns = result.values();
+				for(List<Object> resultColumn : resultColumns){
+
+					// The field is not present in this result
+					if(resultColumn.size() <= (offset + i)){
+						resultColumn.add(null);
+					}
+				}
+			}
+		}
+
+		return Maps.<FieldName, List<?>>newLinkedHashMap(result);
+	}
+
+	/**
+	 * Evaluates a block of records.
+	 * The records are only valid for the duration of this method call.
+	 *
+	 * The default implementation evaluates the block record by record.
+	 *
+	 * @return The results, in the order of records.
+	 */
+	protected List<Map<FieldName, ?>> evaluateBlock(List<? extends Map<FieldName, ?>> records){
+		List<Map<FieldName, ?>> result = Lists.newArrayListWithCapacity(records.size());
+
+		for(Map<FieldName, ?> record : records){
+			result.add(evaluate(record));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Converts user-supplied values to field values.
+	 *
+	 * @see ModelManagerEvaluationContext#createFieldValue(FieldName, Object)
+	 */
+	protected List<FieldValue> prepareColumn(FieldName name, List<?> column){
+		DataField dataField = getDataField(name);
+
+		List<FieldValue> result = Lists.newArrayListWithCapacity(column.size());
+
+		for(Object value : column){
+
+			if(value instanceof FieldValue){
+				result.add((FieldValue)value);
+			} else
+
+			if(dataField != null){
+				result.add(FieldValueUtil.create(dataField, value));
+			} else
+
+			{
+				result.add(FieldValueUtil.create(value));
+			}
+		}
+
+		return result;
+	}
+
+	public boolean isCompiled(){
+		return this.compiled;
+	}
+
+	/**
+	 * <p>
+	 * Enables the compiled evaluation of the model.
+	 * </p>
+	 *
+	 * Model types that have a compiled form (eg. tree models) are converted to it when they are evaluated for the first time.
+	 * The interpreted evaluation, which works on the PMML class model directly, is kept as the reference implementation.
+	 * It is also used for models that contain a feature that the compiled form does not support.
+	 *
+	 * @param compiled <code>true</code> to use the compiled form where available, <code>false</code> to always interpret the model.
+	 */
+	public void setCompiled(boolean compiled){
+		this.compiled = compiled;
+	}
+
+	/**
+	 * @return The field index, which is shared between all models of the PMML class model.
+	 */
+	public FieldIndex getFieldIndex(){
+		PMML pmml = getPMML();
+
+		return CacheUtil.getValue(pmml, ModelEvaluator.fieldIndexCache);
+	}
+
 	public <V> V getValue(LoadingCache<M, V> cache){
 		M model = getModel();
 
 		return CacheUtil.getValue(model, cache);
 	}
-}
\ No newline at end of file
+
+	static
+	private int getBatchSize(Map<FieldName, ? extends List<?>> arguments){
+		int result = -1;
+
+		Collection<? extends List<?>> columns = arguments.values();
+		for(List<?> column : columns){
+
+			if(result < 0){
+				result = column.size();
+			} else
+
+			if(result != column.size()){
+				throw new EvaluationException();
+			}
+		}
+
+		return Math.max(result, 0);
+	}
+
+	private static final LoadingCache<PMML, FieldIndex> fieldIndexCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<PMML, FieldIndex>(){
+
+			@Override
+			public FieldIndex load(PMML pmml){
+				return FieldIndex.create(pmml);
+			}
+		});
+
+	/**
+	 * The maximum number of records that are passed to {@link #evaluateBlock(List)} at once.
+	 */
+	protected static final int BLOCK_SIZE = 64;
+}
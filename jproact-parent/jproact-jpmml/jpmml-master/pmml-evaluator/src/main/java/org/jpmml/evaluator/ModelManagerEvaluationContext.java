@@ -3,6 +3,8 @@
  */
 package org.jpmml.evaluator;
 
+import java.util.*;
+
 import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
@@ -11,9 +13,28 @@ public class ModelManagerEvaluationContext extends EvaluationContext {
 
 	private ModelManager<?> modelManager = null;
 
+	private FieldIndex fieldIndex = null;
+
+	/**
+	 * The values of declared fields in the newest frame that defines them, by slot.
+	 */
+	private FieldValue[] slotValues = null;
+
+	/**
+	 * The depth of the newest frame that defines the field, by slot.
+	 * An element is <code>0</code> if the field is not defined in any frame.
+	 */
+	private int[] slotDepths = null;
+
 
 	public ModelManagerEvaluationContext(ModelManager<?> modelManager){
 		setModelManager(modelManager);
+
+		if(modelManager instanceof ModelEvaluator){
+			ModelEvaluator<?> modelEvaluator = (ModelEvaluator<?>)modelManager;
+
+			setFieldIndex(modelEvaluator.getFieldIndex());
+		}
 	}
 
 	@Override
@@ -42,6 +63,131 @@ public class ModelManagerEvaluationContext extends EvaluationContext {
 		return super.createFieldValue(name, value);
 	}
 
+	@Override
+	public Map<FieldName, FieldValue> pushFrame(Map<FieldName, ?> arguments){
+		Map<FieldName, FieldValue> frame = super.pushFrame(arguments);
+
+		if(frame instanceof IndexedFrame){
+			IndexedFrame indexedFrame = (IndexedFrame)frame;
+
+			if(indexedFrame.getIndex() == getFieldIndex()){
+				int depth = (getStack()).size();
+
+				indexedFrame.attach(this, depth);
+
+				int[] slots = indexedFrame.getSlots();
+				for(int slot : slots){
+					this.slotValues[slot] = indexedFrame.getValue(slot);
+					this.slotDepths[slot] = depth;
+				}
+			}
+		}
+
+		return frame;
+	}
+
+	@Override
+	public Map<FieldName, FieldValue> popFrame(){
+		Map<FieldName, FieldValue> frame = super.popFrame();
+
+		if(frame instanceof IndexedFrame){
+			IndexedFrame indexedFrame = (IndexedFrame)frame;
+
+			int depth = indexedFrame.getDepth();
+
+			if(depth > 0){
+				indexedFrame.detach();
+
+				int[] slots = indexedFrame.getSlots();
+				for(int slot : slots){
+
+					if(this.slotDepths[slot] == depth){
+						resolveSlot(slot, depth - 1);
+					}
+				}
+			}
+		}
+
+		return frame;
+	}
+
+	/**
+	 * @return <code>true</code> if some frame defines the declared field, <code>false</code> otherwise.
+	 */
+	public boolean isDefined(int slot){
+		return this.slotDepths[slot] != 0;
+	}
+
+	/**
+	 * Looks up a declared field without searching the stack.
+	 *
+	 * @return The value of the field in the newest frame that defines it, or <code>null</code>.
+	 */
+	public FieldValue getValue(int slot){
+		return this.slotValues[slot];
+	}
+
+	/**
+	 * Called by an attached frame after one of its declared fields has been put or removed.
+	 */
+	void updateSlot(IndexedFrame frame, int slot){
+		int depth = frame.getDepth();
+
+		// The field is shadowed by a newer frame
+		if(depth < this.slotDepths[slot]){
+			return;
+		} // End if
+
+		if(frame.isDefined(slot)){
+			this.slotValues[slot] = frame.getValue(slot);
+			this.slotDepths[slot] = depth;
+		} else
+
+		{
+			resolveSlot(slot, depth - 1);
+		}
+	}
+
+	/**
+	 * Finds the newest frame that defines the declared field, and that is not deeper than the specified depth.
+	 */
+	private void resolveSlot(int slot, int maxDepth){
+		this.slotValues[slot] = null;
+		this.slotDepths[slot] = 0;
+
+		Deque<Map<FieldName, FieldValue>> stack = getStack();
+
+		// Iterate from first to last
+		for(Map<FieldName, FieldValue> frame : stack){
+
+			if(frame instanceof IndexedFrame){
+				IndexedFrame indexedFrame = (IndexedFrame)frame;
+
+				int depth = indexedFrame.getDepth();
+
+				if(depth > 0 && depth <= maxDepth && indexedFrame.isDefined(slot)){
+					this.slotValues[slot] = indexedFrame.getValue(slot);
+					this.slotDepths[slot] = depth;
+
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates an {@link IndexedFrame indexed frame} if the field index of the model is available.
+	 */
+	@Override
+	protected Map<FieldName, FieldValue> createFrame(int expectedSize){
+		FieldIndex fieldIndex = getFieldIndex();
+		if(fieldIndex != null){
+			return new IndexedFrame(fieldIndex, expectedSize);
+		}
+
+		return super.createFrame(expectedSize);
+	}
+
 	public ModelManager<?> getModelManager(){
 		return this.modelManager;
 	}
@@ -49,4 +195,17 @@ public class ModelManagerEvaluationContext extends EvaluationContext {
 	private void setModelManager(ModelManager<?> modelManager){
 		this.modelManager = modelManager;
 	}
+
+	public FieldIndex getFieldIndex(){
+		return this.fieldIndex;
+	}
+
+	private void setFieldIndex(FieldIndex fieldIndex){
+		this.fieldIndex = fieldIndex;
+
+		if(fieldIndex != null){
+			this.slotValues = new FieldValue[fieldIndex.size()];
+			this.slotDepths = new int[fieldIndex.size()];
+		}
+	}
 }
\ No newline at end of file
@@ -54,6 +54,26 @@ public class NaiveBayesModelEvaluator extends ModelEvaluator<NaiveBayesModel> {
 	}
 
 	private Map<FieldName, ? extends ClassificationMap<?>> evaluateClassification(ModelManagerEvaluationContext context){
+		DefaultClassificationMap<String> result;
+
+		if(isCompiled()){
+			CompiledNaiveBayesModel compiledModel = getCompiledNaiveBayesModel();
+
+			result = compiledModel.evaluate(context);
+		} else
+
+		{
+			result = calculateProbabilities(context);
+		}
+
+		return TargetUtil.evaluateClassification(result, context);
+	}
+
+	/**
+	 * Calculates target value probabilities by looking up the PairCounts and TargetValueStats elements of every BayesInput element.
+	 * This is the reference implementation of {@link CompiledNaiveBayesModel}.
+	 */
+	private DefaultClassificationMap<String> calculateProbabilities(EvaluationContext context){
 		NaiveBayesModel naiveBayesModel = getModel();
 
 		// Probability calculations use logarithmic scale for greater numerical stability
@@ -118,7 +138,7 @@ public class NaiveBayesModelEvaluator extends ModelEvaluator<NaiveBayesModel> {
 
 		result.normalizeValues();
 
-		return TargetUtil.evaluateClassification(result, context);
+		return result;
 	}
 
 	private void calculateContinuousProbabilities(FieldValue value, TargetValueStats targetValueStats, Map<String, Double> probabilities){
@@ -170,6 +190,10 @@ public class NaiveBayesModelEvaluator extends ModelEvaluator<NaiveBayesModel> {
 		}
 	}
 
+	public CompiledNaiveBayesModel getCompiledNaiveBayesModel(){
+		return getValue(NaiveBayesModelEvaluator.compiledModelCache);
+	}
+
 	protected Map<FieldName, Map<String, Double>> getCountsMap(){
 		return getValue(NaiveBayesModelEvaluator.countCache);
 	}
@@ -270,4 +294,18 @@ public class NaiveBayesModelEvaluator extends ModelEvaluator<NaiveBayesModel> {
 				return calculateCounts(naiveBayesModel);
 			}
 		});
-}
\ No newline at end of file
+
+	private static final LoadingCache<NaiveBayesModel, CompiledNaiveBayesModel> compiledModelCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<NaiveBayesModel, CompiledNaiveBayesModel>(){
+
+			@Override
+			public CompiledNaiveBayesModel load(NaiveBayesModel naiveBayesModel){
+				List<BayesInput> bayesInputs = CacheUtil.getValue(naiveBayesModel, NaiveBayesModelEvaluator.bayesInputCache);
+
+				Map<FieldName, Map<String, Double>> countsMap = CacheUtil.getValue(naiveBayesModel, NaiveBayesModelEvaluator.countCache);
+
+				return CompiledNaiveBayesModel.create(naiveBayesModel, bayesInputs, countsMap);
+			}
+		});
+}
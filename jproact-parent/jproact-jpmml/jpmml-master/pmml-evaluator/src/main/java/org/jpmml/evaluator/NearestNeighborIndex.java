@@ -0,0 +1,514 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * A k-d tree over the training instances of a {@link NearestNeighborModel}.
+ * </p>
+ *
+ * The index is limited to Euclidean, squared Euclidean and city block distances, where every KNN input is compared using the "absDiff" function.
+ * The search prunes a subtree only if the distance to its bounding box is strictly greater than the distance to the current k-th nearest instance.
+ * Distances are accumulated in the same order and with the same operations as {@link MeasureUtil#evaluateDistance}, so that the results (including the order of tied instances) are identical to a linear scan.
+ *
+ * @see NearestNeighborModelEvaluator
+ */
+public class NearestNeighborIndex {
+
+	private int size = 0;
+
+	private int[] ids = null;
+
+	private int dimensions = 0;
+
+	/**
+	 * Row-major matrix of instance values.
+	 */
+	private double[] coordinates = null;
+
+	private double[] weights = null;
+
+	private double innerPower = 0d;
+
+	private double outerPower = 0d;
+
+	/**
+	 * Instance positions, permuted so that every node of the tree occupies a contiguous range.
+	 */
+	private int[] order = null;
+
+	private int[] nodeBegins = null;
+
+	private int[] nodeEnds = null;
+
+	private int[] nodeLefts = null;
+
+	private int[] nodeRights = null;
+
+	private double[] nodeMins = null;
+
+	private double[] nodeMaxs = null;
+
+
+	private NearestNeighborIndex(){
+	}
+
+	public int size(){
+		return this.size;
+	}
+
+	/**
+	 * Finds nearest instances.
+	 *
+	 * @param values The query values.
+	 * @param missing Flags for missing query values. Missing values do not contribute to the distance.
+	 * @param adjustment The adjustment for missing values.
+	 * @param ids The identifiers of nearest instances, ordered by distance and then by the position of the instance (output).
+	 * @param distances The distances of nearest instances (output).
+	 *
+	 * @return The number of nearest instances.
+	 *
+	 * @see MeasureUtil#calculateAdjustment(List)
+	 */
+	public int query(double[] values, boolean[] missing, double adjustment, int[] ids, double[] distances){
+		Heap heap = new Heap(ids, distances, Math.min(ids.length, this.size));
+
+		if(heap.capacity > 0){
+			search(0, values, missing, adjustment, heap);
+		}
+
+		int result = heap.sort();
+
+		for(int i = 0; i < result; i++){
+			ids[i] = this.ids[ids[i]];
+		}
+
+		return result;
+	}
+
+	private void search(int node, double[] values, boolean[] missing, double adjustment, Heap heap){
+		int left = this.nodeLefts[node];
+		int right = this.nodeRights[node];
+
+		// A leaf node
+		if(left < 0){
+
+			for(int i = this.nodeBegins[node]; i < this.nodeEnds[node]; i++){
+				int position = this.order[i];
+
+				heap.offer(position, distance(values, missing, adjustment, position));
+			}
+
+			return;
+		}
+
+		double leftBound = bound(left, values, missing, adjustment);
+		double rightBound = bound(right, values, missing, adjustment);
+
+		if(leftBound <= rightBound){
+			searchChild(left, leftBound, values, missing, adjustment, heap);
+			searchChild(right, rightBound, values, missing, adjustment, heap);
+		} else
+
+		{
+			searchChild(right, rightBound, values, missing, adjustment, heap);
+			searchChild(left, leftBound, values, missing, adjustment, heap);
+		}
+	}
+
+	private void searchChild(int node, double bound, double[] values, boolean[] missing, double adjustment, Heap heap){
+
+		if(heap.isFull() && Double.compare(bound, heap.worstDistance()) > 0){
+			return;
+		}
+
+		search(node, values, missing, adjustment, heap);
+	}
+
+	private double distance(double[] values, boolean[] missing, double adjustment, int position){
+		double[] coordinates = this.coordinates;
+
+		int offset = position * this.dimensions;
+
+		double sum = 0d;
+
+		for(int i = 0; i < this.dimensions; i++){
+
+			if(missing[i]){
+				continue;
+			}
+
+			double distance = Math.abs(values[i] - coordinates[offset + i]);
+
+			sum += this.weights[i] * Math.pow(distance, this.innerPower);
+		}
+
+		return Math.pow(sum * adjustment, 1d / this.outerPower);
+	}
+
+	/**
+	 * @return The lower bound of distances between the query and instances of the node.
+	 */
+	private double bound(int node, double[] values, boolean[] missing, double adjustment){
+		int offset = node * this.dimensions;
+
+		double sum = 0d;
+
+		for(int i = 0; i < this.dimensions; i++){
+
+			if(missing[i]){
+				continue;
+			}
+
+			double distance;
+
+			double min = this.nodeMins[offset + i];
+			double max = this.nodeMaxs[offset + i];
+
+			if(values[i] < min){
+				distance = (min - values[i]);
+			} else
+
+			if(values[i] > max){
+				distance = (values[i] - max);
+			} else
+
+			{
+				distance = 0d;
+			}
+
+			sum += this.weights[i] * Math.pow(distance, this.innerPower);
+		}
+
+		return Math.pow(sum * adjustment, 1d / this.outerPower);
+	}
+
+	/**
+	 * @param table The training instances.
+	 *
+	 * @return The index, or <code>null</code> if the comparison measure or the training instances are not supported.
+	 */
+	static
+	public NearestNeighborIndex create(ComparisonMeasure comparisonMeasure, List<KNNInput> knnInputs, InstanceTable table){
+		NearestNeighborIndex result = new NearestNeighborIndex();
+
+		Measure measure = comparisonMeasure.getMeasure();
+
+		if(measure instanceof Euclidean){
+			result.innerPower = result.outerPower = 2d;
+		} else
+
+		if(measure instanceof SquaredEuclidean){
+			result.innerPower = 2d;
+			result.outerPower = 1d;
+		} else
+
+		if(measure instanceof CityBlock){
+			result.innerPower = result.outerPower = 1d;
+		} else
+
+		{
+			return null;
+		}
+
+		int dimensions = knnInputs.size();
+		if(dimensions == 0){
+			return null;
+		}
+
+		result.dimensions = dimensions;
+		result.weights = new double[dimensions];
+
+		for(int i = 0; i < dimensions; i++){
+			KNNInput knnInput = knnInputs.get(i);
+
+			CompareFunctionType compareFunction = knnInput.getCompareFunction();
+			if(compareFunction == null){
+				compareFunction = comparisonMeasure.getCompareFunction();
+			} // End if
+
+			if(!(CompareFunctionType.ABS_DIFF).equals(compareFunction)){
+				return null;
+			}
+
+			result.weights[i] = knnInput.getFieldWeight();
+		}
+
+		int size = table.getNumberOfRows();
+
+		result.size = size;
+		result.ids = new int[size];
+		result.coordinates = new double[size * dimensions];
+
+		for(int position = 0; position < size; position++){
+			result.ids[position] = table.getId(position);
+		}
+
+		for(int i = 0; i < dimensions; i++){
+			KNNInput knnInput = knnInputs.get(i);
+
+			InstanceTable.Column column = table.getColumn(knnInput.getField());
+			if(!(column instanceof InstanceTable.ContinuousColumn)){
+				return null;
+			}
+
+			InstanceTable.ContinuousColumn continuousColumn = (InstanceTable.ContinuousColumn)column;
+			if(continuousColumn.hasMissing()){
+				return null;
+			}
+
+			for(int position = 0; position < size; position++){
+				result.coordinates[position * dimensions + i] = continuousColumn.getDouble(position);
+			}
+		}
+
+		result.order = new int[size];
+
+		for(int i = 0; i < size; i++){
+			result.order[i] = i;
+		}
+
+		Builder builder = new Builder(result);
+		builder.build(0, size);
+
+		result.nodeBegins = Ints.toArray(builder.begins);
+		result.nodeEnds = Ints.toArray(builder.ends);
+		result.nodeLefts = Ints.toArray(builder.lefts);
+		result.nodeRights = Ints.toArray(builder.rights);
+		result.nodeMins = Doubles.toArray(builder.mins);
+		result.nodeMaxs = Doubles.toArray(builder.maxs);
+
+		return result;
+	}
+
+	static
+	private class Builder {
+
+		private NearestNeighborIndex index = null;
+
+		private List<Integer> begins = Lists.newArrayList();
+
+		private List<Integer> ends = Lists.newArrayList();
+
+		private List<Integer> lefts = Lists.newArrayList();
+
+		private List<Integer> rights = Lists.newArrayList();
+
+		private List<Double> mins = Lists.newArrayList();
+
+		private List<Double> maxs = Lists.newArrayList();
+
+
+		private Builder(NearestNeighborIndex index){
+			this.index = index;
+		}
+
+		/**
+		 * @return The node.
+		 */
+		private int build(int begin, int end){
+			final
+			NearestNeighborIndex index = this.index;
+
+			int node = this.begins.size();
+
+			this.begins.add(begin);
+			this.ends.add(end);
+			this.lefts.add(-1);
+			this.rights.add(-1);
+
+			int split = -1;
+			double spread = 0d;
+
+			for(int i = 0; i < index.dimensions; i++){
+				double min = Double.POSITIVE_INFINITY;
+				double max = Double.NEGATIVE_INFINITY;
+
+				for(int j = begin; j < end; j++){
+					double value = index.coordinates[index.order[j] * index.dimensions + i];
+
+					min = Math.min(min, value);
+					max = Math.max(max, value);
+				}
+
+				this.mins.add(min);
+				this.maxs.add(max);
+
+				if(max - min > spread){
+					split = i;
+					spread = (max - min);
+				}
+			}
+
+			if((end - begin) <= Builder.LEAF_SIZE || split < 0){
+				return node;
+			}
+
+			final
+			int dimension = split;
+
+			Comparator<Integer> comparator = new Comparator<Integer>(){
+
+				@Override
+				public int compare(Integer left, Integer right){
+					return Double.compare(index.coordinates[left * index.dimensions + dimension], index.coordinates[right * index.dimensions + dimension]);
+				}
+			};
+
+			List<Integer> positions = Ints.asList(index.order).subList(begin, end);
+
+			Collections.sort(positions, comparator);
+
+			int middle = begin + (end - begin) / 2;
+
+			this.lefts.set(node, build(begin, middle));
+			this.rights.set(node, build(middle, end));
+
+			return node;
+		}
+
+		private static final int LEAF_SIZE = 16;
+	}
+
+	/**
+	 * A bounded max-heap, ordered by distance and then by position.
+	 */
+	static
+	private class Heap {
+
+		private int[] positions = null;
+
+		private double[] distances = null;
+
+		private int capacity = 0;
+
+		private int size = 0;
+
+
+		private Heap(int[] positions, double[] distances, int capacity){
+			this.positions = positions;
+			this.distances = distances;
+			this.capacity = capacity;
+		}
+
+		public boolean isFull(){
+			return (this.size == this.capacity);
+		}
+
+		public double worstDistance(){
+			return this.distances[0];
+		}
+
+		public void offer(int position, double distance){
+
+			if(this.size < this.capacity){
+				int i = this.size;
+
+				this.size++;
+
+				this.positions[i] = position;
+				this.distances[i] = distance;
+
+				siftUp(i);
+			} else
+
+			if(compare(position, distance, this.positions[0], this.distances[0]) < 0){
+				this.positions[0] = position;
+				this.distances[0] = distance;
+
+				siftDown(0, this.size);
+			}
+		}
+
+		/**
+		 * Sorts the contents in place, from the nearest to the farthest.
+		 *
+		 * @return The number of elements.
+		 */
+		public int sort(){
+
+			for(int i = this.size - 1; i > 0; i--){
+				swap(0, i);
+
+				siftDown(0, i);
+			}
+
+			return this.size;
+		}
+
+		private void siftUp(int i){
+
+			while(i > 0){
+				int parent = (i - 1) / 2;
+
+				if(compare(i, parent) <= 0){
+					break;
+				}
+
+				swap(i, parent);
+
+				i = parent;
+			}
+		}
+
+		private void siftDown(int i, int size){
+
+			while(true){
+				int largest = i;
+
+				int left = 2 * i + 1;
+				int right = left + 1;
+
+				if(left < size && compare(left, largest) > 0){
+					largest = left;
+				} // End if
+
+				if(right < size && compare(right, largest) > 0){
+					largest = right;
+				} // End if
+
+				if(largest == i){
+					break;
+				}
+
+				swap(i, largest);
+
+				i = largest;
+			}
+		}
+
+		private int compare(int left, int right){
+			return compare(this.positions[left], this.distances[left], this.positions[right], this.distances[right]);
+		}
+
+		private void swap(int left, int right){
+			int position = this.positions[left];
+			double distance = this.distances[left];
+
+			this.positions[left] = this.positions[right];
+			this.distances[left] = this.distances[right];
+
+			this.positions[right] = position;
+			this.distances[right] = distance;
+		}
+
+		static
+		private int compare(int leftPosition, double leftDistance, int rightPosition, double rightDistance){
+			int order = Double.compare(leftDistance, rightDistance);
+
+			if(order == 0){
+				order = (leftPosition < rightPosition ? -1 : (leftPosition == rightPosition ? 0 : 1));
+			}
+
+			return order;
+		}
+	}
+}
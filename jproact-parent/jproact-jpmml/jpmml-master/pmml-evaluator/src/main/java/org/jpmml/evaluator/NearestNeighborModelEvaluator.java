@@ -11,11 +11,16 @@ import org.jpmml.manager.*;
 import org.dmg.pmml.*;
 
 import com.google.common.base.*;
+import com.google.common.base.Optional;
 import com.google.common.cache.*;
 import com.google.common.collect.*;
+import com.google.common.primitives.*;
 
 public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighborModel> {
 
+	private boolean neighborsOnly = false;
+
+
 	public NearestNeighborModelEvaluator(PMML pmml){
 		this(pmml, find(pmml.getModels(), NearestNeighborModel.class));
 	}
@@ -63,22 +68,19 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 	private Map<FieldName, InstanceClassificationMap> evaluateMixed(ModelManagerEvaluationContext context){
 		NearestNeighborModel nearestNeighborModel = getModel();
 
-		Table<Integer, FieldName, FieldValue> table = getTrainingInstances();
-
-		List<InstanceResult> instanceResults = evaluate(context);
-
-		List<InstanceResult> nearestInstanceResults = Lists.newArrayList(instanceResults);
+		InstanceTable table = getTrainingInstances();
 
-		Comparator<InstanceResult> comparator = new Comparator<InstanceResult>(){
+		List<InstanceResult> instanceResults;
+		List<InstanceResult> nearestInstanceResults;
 
-			@Override
-			public int compare(InstanceResult left, InstanceResult right){
-				return -1 * (left).compareTo(right);
-			}
-		};
-		Collections.sort(nearestInstanceResults, comparator);
+		if(isNeighborsOnly()){
+			instanceResults = nearestInstanceResults = evaluateNearest(context);
+		} else
 
-		nearestInstanceResults = nearestInstanceResults.subList(0, nearestNeighborModel.getNumberOfNeighbors());
+		{
+			instanceResults = evaluate(context);
+			nearestInstanceResults = selectNearest(instanceResults);
+		}
 
 		Function<Integer, String> function = new Function<Integer, String>(){
 
@@ -122,9 +124,9 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 	private Map<FieldName, InstanceClassificationMap> evaluateClustering(ModelManagerEvaluationContext context){
 		NearestNeighborModel nearestNeighborModel = getModel();
 
-		Table<Integer, FieldName, FieldValue> table = getTrainingInstances();
+		InstanceTable table = getTrainingInstances();
 
-		List<InstanceResult> instanceResults = evaluate(context);
+		List<InstanceResult> instanceResults = (isNeighborsOnly() ? evaluateNearest(context) : evaluate(context));
 
 		String idField = nearestNeighborModel.getInstanceIdVariable();
 		if(idField == null){
@@ -136,17 +138,15 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 		return Collections.singletonMap(getTargetField(), createMeasureMap(null, instanceResults, function));
 	}
 
+	/**
+	 * @return All training instances, in the order of training instances.
+	 */
 	private List<InstanceResult> evaluate(ModelManagerEvaluationContext context){
 		NearestNeighborModel nearestNeighborModel = getModel();
 
-		List<FieldValue> values = Lists.newArrayList();
+		List<FieldValue> values = evaluateValues(context);
 
 		KNNInputs knnInputs = nearestNeighborModel.getKNNInputs();
-		for(KNNInput knnInput : knnInputs){
-			FieldValue value = ExpressionUtil.evaluate(knnInput.getField(), context);
-
-			values.add(value);
-		}
 
 		ComparisonMeasure comparisonMeasure = nearestNeighborModel.getComparisonMeasure();
 
@@ -165,20 +165,85 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 		}
 	}
 
+	/**
+	 * Distance measures that are supported by the {@link NearestNeighborIndex} are answered from the index.
+	 * All other measures are answered by evaluating all training instances.
+	 *
+	 * @return The nearest instances, ordered from the nearest to the farthest.
+	 */
+	private List<InstanceResult> evaluateNearest(ModelManagerEvaluationContext context){
+		NearestNeighborModel nearestNeighborModel = getModel();
+
+		ComparisonMeasure comparisonMeasure = nearestNeighborModel.getComparisonMeasure();
+
+		Measure measure = comparisonMeasure.getMeasure();
+
+		if(MeasureUtil.isDistance(measure)){
+			Optional<NearestNeighborIndex> index = getValue(NearestNeighborModelEvaluator.indexCache);
+
+			List<FieldValue> values = evaluateValues(context);
+
+			// The index requires at least one non-missing value
+			if(index.isPresent() && Iterables.any(values, Predicates.notNull())){
+				return evaluateDistance(index.get(), values);
+			}
+		}
+
+		return selectNearest(evaluate(context));
+	}
+
+	private List<FieldValue> evaluateValues(ModelManagerEvaluationContext context){
+		NearestNeighborModel nearestNeighborModel = getModel();
+
+		List<FieldValue> result = Lists.newArrayList();
+
+		KNNInputs knnInputs = nearestNeighborModel.getKNNInputs();
+		for(KNNInput knnInput : knnInputs){
+			FieldValue value = ExpressionUtil.evaluate(knnInput.getField(), context);
+
+			result.add(value);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The nearest instances, ordered from the nearest to the farthest.
+	 */
+	private List<InstanceResult> selectNearest(List<InstanceResult> instanceResults){
+		NearestNeighborModel nearestNeighborModel = getModel();
+
+		Comparator<InstanceResult> comparator = new Comparator<InstanceResult>(){
+
+			@Override
+			public int compare(InstanceResult left, InstanceResult right){
+				int order = -1 * (left).compareTo(right);
+
+				// Ties are resolved in the order of training instances
+				if(order == 0){
+					order = (left.getId()).compareTo(right.getId());
+				}
+
+				return order;
+			}
+		};
+
+		return Ordering.from(comparator).leastOf(instanceResults, nearestNeighborModel.getNumberOfNeighbors());
+	}
+
 	private List<InstanceResult> evaluateSimilarity(ComparisonMeasure comparisonMeasure, List<KNNInput> knnInputs, List<FieldValue> values){
 		List<InstanceResult> result = Lists.newArrayList();
 
 		BitSet flags = MeasureUtil.toBitSet(values);
 
-		Map<Integer, BitSet> flagMap = getValue(NearestNeighborModelEvaluator.instanceFlagCache);
+		InstanceTable table = getTrainingInstances();
 
-		Set<Integer> rowKeys = flagMap.keySet();
-		for(Integer rowKey : rowKeys){
-			BitSet instanceFlags = flagMap.get(rowKey);
+		List<BitSet> instanceFlags = getValue(NearestNeighborModelEvaluator.instanceFlagCache);
 
-			Double similarity = MeasureUtil.evaluateSimilarity(comparisonMeasure, knnInputs, flags, instanceFlags);
+		for(int row = 0; row < table.getNumberOfRows(); row++){
+			Double similarity = MeasureUtil.evaluateSimilarity(comparisonMeasure, knnInputs, flags, instanceFlags.get(row));
 
-			result.add(new InstanceResult.Similarity(rowKey, similarity));
+			result.add(new InstanceResult.Similarity(table.getId(row), similarity));
 		}
 
 		return result;
@@ -189,21 +254,54 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 
 		Double adjustment = MeasureUtil.calculateAdjustment(values);
 
-		Map<Integer, List<FieldValue>> valueMap = getValue(NearestNeighborModelEvaluator.instanceValueCache);
+		InstanceTable table = getTrainingInstances();
 
-		Set<Integer> rowKeys = valueMap.keySet();
-		for(Integer rowKey : rowKeys){
-			List<FieldValue> instanceValues = valueMap.get(rowKey);
+		List<List<FieldValue>> instanceValues = getValue(NearestNeighborModelEvaluator.instanceValueCache);
 
-			Double distance = MeasureUtil.evaluateDistance(comparisonMeasure, knnInputs, values, instanceValues, adjustment);
+		for(int row = 0; row < table.getNumberOfRows(); row++){
+			Double distance = MeasureUtil.evaluateDistance(comparisonMeasure, knnInputs, values, instanceValues.get(row), adjustment);
 
-			result.add(new InstanceResult.Distance(rowKey, distance));
+			result.add(new InstanceResult.Distance(table.getId(row), distance));
 		}
 
 		return result;
 	}
 
-	private Double calculateContinuousTarget(FieldName name, List<InstanceResult> instanceResults, Table<Integer, FieldName, FieldValue> table){
+	private List<InstanceResult> evaluateDistance(NearestNeighborIndex index, List<FieldValue> values){
+		NearestNeighborModel nearestNeighborModel = getModel();
+
+		double adjustment = MeasureUtil.calculateAdjustment(values);
+
+		double[] point = new double[values.size()];
+		boolean[] missing = new boolean[values.size()];
+
+		for(int i = 0; i < values.size(); i++){
+			FieldValue value = values.get(i);
+
+			if(value == null){
+				missing[i] = true;
+
+				continue;
+			}
+
+			point[i] = value.asDouble();
+		}
+
+		int[] ids = new int[nearestNeighborModel.getNumberOfNeighbors()];
+		double[] distances = new double[ids.length];
+
+		int count = index.query(point, missing, adjustment, ids, distances);
+
+		List<InstanceResult> result = Lists.newArrayListWithCapacity(count);
+
+		for(int i = 0; i < count; i++){
+			result.add(new InstanceResult.Distance(ids[i], distances[i]));
+		}
+
+		return result;
+	}
+
+	private Double calculateContinuousTarget(FieldName name, List<InstanceResult> instanceResults, InstanceTable table){
 		NearestNeighborModel nearestNeighborModel = getModel();
 
 		double sum = 0d;
@@ -211,7 +309,7 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 		ContinuousScoringMethodType continuousScoringMethod = nearestNeighborModel.getContinuousScoringMethod();
 
 		for(InstanceResult instanceResult : instanceResults){
-			FieldValue value = table.get(instanceResult.getId(), name);
+			FieldValue value = getValue(table, instanceResult.getId(), name);
 			if(value == null){
 				throw new MissingFieldException(name);
 			}
@@ -236,7 +334,7 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 	@SuppressWarnings (
 		value = {"rawtypes", "unchecked"}
 	)
-	private Object calculateCategoricalTarget(FieldName name, List<InstanceResult> instanceResults, Table<Integer, FieldName, FieldValue> table){
+	private Object calculateCategoricalTarget(FieldName name, List<InstanceResult> instanceResults, InstanceTable table){
 		NearestNeighborModel nearestNeighborModel = getModel();
 
 		VoteCounter<Object> counter = new VoteCounter<Object>();
@@ -244,7 +342,7 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 		CategoricalScoringMethodType categoricalScoringMethod = nearestNeighborModel.getCategoricalScoringMethod();
 
 		for(InstanceResult instanceResult : instanceResults){
-			FieldValue value = table.get(instanceResult.getId(), name);
+			FieldValue value = getValue(table, instanceResult.getId(), name);
 			if(value == null){
 				throw new MissingFieldException(name);
 			}
@@ -269,16 +367,13 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 		if(winners.size() > 1){
 			Multiset<Object> multiset = LinkedHashMultiset.create();
 
-			Map<Integer, FieldValue> column = table.column(name);
+			for(int row = 0; row < table.getNumberOfRows(); row++){
+				FieldValue value = table.getValue(row, name);
 
-			Function<FieldValue, Object> function = new Function<FieldValue, Object>(){
-
-				@Override
-				public Object apply(FieldValue value){
-					return value.getValue();
+				if(value != null){
+					multiset.add(value.getValue());
 				}
-			};
-			multiset.addAll(Collections2.transform(column.values(), function));
+			}
 
 			counter.clear();
 
@@ -297,12 +392,12 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 		return Iterables.getFirst(winners, null);
 	}
 
-	private Function<Integer, String> createIdentifierResolver(final FieldName name, final Table<Integer, FieldName, FieldValue> table){
+	private Function<Integer, String> createIdentifierResolver(final FieldName name, final InstanceTable table){
 		Function<Integer, String> function = new Function<Integer, String>(){
 
 			@Override
-			public String apply(Integer row){
-				FieldValue value = table.get(row, name);
+			public String apply(Integer id){
+				FieldValue value = getValue(table, id, name);
 				if(value == null){
 					throw new MissingFieldException(name);
 				}
@@ -342,7 +437,29 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 		return result;
 	}
 
-	private Table<Integer, FieldName, FieldValue> getTrainingInstances(){
+	/**
+	 * @see #setNeighborsOnly(boolean)
+	 */
+	public boolean isNeighborsOnly(){
+		return this.neighborsOnly;
+	}
+
+	/**
+	 * <p>
+	 * Limits the {@link InstanceClassificationMap} to the <code>numberOfNeighbors</code> nearest training instances.
+	 * </p>
+	 *
+	 * By default, the map holds every training instance, so that the entity identifier and affinity of any training instance can be requested as an output field.
+	 * When limited, the nearest instances of supported distance measures are looked up in a {@link NearestNeighborIndex} instead of evaluating every training instance.
+	 * Output fields that request a rank beyond <code>numberOfNeighbors</code>, or the affinity of an instance that is not among the nearest instances, then evaluate to <code>null</code>.
+	 *
+	 * The option must be configured before the evaluator is shared between threads.
+	 */
+	public void setNeighborsOnly(boolean neighborsOnly){
+		this.neighborsOnly = neighborsOnly;
+	}
+
+	private InstanceTable getTrainingInstances(){
 		NearestNeighborModel nearestNeighborModel = getModel();
 
 		try {
@@ -363,7 +480,28 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 	}
 
 	static
-	private Table<Integer, FieldName, FieldValue> parseTrainingInstances(PMML pmml, NearestNeighborModel nearestNeighborModel){
+	private FieldValue getValue(InstanceTable table, Integer id, FieldName name){
+		int row = table.getRow(id.intValue());
+		if(row < 0){
+			throw new EvaluationException();
+		}
+
+		return table.getValue(row, name);
+	}
+
+	static
+	private List<FieldValue> getInstanceValues(InstanceTable table, int row, List<KNNInput> knnInputs){
+		List<FieldValue> result = Lists.newArrayListWithCapacity(knnInputs.size());
+
+		for(KNNInput knnInput : knnInputs){
+			result.add(table.getValue(row, knnInput.getField()));
+		}
+
+		return result;
+	}
+
+	static
+	private InstanceTable parseTrainingInstances(PMML pmml, NearestNeighborModel nearestNeighborModel){
 		TrainingInstances trainingInstances = nearestNeighborModel.getTrainingInstances();
 
 		TableLocator tableLocator = trainingInstances.getTableLocator();
@@ -409,18 +547,25 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 			throw new InvalidFeatureException(instanceField);
 		}
 
-		Table<Integer, FieldName, FieldValue> result = HashBasedTable.create();
+		List<Integer> rowKeys = Lists.newArrayList();
+
+		Map<FieldName, List<FieldValue>> columns = Maps.newLinkedHashMap();
+
+		for(FieldLoader fieldLoader : fieldLoaders){
+			columns.put(fieldLoader.getName(), Lists.<FieldValue>newArrayList());
+		}
 
 		InlineTable inlineTable = trainingInstances.getInlineTable();
 		if(inlineTable != null){
 			Table<Integer, String, String> table = InlineTableUtil.getContent(inlineTable);
 
-			Set<Integer> rowKeys = table.rowKeySet();
+			rowKeys.addAll(ImmutableSortedSet.copyOf(table.rowKeySet()));
+
 			for(Integer rowKey : rowKeys){
 				Map<String, String> rowValues = table.row(rowKey);
 
 				for(FieldLoader fieldLoader : fieldLoaders){
-					result.put(rowKey, fieldLoader.getName(), fieldLoader.load(rowValues));
+					(columns.get(fieldLoader.getName())).add(fieldLoader.load(rowValues));
 				}
 			}
 		}
@@ -432,29 +577,33 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 			FieldName name = knnInput.getField();
 
 			DerivedField derivedField = modelManager.resolveField(name);
-			if(derivedField == null){
+			if(derivedField == null || columns.containsKey(name)){
 				continue;
 			}
 
-			Set<Integer> rowKeys = result.rowKeySet();
-			for(Integer rowKey : rowKeys){
-				Map<FieldName, FieldValue> rowValues = result.row(rowKey);
+			List<FieldValue> values = Lists.newArrayListWithCapacity(rowKeys.size());
+
+			for(int row = 0; row < rowKeys.size(); row++){
+				Map<FieldName, FieldValue> rowValues = Maps.newLinkedHashMap();
 
-				if(rowValues.containsKey(name)){
-					continue;
+				Collection<Map.Entry<FieldName, List<FieldValue>>> entries = columns.entrySet();
+				for(Map.Entry<FieldName, List<FieldValue>> entry : entries){
+					rowValues.put(entry.getKey(), (entry.getValue()).get(row));
 				}
 
 				context.pushFrame(rowValues);
 
 				try {
-					result.put(rowKey, name, ExpressionUtil.evaluate(derivedField, context));
+					values.add(ExpressionUtil.evaluate(derivedField, context));
 				} finally {
 					context.popFrame();
 				}
 			}
+
+			columns.put(name, values);
 		}
 
-		return result;
+		return InstanceTable.create(Ints.toArray(rowKeys), columns);
 	}
 
 	static
@@ -658,12 +807,12 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 		.weakValues()
 		.build();
 
-	private static final LoadingCache<NearestNeighborModel, Table<Integer, FieldName, FieldValue>> trainingInstanceCache = CacheBuilder.newBuilder()
+	private static final LoadingCache<NearestNeighborModel, InstanceTable> trainingInstanceCache = CacheBuilder.newBuilder()
 		.weakKeys()
-		.build(new CacheLoader<NearestNeighborModel, Table<Integer, FieldName, FieldValue>>(){
+		.build(new CacheLoader<NearestNeighborModel, InstanceTable>(){
 
 			@Override
-			public Table<Integer, FieldName, FieldValue> load(NearestNeighborModel nearestNeighborModel){
+			public InstanceTable load(NearestNeighborModel nearestNeighborModel){
 				PMML pmml = NearestNeighborModelEvaluator.pmmlCache.getIfPresent(nearestNeighborModel);
 				if(pmml == null){
 					throw new EvaluationException();
@@ -673,57 +822,60 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 			}
 		});
 
-	private static final LoadingCache<NearestNeighborModel, Map<Integer, List<FieldValue>>> instanceValueCache = CacheBuilder.newBuilder()
+	private static final LoadingCache<NearestNeighborModel, Optional<NearestNeighborIndex>> indexCache = CacheBuilder.newBuilder()
 		.weakKeys()
-		.build(new CacheLoader<NearestNeighborModel, Map<Integer, List<FieldValue>>>(){
+		.build(new CacheLoader<NearestNeighborModel, Optional<NearestNeighborIndex>>(){
 
 			@Override
-			public Map<Integer, List<FieldValue>> load(NearestNeighborModel nearestNeighborModel){
-				Map<Integer, List<FieldValue>> result = Maps.newLinkedHashMap();
-
-				Table<Integer, FieldName, FieldValue> table = CacheUtil.getValue(nearestNeighborModel, NearestNeighborModelEvaluator.trainingInstanceCache);
+			public Optional<NearestNeighborIndex> load(NearestNeighborModel nearestNeighborModel){
+				InstanceTable table = CacheUtil.getValue(nearestNeighborModel, NearestNeighborModelEvaluator.trainingInstanceCache);
 
 				KNNInputs knnInputs = nearestNeighborModel.getKNNInputs();
 
-				Set<Integer> rowKeys = ImmutableSortedSet.copyOf(table.rowKeySet());
-				for(Integer rowKey : rowKeys){
-					List<FieldValue> values = Lists.newArrayList();
+				NearestNeighborIndex index = NearestNeighborIndex.create(nearestNeighborModel.getComparisonMeasure(), knnInputs.getKNNInputs(), table);
+
+				return Optional.fromNullable(index);
+			}
+		});
+
+	/**
+	 * Per row. The values of {@link KNNInput} fields, for measures that are not covered by the {@link NearestNeighborIndex}.
+	 */
+	private static final LoadingCache<NearestNeighborModel, List<List<FieldValue>>> instanceValueCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<NearestNeighborModel, List<List<FieldValue>>>(){
 
-					Map<FieldName, FieldValue> rowValues = table.row(rowKey);
+			@Override
+			public List<List<FieldValue>> load(NearestNeighborModel nearestNeighborModel){
+				List<List<FieldValue>> result = Lists.newArrayList();
 
-					for(KNNInput knnInput : knnInputs){
-						FieldValue value = rowValues.get(knnInput.getField());
+				InstanceTable table = CacheUtil.getValue(nearestNeighborModel, NearestNeighborModelEvaluator.trainingInstanceCache);
 
-						values.add(value);
-					}
+				KNNInputs knnInputs = nearestNeighborModel.getKNNInputs();
 
-					result.put(rowKey, values);
+				for(int row = 0; row < table.getNumberOfRows(); row++){
+					result.add(getInstanceValues(table, row, knnInputs.getKNNInputs()));
 				}
 
 				return result;
 			}
 		});
 
-	private static final LoadingCache<NearestNeighborModel, Map<Integer, BitSet>> instanceFlagCache = CacheBuilder.newBuilder()
+	private static final LoadingCache<NearestNeighborModel, List<BitSet>> instanceFlagCache = CacheBuilder.newBuilder()
 		.weakKeys()
-		.build(new CacheLoader<NearestNeighborModel, Map<Integer, BitSet>>(){
+		.build(new CacheLoader<NearestNeighborModel, List<BitSet>>(){
 
 			@Override
-			public Map<Integer, BitSet> load(NearestNeighborModel nearestNeighborModel){
-				Map<Integer, BitSet> result = Maps.newLinkedHashMap();
-
-				Map<Integer, List<FieldValue>> valueMap = CacheUtil.getValue(nearestNeighborModel, NearestNeighborModelEvaluator.instanceValueCache);
+			public List<BitSet> load(NearestNeighborModel nearestNeighborModel){
+				List<BitSet> result = Lists.newArrayList();
 
-				Maps.EntryTransformer<Integer, List<FieldValue>, BitSet> transformer = new Maps.EntryTransformer<Integer, List<FieldValue>, BitSet>(){
+				List<List<FieldValue>> instanceValues = CacheUtil.getValue(nearestNeighborModel, NearestNeighborModelEvaluator.instanceValueCache);
 
-					@Override
-					public BitSet transformEntry(Integer key, List<FieldValue> value){
-						return MeasureUtil.toBitSet(value);
-					}
-				};
-				result.putAll(Maps.transformEntries(valueMap, transformer));
+				for(List<FieldValue> values : instanceValues){
+					result.add(MeasureUtil.toBitSet(values));
+				}
 
 				return result;
 			}
 		});
-}
\ No newline at end of file
+}
@@ -39,32 +39,92 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 			throw new InvalidResultException(neuralNetwork);
 		}
 
-		Map<FieldName, ?> predictions;
-
 		ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(this);
 		context.pushFrame(arguments);
 
+		Map<String, Double> entityOutputs;
+
+		if(isCompiled()){
+			CompiledNeuralNetwork compiledNeuralNetwork = getCompiledNeuralNetwork();
+
+			double[] values = compiledNeuralNetwork.evaluateInputs(context);
+
+			compiledNeuralNetwork.forward(values);
+
+			entityOutputs = compiledNeuralNetwork.asMap(values);
+		} else
+
+		{
+			entityOutputs = walkNetwork(context);
+		}
+
+		Map<FieldName, ?> predictions = evaluatePredictions(entityOutputs, context);
+
+		return OutputUtil.evaluate(predictions, context);
+	}
+
+	/**
+	 * Propagates all records of the block through the network together.
+	 *
+	 * @see CompiledNeuralNetwork#forward(double[][])
+	 */
+	@Override
+	protected List<Map<FieldName, ?>> evaluateBlock(List<? extends Map<FieldName, ?>> records){
+		NeuralNetwork neuralNetwork = getModel();
+		if(!neuralNetwork.isScorable()){
+			throw new InvalidResultException(neuralNetwork);
+		} // End if
+
+		if(!isCompiled()){
+			return super.evaluateBlock(records);
+		}
+
+		CompiledNeuralNetwork compiledNeuralNetwork = getCompiledNeuralNetwork();
+
+		ModelManagerEvaluationContext[] contexts = new ModelManagerEvaluationContext[records.size()];
+
+		double[][] block = new double[records.size()][];
+
+		for(int i = 0; i < records.size(); i++){
+			ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(this);
+			context.pushFrame(records.get(i));
+
+			contexts[i] = context;
+
+			block[i] = compiledNeuralNetwork.evaluateInputs(context);
+		}
+
+		compiledNeuralNetwork.forward(block);
+
+		List<Map<FieldName, ?>> result = Lists.newArrayListWithCapacity(records.size());
+
+		for(int i = 0; i < records.size(); i++){
+			Map<FieldName, ?> predictions = evaluatePredictions(compiledNeuralNetwork.asMap(block[i]), contexts[i]);
+
+			result.add(OutputUtil.evaluate(predictions, contexts[i]));
+		}
+
+		return result;
+	}
+
+	private Map<FieldName, ?> evaluatePredictions(Map<String, Double> entityOutputs, ModelManagerEvaluationContext context){
+		NeuralNetwork neuralNetwork = getModel();
+
 		MiningFunctionType miningFunction = neuralNetwork.getFunctionName();
 		switch(miningFunction){
 			case REGRESSION:
-				predictions = evaluateRegression(context);
-				break;
+				return evaluateRegression(entityOutputs, context);
 			case CLASSIFICATION:
-				predictions = evaluateClassification(context);
-				break;
+				return evaluateClassification(entityOutputs, context);
 			default:
 				throw new UnsupportedFeatureException(neuralNetwork, miningFunction);
 		}
-
-		return OutputUtil.evaluate(predictions, context);
 	}
 
-	private Map<FieldName, ? extends Number> evaluateRegression(ModelManagerEvaluationContext context) {
+	private Map<FieldName, ? extends Number> evaluateRegression(Map<String, Double> entityOutputs, ModelManagerEvaluationContext context) {
 		Map<FieldName, Double> result = Maps.newLinkedHashMap();
 
-		Map<String, Double> entityOutputs = evaluateRaw(context);
-
-		List<NeuralOutput> neuralOutputs = getOrCreateNeuralOutputs();
+		List<NeuralOutput> neuralOutputs = getNeuralOutputs();
 		for (NeuralOutput neuralOutput : neuralOutputs) {
 			String id = neuralOutput.getOutputNeuron();
 
@@ -97,14 +157,12 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 		return TargetUtil.evaluateRegression(result, context);
 	}
 
-	private Map<FieldName, ? extends ClassificationMap<?>> evaluateClassification(ModelManagerEvaluationContext context) {
+	private Map<FieldName, ? extends ClassificationMap<?>> evaluateClassification(Map<String, Double> entityOutputs, ModelManagerEvaluationContext context) {
 		Map<FieldName, NeuronClassificationMap> result = Maps.newLinkedHashMap();
 
 		Map<String, Entity> entities = getEntityRegistry();
 
-		Map<String, Double> entityOutputs = evaluateRaw(context);
-
-		List<NeuralOutput> neuralOutputs = getOrCreateNeuralOutputs();
+		List<NeuralOutput> neuralOutputs = getNeuralOutputs();
 		for (NeuralOutput neuralOutput : neuralOutputs) {
 			String id = neuralOutput.getOutputNeuron();
 
@@ -160,8 +218,29 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 	 *
 	 * @see NeuralInput#getId()
 	 * @see Neuron#getId()
+	 *
+	 * @see #isCompiled()
 	 */
 	public Map<String, Double> evaluateRaw(EvaluationContext context){
+
+		if(isCompiled()){
+			CompiledNeuralNetwork compiledNeuralNetwork = getCompiledNeuralNetwork();
+
+			double[] entityOutputs = compiledNeuralNetwork.evaluateInputs(context);
+
+			compiledNeuralNetwork.forward(entityOutputs);
+
+			return compiledNeuralNetwork.toMap(entityOutputs);
+		}
+
+		return walkNetwork(context);
+	}
+
+	/**
+	 * Evaluates neural network by walking its layers and connections.
+	 * This is the reference implementation of {@link CompiledNeuralNetwork}.
+	 */
+	private Map<String, Double> walkNetwork(EvaluationContext context){
 		NeuralNetwork neuralNetwork = getModel();
 
 		Map<String, Double> result = Maps.newLinkedHashMap();
@@ -183,7 +262,9 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 			List<Neuron> neurons = neuralLayer.getNeurons();
 
 			for (Neuron neuron : neurons) {
-				double z = neuron.getBias();
+				Double bias = neuron.getBias();
+
+				double z = (bias != null ? bias.doubleValue() : 0d);
 
 				List<Connection> connections = neuron.getConnections();
 				for (Connection connection : connections) {
@@ -295,6 +376,24 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 		}
 	}
 
+	public CompiledNeuralNetwork getCompiledNeuralNetwork(){
+		return getValue(NeuralNetworkEvaluator.compiledNeuralNetworkCache);
+	}
+
+	/**
+	 * @return The NeuralOutput elements, or an empty list.
+	 */
+	public List<NeuralOutput> getNeuralOutputs(){
+		NeuralNetwork neuralNetwork = getModel();
+
+		NeuralOutputs neuralOutputs = neuralNetwork.getNeuralOutputs();
+		if(neuralOutputs == null){
+			return Collections.emptyList();
+		}
+
+		return neuralOutputs.getNeuralOutputs();
+	}
+
 	public List<NeuralOutput> getOrCreateNeuralOutputs() {
 		NeuralNetwork neuralNetwork = getModel();
 
@@ -354,4 +453,14 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 				return result;
 			}
 		});
-}
\ No newline at end of file
+
+	private static final LoadingCache<NeuralNetwork, CompiledNeuralNetwork> compiledNeuralNetworkCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<NeuralNetwork, CompiledNeuralNetwork>(){
+
+			@Override
+			public CompiledNeuralNetwork load(NeuralNetwork neuralNetwork){
+				return CompiledNeuralNetwork.create(neuralNetwork);
+			}
+		});
+}
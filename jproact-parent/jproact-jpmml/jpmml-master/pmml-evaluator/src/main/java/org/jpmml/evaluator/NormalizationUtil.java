@@ -13,7 +13,7 @@ public class NormalizationUtil {
 
 	static
 	public FieldValue normalize(NormContinuous normContinuous, FieldValue value){
-		double result = normalize(normContinuous, (value.asNumber()).doubleValue());
+		double result = normalize(normContinuous, value.asDouble());
 
 		return FieldValueUtil.create(result);
 	}
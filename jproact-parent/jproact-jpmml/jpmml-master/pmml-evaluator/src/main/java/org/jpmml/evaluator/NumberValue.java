@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import org.dmg.pmml.*;
+
+/**
+ * <p>
+ * A continuous value that is backed by a Java primitive.
+ * </p>
+ *
+ * The primitive is boxed only when the {@link #getValue() Java value} is requested.
+ * Arithmetic and comparison operations between two number values are performed on primitives.
+ *
+ * @see DoubleValue
+ * @see FloatValue
+ * @see IntegerValue
+ */
+abstract
+public class NumberValue extends ContinuousValue {
+
+	transient
+	private Number boxedValue = null;
+
+
+	public NumberValue(DataType dataType){
+		super(dataType);
+	}
+
+	abstract
+	public Number box();
+
+	@Override
+	abstract
+	public double asDouble();
+
+	@Override
+	public boolean equalsParsedValue(Object parsedValue){
+		Number number = (Number)parsedValue;
+
+		return TypeUtil.equals(getDataType(), asDouble(), number.doubleValue());
+	}
+
+	@Override
+	public boolean equalsValue(FieldValue value){
+
+		if(value instanceof NumberValue){
+			DataType dataType = TypeUtil.getResultDataType(getDataType(), value.getDataType());
+
+			return TypeUtil.equals(dataType, asDouble(), value.asDouble());
+		}
+
+		return super.equalsValue(value);
+	}
+
+	@Override
+	public int compareToParsedValue(Object parsedValue){
+		Number number = (Number)parsedValue;
+
+		return TypeUtil.compare(getDataType(), asDouble(), number.doubleValue());
+	}
+
+	@Override
+	public int compareToValue(FieldValue value){
+
+		if(value instanceof NumberValue){
+			DataType dataType = TypeUtil.getResultDataType(getDataType(), value.getDataType());
+
+			return TypeUtil.compare(dataType, asDouble(), value.asDouble());
+		}
+
+		return super.compareToValue(value);
+	}
+
+	@Override
+	public Number asNumber(){
+		return (Number)getValue();
+	}
+
+	@Override
+	public Object getValue(){
+
+		if(this.boxedValue == null){
+			this.boxedValue = box();
+		}
+
+		return this.boxedValue;
+	}
+
+	void setBoxedValue(Number boxedValue){
+		this.boxedValue = boxedValue;
+	}
+
+	private static final long serialVersionUID = 1L;
+}
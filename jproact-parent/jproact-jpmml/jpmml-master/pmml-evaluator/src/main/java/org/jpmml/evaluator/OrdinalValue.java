@@ -22,13 +22,13 @@ public class OrdinalValue extends FieldValue {
 	}
 
 	@Override
-	public int compareToString(String string){
+	public int compareToParsedValue(Object parsedValue){
 		List<?> ordering = getOrdering();
 		if(ordering == null){
-			return super.compareToString(string);
+			return super.compareToParsedValue(parsedValue);
 		}
 
-		return compare(ordering, getValue(), parseValue(string));
+		return compare(ordering, getValue(), parsedValue);
 	}
 
 	@Override
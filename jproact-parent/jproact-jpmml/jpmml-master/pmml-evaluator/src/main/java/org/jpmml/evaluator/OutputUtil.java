@@ -30,9 +30,9 @@ public class OutputUtil {
 
 		Map<FieldName, FieldValue> frame = context.pushFrame(Collections.<FieldName, Object>emptyMap());
 
-		Output output = modelManager.getOrCreateOutput();
+		Output output = modelManager.getOutput();
 
-		List<OutputField> outputFields = output.getOutputFields();
+		List<OutputField> outputFields = (output != null ? output.getOutputFields() : Collections.<OutputField>emptyList());
 		for(OutputField outputField : outputFields){
 			FieldName targetField = outputField.getTargetField();
 			if(targetField == null){
@@ -96,7 +96,9 @@ public class OutputUtil {
 							throw new InvalidFeatureException(outputField);
 						}
 
-						FieldValue result = ExpressionUtil.evaluate(expression, context);
+						CompiledExpression compiledExpression = ExpressionCompiler.getCompiledExpression(outputField, context);
+
+						FieldValue result = compiledExpression.evaluate(context);
 
 						value = FieldValueUtil.getValue(result);
 					}
@@ -170,6 +172,8 @@ public class OutputUtil {
 
 			// The result of one output field becomes available to other other output fields
 			frame.put(outputField.getName(), FieldValueUtil.create(outputField, value));
+
+			context.resetDerivedValues();
 		}
 
 		context.popFrame();
@@ -4,11 +4,15 @@
 package org.jpmml.evaluator;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.cache.*;
+import com.google.common.collect.*;
+
 public class PredicateUtil {
 
 	private PredicateUtil(){
@@ -64,16 +68,18 @@ public class PredicateUtil {
 			return null;
 		}
 
+		Object parsedValue = getParsedValue(simplePredicate, value.getDataType());
+
 		switch(operator){
 			case EQUAL:
-				return value.equalsString(simplePredicate.getValue());
+				return value.equalsParsedValue(parsedValue);
 			case NOT_EQUAL:
-				return !value.equalsString(simplePredicate.getValue());
+				return !value.equalsParsedValue(parsedValue);
 			default:
 				break;
 		}
 
-		int order = value.compareToString(simplePredicate.getValue());
+		int order = value.compareToParsedValue(parsedValue);
 
 		switch(operator){
 			case LESS_THAN:
@@ -116,6 +122,12 @@ public class PredicateUtil {
 		predicates = predicates.subList(1, predicates.size());
 
 		for(Predicate predicate : predicates){
+
+			// The remaining predicates cannot change the result
+			if(isDecided(booleanOperator, result)){
+				break;
+			}
+
 			Boolean value = evaluate(predicate, context);
 
 			switch(booleanOperator){
@@ -141,6 +153,24 @@ public class PredicateUtil {
 		return result;
 	}
 
+	/**
+	 * @return <code>true</code> if the result of a compound predicate is known irrespective of the values of the remaining predicates, <code>false</code> otherwise.
+	 */
+	static
+	boolean isDecided(CompoundPredicate.BooleanOperator booleanOperator, Boolean result){
+
+		switch(booleanOperator){
+			case AND:
+				return (Boolean.FALSE).equals(result);
+			case OR:
+				return (Boolean.TRUE).equals(result);
+			case XOR:
+				return (result == null);
+			default:
+				return false;
+		}
+	}
+
 	static
 	public Boolean evaluateSimpleSetPredicate(SimpleSetPredicate simpleSetPredicate, EvaluationContext context){
 		FieldValue value = ExpressionUtil.evaluate(simpleSetPredicate.getField(), context);
@@ -148,21 +178,76 @@ public class PredicateUtil {
 			throw new MissingFieldException(simpleSetPredicate.getField(), simpleSetPredicate);
 		}
 
-		Array array = simpleSetPredicate.getArray();
+		ValueSet valueSet = getValueSet(simpleSetPredicate, value.getDataType());
 
-		List<String> content = ArrayUtil.getContent(array);
+		boolean contains = valueSet.contains(value);
 
 		SimpleSetPredicate.BooleanOperator booleanOperator = simpleSetPredicate.getBooleanOperator();
 		switch(booleanOperator){
 			case IS_IN:
-				return value.equalsAnyString(content);
+				return contains;
 			case IS_NOT_IN:
-				return !value.equalsAnyString(content);
+				return !contains;
 			default:
 				throw new UnsupportedFeatureException(simpleSetPredicate, booleanOperator);
 		}
 	}
 
+	/**
+	 * @return The value of the predicate, as parsed by {@link TypeUtil#parse(DataType, String)}.
+	 */
+	static
+	public Object getParsedValue(SimplePredicate simplePredicate, DataType dataType){
+		ConcurrentMap<DataType, Object> parsedValues = CacheUtil.getValue(simplePredicate, PredicateUtil.valueCache);
+
+		Object result = parsedValues.get(dataType);
+		if(result == null){
+			result = TypeUtil.parse(dataType, simplePredicate.getValue());
+
+			parsedValues.putIfAbsent(dataType, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The elements of the array, as parsed by {@link TypeUtil#parse(DataType, String)}.
+	 * Elements that cannot be parsed are not included.
+	 */
+	static
+	public Set<?> getParsedValues(SimpleSetPredicate simpleSetPredicate, DataType dataType){
+		ValueSet valueSet = getValueSet(simpleSetPredicate, dataType);
+
+		return valueSet.getParsedValues();
+	}
+
+	static
+	private ValueSet getValueSet(SimpleSetPredicate simpleSetPredicate, DataType dataType){
+		ConcurrentMap<DataType, ValueSet> valueSets = CacheUtil.getValue(simpleSetPredicate, PredicateUtil.valueSetCache);
+
+		ValueSet result = valueSets.get(dataType);
+		if(result == null){
+			ImmutableSet.Builder<Object> parsedValues = ImmutableSet.builder();
+			ImmutableList.Builder<String> invalidStrings = ImmutableList.builder();
+
+			List<String> content = ArrayUtil.getContent(simpleSetPredicate.getArray());
+			for(String string : content){
+
+				try {
+					parsedValues.add(TypeUtil.parse(dataType, string));
+				} catch(IllegalArgumentException iae){
+					invalidStrings.add(string);
+				}
+			}
+
+			result = new ValueSet(parsedValues.build(), invalidStrings.build());
+
+			valueSets.putIfAbsent(dataType, result);
+		}
+
+		return result;
+	}
+
 	static
 	public Boolean evaluateTrue(True truePredicate){
 		return Boolean.TRUE;
@@ -230,4 +315,61 @@ public class PredicateUtil {
 			return Boolean.valueOf(left.booleanValue() ^ right.booleanValue());
 		}
 	}
-}
\ No newline at end of file
+
+	private static final LoadingCache<SimplePredicate, ConcurrentMap<DataType, Object>> valueCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<SimplePredicate, ConcurrentMap<DataType, Object>>(){
+
+			@Override
+			public ConcurrentMap<DataType, Object> load(SimplePredicate simplePredicate){
+				return Maps.newConcurrentMap();
+			}
+		});
+
+	/**
+	 * The elements of an array, as seen by field values of a specific data type.
+	 */
+	static
+	private class ValueSet {
+
+		private Set<?> parsedValues = null;
+
+		/**
+		 * Elements that cannot be parsed. They are compared by {@link FieldValue#equalsString(String)}, which fails the same way as the element-by-element comparison did.
+		 */
+		private List<String> invalidStrings = null;
+
+
+		private ValueSet(Set<?> parsedValues, List<String> invalidStrings){
+			this.parsedValues = parsedValues;
+			this.invalidStrings = invalidStrings;
+		}
+
+		public boolean contains(FieldValue value){
+
+			if(this.parsedValues.contains(value.getValue())){
+				return true;
+			} // End if
+
+			if(!this.invalidStrings.isEmpty()){
+				return value.equalsAnyString(this.invalidStrings);
+			}
+
+			return false;
+		}
+
+		public Set<?> getParsedValues(){
+			return this.parsedValues;
+		}
+	}
+
+	private static final LoadingCache<SimpleSetPredicate, ConcurrentMap<DataType, ValueSet>> valueSetCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<SimpleSetPredicate, ConcurrentMap<DataType, ValueSet>>(){
+
+			@Override
+			public ConcurrentMap<DataType, ValueSet> load(SimpleSetPredicate simpleSetPredicate){
+				return Maps.newConcurrentMap();
+			}
+		});
+}
@@ -9,6 +9,8 @@ import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.cache.*;
+
 public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 
 	public RegressionModelEvaluator(PMML pmml){
@@ -59,9 +61,11 @@ public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 			throw new InvalidFeatureException(regressionModel);
 		}
 
-		RegressionTable regressionTable = regressionTables.get(0);
+		CompiledRegressionModel compiledModel = getCompiledModel();
+
+		CompiledRegressionModel.Arguments compiledArguments = compiledModel.createArguments(context);
 
-		Double value = evaluateRegressionTable(regressionTable, context);
+		Double value = compiledArguments.evaluate(0);
 		if(value != null){
 			value = normalizeRegressionResult(regressionModel, value);
 		}
@@ -77,17 +81,23 @@ public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 			throw new InvalidFeatureException(regressionModel);
 		}
 
+		CompiledRegressionModel compiledModel = getCompiledModel();
+
+		CompiledRegressionModel.Arguments compiledArguments = compiledModel.createArguments(context);
+
 		DefaultClassificationMap<String> result = new DefaultClassificationMap<String>();
 
 		double sumExp = 0d;
 
-		for(RegressionTable regressionTable : regressionTables){
+		for(int i = 0; i < regressionTables.size(); i++){
+			RegressionTable regressionTable = regressionTables.get(i);
+
 			String category = regressionTable.getTargetCategory();
 			if(category == null){
 				throw new InvalidFeatureException(regressionTable);
 			}
 
-			Double value = evaluateRegressionTable(regressionTable, context);
+			Double value = compiledArguments.evaluate(i);
 			if(value == null){
 				throw new MissingResultException(regressionTable);
 			}
@@ -117,70 +127,8 @@ public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 		return TargetUtil.evaluateClassification(result, context);
 	}
 
-	static
-	private Double evaluateRegressionTable(RegressionTable regressionTable, EvaluationContext context){
-		double result = 0d;
-
-		result += regressionTable.getIntercept();
-
-		List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
-		for(NumericPredictor numericPredictor : numericPredictors){
-			FieldName name = numericPredictor.getName();
-
-			FieldValue value = ExpressionUtil.evaluate(name, context);
-
-			// "if the input value is missing, then the result evaluates to a missing value"
-			if(value == null){
-				context.addWarning("Missing argument \"" + name.getValue() + "\"");
-
-				return null;
-			}
-
-			result += numericPredictor.getCoefficient() * Math.pow((value.asNumber()).doubleValue(), numericPredictor.getExponent());
-		}
-
-		List<CategoricalPredictor> categoricalPredictors = regressionTable.getCategoricalPredictors();
-		for(CategoricalPredictor categoricalPredictor : categoricalPredictors){
-			FieldName name = categoricalPredictor.getName();
-
-			FieldValue value = ExpressionUtil.evaluate(name, context);
-
-			// "if the input value is missing, then the product is ignored"
-			if(value == null){
-				context.addWarning("Missing argument \"" + name.getValue() + "\"");
-
-				continue;
-			}
-
-			boolean equals = value.equalsString(categoricalPredictor.getValue());
-
-			result += categoricalPredictor.getCoefficient() * (equals ? 1d : 0d);
-		}
-
-		List<PredictorTerm> predictorTerms = regressionTable.getPredictorTerms();
-		for(PredictorTerm predictorTerm : predictorTerms){
-			double product = predictorTerm.getCoefficient();
-
-			List<FieldRef> fieldRefs = predictorTerm.getFieldRefs();
-			if(fieldRefs.size() < 1){
-				throw new InvalidFeatureException(predictorTerm);
-			}
-
-			for(FieldRef fieldRef : fieldRefs){
-				FieldValue value = ExpressionUtil.evaluateFieldRef(fieldRef, context);
-
-				// "if the input value is missing, then the result evaluates to a missing value"
-				if(value == null){
-					return null;
-				}
-
-				product *= (value.asNumber()).doubleValue();
-			}
-
-			result += product;
-		}
-
-		return Double.valueOf(result);
+	public CompiledRegressionModel getCompiledModel(){
+		return getValue(RegressionModelEvaluator.compiledModelCache);
 	}
 
 	static
@@ -219,4 +167,14 @@ public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 				throw new UnsupportedFeatureException(regressionModel, regressionNormalizationMethod);
 		}
 	}
+
+	private static final LoadingCache<RegressionModel, CompiledRegressionModel> compiledModelCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<RegressionModel, CompiledRegressionModel>(){
+
+			@Override
+			public CompiledRegressionModel load(RegressionModel regressionModel){
+				return CompiledRegressionModel.create(regressionModel);
+			}
+		});
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ public class ScoreClassificationMap extends ClassificationMap<String> implements
 
 	private Number result = null;
 
+	private List<String> reasonCodeRanking = null;
+
 
 	protected ScoreClassificationMap(Number result){
 		super(Type.VOTE);
@@ -28,8 +30,55 @@ public class ScoreClassificationMap extends ClassificationMap<String> implements
 		this.result = result;
 	}
 
+	/**
+	 * The leading elements are served from the ranking that was computed during scoring.
+	 * The remaining elements, if any, are ranked on first access.
+	 */
 	@Override
 	public List<String> getReasonCodeRanking(){
-		return getWinnerKeys();
+		final
+		List<String> reasonCodeRanking = this.reasonCodeRanking;
+
+		if(reasonCodeRanking == null){
+			return getWinnerKeys();
+		} // End if
+
+		if(reasonCodeRanking.size() >= size()){
+			return reasonCodeRanking;
+		}
+
+		List<String> result = new AbstractList<String>(){
+
+			private List<String> winnerKeys = null;
+
+
+			@Override
+			public String get(int index){
+
+				if(index < reasonCodeRanking.size()){
+					return reasonCodeRanking.get(index);
+				} // End if
+
+				if(this.winnerKeys == null){
+					this.winnerKeys = getWinnerKeys();
+				}
+
+				return this.winnerKeys.get(index);
+			}
+
+			@Override
+			public int size(){
+				return ScoreClassificationMap.this.size();
+			}
+		};
+
+		return result;
+	}
+
+	/**
+	 * @param reasonCodeRanking The leading elements of the ranking, as computed by {@link #getWinnerKeys()}.
+	 */
+	void setReasonCodeRanking(List<String> reasonCodeRanking){
+		this.reasonCodeRanking = reasonCodeRanking;
 	}
 }
\ No newline at end of file
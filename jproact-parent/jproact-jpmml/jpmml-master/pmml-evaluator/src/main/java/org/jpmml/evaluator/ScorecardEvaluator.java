@@ -9,6 +9,7 @@ import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.cache.*;
 import com.google.common.collect.*;
 
 public class ScorecardEvaluator extends ModelEvaluator<Scorecard> {
@@ -53,102 +54,32 @@ public class ScorecardEvaluator extends ModelEvaluator<Scorecard> {
 	private Map<FieldName, ?> evaluateRegression(ModelManagerEvaluationContext context){
 		Scorecard scorecard = getModel();
 
-		double value = 0;
+		CompiledScorecard compiledScorecard = getCompiledScorecard();
 
-		boolean useReasonCodes = scorecard.isUseReasonCodes();
+		CompiledScorecard.Score score = compiledScorecard.evaluate(context);
 
-		VoteCounter<String> reasonCodePoints = new VoteCounter<String>();
+		Map<FieldName, ? extends Number> result = TargetUtil.evaluateRegression(score.getValue(), context);
 
-		Characteristics characteristics = scorecard.getCharacteristics();
-		for(Characteristic characteristic : characteristics){
-			Double baselineScore = characteristic.getBaselineScore();
-			if(baselineScore == null){
-				baselineScore = scorecard.getBaselineScore();
-			} // End if
-
-			if(useReasonCodes){
-
-				if(baselineScore == null){
-					throw new InvalidFeatureException(characteristic);
-				}
-			}
-
-			List<Attribute> attributes = characteristic.getAttributes();
-			for(Attribute attribute : attributes){
-				Predicate predicate = attribute.getPredicate();
-				if(predicate == null){
-					throw new InvalidFeatureException(attribute);
-				}
-
-				Boolean status = PredicateUtil.evaluate(predicate, context);
-				if(status == null || !status.booleanValue()){
-					continue;
-				}
-
-				Double partialScore = attribute.getPartialScore();
-				if(partialScore == null){
-					throw new InvalidFeatureException(attribute);
-				}
-
-				value += partialScore.doubleValue();
-
-				String reasonCode = attribute.getReasonCode();
-				if(reasonCode == null){
-					reasonCode = characteristic.getReasonCode();
-				}
-
-				if(useReasonCodes){
-
-					if(reasonCode == null){
-						throw new InvalidFeatureException(attribute);
-					}
-
-					Double difference;
-
-					Scorecard.ReasonCodeAlgorithm reasonCodeAlgorithm = scorecard.getReasonCodeAlgorithm();
-					switch(reasonCodeAlgorithm){
-						case POINTS_ABOVE:
-							difference = (partialScore - baselineScore);
-							break;
-						case POINTS_BELOW:
-							difference = (baselineScore - partialScore);
-							break;
-						default:
-							throw new UnsupportedFeatureException(scorecard, reasonCodeAlgorithm);
-					}
-
-					reasonCodePoints.increment(reasonCode, difference);
-				}
-
-				break;
-			}
-		}
-
-		Map<FieldName, ? extends Number> result = TargetUtil.evaluateRegression(value, context);
-
-		if(useReasonCodes){
+		if(scorecard.isUseReasonCodes()){
 			Map.Entry<FieldName, ? extends Number> resultEntry = Iterables.getOnlyElement(result.entrySet());
 
-			return Collections.singletonMap(resultEntry.getKey(), createScoreMap(resultEntry.getValue(), reasonCodePoints));
+			return Collections.singletonMap(resultEntry.getKey(), score.createScoreMap(resultEntry.getValue()));
 		}
 
 		return result;
 	}
 
-	static
-	private ScoreClassificationMap createScoreMap(Number value, Map<String, Double> reasonCodePoints){
-		ScoreClassificationMap result = new ScoreClassificationMap(value);
+	public CompiledScorecard getCompiledScorecard(){
+		return getValue(ScorecardEvaluator.compiledScorecardCache);
+	}
 
-		// Filter out meaningless (ie. negative values) explanations
-		com.google.common.base.Predicate<Map.Entry<String, Double>> predicate = new com.google.common.base.Predicate<Map.Entry<String, Double>>(){
+	private static final LoadingCache<Scorecard, CompiledScorecard> compiledScorecardCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<Scorecard, CompiledScorecard>(){
 
 			@Override
-			public boolean apply(Map.Entry<String, Double> entry){
-				return Double.compare(entry.getValue(), 0) >= 0;
+			public CompiledScorecard load(Scorecard scorecard){
+				return CompiledScorecard.create(scorecard);
 			}
-		};
-		result.putAll(Maps.filterEntries(reasonCodePoints, predicate));
-
-		return result;
-	}
-}
\ No newline at end of file
+		});
+}
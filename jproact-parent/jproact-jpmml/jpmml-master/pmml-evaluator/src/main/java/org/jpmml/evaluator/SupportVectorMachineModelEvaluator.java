@@ -29,6 +29,74 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 
 	@Override
 	public Map<FieldName, ?> evaluate(Map<FieldName, ?> arguments){
+		checkScorable();
+
+		ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(this);
+		context.pushFrame(arguments);
+
+		double[] input = createInput(context);
+
+		double[] values;
+
+		if(isCompiled()){
+			CompiledSupportVectorMachineModel compiledSupportVectorMachineModel = getCompiledSupportVectorMachineModel();
+
+			values = compiledSupportVectorMachineModel.evaluateMachines(compiledSupportVectorMachineModel.evaluateKernels(input));
+		} else
+
+		{
+			values = evaluateSupportVectorMachines(input);
+		}
+
+		Map<FieldName, ?> predictions = evaluatePredictions(values, context);
+
+		return OutputUtil.evaluate(predictions, context);
+	}
+
+	/**
+	 * Evaluates the kernel for all records of the block together.
+	 *
+	 * @see CompiledSupportVectorMachineModel#evaluateKernels(double[][])
+	 */
+	@Override
+	protected List<Map<FieldName, ?>> evaluateBlock(List<? extends Map<FieldName, ?>> records){
+		checkScorable();
+
+		if(!isCompiled()){
+			return super.evaluateBlock(records);
+		}
+
+		CompiledSupportVectorMachineModel compiledSupportVectorMachineModel = getCompiledSupportVectorMachineModel();
+
+		ModelManagerEvaluationContext[] contexts = new ModelManagerEvaluationContext[records.size()];
+
+		double[][] inputs = new double[records.size()][];
+
+		for(int i = 0; i < records.size(); i++){
+			ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(this);
+			context.pushFrame(records.get(i));
+
+			contexts[i] = context;
+
+			inputs[i] = createInput(context);
+		}
+
+		double[][] kernelValues = compiledSupportVectorMachineModel.evaluateKernels(inputs);
+
+		List<Map<FieldName, ?>> result = Lists.newArrayListWithCapacity(records.size());
+
+		for(int i = 0; i < records.size(); i++){
+			double[] values = compiledSupportVectorMachineModel.evaluateMachines(kernelValues[i]);
+
+			Map<FieldName, ?> predictions = evaluatePredictions(values, contexts[i]);
+
+			result.add(OutputUtil.evaluate(predictions, contexts[i]));
+		}
+
+		return result;
+	}
+
+	private void checkScorable(){
 		SupportVectorMachineModel supportVectorMachineModel = getModel();
 		if(!supportVectorMachineModel.isScorable()){
 			throw new InvalidResultException(supportVectorMachineModel);
@@ -41,28 +109,26 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 			default:
 				throw new UnsupportedFeatureException(supportVectorMachineModel, svmRepresentation);
 		}
+	}
 
-		Map<FieldName, ?> predictions;
-
-		ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(this);
-		context.pushFrame(arguments);
+	/**
+	 * @param values The decision function value of every support vector machine.
+	 */
+	private Map<FieldName, ?> evaluatePredictions(double[] values, ModelManagerEvaluationContext context){
+		SupportVectorMachineModel supportVectorMachineModel = getModel();
 
 		MiningFunctionType miningFunction = supportVectorMachineModel.getFunctionName();
 		switch(miningFunction){
 			case REGRESSION:
-				predictions = evaluateRegression(context);
-				break;
+				return evaluateRegression(values, context);
 			case CLASSIFICATION:
-				predictions = evaluateClassification(context);
-				break;
+				return evaluateClassification(values, context);
 			default:
 				throw new UnsupportedFeatureException(supportVectorMachineModel, miningFunction);
 		}
-
-		return OutputUtil.evaluate(predictions, context);
 	}
 
-	private Map<FieldName, ? extends Number> evaluateRegression(ModelManagerEvaluationContext context){
+	private Map<FieldName, ? extends Number> evaluateRegression(double[] values, ModelManagerEvaluationContext context){
 		SupportVectorMachineModel supportVectorMachineModel = getModel();
 
 		List<SupportVectorMachine> supportVectorMachines = supportVectorMachineModel.getSupportVectorMachines();
@@ -70,16 +136,12 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 			throw new InvalidFeatureException(supportVectorMachineModel);
 		}
 
-		SupportVectorMachine supportVectorMachine = supportVectorMachines.get(0);
-
-		double[] input = createInput(context);
-
-		Double value = evaluateSupportVectorMachine(supportVectorMachine, input);
+		Double value = values[0];
 
 		return TargetUtil.evaluateRegression(value, context);
 	}
 
-	private Map<FieldName, ? extends ClassificationMap<?>> evaluateClassification(ModelManagerEvaluationContext context){
+	private Map<FieldName, ? extends ClassificationMap<?>> evaluateClassification(double[] values, ModelManagerEvaluationContext context){
 		SupportVectorMachineModel supportVectorMachineModel = getModel();
 
 		List<SupportVectorMachine> supportVectorMachines = supportVectorMachineModel.getSupportVectorMachines();
@@ -101,13 +163,13 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 				throw new UnsupportedFeatureException(supportVectorMachineModel, svmClassificationMethod);
 		}
 
-		double[] input = createInput(context);
+		for(int i = 0; i < supportVectorMachines.size(); i++){
+			SupportVectorMachine supportVectorMachine = supportVectorMachines.get(i);
 
-		for(SupportVectorMachine supportVectorMachine : supportVectorMachines){
 			String category = supportVectorMachine.getTargetCategory();
 			String alternateCategory = supportVectorMachine.getAlternateTargetCategory();
 
-			Double value = evaluateSupportVectorMachine(supportVectorMachine, input);
+			Double value = values[i];
 
 			switch(svmClassificationMethod){
 				case ONE_AGAINST_ALL:
@@ -157,7 +219,25 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 		return TargetUtil.evaluateClassification(result, context);
 	}
 
-	private Double evaluateSupportVectorMachine(SupportVectorMachine supportVectorMachine, double[] input){
+	/**
+	 * Evaluates every support vector machine by iterating over its coefficients and support vectors.
+	 * This is the reference implementation of {@link CompiledSupportVectorMachineModel}.
+	 */
+	private double[] evaluateSupportVectorMachines(double[] input){
+		SupportVectorMachineModel supportVectorMachineModel = getModel();
+
+		List<SupportVectorMachine> supportVectorMachines = supportVectorMachineModel.getSupportVectorMachines();
+
+		double[] result = new double[supportVectorMachines.size()];
+
+		for(int i = 0; i < supportVectorMachines.size(); i++){
+			result[i] = evaluateSupportVectorMachine(supportVectorMachines.get(i), input);
+		}
+
+		return result;
+	}
+
+	private double evaluateSupportVectorMachine(SupportVectorMachine supportVectorMachine, double[] input){
 		SupportVectorMachineModel supportVectorMachineModel = getModel();
 
 		double result = 0d;
@@ -242,7 +322,7 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 				throw new MissingFieldException(fieldRef.getField(), vectorFields);
 			}
 
-			result[i] = (value.asNumber()).doubleValue();
+			result[i] = value.asDouble();
 		}
 
 		Integer numberOfFields = vectorFields.getNumberOfFields();
@@ -253,6 +333,10 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 		return result;
 	}
 
+	public CompiledSupportVectorMachineModel getCompiledSupportVectorMachineModel(){
+		return getValue(SupportVectorMachineModelEvaluator.compiledModelCache);
+	}
+
 	private Map<String, double[]> getVectorMap(){
 		return getValue(SupportVectorMachineModelEvaluator.vectorCache);
 	}
@@ -300,6 +384,16 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 		return result;
 	}
 
+	private static final LoadingCache<SupportVectorMachineModel, CompiledSupportVectorMachineModel> compiledModelCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<SupportVectorMachineModel, CompiledSupportVectorMachineModel>(){
+
+			@Override
+			public CompiledSupportVectorMachineModel load(SupportVectorMachineModel supportVectorMachineModel){
+				return CompiledSupportVectorMachineModel.create(supportVectorMachineModel);
+			}
+		});
+
 	private static final LoadingCache<SupportVectorMachineModel, Map<String, double[]>> vectorCache = CacheBuilder.newBuilder()
 		.weakKeys()
 		.build(new CacheLoader<SupportVectorMachineModel, Map<String, double[]>>(){
@@ -309,4 +403,4 @@ public class SupportVectorMachineModelEvaluator extends ModelEvaluator<SupportVe
 				return parseVectorDictionary(supportVectorMachineModel);
 			}
 		});
-}
\ No newline at end of file
+}
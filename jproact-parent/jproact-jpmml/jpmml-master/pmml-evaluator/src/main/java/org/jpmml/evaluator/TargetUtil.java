@@ -32,8 +32,8 @@ public class TargetUtil {
 	public Map<FieldName, ? extends Number> evaluateRegression(Map<FieldName, Double> predictions, ModelManagerEvaluationContext context){
 		ModelManager<?> modelManager = context.getModelManager();
 
-		Targets targets = modelManager.getOrCreateTargets();
-		if(Iterables.isEmpty(targets)){
+		Targets targets = modelManager.getTargets();
+		if(targets == null || Iterables.isEmpty(targets)){
 			return predictions;
 		}
 
@@ -78,8 +78,8 @@ public class TargetUtil {
 	public Map<FieldName, ? extends ClassificationMap<?>> evaluateClassification(Map<FieldName, ? extends ClassificationMap<?>> predictions, ModelManagerEvaluationContext context){
 		ModelManager<?> modelManager = context.getModelManager();
 
-		Targets targets = modelManager.getOrCreateTargets();
-		if(Iterables.isEmpty(targets)){
+		Targets targets = modelManager.getTargets();
+		if(targets == null || Iterables.isEmpty(targets)){
 			return predictions;
 		}
 
@@ -68,6 +68,22 @@ public class TreeModelEvaluator extends ModelEvaluator<TreeModel> implements Has
 	private Node evaluateTree(ModelManagerEvaluationContext context){
 		TreeModel treeModel = getModel();
 
+		if(isCompiled()){
+			CompiledTree compiledTree = getValue(TreeModelEvaluator.compiledTreeCache);
+
+			return compiledTree.evaluate(treeModel, context);
+		}
+
+		return walkTree(context);
+	}
+
+	/**
+	 * Walks the tree recursively.
+	 * This is the reference implementation of {@link CompiledTree#evaluate(TreeModel, EvaluationContext)}.
+	 */
+	private Node walkTree(EvaluationContext context){
+		TreeModel treeModel = getModel();
+
 		Node root = treeModel.getNode();
 		if(root == null){
 			throw new InvalidFeatureException(treeModel);
@@ -260,4 +276,14 @@ public class TreeModelEvaluator extends ModelEvaluator<TreeModel> implements Has
 				}
 			}
 		});
-}
\ No newline at end of file
+
+	private static final LoadingCache<TreeModel, CompiledTree> compiledTreeCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<TreeModel, CompiledTree>(){
+
+			@Override
+			public CompiledTree load(TreeModel treeModel){
+				return CompiledTree.create(treeModel);
+			}
+		});
+}
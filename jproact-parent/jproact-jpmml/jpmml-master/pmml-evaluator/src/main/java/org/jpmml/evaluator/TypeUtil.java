@@ -28,6 +28,36 @@ public class TypeUtil {
 		return ((Comparable)cast(dataType, left)).compareTo(cast(dataType, right));
 	}
 
+	/**
+	 * @param left A number that is exactly representable in the specified data type, or in a more restrictive one.
+	 * @param right A number that is exactly representable in the specified data type, or in a more restrictive one.
+	 *
+	 * @see #equals(DataType, Object, Object)
+	 */
+	static
+	public boolean equals(DataType dataType, double left, double right){
+		return compare(dataType, left, right) == 0;
+	}
+
+	/**
+	 * @see #compare(DataType, Object, Object)
+	 */
+	static
+	public int compare(DataType dataType, double left, double right){
+
+		switch(dataType){
+			case INTEGER:
+			case DOUBLE:
+				return Double.compare(left, right);
+			case FLOAT:
+				return Float.compare((float)left, (float)right);
+			default:
+				break;
+		}
+
+		throw new EvaluationException();
+	}
+
 	static
 	public Object parseOrCast(DataType dataType, Object value){
 
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Accumulates votes in a primitive array that is indexed by category ordinals.
+ * </p>
+ *
+ * The order of first appearance is kept, so that the result (including ties) is the same as with {@link VoteCounter}.
+ *
+ * @see MiningModelEvaluator
+ */
+class VoteAggregator {
+
+	private CategoryIndex categoryIndex = null;
+
+	private double[] votes = null;
+
+	private boolean[] voted = null;
+
+	private int[] order = null;
+
+	private int size = 0;
+
+	/**
+	 * Categories that are not known to the {@link CategoryIndex}.
+	 */
+	private Map<Object, Integer> localOrdinals = null;
+
+	private List<Object> localCategories = null;
+
+
+	public VoteAggregator(CategoryIndex categoryIndex){
+		this.categoryIndex = categoryIndex;
+
+		int capacity = Math.max(categoryIndex.size(), 2);
+
+		this.votes = new double[capacity];
+		this.voted = new boolean[capacity];
+		this.order = new int[capacity];
+	}
+
+	/**
+	 * @param targetValue The target value of a segment, as returned by its evaluator.
+	 */
+	public void add(Object targetValue, double weight){
+		int ordinal = this.categoryIndex.getNodeOrdinal(targetValue);
+
+		if(ordinal < 0){
+			Object category = EvaluatorUtil.decode(targetValue);
+
+			ordinal = this.categoryIndex.getOrdinal(category);
+			if(ordinal < 0){
+				ordinal = getLocalOrdinal(category);
+			}
+		} // End if
+
+		if(ordinal >= this.votes.length){
+			int capacity = Math.max(ordinal + 1, this.votes.length * 2);
+
+			this.votes = Arrays.copyOf(this.votes, capacity);
+			this.voted = Arrays.copyOf(this.voted, capacity);
+			this.order = Arrays.copyOf(this.order, capacity);
+		} // End if
+
+		if(!this.voted[ordinal]){
+			this.voted[ordinal] = true;
+
+			this.order[this.size] = ordinal;
+			this.size++;
+		}
+
+		this.votes[ordinal] += weight;
+	}
+
+	/**
+	 * @param normalize <code>true</code> to convert votes to probabilities, <code>false</code> otherwise.
+	 */
+	public void copyTo(ClassificationMap<Object> map, boolean normalize){
+		double sum = 1d;
+
+		if(normalize){
+			sum = 0d;
+
+			for(int i = 0; i < this.size; i++){
+				sum += this.votes[this.order[i]];
+			}
+		}
+
+		for(int i = 0; i < this.size; i++){
+			int ordinal = this.order[i];
+
+			double value = this.votes[ordinal];
+
+			map.put(getCategory(ordinal), (normalize ? (value / sum) : value));
+		}
+	}
+
+	/**
+	 * Same as {@link #copyTo(ClassificationMap, boolean)}, except that the entries are copied when the map is accessed for the first time.
+	 * This aggregator must not be modified afterwards.
+	 */
+	public void copyToOnRead(ClassificationMap<Object> map, final boolean normalize){
+		ClassificationMap.Loader<Object> loader = new ClassificationMap.Loader<Object>(){
+
+			@Override
+			public void load(ClassificationMap<Object> map){
+				copyTo(map, normalize);
+			}
+		};
+
+		map.setLoader(loader);
+	}
+
+	private int getLocalOrdinal(Object category){
+
+		if(this.localOrdinals == null){
+			this.localOrdinals = Maps.newHashMap();
+			this.localCategories = Lists.newArrayList();
+		}
+
+		Integer ordinal = this.localOrdinals.get(category);
+		if(ordinal == null){
+			ordinal = this.categoryIndex.size() + this.localCategories.size();
+
+			this.localCategories.add(category);
+			this.localOrdinals.put(category, ordinal);
+		}
+
+		return ordinal.intValue();
+	}
+
+	private Object getCategory(int ordinal){
+
+		if(ordinal < this.categoryIndex.size()){
+			return this.categoryIndex.getCategory(ordinal);
+		}
+
+		return this.localCategories.get(ordinal - this.categoryIndex.size());
+	}
+
+	/**
+	 * Maps the target categories of a model to int ordinals.
+	 * The index is built once, and it is not modified afterwards.
+	 *
+	 * Scored tree nodes are mapped to the ordinal of their score, so that the vote of a tree model segment is counted without computing its result.
+	 */
+	static
+	public class CategoryIndex {
+
+		private Map<Object, Integer> ordinals = Maps.newHashMap();
+
+		private List<Object> categories = Lists.newArrayList();
+
+		private Map<Node, Integer> nodeOrdinals = Maps.newIdentityHashMap();
+
+
+		public CategoryIndex(Collection<?> categories){
+
+			for(Object category : categories){
+				addCategory(category);
+			}
+		}
+
+		/**
+		 * @return The ordinal of the score of a scored tree node, or <code>-1</code>.
+		 */
+		public int getNodeOrdinal(Object targetValue){
+
+			if(targetValue instanceof NodeClassificationMap){
+				NodeClassificationMap map = (NodeClassificationMap)targetValue;
+
+				Integer ordinal = this.nodeOrdinals.get(map.getEntity());
+				if(ordinal != null){
+					return ordinal.intValue();
+				}
+			}
+
+			return -1;
+		}
+
+		/**
+		 * @return The ordinal of the category, or <code>-1</code> if the category is not indexed.
+		 */
+		public int getOrdinal(Object category){
+			Integer ordinal = this.ordinals.get(category);
+			if(ordinal == null){
+				return -1;
+			}
+
+			return ordinal.intValue();
+		}
+
+		public Object getCategory(int ordinal){
+			return this.categories.get(ordinal);
+		}
+
+		public int size(){
+			return this.categories.size();
+		}
+
+		private int addCategory(Object category){
+			Integer ordinal = this.ordinals.get(category);
+
+			if(ordinal == null){
+				ordinal = this.categories.size();
+
+				this.categories.add(category);
+				this.ordinals.put(category, ordinal);
+			}
+
+			return ordinal.intValue();
+		}
+
+		private void addNodes(Node node){
+			String score = node.getScore();
+			if(score != null){
+				this.nodeOrdinals.put(node, addCategory(score));
+			}
+
+			List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+			for(ScoreDistribution scoreDistribution : scoreDistributions){
+				addCategory(scoreDistribution.getValue());
+			}
+
+			List<Node> children = node.getNodes();
+			for(Node child : children){
+				addNodes(child);
+			}
+		}
+
+		/**
+		 * Indexes the valid values of the target field, followed by the scores of the tree model segments.
+		 *
+		 * @param dataField The target field, or <code>null</code>.
+		 */
+		static
+		public CategoryIndex create(DataField dataField, Segmentation segmentation){
+			List<String> values = Collections.emptyList();
+
+			if(dataField != null){
+				values = ArgumentUtil.getValidValues(dataField);
+			}
+
+			CategoryIndex result = new CategoryIndex(values);
+
+			List<Segment> segments = segmentation.getSegments();
+			for(Segment segment : segments){
+				Model model = segment.getModel();
+
+				if(model instanceof TreeModel){
+					TreeModel treeModel = (TreeModel)model;
+
+					Node node = treeModel.getNode();
+					if(node != null){
+						result.addNodes(node);
+					}
+				}
+			}
+
+			return result;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import org.dmg.pmml.*;
+
+abstract
+public class ClusteringModelEvaluatorTest extends PMMLTest {
+
+	public ClusteringModelEvaluator createEvaluator() throws Exception {
+		PMML pmml = loadPMML(getClass());
+
+		ClusteringModelEvaluator evaluator = new ClusteringModelEvaluator(pmml);
+
+		return evaluator;
+	}
+}
\ No newline at end of file
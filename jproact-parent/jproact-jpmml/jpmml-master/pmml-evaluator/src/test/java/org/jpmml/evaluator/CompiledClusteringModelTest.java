@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledClusteringModelTest extends ClusteringModelEvaluatorTest {
+
+	@Test
+	public void evaluateEuclidean() throws Exception {
+		ClusteringModelEvaluator evaluator = (ClusteringModelEvaluator)createEvaluator("Euclidean");
+
+		checkCompiledModel(evaluator);
+
+		// Cluster "12" is (2, 2, 0)
+		assertEquals(Math.sqrt(1d * 1d + 0.5d * Math.pow(gaussSim(0d), 2d)), evaluate(evaluator, "12", 1d, 2d, 0d), 1e-12);
+
+		// Cluster "10" is (2, 0, 0), which is tied with cluster "12" when the field "y" is missing
+		assertEquals(Math.sqrt(0.5d * Math.pow(gaussSim(1d), 2d) * (3.5d / 1.5d)), evaluate(evaluator, "10", 2d, null, 1d), 1e-12);
+
+		checkAssignClusters(evaluator);
+	}
+
+	@Test
+	public void evaluateChebychev() throws Exception {
+		ClusteringModelEvaluator evaluator = (ClusteringModelEvaluator)createEvaluator("Chebychev");
+
+		checkCompiledModel(evaluator);
+
+		assertEquals(1d, evaluate(evaluator, "12", 1d, 2d, 0d), 1e-12);
+		assertEquals(0.5d * gaussSim(1d) * (3.5d / 1.5d), evaluate(evaluator, "10", 2d, null, 1d), 1e-12);
+
+		checkAssignClusters(evaluator);
+	}
+
+	@Test
+	public void evaluateMinkowski() throws Exception {
+		ClusteringModelEvaluator evaluator = (ClusteringModelEvaluator)createEvaluator("Minkowski");
+
+		checkCompiledModel(evaluator);
+
+		assertEquals(Math.pow(1d + 0.5d * Math.pow(gaussSim(0d), 3d), 1d / 3d), evaluate(evaluator, "12", 1d, 2d, 0d), 1e-12);
+		assertEquals(Math.pow(0.5d * Math.pow(gaussSim(1d), 3d) * (3.5d / 1.5d), 1d / 3d), evaluate(evaluator, "10", 2d, null, 1d), 1e-12);
+
+		checkAssignClusters(evaluator);
+	}
+
+	@Test
+	public void createUnsupported() throws Exception {
+		ClusteringModelEvaluator evaluator = (ClusteringModelEvaluator)createEvaluator("Unsupported");
+
+		assertNull(evaluator.getCompiledClusteringModel());
+	}
+
+	static
+	private void checkCompiledModel(ClusteringModelEvaluator evaluator){
+		CompiledClusteringModel compiledModel = evaluator.getCompiledClusteringModel();
+
+		assertEquals(12, compiledModel.getNumberOfClusters());
+		assertEquals(3, compiledModel.getNumberOfFields());
+	}
+
+	static
+	private void checkAssignClusters(ClusteringModelEvaluator evaluator){
+		List<Map<FieldName, ?>> records = new ArrayList<Map<FieldName, ?>>();
+		records.add(createArguments("x", 1d, "y", 2d, "z", 0d));
+		records.add(createArguments("x", 2d, "y", null, "z", 1d));
+
+		assertEquals(Arrays.asList("12", "10"), evaluator.assignClusters(records));
+	}
+
+	/**
+	 * @return The affinity of the nearest cluster.
+	 */
+	static
+	private double evaluate(ClusteringModelEvaluator evaluator, String clusterId, Double x, Double y, Double z){
+		Map<FieldName, ?> arguments = createArguments("x", x, "y", y, "z", z);
+
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+		ClusterClassificationMap targetValue = (ClusterClassificationMap)result.get(evaluator.getTargetField());
+
+		assertEquals(clusterId, targetValue.getClusterId());
+
+		return targetValue.getClusterAffinity();
+	}
+
+	/**
+	 * The field "z" is compared with the "gaussSim" function, whose similarity scale is 4.
+	 */
+	static
+	private double gaussSim(double z){
+		return Math.exp(-Math.log(2d) * (z * z) / (4d * 4d));
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledGeneralRegressionModelTest extends GeneralRegressionModelEvaluatorTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		GeneralRegressionModelEvaluator evaluator = createEvaluator();
+
+		CompiledGeneralRegressionModel compiledModel = evaluator.getCompiledModel();
+
+		assertEquals(5, compiledModel.getNumberOfFeatures());
+		assertEquals(1, compiledModel.getNumberOfRows());
+
+		assertEquals(Collections.<String>singleton(null), compiledModel.getPPCategories());
+
+		assertEquals(-1, compiledModel.getRow("c", null));
+		assertEquals(-1, compiledModel.getOrdinalRow(null, null));
+
+		assertEquals(0.5d + 1d + (2d * 9d) + 4d, evaluate(evaluator, "a", 3d, 1), 1e-12);
+		assertEquals(0.5d + (2d * 0.25d) + (3d * -0.5d), evaluate(evaluator, "b", -0.5d, 2), 1e-12);
+
+		// The factor value is matched against the parsed PPCell value
+		assertEquals(0.5d + (2d * 4d) + 4d, evaluate(evaluator, "c", 2d, "1.0"), 1e-12);
+	}
+
+	@Test
+	public void evaluateInterpreted() throws Exception {
+		GeneralRegressionModelEvaluator evaluator = createEvaluator();
+
+		// The PPMatrix rows and the compiled design vector produce the same dot products
+		for(boolean compiled : new boolean[]{true, false}){
+			evaluator.setCompiled(compiled);
+
+			assertEquals(0.5d + 1d + (2d * 9d) + 4d, evaluate(evaluator, "a", 3d, 1), 1e-12);
+			assertEquals(0.5d + (2d * 0.25d) + (3d * -0.5d), evaluate(evaluator, "b", -0.5d, 2), 1e-12);
+			assertEquals(0.5d + (2d * 4d) + 4d, evaluate(evaluator, "c", 2d, "1.0"), 1e-12);
+		}
+	}
+
+	static
+	private double evaluate(Evaluator evaluator, String f, Double x, Object n){
+		Map<FieldName, ?> arguments = createArguments("f", f, "x", x, "n", n);
+
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+		Number targetValue = (Number)EvaluatorUtil.decode(result.get(evaluator.getTargetField()));
+
+		return targetValue.doubleValue();
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledNaiveBayesModelTest extends NaiveBayesModelEvaluatorTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		NaiveBayesModelEvaluator evaluator = (NaiveBayesModelEvaluator)createEvaluator("Mixed");
+
+		CompiledNaiveBayesModel compiledModel = evaluator.getCompiledNaiveBayesModel();
+
+		assertEquals(Arrays.asList("b", "a"), compiledModel.getTargetValues());
+		assertEquals(2, compiledModel.getNumberOfInputs());
+
+		// Integer values are matched against parsed PairCounts values
+		ClassificationMap<?> targetValue = evaluate(evaluator, 1.5d, 1);
+
+		// Target values are ordered as first encountered
+		assertEquals(Arrays.asList("b", "a"), new ArrayList<Object>(targetValue.keySet()));
+
+		double a = gaussian(1.5d, -1d, 0.5d) * (3d / 4d) * 4d;
+
+		// The zero count is replaced with the threshold
+		double b = gaussian(1.5d, 2d, 4d) * 0.01d * 6d;
+
+		assertEquals(a / (a + b), targetValue.get("a"), 1e-12);
+		assertEquals(b / (a + b), targetValue.get("b"), 1e-12);
+
+		targetValue = evaluate(evaluator, null, 2);
+
+		assertEquals((1d / 4d * 4d) / 7d, targetValue.get("a"), 1e-12);
+		assertEquals((6d / 6d * 6d) / 7d, targetValue.get("b"), 1e-12);
+
+		// Missing and unknown values are ignored
+		targetValue = evaluate(evaluator, null, 3);
+
+		assertEquals(Arrays.asList("a", "b"), new ArrayList<Object>(targetValue.keySet()));
+
+		assertEquals(0.4d, targetValue.get("a"), 1e-12);
+		assertEquals(0.6d, targetValue.get("b"), 1e-12);
+	}
+
+	@Test
+	public void evaluateInterpreted() throws Exception {
+		NaiveBayesModelEvaluator evaluator = (NaiveBayesModelEvaluator)createEvaluator("Mixed");
+		evaluator.setCompiled(false);
+
+		// The lookup of PairCounts and TargetValueStats elements and the compiled model produce the same probabilities
+		ClassificationMap<?> targetValue = evaluate(evaluator, 1.5d, 1);
+
+		double a = gaussian(1.5d, -1d, 0.5d) * (3d / 4d) * 4d;
+		double b = gaussian(1.5d, 2d, 4d) * 0.01d * 6d;
+
+		assertEquals(a / (a + b), targetValue.get("a"), 1e-12);
+		assertEquals(b / (a + b), targetValue.get("b"), 1e-12);
+
+		targetValue = evaluate(evaluator, null, 2);
+
+		assertEquals((1d / 4d * 4d) / 7d, targetValue.get("a"), 1e-12);
+		assertEquals((6d / 6d * 6d) / 7d, targetValue.get("b"), 1e-12);
+
+		targetValue = evaluate(evaluator, null, 3);
+
+		assertEquals(0.4d, targetValue.get("a"), 1e-12);
+		assertEquals(0.6d, targetValue.get("b"), 1e-12);
+	}
+
+	@Test
+	public void evaluateUnparsableCategory() throws Exception {
+		NaiveBayesModelEvaluator evaluator = (NaiveBayesModelEvaluator)createEvaluator("Unparsable");
+
+		// Matched before the unparsable PairCounts element is reached
+		ClassificationMap<?> targetValue = evaluate(evaluator, null, 1);
+
+		assertEquals((3d / 4d * 4d) / (3d + 0.01d * 6d), targetValue.get("a"), 1e-12);
+
+		targetValue = evaluate(evaluator, null, null);
+
+		assertEquals(0.4d, targetValue.get("a"), 1e-12);
+	}
+
+	static
+	private ClassificationMap<?> evaluate(Evaluator evaluator, Double x, Integer y){
+		Map<FieldName, ?> arguments = createArguments("x", x, "y", y);
+
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+		return (ClassificationMap<?>)result.get(evaluator.getTargetField());
+	}
+
+	static
+	private double gaussian(double x, double mean, double variance){
+		return Math.exp(-Math.pow(x - mean, 2) / (2d * variance)) / Math.sqrt(2d * Math.PI * variance);
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledNeuralNetworkTest extends NeuralNetworkEvaluatorTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		NeuralNetworkEvaluator evaluator = (NeuralNetworkEvaluator)createEvaluator("Network");
+
+		Map<FieldName, ?> arguments = createArguments("x", 1d, "y", 2d);
+
+		double h1 = logistic(0.5d + 1d * 0.25d + 2d * -0.5d);
+		double h2 = logistic(-0.25d + 2d * 1.5d);
+
+		double o1 = Math.exp(h1 - h2);
+		double o2 = Math.exp(1d + h1 + h2);
+
+		// The walk of layers and connections and the compiled network produce the same outputs
+		for(boolean compiled : new boolean[]{true, false}){
+			evaluator.setCompiled(compiled);
+
+			Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+			NeuronClassificationMap targetValue = (NeuronClassificationMap)result.get(evaluator.getTargetField());
+
+			assertEquals("o2", targetValue.getResult());
+
+			assertEquals(o1 / (o1 + o2), targetValue.getProbability("o1"), 1e-12);
+			assertEquals(o2 / (o1 + o2), targetValue.getProbability("o2"), 1e-12);
+
+			ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(evaluator);
+			context.pushFrame(arguments);
+
+			Map<String, Double> entityOutputs = evaluator.evaluateRaw(context);
+
+			assertEquals(Arrays.asList("x", "y", "h1", "h2", "o1", "o2"), new ArrayList<String>(entityOutputs.keySet()));
+
+			assertEquals(h1, entityOutputs.get("h1"), 1e-12);
+			assertEquals(h2, entityOutputs.get("h2"), 1e-12);
+		}
+
+		CompiledNeuralNetwork compiledNeuralNetwork = evaluator.getCompiledNeuralNetwork();
+
+		assertEquals(6, compiledNeuralNetwork.size());
+
+		assertEquals(4, compiledNeuralNetwork.getSlot("o1"));
+		assertEquals(-1, compiledNeuralNetwork.getSlot("o3"));
+	}
+
+	@Test
+	public void evaluateBatch() throws Exception {
+		NeuralNetworkEvaluator evaluator = (NeuralNetworkEvaluator)createEvaluator("Network");
+
+		List<Double> xValues = new ArrayList<Double>();
+		List<Double> yValues = new ArrayList<Double>();
+
+		for(int i = 0; i < 10; i++){
+			xValues.add(i - 5d);
+			yValues.add((i % 3) * 0.75d);
+		}
+
+		Map<FieldName, List<?>> arguments = new LinkedHashMap<FieldName, List<?>>();
+		arguments.put(new FieldName("x"), xValues);
+		arguments.put(new FieldName("y"), yValues);
+
+		// All records of the block are propagated through the network together
+		Map<FieldName, List<?>> result = evaluator.evaluateBatch(arguments);
+
+		List<?> targetValues = result.get(evaluator.getTargetField());
+
+		assertEquals(10, targetValues.size());
+
+		for(int i = 0; i < 10; i++){
+			NeuronClassificationMap expected = (NeuronClassificationMap)(evaluator.evaluate(createArguments("x", xValues.get(i), "y", yValues.get(i)))).get(evaluator.getTargetField());
+			NeuronClassificationMap actual = (NeuronClassificationMap)targetValues.get(i);
+
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void createInvalid() throws Exception {
+		NeuralNetworkEvaluator evaluator = (NeuralNetworkEvaluator)createEvaluator("Invalid");
+
+		try {
+			evaluator.getCompiledNeuralNetwork();
+
+			fail();
+		} catch(InvalidFeatureException ife){
+			// Ignored
+		}
+	}
+
+	static
+	private double logistic(double z){
+		return 1d / (1d + Math.exp(-z));
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledRegressionModelTest extends RegressionModelEvaluatorTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		RegressionModelEvaluator evaluator = createEvaluator();
+
+		RegressionModel regressionModel = evaluator.getModel();
+
+		List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
+
+		RegressionTable firstTable = regressionTables.get(0);
+		RegressionTable secondTable = regressionTables.get(1);
+
+		// Negative zero and infinite coefficients survive the round trip through XML
+		assertEquals(-0d, firstTable.getIntercept(), 0d);
+		assertTrue(1d / firstTable.getIntercept() < 0d);
+		assertEquals(Double.POSITIVE_INFINITY, ((secondTable.getCategoricalPredictors()).get(1)).getCoefficient(), 0d);
+
+		CompiledRegressionModel compiledModel = evaluator.getCompiledModel();
+
+		assertEquals(3, compiledModel.getNumberOfFields());
+		assertEquals(2, compiledModel.getNumberOfTables());
+
+		CompiledRegressionModel.Arguments arguments = createArguments(evaluator, 1.5d, "a", 1.5d);
+
+		assertEquals((Double)(-0d * 2.25d + 0.5d * 3.375d + 1d), arguments.evaluate(0));
+
+		// The infinite coefficient of the non-matching predictor "b" is multiplied by zero
+		assertEquals((Double)Double.NaN, arguments.evaluate(1));
+
+		// Missing categorical predictors are ignored
+		arguments = createArguments(evaluator, 1.5d, null, 2d);
+
+		assertEquals((Double)(1d + 1.5d * (1.5d * 2d)), arguments.evaluate(1));
+
+		// The categorical predictor "2" has a zero coefficient
+		arguments = createArguments(evaluator, 2, "b", 2);
+
+		assertEquals((Double)(0.5d * 8d - 2d), arguments.evaluate(0));
+		assertEquals((Double)Double.POSITIVE_INFINITY, arguments.evaluate(1));
+
+		// String values match categorical predictors by string comparison
+		arguments = createArguments(evaluator, 0, "c", "1.0");
+
+		assertEquals((Double)1e308, arguments.evaluate(0));
+
+		// String values, including the mapMissingTo value, cannot be multiplied
+		try {
+			arguments.evaluate(1);
+
+			fail();
+		} catch(TypeCheckException tce){
+			// Ignored
+		}
+
+		// A missing numeric predictor makes the whole table missing
+		arguments = createArguments(evaluator, null, "a", 1);
+
+		assertNull(arguments.evaluate(0));
+		assertNull(arguments.evaluate(1));
+	}
+
+	/**
+	 * The values are passed as field values, so that they keep their own data type.
+	 */
+	static
+	private CompiledRegressionModel.Arguments createArguments(RegressionModelEvaluator evaluator, Object x, Object s, Object n){
+		Map<FieldName, FieldValue> values = new LinkedHashMap<FieldName, FieldValue>();
+		values.put(new FieldName("x"), x != null ? FieldValueUtil.create(x) : null);
+		values.put(new FieldName("s"), s != null ? FieldValueUtil.create(s) : null);
+		values.put(new FieldName("n"), n != null ? FieldValueUtil.create(n) : null);
+
+		ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(evaluator);
+		context.pushFrame(values);
+
+		CompiledRegressionModel compiledModel = evaluator.getCompiledModel();
+
+		return compiledModel.createArguments(context);
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledRuleSetTest extends RuleSetModelEvaluatorTest {
+
+	@Test
+	public void evaluateFirstHit() throws Exception {
+		RuleSetModelEvaluator evaluator = (RuleSetModelEvaluator)createEvaluator("FirstHit");
+
+		CompiledRuleSet compiledRuleSet = evaluator.getCompiledRuleSet();
+
+		// Identical SimplePredicate elements are merged
+		assertEquals(5, compiledRuleSet.getNumberOfPredicates());
+		assertEquals(5, compiledRuleSet.getNumberOfRules());
+
+		RuleClassificationMap result = evaluate(evaluator, -1, 1);
+
+		assertEquals("R1", result.getEntityId());
+
+		// The first fired rule of every score is reported, not only the selected one
+		assertEquals(Arrays.asList("B", "A"), new ArrayList<String>(result.keySet()));
+
+		assertEquals(0.1d, result.get("B"), 1e-12);
+		assertEquals(0.4d, result.get("A"), 1e-12);
+
+		result = evaluate(evaluator, 1, 1);
+
+		assertEquals("R2", result.getEntityId());
+		assertEquals(Arrays.asList("A", "B"), new ArrayList<String>(result.keySet()));
+
+		assertEquals(0.2d, result.get("A"), 1e-12);
+		assertEquals(0.3d, result.get("B"), 1e-12);
+
+		result = evaluate(evaluator, 1, 0);
+
+		assertEquals("R3", result.getEntityId());
+		assertEquals(Arrays.asList("B", "A"), new ArrayList<String>(result.keySet()));
+
+		assertEquals(0.3d, result.get("B"), 1e-12);
+		assertEquals(0.4d, result.get("A"), 1e-12);
+
+		// Missing values skip the compound rule
+		result = evaluate(evaluator, null, 1);
+
+		assertEquals("R4", result.getEntityId());
+		assertEquals(Arrays.asList("A"), new ArrayList<String>(result.keySet()));
+	}
+
+	@Test
+	public void evaluateWeightedSum() throws Exception {
+		RuleSetModelEvaluator evaluator = (RuleSetModelEvaluator)createEvaluator("WeightedSum");
+
+		RuleClassificationMap result = evaluate(evaluator, 1, 1);
+
+		assertEquals("R4", result.getEntityId());
+		assertEquals(Arrays.asList("A", "B"), new ArrayList<String>(result.keySet()));
+
+		assertEquals((2d + 4d) / 3d, result.get("A"), 1e-12);
+		assertEquals(3d / 3d, result.get("B"), 1e-12);
+
+		result = evaluate(evaluator, -1, 1);
+
+		assertEquals("R4", result.getEntityId());
+		assertEquals(Arrays.asList("B", "A"), new ArrayList<String>(result.keySet()));
+
+		assertEquals(1d / 2d, result.get("B"), 1e-12);
+		assertEquals(4d / 2d, result.get("A"), 1e-12);
+	}
+
+	@Test
+	public void evaluateWeightedMax() throws Exception {
+		RuleSetModelEvaluator evaluator = (RuleSetModelEvaluator)createEvaluator("WeightedMax");
+
+		RuleClassificationMap result = evaluate(evaluator, -1, 1);
+
+		assertEquals("R4", result.getEntityId());
+		assertEquals(Arrays.asList("B", "A"), new ArrayList<String>(result.keySet()));
+
+		assertEquals(0.1d, result.get("B"), 1e-12);
+		assertEquals(0.4d, result.get("A"), 1e-12);
+
+		result = evaluate(evaluator, 1, 1);
+
+		assertEquals("R4", result.getEntityId());
+		assertEquals(Arrays.asList("A", "B"), new ArrayList<String>(result.keySet()));
+
+		// The confidence of the heaviest rule, not the highest confidence
+		assertEquals(0.4d, result.get("A"), 1e-12);
+		assertEquals(0.3d, result.get("B"), 1e-12);
+	}
+
+	static
+	private RuleClassificationMap evaluate(Evaluator evaluator, Integer x, Integer y){
+		Map<FieldName, ?> arguments = createArguments("x", x, "y", y);
+
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+		return (RuleClassificationMap)result.get(evaluator.getTargetField());
+	}
+}
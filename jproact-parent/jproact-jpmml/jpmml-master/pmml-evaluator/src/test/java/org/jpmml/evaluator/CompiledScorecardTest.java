@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledScorecardTest extends ScorecardEvaluatorTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		ScorecardEvaluator evaluator = (ScorecardEvaluator)createEvaluator("Scores");
+
+		CompiledScorecard compiledScorecard = evaluator.getCompiledScorecard();
+
+		assertEquals(3, compiledScorecard.getNumberOfCharacteristics());
+		assertEquals(2, compiledScorecard.getNumberOfCompiledCharacteristics());
+
+		assertEquals(1d + 64d + 512d, evaluate(evaluator, -1d, "a", "RC3"), 0d);
+
+		// The first matching attribute of overlapping intervals
+		assertEquals(1d + 128d + 512d, evaluate(evaluator, 10d, "b", "RC3"), 0d);
+		assertEquals(2d + 128d + 512d, evaluate(evaluator, 15d, "c", "RC3"), 0d);
+		assertEquals(16d + 256d + 512d, evaluate(evaluator, 30d, "e", "RC3"), 0d);
+
+		// No attribute matches
+		assertEquals(0d + 0d + 512d, evaluate(evaluator, 20d, "d", "RC3"), 0d);
+
+		// Missing values do not satisfy the comparison predicates
+		assertEquals(8d + 32d, evaluate(evaluator, null, null, "RC2"), 0d);
+
+		// Reason codes with negative points are not ranked
+		assertEquals(1d, evaluate(evaluator, -1d, "d", null), 0d);
+	}
+
+	@Test
+	public void createScoreMap() throws Exception {
+		ScorecardEvaluator evaluator = (ScorecardEvaluator)createEvaluator("Ranking");
+
+		CompiledScorecard compiledScorecard = evaluator.getCompiledScorecard();
+
+		ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(evaluator);
+		context.pushFrame(Collections.<FieldName, Object>emptyMap());
+
+		CompiledScorecard.Score score = compiledScorecard.evaluate(context);
+
+		assertEquals(6d, score.getValue(), 0d);
+
+		ScoreClassificationMap scoreMap = score.createScoreMap(6d);
+
+		assertEquals(Arrays.asList("RC0", "RC1", "RC2", "RC3", "RC4", "RC5"), new ArrayList<String>(scoreMap.keySet()));
+
+		// Ties are ranked in the order of their first occurrence
+		assertEquals(Arrays.asList("RC2", "RC5", "RC1", "RC4", "RC0", "RC3"), scoreMap.getReasonCodeRanking());
+		assertEquals(scoreMap.getWinnerKeys(), scoreMap.getReasonCodeRanking());
+
+		assertEquals("RC1", OutputUtil.getReasonCode(scoreMap, new OutputField(new FieldName("Reason Code 3")).withRank(3)));
+	}
+
+	static
+	private double evaluate(Evaluator evaluator, Double x, String s, String reasonCode){
+		Map<FieldName, ?> arguments = createArguments("x", x, "s", s);
+
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+		assertEquals(reasonCode, result.get(new FieldName("Reason Code 1")));
+
+		Number targetValue = (Number)EvaluatorUtil.decode(result.get(evaluator.getTargetField()));
+
+		return targetValue.doubleValue();
+	}
+}
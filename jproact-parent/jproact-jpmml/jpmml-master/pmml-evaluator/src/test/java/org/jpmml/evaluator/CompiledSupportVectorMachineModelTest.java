@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledSupportVectorMachineModelTest extends SupportVectorMachineModelEvaluatorTest {
+
+	@Test
+	public void evaluateRadialBasis() throws Exception {
+		SupportVectorMachineModelEvaluator evaluator = (SupportVectorMachineModelEvaluator)createEvaluator("RadialBasis");
+
+		CompiledSupportVectorMachineModel compiledModel = evaluator.getCompiledSupportVectorMachineModel();
+
+		assertEquals(3, compiledModel.getNumberOfVectors());
+		assertEquals(2, compiledModel.getNumberOfMachines());
+
+		double[] kernelValues = compiledModel.evaluateKernels(new double[]{1d, -2d, 0.5d, 3d});
+
+		// Squared distances to the dense vector "1" and to the sparse vectors "2" and "3"
+		assertEquals(Math.exp(-0.5d * 15.75d), kernelValues[0], 1e-12);
+		assertEquals(Math.exp(-0.5d * 11.25d), kernelValues[1], 1e-12);
+		assertEquals(Math.exp(-0.5d * 13.25d), kernelValues[2], 1e-12);
+
+		double[] values = compiledModel.evaluateMachines(kernelValues);
+
+		assertEquals(0.75d * kernelValues[0] - 0.25d * kernelValues[2] + 0.1d, values[0], 1e-12);
+		assertEquals(-1d * kernelValues[1] + 1d * kernelValues[2] + 0.1d, values[1], 1e-12);
+
+		ClassificationMap<?> targetValue = evaluate(evaluator, 1d, -2d, 0.5d, 3d);
+
+		assertEquals("yes", targetValue.getResult());
+
+		assertEquals(2d, targetValue.get("yes"), 1e-12);
+		assertNull(targetValue.get("no"));
+	}
+
+	@Test
+	public void evaluatePolynomial() throws Exception {
+		SupportVectorMachineModelEvaluator evaluator = (SupportVectorMachineModelEvaluator)createEvaluator("Polynomial");
+
+		CompiledSupportVectorMachineModel compiledModel = evaluator.getCompiledSupportVectorMachineModel();
+
+		double[] kernelValues = compiledModel.evaluateKernels(new double[]{1d, -2d, 0.5d, 3d});
+
+		assertEquals(5.359375d, kernelValues[0], 1e-12);
+		assertEquals(15.625d, kernelValues[1], 1e-12);
+		assertEquals(3.375d, kernelValues[2], 1e-12);
+
+		double[] values = compiledModel.evaluateMachines(kernelValues);
+
+		assertEquals(3.27578125d, values[0], 1e-12);
+		assertEquals(-12.15d, values[1], 1e-12);
+
+		ClassificationMap<?> targetValue = evaluate(evaluator, 1d, -2d, 0.5d, 3d);
+
+		assertEquals(1d, targetValue.get("no"), 1e-12);
+		assertEquals(1d, targetValue.get("yes"), 1e-12);
+
+		targetValue = evaluate(evaluator, 0d, 0d, 0d, 0d);
+
+		assertEquals("yes", targetValue.getResult());
+
+		assertEquals(2d, targetValue.get("yes"), 1e-12);
+	}
+
+	@Test
+	public void evaluateInterpreted() throws Exception {
+		SupportVectorMachineModelEvaluator evaluator = (SupportVectorMachineModelEvaluator)createEvaluator("Polynomial");
+
+		// The iteration over support vectors and the compiled model produce the same votes
+		for(boolean compiled : new boolean[]{true, false}){
+			evaluator.setCompiled(compiled);
+
+			ClassificationMap<?> targetValue = evaluate(evaluator, 1d, -2d, 0.5d, 3d);
+
+			assertEquals(1d, targetValue.get("no"), 1e-12);
+			assertEquals(1d, targetValue.get("yes"), 1e-12);
+
+			targetValue = evaluate(evaluator, 0d, 0d, 0d, 0d);
+
+			assertEquals(2d, targetValue.get("yes"), 1e-12);
+		}
+
+		evaluator = (SupportVectorMachineModelEvaluator)createEvaluator("RadialBasis");
+		evaluator.setCompiled(false);
+
+		ClassificationMap<?> targetValue = evaluate(evaluator, 1d, -2d, 0.5d, 3d);
+
+		assertEquals(2d, targetValue.get("yes"), 1e-12);
+		assertNull(targetValue.get("no"));
+	}
+
+	@Test
+	public void evaluateKernelsBlock() throws Exception {
+		SupportVectorMachineModelEvaluator evaluator = (SupportVectorMachineModelEvaluator)createEvaluator("Polynomial");
+
+		CompiledSupportVectorMachineModel compiledModel = evaluator.getCompiledSupportVectorMachineModel();
+
+		double[][] inputs = new double[5][];
+
+		for(int i = 0; i < inputs.length; i++){
+			inputs[i] = new double[]{i, -i, i * 0.5d, 1d};
+		}
+
+		double[][] kernelValues = compiledModel.evaluateKernels(inputs);
+
+		for(int i = 0; i < inputs.length; i++){
+			assertTrue(Arrays.equals(compiledModel.evaluateKernels(inputs[i]), kernelValues[i]));
+		}
+	}
+
+	static
+	private ClassificationMap<?> evaluate(Evaluator evaluator, double a, double b, double c, double d){
+		Map<FieldName, ?> arguments = createArguments("a", a, "b", b, "c", c, "d", d);
+
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+		return (ClassificationMap<?>)result.get(evaluator.getTargetField());
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledTreeTest {
+
+	@Test
+	public void evaluate(){
+		TreeModel treeModel = createTreeModel();
+
+		CompiledTree compiledTree = CompiledTree.create(treeModel);
+
+		assertEquals("1", getNodeId(compiledTree, treeModel, "red", 1));
+		assertEquals("2", getNodeId(compiledTree, treeModel, "green", 1));
+		assertEquals("3", getNodeId(compiledTree, treeModel, "blue", 2));
+		assertEquals("4", getNodeId(compiledTree, treeModel, "blue", 5));
+		assertEquals("0", getNodeId(compiledTree, treeModel, "yellow", 5));
+
+		treeModel.setNoTrueChildStrategy(NoTrueChildStrategyType.RETURN_NULL_PREDICTION);
+
+		assertEquals(null, getNodeId(compiledTree, treeModel, "yellow", 5));
+	}
+
+	@Test
+	public void evaluateMissing(){
+		TreeModel treeModel = createTreeModel();
+
+		CompiledTree compiledTree = CompiledTree.create(treeModel);
+
+		treeModel.setMissingValueStrategy(MissingValueStrategyType.NONE);
+
+		// Both children of the "blue" node evaluate to unknown, and are skipped
+		assertEquals("blue", getNodeId(compiledTree, treeModel, "blue", null));
+
+		treeModel.setMissingValueStrategy(MissingValueStrategyType.LAST_PREDICTION);
+
+		assertEquals("blue", getNodeId(compiledTree, treeModel, "blue", null));
+
+		treeModel.setMissingValueStrategy(MissingValueStrategyType.NULL_PREDICTION);
+
+		assertEquals(null, getNodeId(compiledTree, treeModel, "blue", null));
+		assertEquals("2", getNodeId(compiledTree, treeModel, "green", null));
+	}
+
+	@Test
+	public void evaluateInterpreted(){
+		TreeModel treeModel = createTreeModel();
+
+		PMML pmml = new PMML(new Header(), new DataDictionary(), "4.1");
+
+		List<DataField> dataFields = (pmml.getDataDictionary()).getDataFields();
+		dataFields.add(new DataField(new FieldName("color"), OpType.CATEGORICAL, DataType.STRING));
+		dataFields.add(new DataField(new FieldName("size"), OpType.CONTINUOUS, DataType.INTEGER));
+
+		(pmml.getModels()).add(treeModel);
+
+		TreeModelEvaluator evaluator = new TreeModelEvaluator(pmml, treeModel);
+
+		// The recursive walk and the compiled tree select the same nodes
+		for(boolean compiled : new boolean[]{true, false}){
+			evaluator.setCompiled(compiled);
+
+			treeModel.setMissingValueStrategy(MissingValueStrategyType.NONE);
+
+			assertEquals("1", getNodeId(evaluator, "red", 1));
+			assertEquals("4", getNodeId(evaluator, "blue", 5));
+			assertEquals("0", getNodeId(evaluator, "yellow", 5));
+			assertEquals("blue", getNodeId(evaluator, "blue", null));
+
+			treeModel.setMissingValueStrategy(MissingValueStrategyType.NULL_PREDICTION);
+
+			assertEquals(null, getNodeId(evaluator, "blue", null));
+			assertEquals("2", getNodeId(evaluator, "green", null));
+		}
+	}
+
+	static
+	private String getNodeId(TreeModelEvaluator evaluator, String color, Integer size){
+		Map<FieldName, ?> result = evaluator.evaluate(PMMLTest.createArguments("color", color, "size", size));
+
+		NodeClassificationMap targetValue = (NodeClassificationMap)result.get(evaluator.getTargetField());
+
+		return (targetValue != null ? targetValue.getEntityId() : null);
+	}
+
+	static
+	private String getNodeId(CompiledTree compiledTree, TreeModel treeModel, String color, Integer size){
+		Map<FieldName, Object> arguments = new LinkedHashMap<FieldName, Object>();
+		arguments.put(new FieldName("color"), color);
+		arguments.put(new FieldName("size"), size);
+
+		EvaluationContext context = new LocalEvaluationContext();
+		context.pushFrame(arguments);
+
+		Node node = compiledTree.evaluate(treeModel, context);
+
+		return (node != null ? node.getId() : null);
+	}
+
+	static
+	private TreeModel createTreeModel(){
+		FieldName color = new FieldName("color");
+		FieldName size = new FieldName("size");
+
+		SimplePredicate isRed = new SimplePredicate(color, SimplePredicate.Operator.EQUAL);
+		isRed.setValue("red");
+
+		SimplePredicate isSmall = new SimplePredicate(size, SimplePredicate.Operator.LESS_OR_EQUAL);
+		isSmall.setValue("2");
+
+		SimplePredicate isLarge = new SimplePredicate(size, SimplePredicate.Operator.GREATER_THAN);
+		isLarge.setValue("2");
+
+		Node red = new Node()
+			.withId("1")
+			.withPredicate(new CompoundPredicate(CompoundPredicate.BooleanOperator.AND).withPredicates(isRed, isSmall));
+
+		Node green = new Node()
+			.withId("2")
+			.withPredicate(new SimpleSetPredicate(new Array("green \"light green\"", Array.Type.STRING), color, SimpleSetPredicate.BooleanOperator.IS_IN));
+
+		Node blue = new Node()
+			.withId("blue")
+			.withPredicate(new SimpleSetPredicate(new Array("red green yellow", Array.Type.STRING), color, SimpleSetPredicate.BooleanOperator.IS_NOT_IN))
+			.withNodes(new Node().withId("3").withPredicate(isSmall), new Node().withId("4").withPredicate(isLarge));
+
+		Node root = new Node()
+			.withId("0")
+			.withPredicate(new True())
+			.withNodes(red, green, blue);
+
+		TreeModel treeModel = new TreeModel(new MiningSchema(), root, MiningFunctionType.CLASSIFICATION);
+		treeModel.setNoTrueChildStrategy(NoTrueChildStrategyType.RETURN_LAST_PREDICTION);
+
+		return treeModel;
+	}
+}
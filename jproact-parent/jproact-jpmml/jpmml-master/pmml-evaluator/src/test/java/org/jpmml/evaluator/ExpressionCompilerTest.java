@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ExpressionCompilerTest {
+
+	@Test
+	public void compileApply(){
+		FieldName name = new FieldName("x");
+
+		Constant constant = new Constant("2");
+		constant.setDataType(DataType.INTEGER);
+
+		Apply apply = new Apply("*");
+		(apply.getExpressions()).add(new FieldRef(name));
+		(apply.getExpressions()).add(constant);
+
+		assertEquals(6, evaluate(apply, createContext(name, 3)));
+		assertEquals(6d, evaluate(apply, createContext(name, 3d)));
+		assertEquals(null, evaluate(apply, createContext(name, null)));
+
+		apply.setMapMissingTo("Missing");
+
+		assertEquals("Missing", evaluate(apply, createContext(name, null)));
+	}
+
+	@Test
+	public void compileInvalidApply(){
+		FieldName name = new FieldName("x");
+
+		Apply apply = new Apply("/");
+		(apply.getExpressions()).add(new FieldRef(name));
+		(apply.getExpressions()).add(new Constant("0"));
+
+		try {
+			evaluate(apply, createContext(name, 1));
+
+			fail();
+		} catch(InvalidResultException ire){
+			// Ignored
+		}
+
+		apply.setInvalidValueTreatment(InvalidValueTreatmentMethodType.AS_MISSING);
+
+		assertEquals(null, evaluate(apply, createContext(name, 1)));
+	}
+
+	@Test
+	public void compileLazyApply(){
+		FieldName x = new FieldName("x");
+		FieldName y = new FieldName("y");
+
+		Apply flag = new Apply("greaterThan");
+		(flag.getExpressions()).add(new FieldRef(x));
+		(flag.getExpressions()).add(new Constant("0"));
+
+		Apply division = new Apply("/");
+		(division.getExpressions()).add(new Constant("1"));
+		(division.getExpressions()).add(new FieldRef(x));
+
+		Apply apply = new Apply("if");
+		(apply.getExpressions()).add(flag);
+		(apply.getExpressions()).add(division);
+		(apply.getExpressions()).add(new Constant("-1"));
+
+		apply.setInvalidValueTreatment(InvalidValueTreatmentMethodType.AS_MISSING);
+
+		// The THEN part is not evaluated
+		assertEquals(-1, evaluateLazy(apply, createContext(x, 0)));
+
+		division.setInvalidValueTreatment(InvalidValueTreatmentMethodType.AS_IS);
+
+		flag.setFunction("greaterOrEqual");
+
+		// The InvalidResultException is raised by the THEN part, not by the "if" function
+		try {
+			evaluateLazy(apply, createContext(x, 0));
+
+			fail();
+		} catch(InvalidResultException ire){
+			// Ignored
+		}
+
+		// The second argument is not evaluated, even though it is missing
+		Constant constant = new Constant("false");
+		constant.setDataType(DataType.BOOLEAN);
+
+		apply = new Apply("and");
+		(apply.getExpressions()).add(constant);
+		(apply.getExpressions()).add(new FieldRef(y));
+
+		assertEquals(Boolean.FALSE, evaluateLazy(apply, createContext(y, null)));
+
+		apply.setFunction("or");
+
+		try {
+			evaluateLazy(apply, createContext(y, null));
+
+			fail();
+		} catch(EvaluationException ee){
+			// Ignored
+		}
+	}
+
+	@Test
+	public void compileNormDiscrete(){
+		FieldName name = new FieldName("x");
+
+		NormDiscrete normDiscrete = new NormDiscrete(name, "3");
+
+		assertEquals(1d, evaluate(normDiscrete, createContext(name, 3)));
+		assertEquals(0d, evaluate(normDiscrete, createContext(name, "1")));
+
+		CompiledExpression compiledExpression = ExpressionCompiler.compile(normDiscrete);
+
+		// The same compiled expression is compared against values of different data types
+		assertEquals(1d, FieldValueUtil.getValue(compiledExpression.evaluate(createContext(name, 3))));
+		assertEquals(1d, FieldValueUtil.getValue(compiledExpression.evaluate(createContext(name, 3d))));
+		assertEquals(1d, FieldValueUtil.getValue(compiledExpression.evaluate(createContext(name, "3"))));
+		assertEquals(0d, FieldValueUtil.getValue(compiledExpression.evaluate(createContext(name, 3.5d))));
+		assertEquals(0d, FieldValueUtil.getValue(compiledExpression.evaluate(createContext(name, "3.0"))));
+	}
+
+	@Test
+	public void compileMapValues(){
+		FieldName name = new FieldName("x");
+
+		MapValues mapValues = new MapValues(null);
+		(mapValues.getFieldColumnPairs()).add(new FieldColumnPair(name, null));
+
+		mapValues.setMapMissingTo("Missing");
+		mapValues.setDefaultValue("Default");
+
+		CompiledExpression compiledExpression = ExpressionCompiler.compile(mapValues);
+
+		assertEquals("Missing", FieldValueUtil.getValue(compiledExpression.evaluate(createContext(name, null))));
+		assertEquals("Default", FieldValueUtil.getValue(compiledExpression.evaluate(createContext(name, "3"))));
+		assertEquals("Default", FieldValueUtil.getValue(compiledExpression.evaluate(createContext(name, 3))));
+	}
+
+	@Test
+	public void compileDefineFunction(){
+		FieldName x = new FieldName("x");
+		FieldName y = new FieldName("y");
+
+		DefineFunction inc = new DefineFunction("inc", OpType.CONTINUOUS)
+			.withDataType(DataType.DOUBLE)
+			.withParameterFields(new ParameterField(x))
+			.withExpression(new Apply("+").withExpressions(new FieldRef(x), new Constant("1")));
+
+		// Nested user-defined function
+		DefineFunction scale = new DefineFunction("scale", OpType.CONTINUOUS)
+			.withParameterFields(new ParameterField(x), new ParameterField(y))
+			.withExpression(new Apply("*").withExpressions(new FieldRef(x), new Apply("inc").withExpressions(new FieldRef(y))));
+
+		// The function body must not refer to fields other than the parameter fields
+		DefineFunction outside = new DefineFunction("outside", OpType.CONTINUOUS)
+			.withParameterFields(new ParameterField(x))
+			.withExpression(new FieldRef(y));
+
+		DefineFunction recursive = new DefineFunction("recursive", OpType.CONTINUOUS)
+			.withParameterFields(new ParameterField(x))
+			.withExpression(new Apply("recursive").withExpressions(new FieldRef(x)));
+
+		FunctionContext context = new FunctionContext(inc, scale, outside, recursive);
+		context.pushFrame(createArguments(x, 2, y, 3));
+
+		Apply apply = new Apply("scale").withExpressions(new FieldRef(y), new Apply("inc").withExpressions(new FieldRef(x)));
+
+		CompiledExpression compiledExpression = ExpressionCompiler.compile(apply, context);
+
+		assertEquals(Arrays.asList("inc", "scale", "inc"), context.getResolvedNames());
+
+		assertEquals(3d * ((2d + 1d) + 1d), FieldValueUtil.getValue(compiledExpression.evaluate(context)));
+		assertEquals(3d * ((2d + 1d) + 1d), FieldValueUtil.getValue(compiledExpression.evaluate(context)));
+
+		// User-defined functions are not resolved during evaluation
+		assertEquals(3, (context.getResolvedNames()).size());
+
+		assertEquals(FieldValueUtil.getValue(ExpressionUtil.evaluate(apply, context)), FieldValueUtil.getValue(compiledExpression.evaluate(context)));
+
+		Apply outsideApply = new Apply("outside").withExpressions(new FieldRef(x));
+
+		assertNull(ExpressionUtil.evaluate(outsideApply, context));
+		assertNull((ExpressionCompiler.compile(outsideApply, context)).evaluate(context));
+
+		// Recursive functions are not inlined
+		ExpressionCompiler.compile(new Apply("recursive").withExpressions(new FieldRef(x)), context);
+	}
+
+	static
+	private Map<FieldName, ?> createArguments(FieldName firstName, Object firstValue, FieldName secondName, Object secondValue){
+		Map<FieldName, Object> result = new LinkedHashMap<FieldName, Object>();
+		result.put(firstName, firstValue);
+		result.put(secondName, secondValue);
+
+		return result;
+	}
+
+	static
+	private EvaluationContext createContext(FieldName name, Object value){
+		EvaluationContext context = new LocalEvaluationContext();
+		context.pushFrame(Collections.<FieldName, Object>singletonMap(name, value));
+
+		return context;
+	}
+
+	/**
+	 * Evaluates the expression both in interpreted and compiled mode.
+	 */
+	static
+	private Object evaluateLazy(Expression expression, EvaluationContext context){
+		Object result = FieldValueUtil.getValue(ExpressionUtil.evaluate(expression, context));
+
+		assertEquals(result, evaluate(expression, context));
+
+		return result;
+	}
+
+	static
+	private Object evaluate(Expression expression, EvaluationContext context){
+		CompiledExpression compiledExpression = ExpressionCompiler.compile(expression);
+
+		FieldValue result = compiledExpression.evaluate(context);
+
+		return FieldValueUtil.getValue(result);
+	}
+
+	static
+	private class FunctionContext extends LocalEvaluationContext {
+
+		private Map<String, DefineFunction> functions = new LinkedHashMap<String, DefineFunction>();
+
+		private List<String> resolvedNames = new ArrayList<String>();
+
+
+		private FunctionContext(DefineFunction... defineFunctions){
+
+			for(DefineFunction defineFunction : defineFunctions){
+				this.functions.put(defineFunction.getName(), defineFunction);
+			}
+		}
+
+		@Override
+		public DefineFunction resolveFunction(String name){
+			this.resolvedNames.add(name);
+
+			return this.functions.get(name);
+		}
+
+		public List<String> getResolvedNames(){
+			return this.resolvedNames;
+		}
+	}
+}
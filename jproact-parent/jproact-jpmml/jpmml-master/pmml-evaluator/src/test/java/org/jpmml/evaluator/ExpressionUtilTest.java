@@ -124,6 +124,56 @@ public class ExpressionUtilTest {
 		assertEquals(values.get(2), evaluate(aggregate, context));
 	}
 
+	@Test
+	public void evaluateDerivedField(){
+		final
+		FieldName x = new FieldName("x");
+
+		final
+		FieldName y = new FieldName("y");
+
+		Apply apply = new Apply("+")
+			.withExpressions(new FieldRef(x), new Constant("1"));
+
+		final
+		DerivedField derivedField = new DerivedField(OpType.CONTINUOUS, DataType.DOUBLE)
+			.withName(y)
+			.withExpression(apply);
+
+		final
+		int[] count = {0};
+
+		EvaluationContext context = new LocalEvaluationContext(){
+
+			@Override
+			public DerivedField resolveField(FieldName name){
+
+				if((y).equals(name)){
+					count[0]++;
+
+					return derivedField;
+				}
+
+				return null;
+			}
+		};
+		context.pushFrame(Collections.<FieldName, Object>singletonMap(x, 1d));
+
+		assertEquals(2d, evaluate(new FieldRef(y), context));
+		assertEquals(2d, evaluate(new FieldRef(y), context));
+		assertEquals(1, count[0]);
+
+		context.pushFrame(Collections.<FieldName, Object>singletonMap(x, 2d));
+
+		assertEquals(3d, evaluate(new FieldRef(y), context));
+		assertEquals(2, count[0]);
+
+		context.popFrame();
+
+		assertEquals(2d, evaluate(new FieldRef(y), context));
+		assertEquals(3, count[0]);
+	}
+
 	static
 	private EvaluationContext createContext(){
 		EvaluationContext context = new LocalEvaluationContext();
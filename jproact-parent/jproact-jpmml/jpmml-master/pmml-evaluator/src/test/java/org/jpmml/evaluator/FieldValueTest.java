@@ -46,4 +46,32 @@ public class FieldValueTest {
 		assertTrue(louder.compareToValue(louder) == 0);
 		assertTrue(louder.compareToValue(insane) < 0);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void continuousNumber(){
+		FieldValue one = FieldValueUtil.create(1);
+		FieldValue onePointFive = FieldValueUtil.create(1.5f);
+		FieldValue two = FieldValueUtil.create(DataType.DOUBLE, OpType.CONTINUOUS, "2");
+
+		assertTrue(one instanceof IntegerValue);
+		assertTrue(onePointFive instanceof FloatValue);
+		assertTrue(two instanceof DoubleValue);
+
+		assertEquals(Integer.valueOf(1), one.getValue());
+		assertEquals(Float.valueOf(1.5f), onePointFive.getValue());
+		assertEquals(Double.valueOf(2d), two.getValue());
+
+		assertTrue(one.equalsString("1"));
+		assertTrue(one.equalsString("1.0"));
+		assertTrue(onePointFive.equalsString("1.5"));
+
+		assertTrue(one.compareToValue(onePointFive) < 0);
+		assertTrue(two.compareToValue(onePointFive) > 0);
+		assertTrue(two.equalsValue(FieldValueUtil.create(2)));
+
+		// Integers are compared with floats after they have been cast to floats
+		assertTrue(FieldValueUtil.create(16777217).equalsValue(FieldValueUtil.create(16777216f)));
+
+		assertEquals(Integer.valueOf(1), (FieldValueUtil.create(DataType.INTEGER, 1.9d)).getValue());
+	}
+}
@@ -28,6 +28,15 @@ public class FunctionUtilTest {
 		assertEquals(null, evaluate("+", 1d, null));
 		assertEquals(null, evaluate("+", null, 1d));
 
+		assertEquals(4, evaluate("+", 1, 3));
+		assertEquals(-2, evaluate("-", 1, 3));
+		assertEquals(3, evaluate("*", 1, 3));
+		assertEquals(0, evaluate("/", 1, 3));
+
+		assertEquals(Integer.MAX_VALUE, evaluate("+", Integer.MAX_VALUE, 1));
+		assertEquals(Integer.MIN_VALUE, evaluate("-", Integer.MIN_VALUE, 1));
+		assertEquals(Integer.MAX_VALUE, evaluate("*", Integer.MAX_VALUE, 2));
+
 		assertEquals(DataType.INTEGER, TypeUtil.getDataType(evaluate("*", 1, 1)));
 		assertEquals(DataType.FLOAT, TypeUtil.getDataType(evaluate("*", 1f, 1f)));
 		assertEquals(DataType.DOUBLE, TypeUtil.getDataType(evaluate("*", 1d, 1d)));
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import com.google.common.collect.*;
+
+import static org.junit.Assert.*;
+
+public class IndexedFrameTest {
+
+	@Test
+	public void putAndGet(){
+		IndexedFrame frame = new IndexedFrame(createIndex());
+
+		frame.put(FieldName.create("y"), FieldValueUtil.create(1));
+		frame.put(FieldName.create("z"), null);
+		frame.put(FieldName.create("u"), FieldValueUtil.create("undeclared"));
+		frame.put(FieldName.create("x"), FieldValueUtil.create(2));
+
+		assertEquals(4, frame.size());
+
+		assertTrue(frame.containsKey(FieldName.create("z")));
+		assertNull(frame.get(FieldName.create("z")));
+
+		assertEquals(2, FieldValueUtil.getValue(frame.get(FieldName.create("x"))));
+		assertEquals("undeclared", FieldValueUtil.getValue(frame.get(FieldName.create("u"))));
+
+		// Declared and undeclared fields are iterated in insertion order
+		assertEquals(Arrays.asList(FieldName.create("y"), FieldName.create("z"), FieldName.create("u"), FieldName.create("x")), Lists.newArrayList(frame.keySet()));
+
+		frame.remove(FieldName.create("z"));
+
+		assertFalse(frame.containsKey(FieldName.create("z")));
+
+		assertEquals(Arrays.asList(FieldName.create("y"), FieldName.create("u"), FieldName.create("x")), Lists.newArrayList(frame.keySet()));
+
+		FieldValue undeclaredValue = frame.remove(FieldName.create("u"));
+
+		FieldValue zValue = FieldValueUtil.create(3);
+
+		frame.put(FieldName.create("z"), zValue);
+		frame.put(FieldName.create("u"), undeclaredValue);
+
+		Map<FieldName, FieldValue> expected = Maps.newLinkedHashMap();
+		expected.put(FieldName.create("y"), frame.get(FieldName.create("y")));
+		expected.put(FieldName.create("x"), frame.get(FieldName.create("x")));
+		expected.put(FieldName.create("z"), zValue);
+		expected.put(FieldName.create("u"), undeclaredValue);
+
+		assertEquals(Lists.newArrayList(expected.entrySet()), Lists.newArrayList(frame.entrySet()));
+	}
+
+	@Test
+	public void putAll(){
+		FieldIndex index = createIndex();
+
+		IndexedFrame left = new IndexedFrame(index);
+		left.put(FieldName.create("x"), FieldValueUtil.create(1));
+		left.put(FieldName.create("y"), FieldValueUtil.create(1));
+
+		IndexedFrame right = new IndexedFrame(index);
+		right.put(FieldName.create("z"), FieldValueUtil.create(2));
+		right.put(FieldName.create("u"), FieldValueUtil.create(2));
+		right.put(FieldName.create("x"), FieldValueUtil.create(2));
+
+		Map<FieldName, FieldValue> expected = Maps.newLinkedHashMap();
+		expected.putAll(left);
+		expected.putAll(right);
+
+		left.putAll(right);
+
+		assertEquals(expected, left);
+		assertEquals(Lists.newArrayList(expected.keySet()), Lists.newArrayList(left.keySet()));
+	}
+
+	@Test
+	public void grow(){
+		FieldIndex index = createIndex();
+
+		IndexedFrame frame = new IndexedFrame(index, 1);
+		frame.put(FieldName.create("z"), FieldValueUtil.create(3));
+		frame.put(FieldName.create("x"), FieldValueUtil.create(1));
+		frame.put(FieldName.create("y"), FieldValueUtil.create(2));
+
+		assertEquals(3, frame.size());
+
+		for(int slot = 0; slot < index.size(); slot++){
+			assertTrue(frame.isDefined(slot));
+			assertEquals(slot + 1, FieldValueUtil.getValue(frame.getValue(slot)));
+		}
+
+		frame.remove(FieldName.create("z"));
+
+		assertFalse(frame.isDefined(index.getSlot(FieldName.create("z"))));
+		assertEquals(1, FieldValueUtil.getValue(frame.get(FieldName.create("x"))));
+		assertEquals(2, FieldValueUtil.getValue(frame.get(FieldName.create("y"))));
+
+		frame.clear();
+
+		assertTrue(frame.isEmpty());
+		assertNull(frame.get(FieldName.create("x")));
+	}
+
+	@Test
+	public void contextSlots(){
+		PMML pmml = new PMML(new Header(), new DataDictionary(), "4.1");
+
+		List<DataField> dataFields = (pmml.getDataDictionary()).getDataFields();
+		dataFields.add(new DataField(FieldName.create("x"), OpType.CONTINUOUS, DataType.INTEGER));
+		dataFields.add(new DataField(FieldName.create("y"), OpType.CONTINUOUS, DataType.INTEGER));
+		dataFields.add(new DataField(FieldName.create("z"), OpType.CONTINUOUS, DataType.INTEGER));
+
+		RegressionModel regressionModel = new RegressionModel(new MiningSchema(), MiningFunctionType.REGRESSION);
+
+		(pmml.getModels()).add(regressionModel);
+
+		ModelManagerEvaluationContext context = new ModelManagerEvaluationContext(new RegressionModelEvaluator(pmml, regressionModel));
+
+		Map<FieldName, FieldValue> first = context.pushFrame(PMMLTest.createArguments("x", 1, "y", 1));
+		Map<FieldName, FieldValue> second = context.pushFrame(PMMLTest.createArguments("x", 2));
+
+		assertEquals(Arrays.asList(2, 1, null), getValues(context));
+
+		second.put(FieldName.create("z"), FieldValueUtil.create(3));
+
+		// The field "z" is shadowed by the second frame
+		first.put(FieldName.create("z"), FieldValueUtil.create(1));
+
+		assertEquals(Arrays.asList(2, 1, 3), getValues(context));
+
+		second.remove(FieldName.create("x"));
+
+		assertEquals(Arrays.asList(1, 1, 3), getValues(context));
+
+		context.popFrame();
+
+		assertEquals(Arrays.asList(1, 1, 1), getValues(context));
+
+		first.clear();
+
+		assertEquals(Arrays.asList(null, null, null), getValues(context));
+
+		context.popFrame();
+
+		assertEquals(Arrays.asList(null, null, null), getValues(context));
+	}
+
+	/**
+	 * Looks up every field both by its slot and by its name, and checks that the results agree.
+	 */
+	static
+	private List<Object> getValues(ModelManagerEvaluationContext context){
+		List<Object> result = Lists.newArrayList();
+
+		FieldIndex index = context.getFieldIndex();
+
+		for(String name : Arrays.asList("x", "y", "z")){
+			FieldName field = FieldName.create(name);
+
+			int slot = index.getSlot(field);
+
+			assertEquals(context.getFrame(field) != null, context.isDefined(slot));
+			assertEquals(context.getArgument(field), context.getValue(slot));
+
+			result.add(FieldValueUtil.getValue(context.getValue(slot)));
+		}
+
+		return result;
+	}
+
+	static
+	private FieldIndex createIndex(){
+		return new FieldIndex(Arrays.asList(FieldName.create("x"), FieldName.create("y"), FieldName.create("z")));
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class InstanceTableTest {
+
+	@Test
+	public void create(){
+		FieldName x = new FieldName("x");
+		FieldName y = new FieldName("y");
+		FieldName z = new FieldName("z");
+
+		Map<FieldName, List<FieldValue>> columns = new LinkedHashMap<FieldName, List<FieldValue>>();
+		columns.put(x, Arrays.asList(FieldValueUtil.create(1), null, FieldValueUtil.create(3)));
+		columns.put(y, Arrays.asList(FieldValueUtil.create("a"), FieldValueUtil.create("b"), FieldValueUtil.create("a")));
+		columns.put(z, Arrays.asList(FieldValueUtil.create(1), FieldValueUtil.create(1.5d), null));
+
+		InstanceTable table = InstanceTable.create(new int[]{2, 4, 8}, columns);
+
+		assertEquals(3, table.getNumberOfRows());
+
+		assertEquals(1, table.getRow(4));
+		assertEquals(-1, table.getRow(5));
+
+		assertTrue(table.getColumn(x) instanceof InstanceTable.ContinuousColumn);
+
+		FieldValue value = table.getValue(2, x);
+
+		assertTrue(value instanceof IntegerValue);
+		assertTrue(value.equalsValue(FieldValueUtil.create(3)));
+
+		assertEquals(null, table.getValue(1, x));
+
+		InstanceTable.CategoricalColumn column = (InstanceTable.CategoricalColumn)table.getColumn(y);
+
+		assertEquals(2, (column.getDictionary()).size());
+		assertEquals(column.getCode(0), column.getCode(2));
+		assertSame(table.getValue(0, y), table.getValue(2, y));
+
+		// Mixed data types
+		assertTrue(table.getColumn(z) instanceof InstanceTable.CategoricalColumn);
+
+		assertTrue((table.getValue(1, z)).equalsValue(FieldValueUtil.create(1.5d)));
+		assertTrue(table.getColumn(z).isMissing(2));
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ItemsetIndexTest {
+
+	@Test
+	public void match(){
+		Random random = new Random(42);
+
+		AssociationModel associationModel = new AssociationModel(new MiningSchema(), MiningFunctionType.ASSOCIATION_RULES, 100, 0.1d, 0.1d, 10, 51, 200);
+
+		for(int i = 0; i < 50; i++){
+			Itemset itemset = new Itemset(String.valueOf(i));
+
+			int size = 1 + random.nextInt(3);
+
+			for(int j = 0; j < size; j++){
+				// Item references may be repeated
+				itemset.withItemRefs(new ItemRef(String.valueOf(random.nextInt(10))));
+			}
+
+			associationModel.withItemsets(itemset);
+		}
+
+		// Empty itemset
+		associationModel.withItemsets(new Itemset("50"));
+
+		for(int i = 0; i < 200; i++){
+			AssociationRule associationRule = new AssociationRule(String.valueOf(random.nextInt(51)), String.valueOf(random.nextInt(51)), 0.5d, 0.5d);
+
+			associationModel.withAssociationRules(associationRule);
+		}
+
+		ItemsetIndex itemsetIndex = ItemsetIndex.create(associationModel);
+
+		assertEquals(51, itemsetIndex.getNumberOfItemsets());
+		assertEquals(200, itemsetIndex.getNumberOfRules());
+
+		for(int i = 0; i < 100; i++){
+			Set<String> input = new LinkedHashSet<String>();
+
+			int size = random.nextInt(6);
+
+			for(int j = 0; j < size; j++){
+				input.add(String.valueOf(random.nextInt(12)));
+			}
+
+			BitSet antecedentFlags = new BitSet();
+			BitSet consequentFlags = new BitSet();
+
+			itemsetIndex.match(input, antecedentFlags, consequentFlags);
+
+			List<AssociationRule> associationRules = associationModel.getAssociationRules();
+			for(int j = 0; j < associationRules.size(); j++){
+				AssociationRule associationRule = associationRules.get(j);
+
+				assertEquals(isSubset(input, getItemset(associationModel, associationRule.getAntecedent())), antecedentFlags.get(j));
+				assertEquals(isSubset(input, getItemset(associationModel, associationRule.getConsequent())), consequentFlags.get(j));
+			}
+		}
+	}
+
+	@Test
+	public void createInvalid(){
+		AssociationModel associationModel = new AssociationModel(new MiningSchema(), MiningFunctionType.ASSOCIATION_RULES, 1, 0.1d, 0.1d, 1, 1, 1)
+			.withItemsets(new Itemset("1").withItemRefs(new ItemRef("1")))
+			.withAssociationRules(new AssociationRule("1", "2", 0.5d, 0.5d));
+
+		try {
+			ItemsetIndex.create(associationModel);
+
+			fail();
+		} catch(InvalidFeatureException ife){
+			// Ignored
+		}
+	}
+
+	static
+	private Itemset getItemset(AssociationModel associationModel, String id){
+		List<Itemset> itemsets = associationModel.getItemsets();
+
+		for(Itemset itemset : itemsets){
+
+			if((itemset.getId()).equals(id)){
+				return itemset;
+			}
+		}
+
+		throw new IllegalArgumentException(id);
+	}
+
+	static
+	private boolean isSubset(Set<String> input, Itemset itemset){
+		List<ItemRef> itemRefs = itemset.getItemRefs();
+
+		for(ItemRef itemRef : itemRefs){
+
+			if(!input.contains(itemRef.getItemRef())){
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -37,4 +37,30 @@ public class MixedNeighborhoodTest extends NearestNeighborModelEvaluatorTest {
 		assertEquals(20d, result.get(new FieldName("output_1")));
 		assertEquals("Iris-versicolor", result.get(new FieldName("output_2")));
 	}
+
+	@Test
+	public void evaluateNeighborsOnly() throws Exception {
+		NearestNeighborModelEvaluator evaluator = createEvaluator();
+
+		Map<FieldName, ?> arguments = createArguments("petal length", 4.7d, "petal width", 1.4d, "sepal length", 7d, "sepal width", 3.2d);
+
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+		// Every training instance is ranked
+		InstanceClassificationMap species = (InstanceClassificationMap)result.get(new FieldName("species"));
+		assertEquals(150, species.size());
+
+		evaluator.setNeighborsOnly(true);
+
+		Map<FieldName, ?> neighborsResult = evaluator.evaluate(arguments);
+
+		InstanceClassificationMap neighborsSpecies = (InstanceClassificationMap)neighborsResult.get(new FieldName("species"));
+		assertEquals(3, neighborsSpecies.size());
+
+		assertEquals(species.getResult(), neighborsSpecies.getResult());
+		assertEquals((species.getEntityIdRanking()).subList(0, 3), neighborsSpecies.getEntityIdRanking());
+		assertEquals((species.getAffinityRanking()).subList(0, 3), neighborsSpecies.getAffinityRanking());
+
+		assertEquals(result.get(new FieldName("output_2")), neighborsResult.get(new FieldName("output_2")));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class NearestNeighborIndexTest {
+
+	@Test
+	public void queryEuclidean(){
+		checkQuery(new Euclidean());
+	}
+
+	@Test
+	public void queryCityBlock(){
+		checkQuery(new CityBlock());
+	}
+
+	@Test
+	public void createUnsupported(){
+		List<KNNInput> knnInputs = createKNNInputs();
+
+		Map<Integer, List<FieldValue>> instanceValues = createInstanceValues(new Random(0), 10);
+
+		InstanceTable table = createInstanceTable(instanceValues);
+
+		assertNull(NearestNeighborIndex.create(createComparisonMeasure(new Chebychev()), knnInputs, table));
+
+		(knnInputs.get(1)).setCompareFunction(CompareFunctionType.DELTA);
+
+		assertNull(NearestNeighborIndex.create(createComparisonMeasure(new Euclidean()), knnInputs, table));
+	}
+
+	static
+	private void checkQuery(Measure measure){
+		ComparisonMeasure comparisonMeasure = createComparisonMeasure(measure);
+
+		List<KNNInput> knnInputs = createKNNInputs();
+
+		Random random = new Random(42);
+
+		Map<Integer, List<FieldValue>> instanceValues = createInstanceValues(random, 500);
+
+		NearestNeighborIndex index = NearestNeighborIndex.create(comparisonMeasure, knnInputs, createInstanceTable(instanceValues));
+
+		assertEquals(500, index.size());
+
+		for(int i = 0; i < 50; i++){
+			List<FieldValue> values = createValues(random);
+
+			// Every fifth query has a missing value
+			if(i % 5 == 0){
+				values.set(i % 3, null);
+			}
+
+			double adjustment = MeasureUtil.calculateAdjustment(values);
+
+			double[] point = new double[values.size()];
+			boolean[] missing = new boolean[values.size()];
+
+			for(int j = 0; j < values.size(); j++){
+				FieldValue value = values.get(j);
+
+				if(value == null){
+					missing[j] = true;
+				} else
+
+				{
+					point[j] = value.asDouble();
+				}
+			}
+
+			int[] ids = new int[7];
+			double[] distances = new double[ids.length];
+
+			assertEquals(7, index.query(point, missing, adjustment, ids, distances));
+
+			List<Map.Entry<Integer, Double>> expected = new ArrayList<Map.Entry<Integer, Double>>();
+
+			Collection<Map.Entry<Integer, List<FieldValue>>> entries = instanceValues.entrySet();
+			for(Map.Entry<Integer, List<FieldValue>> entry : entries){
+				Double distance = MeasureUtil.evaluateDistance(comparisonMeasure, knnInputs, values, entry.getValue(), adjustment);
+
+				expected.add(new AbstractMap.SimpleEntry<Integer, Double>(entry.getKey(), distance));
+			}
+
+			Comparator<Map.Entry<Integer, Double>> comparator = new Comparator<Map.Entry<Integer, Double>>(){
+
+				@Override
+				public int compare(Map.Entry<Integer, Double> left, Map.Entry<Integer, Double> right){
+					return (left.getValue()).compareTo(right.getValue());
+				}
+			};
+
+			// Stable sort keeps tied instances in the order of training instances
+			Collections.sort(expected, comparator);
+
+			for(int j = 0; j < ids.length; j++){
+				Map.Entry<Integer, Double> entry = expected.get(j);
+
+				assertEquals(entry.getKey(), Integer.valueOf(ids[j]));
+				assertEquals(entry.getValue(), Double.valueOf(distances[j]));
+			}
+		}
+	}
+
+	static
+	private ComparisonMeasure createComparisonMeasure(Measure measure){
+		ComparisonMeasure comparisonMeasure = new ComparisonMeasure(ComparisonMeasure.Kind.DISTANCE)
+			.withMeasure(measure);
+
+		return comparisonMeasure;
+	}
+
+	static
+	private List<KNNInput> createKNNInputs(){
+		List<KNNInput> result = new ArrayList<KNNInput>();
+
+		result.add(new KNNInput(FIELDS[0]));
+		result.add(new KNNInput(FIELDS[1]).withFieldWeight(2d));
+		result.add(new KNNInput(FIELDS[2]).withFieldWeight(0.5d));
+
+		return result;
+	}
+
+	static
+	private Map<Integer, List<FieldValue>> createInstanceValues(Random random, int size){
+		Map<Integer, List<FieldValue>> result = new LinkedHashMap<Integer, List<FieldValue>>();
+
+		for(int i = 0; i < size; i++){
+			result.put(i + 1, createValues(random));
+		}
+
+		return result;
+	}
+
+	static
+	private InstanceTable createInstanceTable(Map<Integer, List<FieldValue>> instanceValues){
+		int[] ids = new int[instanceValues.size()];
+
+		Map<FieldName, List<FieldValue>> columns = new LinkedHashMap<FieldName, List<FieldValue>>();
+
+		int row = 0;
+
+		Collection<Map.Entry<Integer, List<FieldValue>>> entries = instanceValues.entrySet();
+		for(Map.Entry<Integer, List<FieldValue>> entry : entries){
+			ids[row] = entry.getKey();
+
+			List<FieldValue> values = entry.getValue();
+
+			for(int i = 0; i < FIELDS.length; i++){
+				List<FieldValue> column = columns.get(FIELDS[i]);
+
+				if(column == null){
+					column = new ArrayList<FieldValue>();
+
+					columns.put(FIELDS[i], column);
+				}
+
+				column.add(values.get(i));
+			}
+
+			row++;
+		}
+
+		return InstanceTable.create(ids, columns);
+	}
+
+	/**
+	 * Values are drawn from a coarse grid, so that many instances are tied.
+	 */
+	static
+	private List<FieldValue> createValues(Random random){
+		List<FieldValue> result = new ArrayList<FieldValue>();
+
+		for(int i = 0; i < 3; i++){
+			result.add(FieldValueUtil.create(DataType.DOUBLE, OpType.CONTINUOUS, (double)random.nextInt(10)));
+		}
+
+		return result;
+	}
+
+	private static final FieldName[] FIELDS = {new FieldName("x"), new FieldName("y"), new FieldName("z")};
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import org.dmg.pmml.*;
+
+abstract
+public class NeuralNetworkEvaluatorTest extends PMMLTest {
+
+	public NeuralNetworkEvaluator createEvaluator() throws Exception {
+		PMML pmml = loadPMML(getClass());
+
+		NeuralNetworkEvaluator evaluator = new NeuralNetworkEvaluator(pmml);
+
+		return evaluator;
+	}
+}
\ No newline at end of file
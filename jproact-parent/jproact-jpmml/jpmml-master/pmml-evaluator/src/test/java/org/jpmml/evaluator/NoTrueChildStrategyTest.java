@@ -25,6 +25,32 @@ public class NoTrueChildStrategyTest extends TreeModelEvaluatorTest {
 		assertEquals("T1", getNodeId(NoTrueChildStrategyType.RETURN_LAST_PREDICTION, 1d));
 	}
 
+	@Test
+	public void evaluateBatch() throws Exception {
+		TreeModelEvaluator evaluator = createEvaluator();
+
+		TreeModel treeModel = evaluator.getModel();
+		treeModel.setNoTrueChildStrategy(NoTrueChildStrategyType.RETURN_LAST_PREDICTION);
+
+		FieldName name = FieldName.create("probability");
+
+		List<Double> values = Arrays.asList(0d, 1d, null, 0.5d);
+
+		Map<FieldName, List<?>> result = evaluator.evaluateBatch(Collections.singletonMap(name, values));
+
+		List<?> targetValues = result.get(evaluator.getTargetField());
+
+		assertEquals(values.size(), targetValues.size());
+
+		for(int i = 0; i < values.size(); i++){
+			Map<FieldName, ?> arguments = createArguments(name, values.get(i));
+
+			Map<FieldName, ?> expected = evaluator.evaluate(arguments);
+
+			assertEquals(getEntityId(expected.get(evaluator.getTargetField())), getEntityId(targetValues.get(i)));
+		}
+	}
+
 	private String getNodeId(NoTrueChildStrategyType noTrueChildStrategy, Double value) throws Exception {
 		TreeModelEvaluator evaluator = createEvaluator();
 
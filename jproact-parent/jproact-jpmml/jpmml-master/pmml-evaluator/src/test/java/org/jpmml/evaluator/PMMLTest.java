@@ -6,6 +6,8 @@ package org.jpmml.evaluator;
 import java.io.*;
 import java.util.*;
 
+import org.jpmml.manager.*;
+
 import org.dmg.pmml.*;
 
 import com.google.common.collect.*;
@@ -24,6 +26,17 @@ public class PMMLTest {
 		}
 	}
 
+	/**
+	 * @param modelName The name of the model, or <code>null</code> for the first model.
+	 */
+	public ModelEvaluator<?> createEvaluator(String modelName) throws Exception {
+		PMML pmml = loadPMML(getClass());
+
+		PMMLManager pmmlManager = new PMMLManager(pmml);
+
+		return (ModelEvaluator<?>)pmmlManager.getModelManager(modelName, ModelEvaluatorFactory.getInstance());
+	}
+
 	static
 	public Map<FieldName, ?> createArguments(Object... objects){
 		Map<FieldName, Object> result = Maps.newLinkedHashMap();
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ParallelSegmentationTest {
+
+	@Test
+	public void evaluateRegression() throws Exception {
+		MiningModelEvaluator evaluator = createEvaluator(MiningFunctionType.REGRESSION, MultipleModelMethodType.SUM, DataType.DOUBLE);
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+		try {
+			for(int x = 0; x < 50; x += 7){
+				Map<FieldName, ?> arguments = PMMLTest.createArguments("x", x);
+
+				evaluator.setExecutorService(null);
+
+				Object sequentialResult = EvaluatorUtil.decode((evaluator.evaluate(arguments)).get(evaluator.getTargetField()));
+
+				evaluator.setExecutorService(executorService);
+				evaluator.setGranularity(3);
+
+				Object parallelResult = EvaluatorUtil.decode((evaluator.evaluate(arguments)).get(evaluator.getTargetField()));
+
+				assertEquals(getExpectedSum(x), sequentialResult);
+				assertEquals(sequentialResult, parallelResult);
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void evaluateClassification() throws Exception {
+		MiningModelEvaluator evaluator = createEvaluator(MiningFunctionType.CLASSIFICATION, MultipleModelMethodType.MAJORITY_VOTE, DataType.STRING);
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+		try {
+			for(int x = 0; x < 50; x += 7){
+				Map<FieldName, ?> arguments = PMMLTest.createArguments("x", x);
+
+				evaluator.setExecutorService(null);
+
+				ClassificationMap<?> sequentialResult = (ClassificationMap<?>)(evaluator.evaluate(arguments)).get(evaluator.getTargetField());
+
+				evaluator.setExecutorService(executorService);
+				evaluator.setGranularity(1);
+
+				ClassificationMap<?> parallelResult = (ClassificationMap<?>)(evaluator.evaluate(arguments)).get(evaluator.getTargetField());
+
+				assertEquals(sequentialResult.getResult(), parallelResult.getResult());
+				assertEquals(new ArrayList<Object>(sequentialResult.entrySet()), new ArrayList<Object>(parallelResult.entrySet()));
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	static
+	private Double getExpectedSum(int x){
+		double result = 0d;
+
+		for(int i = 0; i < ParallelSegmentationTest.SEGMENTS; i++){
+
+			if(i % 5 == 0){
+				continue;
+			}
+
+			result += (x > i ? 2d * i : i);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Every fifth segment is not selected. The tree model of segment <code>i</code> predicts <code>2 * i</code> or "b" if x &gt; i, and <code>i</code> or "a" otherwise.
+	 */
+	static
+	private MiningModelEvaluator createEvaluator(MiningFunctionType miningFunction, MultipleModelMethodType multipleModelMethod, DataType dataType){
+		FieldName x = FieldName.create("x");
+		FieldName y = FieldName.create("y");
+
+		OpType opType = (dataType == DataType.STRING ? OpType.CATEGORICAL : OpType.CONTINUOUS);
+
+		DataDictionary dataDictionary = new DataDictionary()
+			.withDataFields(new DataField(x, OpType.CONTINUOUS, DataType.DOUBLE), new DataField(y, opType, dataType));
+
+		Segmentation segmentation = new Segmentation(multipleModelMethod);
+
+		for(int i = 0; i < ParallelSegmentationTest.SEGMENTS; i++){
+			boolean classification = (miningFunction == MiningFunctionType.CLASSIFICATION);
+
+			SimplePredicate greaterThan = new SimplePredicate(x, SimplePredicate.Operator.GREATER_THAN);
+			greaterThan.setValue(String.valueOf(i));
+
+			Node child = new Node()
+				.withId("child")
+				.withScore(classification ? "b" : String.valueOf(2 * i))
+				.withPredicate(greaterThan);
+
+			Node root = new Node()
+				.withId("root")
+				.withScore(classification ? "a" : String.valueOf(i))
+				.withPredicate(new True())
+				.withNodes(child);
+
+			TreeModel treeModel = new TreeModel(createMiningSchema(x, y), root, miningFunction);
+			treeModel.setNoTrueChildStrategy(NoTrueChildStrategyType.RETURN_LAST_PREDICTION);
+
+			Segment segment = new Segment()
+				.withId(String.valueOf(i))
+				.withPredicate(i % 5 == 0 ? new False() : new True())
+				.withModel(treeModel);
+
+			segmentation.getSegments().add(segment);
+		}
+
+		MiningModel miningModel = new MiningModel(createMiningSchema(x, y), miningFunction)
+			.withSegmentation(segmentation);
+
+		PMML pmml = new PMML(new Header(), dataDictionary, "4.1")
+			.withModels(miningModel);
+
+		return new MiningModelEvaluator(pmml, miningModel);
+	}
+
+	static
+	private MiningSchema createMiningSchema(FieldName x, FieldName y){
+		MiningField predicted = new MiningField(y);
+		predicted.setUsageType(FieldUsageType.PREDICTED);
+
+		return new MiningSchema()
+			.withMiningFields(new MiningField(x), predicted);
+	}
+
+	private static final int SEGMENTS = 40;
+}
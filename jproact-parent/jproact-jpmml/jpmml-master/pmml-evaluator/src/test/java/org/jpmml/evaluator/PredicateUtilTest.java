@@ -3,12 +3,109 @@
  */
 package org.jpmml.evaluator;
 
+import java.util.*;
+
+import org.dmg.pmml.*;
+
 import org.junit.*;
 
 import static org.junit.Assert.*;
 
 public class PredicateUtilTest {
 
+	@Test
+	public void evaluateSimplePredicate(){
+		FieldName name = new FieldName("x");
+
+		SimplePredicate simplePredicate = new SimplePredicate(name, SimplePredicate.Operator.LESS_THAN);
+		simplePredicate.setValue("3");
+
+		assertEquals(Boolean.TRUE, evaluate(simplePredicate, name, 2));
+		assertEquals(Boolean.FALSE, evaluate(simplePredicate, name, 3d));
+		assertEquals(Boolean.TRUE, evaluate(simplePredicate, name, 2.5f));
+		assertEquals(null, evaluate(simplePredicate, name, null));
+
+		assertEquals(Integer.valueOf(3), PredicateUtil.getParsedValue(simplePredicate, DataType.INTEGER));
+		assertEquals(Double.valueOf(3d), PredicateUtil.getParsedValue(simplePredicate, DataType.DOUBLE));
+	}
+
+	@Test
+	public void evaluateSimpleSetPredicate(){
+		FieldName name = new FieldName("x");
+
+		Array array = new Array("1 2 3", Array.Type.INT);
+
+		SimpleSetPredicate simpleSetPredicate = new SimpleSetPredicate(array, name, SimpleSetPredicate.BooleanOperator.IS_IN);
+
+		assertEquals(Boolean.TRUE, evaluate(simpleSetPredicate, name, 1));
+		assertEquals(Boolean.TRUE, evaluate(simpleSetPredicate, name, 3d));
+		assertEquals(Boolean.FALSE, evaluate(simpleSetPredicate, name, 4));
+		assertEquals(Boolean.TRUE, evaluate(simpleSetPredicate, name, "2"));
+
+		simpleSetPredicate.setBooleanOperator(SimpleSetPredicate.BooleanOperator.IS_NOT_IN);
+
+		assertEquals(Boolean.FALSE, evaluate(simpleSetPredicate, name, 1));
+		assertEquals(Boolean.TRUE, evaluate(simpleSetPredicate, name, "4"));
+	}
+
+	@Test
+	public void evaluateInvalidSimpleSetPredicate(){
+		FieldName name = new FieldName("x");
+
+		Array array = new Array("1 a 3", Array.Type.STRING);
+
+		SimpleSetPredicate simpleSetPredicate = new SimpleSetPredicate(array, name, SimpleSetPredicate.BooleanOperator.IS_IN);
+
+		assertEquals(new HashSet<Object>(Arrays.<Object>asList(1, 3)), PredicateUtil.getParsedValues(simpleSetPredicate, DataType.INTEGER));
+
+		assertEquals(Boolean.TRUE, evaluate(simpleSetPredicate, name, 1));
+		assertEquals(Boolean.TRUE, evaluate(simpleSetPredicate, name, 3));
+		assertEquals(Boolean.TRUE, evaluate(simpleSetPredicate, name, "a"));
+
+		// The unparsable element is compared only if no other element matches
+		try {
+			evaluate(simpleSetPredicate, name, 2);
+
+			fail();
+		} catch(NumberFormatException nfe){
+			// Ignored
+		}
+	}
+
+	@Test
+	public void evaluateCompoundPredicate(){
+		FieldName name = new FieldName("x");
+
+		Array array = new Array("1 2 3", Array.Type.INT);
+
+		// Throws a MissingFieldException if evaluated with a missing value
+		SimpleSetPredicate simpleSetPredicate = new SimpleSetPredicate(array, name, SimpleSetPredicate.BooleanOperator.IS_IN);
+
+		CompoundPredicate compoundPredicate = new CompoundPredicate(CompoundPredicate.BooleanOperator.AND)
+			.withPredicates(new SimplePredicate(name, SimplePredicate.Operator.IS_NOT_MISSING), simpleSetPredicate);
+
+		assertEquals(Boolean.TRUE, evaluate(compoundPredicate, name, 1));
+		assertEquals(Boolean.FALSE, evaluate(compoundPredicate, name, 4));
+		assertEquals(Boolean.FALSE, evaluate(compoundPredicate, name, null));
+
+		compoundPredicate = new CompoundPredicate(CompoundPredicate.BooleanOperator.OR)
+			.withPredicates(new SimplePredicate(name, SimplePredicate.Operator.IS_MISSING), simpleSetPredicate);
+
+		assertEquals(Boolean.TRUE, evaluate(compoundPredicate, name, 1));
+		assertEquals(Boolean.FALSE, evaluate(compoundPredicate, name, 4));
+		assertEquals(Boolean.TRUE, evaluate(compoundPredicate, name, null));
+
+		SimplePredicate simplePredicate = new SimplePredicate(name, SimplePredicate.Operator.LESS_THAN);
+		simplePredicate.setValue("3");
+
+		compoundPredicate = new CompoundPredicate(CompoundPredicate.BooleanOperator.XOR)
+			.withPredicates(simplePredicate, simpleSetPredicate);
+
+		assertEquals(Boolean.FALSE, evaluate(compoundPredicate, name, 1));
+		assertEquals(Boolean.TRUE, evaluate(compoundPredicate, name, 3));
+		assertEquals(null, evaluate(compoundPredicate, name, null));
+	}
+
 	@Test
 	public void binaryAnd(){
 		assertEquals(Boolean.TRUE, PredicateUtil.binaryAnd(Boolean.TRUE, Boolean.TRUE));
@@ -47,4 +144,12 @@ public class PredicateUtilTest {
 		assertEquals(null, PredicateUtil.binaryXor(null, Boolean.FALSE));
 		assertEquals(null, PredicateUtil.binaryXor(null, null));
 	}
-}
\ No newline at end of file
+
+	static
+	private Boolean evaluate(Predicate predicate, FieldName name, Object value){
+		EvaluationContext context = new LocalEvaluationContext();
+		context.pushFrame(Collections.<FieldName, Object>singletonMap(name, value));
+
+		return PredicateUtil.evaluate(predicate, context);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2013 University of Tartu
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import com.google.common.collect.*;
+
+import static org.junit.Assert.*;
+
+public class VoteAggregatorTest {
+
+	@Test
+	public void tie(){
+		// Make the ordinals differ from the order of first appearance
+		VoteAggregator.CategoryIndex categoryIndex = new VoteAggregator.CategoryIndex(Arrays.asList("a", "b", "c"));
+
+		List<Object> targetValues = Arrays.<Object>asList("c", "b", null, "b", "c", null);
+
+		ClassificationMap<Object> map = checkVotes(categoryIndex, targetValues, Collections.nCopies(targetValues.size(), 1d));
+
+		assertEquals(Arrays.<Object>asList("c", "b", null), Lists.newArrayList(map.keySet()));
+		assertEquals("c", map.getResult());
+	}
+
+	@Test
+	public void weightedVote(){
+		VoteAggregator.CategoryIndex categoryIndex = new VoteAggregator.CategoryIndex(Arrays.asList(0, 1, 2, 3));
+
+		Random random = new Random(42);
+
+		for(int i = 0; i < 100; i++){
+			List<Object> targetValues = Lists.newArrayList();
+			List<Double> weights = Lists.newArrayList();
+
+			int size = 1 + random.nextInt(20);
+
+			for(int j = 0; j < size; j++){
+				// Categories 4 to 7 are not indexed
+				targetValues.add(random.nextInt(8));
+				weights.add((double)random.nextInt(3));
+			}
+
+			checkVotes(categoryIndex, targetValues, weights);
+		}
+	}
+
+	@Test
+	public void treeVote(){
+		Node scoredNode = new Node()
+			.withScore("b")
+			.withScoreDistributions(new ScoreDistribution("a", 1d), new ScoreDistribution("b", 3d));
+
+		Node unscoredNode = new Node()
+			.withScoreDistributions(new ScoreDistribution("c", 2d));
+
+		TreeModel treeModel = new TreeModel()
+			.withNode(new Node().withNodes(scoredNode, unscoredNode));
+
+		Segmentation segmentation = new Segmentation(MultipleModelMethodType.MAJORITY_VOTE)
+			.withSegments(new Segment().withModel(treeModel));
+
+		DataField dataField = new DataField(new FieldName("y"), OpType.CATEGORICAL, DataType.STRING)
+			.withValues(new Value("d"), new Value("a"));
+
+		VoteAggregator.CategoryIndex categoryIndex = VoteAggregator.CategoryIndex.create(dataField, segmentation);
+
+		assertEquals(4, categoryIndex.size());
+
+		assertEquals(Arrays.<Object>asList("d", "a", "b", "c"), Arrays.asList(categoryIndex.getCategory(0), categoryIndex.getCategory(1), categoryIndex.getCategory(2), categoryIndex.getCategory(3)));
+
+		NodeClassificationMap scoredMap = new NodeClassificationMap(scoredNode);
+
+		// The vote of a scored node is looked up by identity
+		assertEquals(2, categoryIndex.getNodeOrdinal(scoredMap));
+
+		NodeClassificationMap unscoredMap = new NodeClassificationMap(unscoredNode);
+		unscoredMap.put("c", 1d);
+
+		assertEquals(-1, categoryIndex.getNodeOrdinal(unscoredMap));
+
+		List<Object> targetValues = Arrays.<Object>asList(unscoredMap, scoredMap, "a", scoredMap, "e");
+
+		ClassificationMap<Object> map = checkVotes(categoryIndex, targetValues, Collections.nCopies(targetValues.size(), 1d));
+
+		assertEquals(Arrays.<Object>asList("c", "b", "a", "e"), Lists.newArrayList(map.keySet()));
+		assertEquals("b", map.getResult());
+	}
+
+	@Test
+	public void copyToOnRead(){
+		VoteAggregator aggregator = new VoteAggregator(new VoteAggregator.CategoryIndex(Arrays.asList("a", "b")));
+		aggregator.add("b", 1d);
+		aggregator.add("a", 3d);
+
+		DefaultClassificationMap<Object> map = new DefaultClassificationMap<Object>();
+
+		aggregator.copyToOnRead(map, true);
+
+		assertEquals(0.75d, map.getProbability("a"), 1e-12);
+		assertEquals(Arrays.<Object>asList("b", "a"), Lists.newArrayList(map.keySet()));
+
+		map = new DefaultClassificationMap<Object>();
+
+		aggregator.copyToOnRead(map, true);
+
+		// Entries that are put before the first read are kept
+		map.put("c", 0d);
+
+		assertEquals(Arrays.<Object>asList("b", "a", "c"), Lists.newArrayList(map.keySet()));
+		assertEquals("a", map.getResult());
+	}
+
+	static
+	private ClassificationMap<Object> checkVotes(VoteAggregator.CategoryIndex categoryIndex, List<Object> targetValues, List<Double> weights){
+		VoteCounter<Object> counter = new VoteCounter<Object>();
+
+		VoteAggregator aggregator = new VoteAggregator(categoryIndex);
+
+		for(int i = 0; i < targetValues.size(); i++){
+			counter.increment(EvaluatorUtil.decode(targetValues.get(i)), weights.get(i));
+
+			aggregator.add(targetValues.get(i), weights.get(i));
+		}
+
+		ClassificationMap<Object> expected = new ClassificationMap<Object>(ClassificationMap.Type.VOTE);
+		expected.putAll(counter);
+
+		ClassificationMap<Object> actual = new ClassificationMap<Object>(ClassificationMap.Type.VOTE);
+
+		aggregator.copyTo(actual, false);
+
+		assertEquals(Lists.newArrayList(expected.entrySet()), Lists.newArrayList(actual.entrySet()));
+		assertEquals(expected.getResult(), actual.getResult());
+		assertEquals(Iterables.getFirst(counter.getWinners(), null), actual.getResult());
+
+		DefaultClassificationMap<Object> expectedProbabilities = new DefaultClassificationMap<Object>();
+		expectedProbabilities.putAll(counter);
+		expectedProbabilities.normalizeValues();
+
+		DefaultClassificationMap<Object> actualProbabilities = new DefaultClassificationMap<Object>();
+
+		aggregator.copyToOnRead(actualProbabilities, true);
+
+		assertEquals(Lists.newArrayList(expectedProbabilities.entrySet()), Lists.newArrayList(actualProbabilities.entrySet()));
+
+		return actual;
+	}
+}
\ No newline at end of file
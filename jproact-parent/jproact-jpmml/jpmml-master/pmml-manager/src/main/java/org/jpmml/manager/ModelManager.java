@@ -7,6 +7,7 @@ import java.util.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.cache.*;
 import com.google.common.collect.*;
 
 import static com.google.common.base.Preconditions.*;
@@ -72,57 +73,57 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 	public MiningField getMiningField(FieldName name){
 		MiningSchema miningSchema = getMiningSchema();
 
-		List<MiningField> miningFields = miningSchema.getMiningFields();
+		Map<FieldName, MiningField> miningFields = ModelManager.miningFieldCache.getUnchecked(miningSchema);
 
-		return find(miningFields, name);
+		return miningFields.get(name);
 	}
 
 	public List<FieldName> getMiningFields(FieldUsageType fieldUsageType){
-		List<FieldName> result = Lists.newArrayList();
-
 		MiningSchema miningSchema = getMiningSchema();
 
-		List<MiningField> miningFields = miningSchema.getMiningFields();
-		for(MiningField miningField : miningFields){
-
-			if((miningField.getUsageType()).equals(fieldUsageType)){
-				result.add(miningField.getName());
-			}
-		}
+		ListMultimap<FieldUsageType, FieldName> miningFields = ModelManager.miningFieldUsageCache.getUnchecked(miningSchema);
 
-		return result;
+		return Lists.newArrayList(miningFields.get(fieldUsageType));
 	}
 
 	@Override
 	public OutputField getOutputField(FieldName name){
-		Output output = getOrCreateOutput();
+		Output output = getOutput();
+		if(output == null){
+			return null;
+		}
 
-		List<OutputField> outputFields = output.getOutputFields();
+		Map<FieldName, OutputField> outputFields = ModelManager.outputFieldCache.getUnchecked(output);
 
-		return find(outputFields, name);
+		return outputFields.get(name);
 	}
 
 	@Override
 	public List<FieldName> getOutputFields(){
 		List<FieldName> result = Lists.newArrayList();
 
-		Output output = getOrCreateOutput();
-
-		List<OutputField> outputFields = output.getOutputFields();
-		for(OutputField outputField : outputFields){
-			result.add(outputField.getName());
+		Output output = getOutput();
+		if(output == null){
+			return result;
 		}
 
+		result.addAll(ModelManager.outputFieldNameCache.getUnchecked(output));
+
 		return result;
 	}
 
 	@Override
 	public DerivedField resolveField(FieldName name){
-		LocalTransformations localTransformations = getOrCreateLocalTransformations();
+		LocalTransformations localTransformations = getLocalTransformations();
 
-		List<DerivedField> derivedFields = localTransformations.getDerivedFields();
+		DerivedField derivedField = null;
+
+		if(localTransformations != null){
+			Map<FieldName, DerivedField> derivedFields = ModelManager.derivedFieldCache.getUnchecked(localTransformations);
+
+			derivedField = derivedFields.get(name);
+		} // End if
 
-		DerivedField derivedField = find(derivedFields, name);
 		if(derivedField == null){
 			derivedField = super.resolveField(name);
 		}
@@ -131,16 +132,14 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 	}
 
 	public Target getTarget(FieldName name){
-		Targets targets = getOrCreateTargets();
-
-		for(Target target : targets){
-
-			if((target.getField()).equals(name)){
-				return target;
-			}
+		Targets targets = getTargets();
+		if(targets == null){
+			return null;
 		}
 
-		return null;
+		Map<FieldName, Target> targetMap = ModelManager.targetCache.getUnchecked(targets);
+
+		return targetMap.get(name);
 	}
 
 	public MiningSchema getMiningSchema(){
@@ -149,6 +148,15 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 		return model.getMiningSchema();
 	}
 
+	/**
+	 * @return The LocalTransformations element, or <code>null</code>.
+	 */
+	public LocalTransformations getLocalTransformations(){
+		M model = getModel();
+
+		return model.getLocalTransformations();
+	}
+
 	public LocalTransformations getOrCreateLocalTransformations(){
 		M model = getModel();
 
@@ -162,6 +170,15 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 		return localTransformations;
 	}
 
+	/**
+	 * @return The Output element, or <code>null</code>.
+	 */
+	public Output getOutput(){
+		M model = getModel();
+
+		return model.getOutput();
+	}
+
 	public Output getOrCreateOutput(){
 		M model = getModel();
 
@@ -175,6 +192,15 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 		return output;
 	}
 
+	/**
+	 * @return The Targets element, or <code>null</code>.
+	 */
+	public Targets getTargets(){
+		M model = getModel();
+
+		return model.getTargets();
+	}
+
 	public Targets getOrCreateTargets(){
 		M model = getModel();
 
@@ -187,4 +213,85 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 
 		return targets;
 	}
+
+	private static final LoadingCache<MiningSchema, Map<FieldName, MiningField>> miningFieldCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<MiningSchema, Map<FieldName, MiningField>>(){
+
+			@Override
+			public Map<FieldName, MiningField> load(MiningSchema miningSchema){
+				return index(miningSchema.getMiningFields());
+			}
+		});
+
+	private static final LoadingCache<MiningSchema, ListMultimap<FieldUsageType, FieldName>> miningFieldUsageCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<MiningSchema, ListMultimap<FieldUsageType, FieldName>>(){
+
+			@Override
+			public ListMultimap<FieldUsageType, FieldName> load(MiningSchema miningSchema){
+				ImmutableListMultimap.Builder<FieldUsageType, FieldName> builder = ImmutableListMultimap.builder();
+
+				List<MiningField> miningFields = miningSchema.getMiningFields();
+				for(MiningField miningField : miningFields){
+					builder.put(miningField.getUsageType(), miningField.getName());
+				}
+
+				return builder.build();
+			}
+		});
+
+	private static final LoadingCache<LocalTransformations, Map<FieldName, DerivedField>> derivedFieldCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<LocalTransformations, Map<FieldName, DerivedField>>(){
+
+			@Override
+			public Map<FieldName, DerivedField> load(LocalTransformations localTransformations){
+				return index(localTransformations.getDerivedFields());
+			}
+		});
+
+	private static final LoadingCache<Output, Map<FieldName, OutputField>> outputFieldCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<Output, Map<FieldName, OutputField>>(){
+
+			@Override
+			public Map<FieldName, OutputField> load(Output output){
+				return index(output.getOutputFields());
+			}
+		});
+
+	private static final LoadingCache<Output, List<FieldName>> outputFieldNameCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<Output, List<FieldName>>(){
+
+			@Override
+			public List<FieldName> load(Output output){
+				Map<FieldName, OutputField> outputFields = ModelManager.outputFieldCache.getUnchecked(output);
+
+				return ImmutableList.copyOf(outputFields.keySet());
+			}
+		});
+
+	private static final LoadingCache<Targets, Map<FieldName, Target>> targetCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<Targets, Map<FieldName, Target>>(){
+
+			@Override
+			public Map<FieldName, Target> load(Targets targets){
+				Map<FieldName, Target> result = Maps.newLinkedHashMap();
+
+				for(Target target : targets){
+					FieldName name = target.getField();
+
+					if(name == null || result.containsKey(name)){
+						continue;
+					}
+
+					result.put(name, target);
+				}
+
+				return ImmutableMap.copyOf(result);
+			}
+		});
 }
\ No newline at end of file
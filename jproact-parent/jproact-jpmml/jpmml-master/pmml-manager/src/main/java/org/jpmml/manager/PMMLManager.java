@@ -8,6 +8,7 @@ import java.util.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.cache.*;
 import com.google.common.collect.*;
 
 import static com.google.common.base.Preconditions.*;
@@ -18,6 +19,12 @@ import static com.google.common.base.Preconditions.*;
  * <li><code>getXXX()</code> - Required schema elements. For example {@link #getDataDictionary()}
  * <li><code>getOrCreateXXX()</code> - Optional schema elements. When <code>null</code> then a new element instance is created. For example {@link #getOrCreateTransformationDictionary()}
  * </ul>
+ *
+ * Methods that are called during the evaluation do not modify the PMML class model.
+ * A manager can be shared between threads, provided that the PMML class model is not modified by any other party.
+ *
+ * Fields and functions are resolved using name indexes, which are built on first use and shared between all managers of the PMML class model.
+ * The indexes do not track later modifications to the PMML class model.
  */
 public class PMMLManager implements Serializable {
 
@@ -31,31 +38,31 @@ public class PMMLManager implements Serializable {
 	public DataField getDataField(FieldName name){
 		DataDictionary dataDictionary = getDataDictionary();
 
-		List<DataField> dataFields = dataDictionary.getDataFields();
+		Map<FieldName, DataField> dataFields = PMMLManager.dataFieldCache.getUnchecked(dataDictionary);
 
-		return find(dataFields, name);
+		return dataFields.get(name);
 	}
 
 	public DerivedField resolveField(FieldName name){
-		TransformationDictionary transformationDictionary = getOrCreateTransformationDictionary();
+		TransformationDictionary transformationDictionary = getTransformationDictionary();
+		if(transformationDictionary == null){
+			return null;
+		}
 
-		List<DerivedField> derivedFields = transformationDictionary.getDerivedFields();
+		Map<FieldName, DerivedField> derivedFields = PMMLManager.derivedFieldCache.getUnchecked(transformationDictionary);
 
-		return find(derivedFields, name);
+		return derivedFields.get(name);
 	}
 
 	public DefineFunction resolveFunction(String name){
-		TransformationDictionary transformationDictionary = getOrCreateTransformationDictionary();
-
-		List<DefineFunction> defineFunctions = transformationDictionary.getDefineFunctions();
-		for(DefineFunction defineFunction : defineFunctions){
-
-			if((defineFunction.getName()).equals(name)){
-				return defineFunction;
-			}
+		TransformationDictionary transformationDictionary = getTransformationDictionary();
+		if(transformationDictionary == null){
+			return null;
 		}
 
-		return null;
+		Map<String, DefineFunction> defineFunctions = PMMLManager.defineFunctionCache.getUnchecked(transformationDictionary);
+
+		return defineFunctions.get(name);
 	}
 
 	public PMML getPMML(){
@@ -80,6 +87,15 @@ public class PMMLManager implements Serializable {
 		return pmml.getDataDictionary();
 	}
 
+	/**
+	 * @return The TransformationDictionary element, or <code>null</code>.
+	 */
+	public TransformationDictionary getTransformationDictionary(){
+		PMML pmml = getPMML();
+
+		return pmml.getTransformationDictionary();
+	}
+
 	public TransformationDictionary getOrCreateTransformationDictionary(){
 		PMML pmml = getPMML();
 
@@ -177,4 +193,68 @@ public class PMMLManager implements Serializable {
 
 		return null;
 	}
+
+	/**
+	 * @return An immutable map of objects by name. When several objects have the same name, then the first one is kept.
+	 */
+	static
+	public <E extends PMMLObject & HasName> Map<FieldName, E> index(Collection<E> objects){
+		Map<FieldName, E> result = Maps.newLinkedHashMap();
+
+		for(E object : objects){
+			FieldName name = object.getName();
+
+			// The name is optional in some contexts
+			if(name == null || result.containsKey(name)){
+				continue;
+			}
+
+			result.put(name, object);
+		}
+
+		return ImmutableMap.copyOf(result);
+	}
+
+	private static final LoadingCache<DataDictionary, Map<FieldName, DataField>> dataFieldCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<DataDictionary, Map<FieldName, DataField>>(){
+
+			@Override
+			public Map<FieldName, DataField> load(DataDictionary dataDictionary){
+				return index(dataDictionary.getDataFields());
+			}
+		});
+
+	private static final LoadingCache<TransformationDictionary, Map<FieldName, DerivedField>> derivedFieldCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<TransformationDictionary, Map<FieldName, DerivedField>>(){
+
+			@Override
+			public Map<FieldName, DerivedField> load(TransformationDictionary transformationDictionary){
+				return index(transformationDictionary.getDerivedFields());
+			}
+		});
+
+	private static final LoadingCache<TransformationDictionary, Map<String, DefineFunction>> defineFunctionCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<TransformationDictionary, Map<String, DefineFunction>>(){
+
+			@Override
+			public Map<String, DefineFunction> load(TransformationDictionary transformationDictionary){
+				Map<String, DefineFunction> result = Maps.newLinkedHashMap();
+
+				List<DefineFunction> defineFunctions = transformationDictionary.getDefineFunctions();
+				for(DefineFunction defineFunction : defineFunctions){
+					String name = defineFunction.getName();
+
+					if(name == null || result.containsKey(name)){
+						continue;
+					}
+
+					result.put(name, defineFunction);
+				}
+
+				return ImmutableMap.copyOf(result);
+			}
+		});
 }
\ No newline at end of file
@@ -5,7 +5,7 @@ package org.dmg.pmml;
 
 import java.io.*;
 import java.lang.ref.*;
-import java.util.*;
+import java.util.concurrent.*;
 
 final
 public class FieldName implements Serializable {
@@ -65,21 +65,40 @@ public class FieldName implements Serializable {
 		return unmarshal(value);
 	}
 
+	/**
+	 * Interns the name. The interning is lock-free, and it is safe to call from multiple threads.
+	 */
 	static
 	FieldName unmarshal(String value){
-		FieldName name = new FieldName(value);
-
-		WeakReference<FieldName> reference = FieldName.cache.get(name);
-		if(reference != null){
-			FieldName cachedName = reference.get();
-			if(cachedName != null){
-				return cachedName;
+		expungeStaleReferences();
+
+		while(true){
+			NameReference reference = FieldName.cache.get(value);
+			if(reference != null){
+				FieldName cachedName = reference.get();
+				if(cachedName != null){
+					return cachedName;
+				}
 			}
-		}
 
-		FieldName.cache.put(name, new WeakReference<FieldName>(name));
+			FieldName name = new FieldName(value);
+
+			NameReference nameReference = new NameReference(name, FieldName.queue);
+
+			boolean success;
 
-		return name;
+			if(reference == null){
+				success = (FieldName.cache.putIfAbsent(value, nameReference) == null);
+			} else
+
+			{
+				success = FieldName.cache.replace(value, reference, nameReference);
+			} // End if
+
+			if(success){
+				return name;
+			}
+		}
 	}
 
 	static
@@ -93,5 +112,37 @@ public class FieldName implements Serializable {
 		return name.getValue();
 	}
 
-	private static final Map<FieldName, WeakReference<FieldName>> cache = new WeakHashMap<FieldName, WeakReference<FieldName>>();
+	static
+	private void expungeStaleReferences(){
+
+		while(true){
+			NameReference reference = (NameReference)FieldName.queue.poll();
+			if(reference == null){
+				break;
+			}
+
+			FieldName.cache.remove(reference.getValue(), reference);
+		}
+	}
+
+	static
+	private class NameReference extends WeakReference<FieldName> {
+
+		private String value = null;
+
+
+		public NameReference(FieldName name, ReferenceQueue<FieldName> queue){
+			super(name, queue);
+
+			this.value = name.getValue();
+		}
+
+		public String getValue(){
+			return this.value;
+		}
+	}
+
+	private static final ConcurrentMap<String, NameReference> cache = new ConcurrentHashMap<String, NameReference>();
+
+	private static final ReferenceQueue<FieldName> queue = new ReferenceQueue<FieldName>();
 }
\ No newline at end of file
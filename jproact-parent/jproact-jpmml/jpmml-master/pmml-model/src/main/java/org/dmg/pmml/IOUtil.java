@@ -79,15 +79,28 @@ public class IOUtil {
 		marshaller.marshal(pmml, result);
 	}
 
+	/**
+	 * The context is initialized lazily. A {@link JAXBContext} is thread-safe, and it is shared between all threads.
+	 */
 	static
 	private JAXBContext getJAXBContext() throws JAXBException {
+		JAXBContext jaxbCtx = IOUtil.jaxbCtx;
 
-		if(IOUtil.jaxbCtx == null){
-			IOUtil.jaxbCtx = JAXBContext.newInstance(ObjectFactory.class);
+		if(jaxbCtx == null){
+
+			synchronized(IOUtil.class){
+				jaxbCtx = IOUtil.jaxbCtx;
+
+				if(jaxbCtx == null){
+					jaxbCtx = JAXBContext.newInstance(ObjectFactory.class);
+
+					IOUtil.jaxbCtx = jaxbCtx;
+				}
+			}
 		}
 
-		return IOUtil.jaxbCtx;
+		return jaxbCtx;
 	}
 
-	private static JAXBContext jaxbCtx = null;
+	private static volatile JAXBContext jaxbCtx = null;
 }
\ No newline at end of file
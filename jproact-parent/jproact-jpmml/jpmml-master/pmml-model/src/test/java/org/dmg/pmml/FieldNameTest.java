@@ -3,6 +3,9 @@
  */
 package org.dmg.pmml;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 import org.junit.*;
 
 import static org.junit.Assert.*;
@@ -14,6 +17,35 @@ public class FieldNameTest {
 		assertSame(FieldName.create("x"), FieldName.create("x"));
 	}
 
+	@Test
+	public void createConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			List<Callable<FieldName>> tasks = new ArrayList<Callable<FieldName>>();
+
+			for(int i = 0; i < 16; i++){
+				tasks.add(new Callable<FieldName>(){
+
+					@Override
+					public FieldName call(){
+						return FieldName.create("y");
+					}
+				});
+			}
+
+			List<Future<FieldName>> results = executor.invokeAll(tasks);
+
+			FieldName name = FieldName.create("y");
+
+			for(Future<FieldName> result : results){
+				assertSame(name, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void serialization() throws Exception {
 		FieldName name = FieldName.create("x");